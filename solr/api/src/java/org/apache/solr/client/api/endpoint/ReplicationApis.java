@@ -76,6 +76,12 @@ public interface ReplicationApis {
           @QueryParam("offset")
           String offset,
       @Parameter(required = false) @QueryParam("len") String len,
+      @Parameter(
+              description =
+                  "Exclusive end offset of the range of the file to stream. Defaults to the end of the file",
+              required = false)
+          @QueryParam("endOffset")
+          String endOffset,
       @Parameter(description = "Compress file output", required = false)
           @QueryParam("compression")
           @DefaultValue("false")
@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.javabin;
+
+import static org.apache.solr.bench.Docs.docs;
+import static org.apache.solr.bench.generators.SourceDSL.booleans;
+import static org.apache.solr.bench.generators.SourceDSL.dates;
+import static org.apache.solr.bench.generators.SourceDSL.doubles;
+import static org.apache.solr.bench.generators.SourceDSL.integers;
+import static org.apache.solr.bench.generators.SourceDSL.lists;
+import static org.apache.solr.bench.generators.SourceDSL.longs;
+import static org.apache.solr.bench.generators.SourceDSL.strings;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.solr.bench.Docs;
+import org.apache.solr.client.solrj.response.FastStreamingDocsCallback;
+import org.apache.solr.client.solrj.response.StreamingJavaBinResponseParser;
+import org.apache.solr.client.solrj.response.StreamingResponseCallback;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.util.DataEntry;
+import org.apache.solr.common.util.FastJavaBinDecoder;
+import org.apache.solr.common.util.JavaBinCodec;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.apache.solr.common.util.StringBytes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark for writing and reading query responses with the javabin codecs, without any network
+ * or search involved. Run with {@code -prof gc} to see the allocation rate next to the throughput.
+ */
+@Fork(value = 1)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(time = 2, iterations = 2)
+@Measurement(time = 5, iterations = 5)
+@Threads(value = 1)
+public class JavaBinCodecs {
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    @Param({"10", "100", "1000"})
+    int rows;
+
+    private NamedList<Object> response;
+    private byte[] responseBytes;
+
+    private final Map<StringBytes, String> cache = new ConcurrentHashMap<>();
+    private final JavaBinCodec.StringCache stringCache =
+        new JavaBinCodec.StringCache() {
+          @Override
+          protected String getFromCache(StringBytes b) {
+            return cache.get(b);
+          }
+
+          @Override
+          protected void putIntoCache(StringBytes b, String val) {
+            cache.put(b, val);
+          }
+        };
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+      Docs docs =
+          docs()
+              .field("id", integers().incrementing())
+              .field(strings().basicLatinAlphabet().ofLengthBetween(10, 64))
+              .field(strings().basicLatinAlphabet().ofLengthBetween(10, 64))
+              .field(
+                  "cat_ss",
+                  lists()
+                      .of(strings().basicLatinAlphabet().ofLengthBetween(4, 16))
+                      .ofSizeBetween(1, 8))
+              .field(integers().all())
+              .field(longs().all())
+              .field(doubles().all())
+              .field(booleans().all())
+              .field(dates().all());
+
+      SolrDocumentList docList = new SolrDocumentList();
+      for (int i = 0; i < rows; i++) {
+        docList.add(docs.document());
+      }
+      docList.setNumFound(rows);
+      docList.setStart(0);
+
+      SimpleOrderedMap<Object> header = new SimpleOrderedMap<>();
+      header.add("status", 0);
+      header.add("QTime", 1);
+      response = new SimpleOrderedMap<>();
+      response.add("responseHeader", header);
+      response.add("response", docList);
+
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      try (JavaBinCodec codec = new JavaBinCodec()) {
+        codec.marshal(response, baos);
+      }
+      responseBytes = baos.toByteArray();
+    }
+  }
+
+  @Benchmark
+  public long encode(BenchState state) throws IOException {
+    try (JavaBinCodec codec = new JavaBinCodec()) {
+      codec.marshal(state.response, NullOutputStream.INSTANCE);
+      return codec.getTotalBytesWritten();
+    }
+  }
+
+  @Benchmark
+  public Object decode(BenchState state) throws IOException {
+    try (JavaBinCodec codec = new JavaBinCodec()) {
+      return codec.unmarshal(new ByteArrayInputStream(state.responseBytes));
+    }
+  }
+
+  @Benchmark
+  public Object decodeFromArray(BenchState state) throws IOException {
+    try (JavaBinCodec codec = new JavaBinCodec()) {
+      return codec.unmarshal(state.responseBytes);
+    }
+  }
+
+  @Benchmark
+  public Object decodeWithStringCache(BenchState state) throws IOException {
+    try (JavaBinCodec codec = new JavaBinCodec(null, state.stringCache)) {
+      return codec.unmarshal(new ByteArrayInputStream(state.responseBytes));
+    }
+  }
+
+  @Benchmark
+  public Object decodeAsCharSeq(BenchState state) throws IOException {
+    try (JavaBinCodec codec = new JavaBinCodec().setReadStringAsCharSeq(true)) {
+      return codec.unmarshal(state.responseBytes);
+    }
+  }
+
+  /** What a distributed search aggregator does: read every document, but only look at its id */
+  @Benchmark
+  public void decodeLazilyReadIds(BenchState state, Blackhole bh) throws IOException {
+    try (JavaBinCodec codec = new JavaBinCodec().setReadDocumentsLazily(true)) {
+      @SuppressWarnings("unchecked")
+      NamedList<Object> rsp =
+          (NamedList<Object>) codec.unmarshal(new ByteArrayInputStream(state.responseBytes));
+      for (SolrDocument doc : (SolrDocumentList) rsp.get("response")) {
+        bh.consume(doc.getFieldValue("id"));
+      }
+    }
+  }
+
+  @Benchmark
+  public Object fastDecode(BenchState state) throws IOException {
+    return new FastJavaBinDecoder()
+        .withInputStream(new ByteArrayInputStream(state.responseBytes))
+        .decode(FastJavaBinDecoder.getEntryListener());
+  }
+
+  @Benchmark
+  public void streamingDecode(BenchState state, Blackhole bh) throws IOException {
+    new StreamingJavaBinResponseParser(
+            new StreamingResponseCallback() {
+              @Override
+              public void streamSolrDocument(SolrDocument doc) {
+                bh.consume(doc);
+              }
+
+              @Override
+              public void streamDocListInfo(long numFound, long start, Float maxScore) {
+                bh.consume(numFound);
+              }
+            })
+        .processResponse(new ByteArrayInputStream(state.responseBytes), null);
+  }
+
+  @Benchmark
+  public void fastStreamingDecode(BenchState state, Blackhole bh) throws IOException {
+    new StreamingJavaBinResponseParser(
+            new FastStreamingDocsCallback() {
+              @Override
+              public Object startDoc(Object docListObj) {
+                return null;
+              }
+
+              @Override
+              public void field(DataEntry field, Object docObj) {
+                bh.consume(field.val());
+              }
+            })
+        .processResponse(new ByteArrayInputStream(state.responseBytes), null);
+  }
+}
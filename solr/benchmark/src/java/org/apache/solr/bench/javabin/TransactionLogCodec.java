@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.javabin;
+
+import static org.apache.solr.bench.Docs.docs;
+import static org.apache.solr.bench.generators.SourceDSL.integers;
+import static org.apache.solr.bench.generators.SourceDSL.lists;
+import static org.apache.solr.bench.generators.SourceDSL.longs;
+import static org.apache.solr.bench.generators.SourceDSL.strings;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.lucene.util.IOUtils;
+import org.apache.solr.bench.Docs;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.update.AddUpdateCommand;
+import org.apache.solr.update.TransactionLog;
+import org.apache.solr.update.UpdateLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark for the javabin codec of the transaction log: appending add commands, replaying a log
+ * and looking up single records as real-time get does. Appends go to a discarding stream so that
+ * only the encoding is measured, not the disk. Run with {@code -prof gc} to see the allocation
+ * rate next to the throughput.
+ */
+@Fork(value = 1)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(time = 2, iterations = 2)
+@Measurement(time = 5, iterations = 5)
+@Threads(value = 1)
+public class TransactionLogCodec {
+
+  /** Gives access to the stream openers of {@link TransactionLog} */
+  static class BenchTransactionLog extends TransactionLog {
+
+    private BenchTransactionLog(Path tlogFile, OutputStreamOpener outputStreamOpener) {
+      super(tlogFile, List.of(), false, outputStreamOpener, CHANNEL_INPUT_STREAM_OPENER);
+    }
+
+    static BenchTransactionLog onDisk(Path tlogFile) {
+      return new BenchTransactionLog(tlogFile, OUTPUT_STREAM_OPENER);
+    }
+
+    static BenchTransactionLog discarding(Path tlogFile) {
+      return new BenchTransactionLog(tlogFile, (channel, position) -> NullOutputStream.INSTANCE);
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    /** Whether replay and lookups read through a memory mapping of the capped log */
+    @Param({"false", "true"})
+    boolean mapped;
+
+    private final int docCount = 10000;
+
+    private Path dir;
+    private Iterator<SolrInputDocument> docIterator;
+    private TransactionLog appendLog;
+    private TransactionLog readLog;
+    private long[] positions;
+    private int lookupIdx;
+    private long version;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+      Docs docs =
+          docs()
+              .field("id", integers().incrementing())
+              .field(strings().basicLatinAlphabet().ofLengthBetween(10, 64))
+              .field(strings().basicLatinAlphabet().ofLengthBetween(10, 64))
+              .field(
+                  "cat_ss",
+                  lists()
+                      .of(strings().basicLatinAlphabet().ofLengthBetween(4, 16))
+                      .ofSizeBetween(1, 8))
+              .field(integers().all())
+              .field(longs().all());
+      docs.preGenerate(docCount);
+      docIterator = docs.generatedDocsCircularIterator();
+
+      dir = Files.createTempDirectory("bench-tlog").toAbsolutePath();
+      appendLog = BenchTransactionLog.discarding(dir.resolve("tlog.0000000000000000001"));
+      readLog = BenchTransactionLog.onDisk(dir.resolve("tlog.0000000000000000002"));
+
+      positions = new long[docCount];
+      for (int i = 0; i < docCount; i++) {
+        positions[i] = readLog.write(addCommand(docIterator.next()));
+      }
+      readLog.finish(UpdateLog.SyncLevel.FLUSH);
+      if (mapped && !readLog.mapForReads()) {
+        throw new IllegalStateException("Could not map " + readLog);
+      }
+    }
+
+    private AddUpdateCommand addCommand(SolrInputDocument doc) {
+      AddUpdateCommand cmd = new AddUpdateCommand(null);
+      cmd.solrDoc = doc;
+      cmd.setVersion(++version);
+      return cmd;
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws IOException {
+      appendLog.decref();
+      readLog.decref();
+      IOUtils.rm(dir);
+    }
+  }
+
+  @Benchmark
+  public long append(BenchState state) {
+    return state.appendLog.write(state.addCommand(state.docIterator.next()));
+  }
+
+  @Benchmark
+  public void replay(BenchState state, Blackhole bh) throws Exception {
+    TransactionLog.LogReader reader = state.readLog.getReader(0);
+    try {
+      Object o;
+      while ((o = reader.next()) != null) {
+        bh.consume(o);
+      }
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Benchmark
+  public Object lookup(BenchState state) {
+    int idx = state.lookupIdx++;
+    if (state.lookupIdx == state.positions.length) {
+      state.lookupIdx = 0;
+    }
+    return state.readLog.lookup(state.positions[idx]);
+  }
+}
@@ -296,6 +296,13 @@ public class SolrConfig implements MapWriter {
       queryResultMaxDocsCached =
           get("query").get("queryResultMaxDocsCached").intVal(Integer.MAX_VALUE);
       enableLazyFieldLoading = get("query").get("enableLazyFieldLoading").boolVal(false);
+      parallelDocSetMinDocs = get("query").get("parallelDocSetMinDocs").intVal(-1);
+
+      ConfigNode segmentQueryCache = get("query").get("segmentQueryCache");
+      segmentQueryCacheSize =
+          segmentQueryCache.exists() ? segmentQueryCache.intAttr("size", 1000) : 0;
+      segmentQueryCacheMaxRamMB = segmentQueryCache.intAttr("maxRamMB", 64);
+      segmentQueryCacheMinSegmentDocs = segmentQueryCache.intAttr("minSegmentDocs", 10000);
 
       filterCacheConfig =
           CacheConfig.getConfig(this, get("query").get("filterCache"), "query/filterCache");
@@ -666,6 +673,24 @@ public class SolrConfig implements MapWriter {
   public final int queryResultMaxDocsCached;
   public final boolean enableLazyFieldLoading;
 
+  /**
+   * Minimum index size (maxDoc) for filter DocSets to be built concurrently, one slice of segments
+   * per task on the searcher's executor. -1 (the default) disables concurrent DocSet building.
+   */
+  public final int parallelDocSetMinDocs;
+
+  /**
+   * Maximum number of queries whose per-segment matches are cached by the segment query cache,
+   * which is shared by all searchers of a core so that entries of unchanged segments survive
+   * reopens. 0 (the default, when {@code <segmentQueryCache>} is absent) disables it.
+   */
+  public final int segmentQueryCacheSize;
+
+  public final int segmentQueryCacheMaxRamMB;
+
+  /** Segments with fewer documents than this are not cached by the segment query cache. */
+  public final int segmentQueryCacheMinSegmentDocs;
+
   // IndexConfig settings
   public final SolrIndexConfig indexConfig;
 
@@ -962,6 +987,18 @@ public class SolrConfig implements MapWriter {
               m.put("queryResultWindowSize", queryResultWindowSize);
               m.put("queryResultMaxDocsCached", queryResultMaxDocsCached);
               m.put("enableLazyFieldLoading", enableLazyFieldLoading);
+              m.put("parallelDocSetMinDocs", parallelDocSetMinDocs);
+              if (segmentQueryCacheSize > 0) {
+                m.put(
+                    "segmentQueryCache",
+                    Map.of(
+                        "size",
+                        segmentQueryCacheSize,
+                        "maxRamMB",
+                        segmentQueryCacheMaxRamMB,
+                        "minSegmentDocs",
+                        segmentQueryCacheMinSegmentDocs));
+              }
               m.put("maxBooleanClauses", booleanQueryMaxClauseCount);
               m.put(MIN_PREFIX_QUERY_TERM_LENGTH, prefixQueryMinPrefixLength);
 
@@ -25,6 +25,7 @@ import static org.apache.solr.metrics.SolrCoreMetricManager.SHARD_ATTR;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.ObservableLongMeasurement;
 import java.io.Closeable;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -76,6 +77,9 @@ import org.apache.lucene.index.IndexDeletionPolicy;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.LRUQueryCache;
+import org.apache.lucene.search.QueryCachingPolicy;
+import org.apache.lucene.search.UsageTrackingQueryCachingPolicy;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
@@ -235,6 +239,10 @@ public class SolrCore implements SolrInfoBean, Closeable {
   private final ConfigSet configSet;
   private final Cache<IndexReader.CacheKey, IndexFingerprint> perSegmentFingerprintCache =
       Caffeine.newBuilder().weakKeys().build();
+  // matches of non-scoring queries per segment core, shared by the searchers of this core
+  private final LRUQueryCache segmentQueryCache;
+  private final QueryCachingPolicy segmentQueryCachingPolicy =
+      new UsageTrackingQueryCachingPolicy();
   // singleton listener for all packages used in schema
 
   private final CircuitBreakerRegistry circuitBreakerRegistry;
@@ -325,6 +333,32 @@ public class SolrCore implements SolrInfoBean, Closeable {
     return solrConfig;
   }
 
+  /**
+   * Returns the cache of the matches of non-scoring queries per segment, shared by all searchers of
+   * this core, or null if no {@code <segmentQueryCache>} is configured. Entries are keyed by segment
+   * core, so a new searcher only computes the matches of its new segments.
+   */
+  public LRUQueryCache getSegmentQueryCache() {
+    return segmentQueryCache;
+  }
+
+  /** Returns the policy deciding which queries are cached by {@link #getSegmentQueryCache()}. */
+  public QueryCachingPolicy getSegmentQueryCachingPolicy() {
+    return segmentQueryCachingPolicy;
+  }
+
+  private static LRUQueryCache initSegmentQueryCache(SolrConfig config) {
+    if (config.segmentQueryCacheSize <= 0) {
+      return null;
+    }
+    final int minSegmentDocs = config.segmentQueryCacheMinSegmentDocs;
+    return new LRUQueryCache(
+        config.segmentQueryCacheSize,
+        config.segmentQueryCacheMaxRamMB * 1024L * 1024L,
+        ctx -> ctx.reader().maxDoc() >= minSegmentDocs,
+        10);
+  }
+
   /**
    * Gets the schema resource name used by this core instance.
    *
@@ -1085,6 +1119,7 @@ public class SolrCore implements SolrInfoBean, Closeable {
 
       this.solrConfig = configSet.getSolrConfig();
       this.resourceLoader = configSet.getSolrConfig().getResourceLoader();
+      this.segmentQueryCache = initSegmentQueryCache(solrConfig);
       this.resourceLoader.setSolrCore(this);
       IndexSchema schema = configSet.getIndexSchema();
 
@@ -1412,6 +1447,38 @@ public class SolrCore implements SolrInfoBean, Closeable {
             observableLongMeasurement.record(getSegmentCount(), baseGaugeCoreAttributes);
         }));
 
+    if (segmentQueryCache != null)
+      parentContext.observableLongGauge(
+          "solr.core.segment_query_cache",
+          "Segment query cache statistics",
+          (observableLongMeasurement -> {
+            recordSegmentQueryCacheStat(
+                observableLongMeasurement,
+                baseSearcherAttributes,
+                "hits",
+                segmentQueryCache.getHitCount());
+            recordSegmentQueryCacheStat(
+                observableLongMeasurement,
+                baseSearcherAttributes,
+                "misses",
+                segmentQueryCache.getMissCount());
+            recordSegmentQueryCacheStat(
+                observableLongMeasurement,
+                baseSearcherAttributes,
+                "evictions",
+                segmentQueryCache.getEvictionCount());
+            recordSegmentQueryCacheStat(
+                observableLongMeasurement,
+                baseSearcherAttributes,
+                "size",
+                segmentQueryCache.getCacheSize());
+            recordSegmentQueryCacheStat(
+                observableLongMeasurement,
+                baseSearcherAttributes,
+                "ram_bytes",
+                segmentQueryCache.ramBytesUsed());
+          }));
+
     if (coreContainer.isZooKeeperAware())
       parentContext.observableLongGauge(
           "solr.core.is_leader",
@@ -1422,6 +1489,11 @@ public class SolrCore implements SolrInfoBean, Closeable {
           }));
   }
 
+  private static void recordSegmentQueryCacheStat(
+      ObservableLongMeasurement measurement, Attributes attributes, String type, long value) {
+    measurement.record(value, attributes.toBuilder().put(TYPE_ATTR, type).build());
+  }
+
   public String getMetricTag() {
     return metricTag;
   }
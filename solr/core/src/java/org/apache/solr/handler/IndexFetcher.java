@@ -27,11 +27,14 @@ import static org.apache.solr.handler.ReplicationHandler.COMMAND;
 import static org.apache.solr.handler.ReplicationHandler.CONF_FILES;
 import static org.apache.solr.handler.ReplicationHandler.FETCH_FROM_LEADER;
 import static org.apache.solr.handler.ReplicationHandler.LEADER_URL;
+import static org.apache.solr.handler.ReplicationHandler.MAX_PARALLEL_DOWNLOADS;
+import static org.apache.solr.handler.ReplicationHandler.RANGE_DOWNLOAD_SIZE_MB;
 import static org.apache.solr.handler.ReplicationHandler.SIZE;
 import static org.apache.solr.handler.ReplicationHandler.SKIP_COMMIT_ON_LEADER_VERSION_ZERO;
 import static org.apache.solr.handler.admin.api.ReplicationAPIBase.CHECKSUM;
 import static org.apache.solr.handler.admin.api.ReplicationAPIBase.COMPRESSION;
 import static org.apache.solr.handler.admin.api.ReplicationAPIBase.CONF_FILE_SHORT;
+import static org.apache.solr.handler.admin.api.ReplicationAPIBase.END_OFFSET;
 import static org.apache.solr.handler.admin.api.ReplicationAPIBase.FILE;
 import static org.apache.solr.handler.admin.api.ReplicationAPIBase.FILE_STREAM;
 import static org.apache.solr.handler.admin.api.ReplicationAPIBase.GENERATION;
@@ -52,6 +55,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -65,11 +69,16 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
 import java.util.zip.Adler32;
@@ -102,6 +111,7 @@ import org.apache.solr.common.cloud.Replica;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.EnvUtils;
 import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.FastInputStream;
 import org.apache.solr.common.util.IOUtils;
@@ -163,7 +173,7 @@ public class IndexFetcher {
 
   private volatile Map<String, Object> currentFile;
 
-  private volatile DirectoryFileFetcher dirFileFetcher;
+  private volatile FileFetcher dirFileFetcher;
 
   private volatile LocalFsFileFetcher localFileFetcher;
 
@@ -183,6 +193,10 @@ public class IndexFetcher {
 
   private boolean skipCommitOnLeaderVersionZero = true;
 
+  private final int maxParallelDownloads;
+
+  private final long rangeDownloadBytes;
+
   private static final String INTERRUPT_RESPONSE_MESSAGE =
       "Interrupted while waiting for modify lock";
 
@@ -283,6 +297,20 @@ public class IndexFetcher {
     useInternalCompression = ReplicationHandler.INTERNAL.equals(compress);
     useExternalCompression = ReplicationHandler.EXTERNAL.equals(compress);
     soTimeout = getParameter(initArgs, SolrHttpConstants.PROP_SO_TIMEOUT, 120000, null);
+    maxParallelDownloads =
+        Math.max(
+            1,
+            getIntParameter(
+                initArgs,
+                MAX_PARALLEL_DOWNLOADS,
+                EnvUtils.getPropertyAsInteger("solr.replication.maxparalleldownloads", 1)));
+    int rangeDownloadSizeMB =
+        getIntParameter(
+            initArgs,
+            RANGE_DOWNLOAD_SIZE_MB,
+            EnvUtils.getPropertyAsInteger("solr.replication.rangedownloadsizemb", 64));
+    rangeDownloadBytes =
+        rangeDownloadSizeMB <= 0 ? Long.MAX_VALUE : rangeDownloadSizeMB * 1024L * 1024L;
 
     String httpBasicAuthUser = (String) initArgs.get(SolrHttpConstants.PROP_BASIC_AUTH_USER);
     String httpBasicAuthPassword = (String) initArgs.get(SolrHttpConstants.PROP_BASIC_AUTH_PASS);
@@ -338,6 +366,17 @@ public class IndexFetcher {
     return toReturn;
   }
 
+  /** Reads an integer parameter that may be configured as a number or passed as a string */
+  private static int getIntParameter(NamedList<?> initArgs, String configKey, int defaultValue) {
+    Object value = initArgs.get(configKey);
+    if (value == null) {
+      return defaultValue;
+    }
+    return value instanceof Number number
+        ? number.intValue()
+        : Integer.parseInt(value.toString().trim());
+  }
+
   private GenericSolrRequest createReplicationHandlerRequest(SolrParams solrParams) {
     return new GenericSolrRequest(
             SolrRequest.METHOD.GET,
@@ -1120,52 +1159,69 @@ public class IndexFetcher {
           tmpIndexDir.getClass(),
           FilterDirectory.unwrap(tmpIndexDir));
     }
-
-    for (Map<String, Object> file : filesToDownload) {
-      String filename = (String) file.get(NAME);
-      long size = (Long) file.get(SIZE);
-      CompareResult compareResult =
-          compareFile(indexDir, filename, size, (Long) file.get(CHECKSUM));
-      boolean alwaysDownload = filesToAlwaysDownloadIfNoChecksums(filename, size, compareResult);
-      if (log.isDebugEnabled()) {
-        log.debug(
-            "Downloading file={} size={} checksum={} alwaysDownload={}",
-            filename,
-            size,
-            file.get(CHECKSUM),
-            alwaysDownload);
-      }
-      if (!compareResult.equal || downloadCompleteIndex || alwaysDownload) {
-        Path localFile = Path.of(indexDirPath, filename);
-        if (downloadCompleteIndex
-            && doDifferentialCopy
-            && compareResult.equal
-            && compareResult.checkSummed
-            && Files.exists(localFile)) {
-          if (log.isInfoEnabled()) {
-            log.info(
-                "Don't need to download this file. Local file's path is: {}, checksum is: {}",
-                localFile.toAbsolutePath(),
-                file.get(CHECKSUM));
+    // large files are downloaded in ranges written concurrently to the file, which needs a file
+    // system directory
+    Path rangeDir =
+        FilterDirectory.unwrap(tmpIndexDir) instanceof FSDirectory
+            ? Path.of(tmpIndexDirPath)
+            : null;
+
+    try (ParallelDownloads parallelDownloads =
+        maxParallelDownloads > 1 ? new ParallelDownloads(maxParallelDownloads) : null) {
+      for (Map<String, Object> file : filesToDownload) {
+        String filename = (String) file.get(NAME);
+        long size = (Long) file.get(SIZE);
+        CompareResult compareResult =
+            compareFile(indexDir, filename, size, (Long) file.get(CHECKSUM));
+        boolean alwaysDownload = filesToAlwaysDownloadIfNoChecksums(filename, size, compareResult);
+        if (log.isDebugEnabled()) {
+          log.debug(
+              "Downloading file={} size={} checksum={} alwaysDownload={}",
+              filename,
+              size,
+              file.get(CHECKSUM),
+              alwaysDownload);
+        }
+        if (!compareResult.equal || downloadCompleteIndex || alwaysDownload) {
+          Path localFile = Path.of(indexDirPath, filename);
+          if (downloadCompleteIndex
+              && doDifferentialCopy
+              && compareResult.equal
+              && compareResult.checkSummed
+              && Files.exists(localFile)) {
+            if (log.isInfoEnabled()) {
+              log.info(
+                  "Don't need to download this file. Local file's path is: {}, checksum is: {}",
+                  localFile.toAbsolutePath(),
+                  file.get(CHECKSUM));
+            }
+            // A hard link here should survive the eventual directory move, and should be more
+            // space efficient as compared to a file copy. TODO: Maybe we could do a move safely
+            // here?
+            Files.createLink(Path.of(tmpIndexDirPath, filename), localFile);
+            bytesSkippedCopying += Files.size(localFile);
+          } else if (parallelDownloads != null) {
+            // added to the downloaded files once all of its ranges are downloaded
+            parallelDownloads.submit(file, tmpIndexDir, rangeDir, latestGeneration);
+            continue;
+          } else {
+            dirFileFetcher =
+                new DirectoryFileFetcher(
+                    tmpIndexDir, file, (String) file.get(NAME), FILE, latestGeneration);
+            currentFile = file;
+            dirFileFetcher.fetchFile();
+            bytesDownloaded += dirFileFetcher.getBytesDownloaded();
           }
-          // A hard link here should survive the eventual directory move, and should be more space
-          // efficient as compared to a file copy. TODO: Maybe we could do a move safely here?
-          Files.createLink(Path.of(tmpIndexDirPath, filename), localFile);
-          bytesSkippedCopying += Files.size(localFile);
+          filesDownloaded.add(new HashMap<>(file));
         } else {
-          dirFileFetcher =
-              new DirectoryFileFetcher(
-                  tmpIndexDir, file, (String) file.get(NAME), FILE, latestGeneration);
-          currentFile = file;
-          dirFileFetcher.fetchFile();
-          bytesDownloaded += dirFileFetcher.getBytesDownloaded();
-        }
-        filesDownloaded.add(new HashMap<>(file));
-      } else {
-        if (log.isDebugEnabled()) {
-          log.debug("Skipping download for {} because it already exists", file.get(NAME));
+          if (log.isDebugEnabled()) {
+            log.debug("Skipping download for {} because it already exists", file.get(NAME));
+          }
         }
       }
+      if (parallelDownloads != null) {
+        bytesDownloaded += parallelDownloads.await();
+      }
     }
     log.info(
         "Bytes downloaded: {}, Bytes skipped downloading: {}",
@@ -1512,7 +1568,7 @@ public class IndexFetcher {
   // TODO: currently does not reflect conf files
   Map<String, Object> getCurrentFile() {
     Map<String, Object> tmp = currentFile;
-    DirectoryFileFetcher tmpFileFetcher = dirFileFetcher;
+    FileFetcher tmpFileFetcher = dirFileFetcher;
     if (tmp == null) return null;
     tmp = new HashMap<>(tmp);
     if (tmpFileFetcher != null) tmp.put("bytesDownloaded", tmpFileFetcher.getBytesDownloaded());
@@ -1550,11 +1606,16 @@ public class IndexFetcher {
     private final Long indexGen;
 
     private final long size;
+    // the range of the file to download, from start (inclusive) to end (exclusive)
+    private final long start;
+    private final long end;
     private long bytesDownloaded = 0;
     private byte[] buf;
     private final Checksum checksum;
     private int errorCount = 0;
     private boolean aborted = false;
+    // shared by the fetchers of parallel downloads, which all stop when one of them fails
+    private AtomicBoolean abortAll;
 
     FileFetcher(
         FileInterface file,
@@ -1562,10 +1623,23 @@ public class IndexFetcher {
         String saveAs,
         String solrParamOutput,
         long latestGen) {
+      this(file, fileDetails, saveAs, solrParamOutput, latestGen, 0, (Long) fileDetails.get(SIZE));
+    }
+
+    FileFetcher(
+        FileInterface file,
+        Map<String, Object> fileDetails,
+        String saveAs,
+        String solrParamOutput,
+        long latestGen,
+        long start,
+        long end) {
       this.file = file;
       this.fileName = (String) fileDetails.get(NAME);
       this.size = (Long) fileDetails.get(SIZE);
-      buf = new byte[(int) Math.min(this.size, ReplicationAPIBase.PACKET_SZ)];
+      this.start = start;
+      this.end = end;
+      buf = new byte[(int) Math.min(end - start, ReplicationAPIBase.PACKET_SZ)];
       this.solrParamOutput = solrParamOutput;
       this.saveAs = saveAs;
       indexGen = latestGen;
@@ -1638,8 +1712,15 @@ public class IndexFetcher {
           if (stop) {
             stop = false;
             aborted = true;
+            if (abortAll != null) {
+              abortAll.set(true);
+            }
             throw new ReplicationHandlerException("User aborted replication");
           }
+          if (abortAll != null && abortAll.get()) {
+            aborted = true;
+            throw new ReplicationHandlerException("Parallel download of " + fileName + " aborted");
+          }
           long checkSumServer = -1;
 
           fis.readFully(intbytes);
@@ -1674,12 +1755,18 @@ public class IndexFetcher {
               return 1;
             }
           }
-          // if everything is fine, write down the packet to the file
-          file.write(buf, packetSize);
-          bytesDownloaded += packetSize;
+          // if everything is fine, write down the packet to the file. A leader that doesn't
+          // support END_OFFSET streams the whole rest of the file, so a range stops at its end
+          boolean lastOfRange = end < size && packetSize >= end - start - bytesDownloaded;
+          int length = lastOfRange ? (int) (end - start - bytesDownloaded) : packetSize;
+          file.write(buf, length);
+          bytesDownloaded += length;
           log.debug("Fetched and wrote {} bytes of file: {}", bytesDownloaded, fileName);
           // errorCount is always set to zero after a successful packet
           errorCount = 0;
+          if (lastOfRange) {
+            return 0;
+          }
         }
       } catch (ReplicationHandlerException e) {
         throw e;
@@ -1743,7 +1830,7 @@ public class IndexFetcher {
         /* no-op */
         log.error("Error closing file: {}", this.saveAs, e);
       }
-      if (bytesDownloaded != size) {
+      if (bytesDownloaded != end - start) {
         // if the download is not complete then
         // delete the file being downloaded
         try {
@@ -1760,7 +1847,7 @@ public class IndexFetcher {
                   + " completely. Downloaded "
                   + bytesDownloaded
                   + "!="
-                  + size);
+                  + (end - start));
       }
     }
 
@@ -1784,8 +1871,11 @@ public class IndexFetcher {
       params.set(CommonParams.WT, FILE_STREAM);
       // This happens if there is a failure there is a retry. the offset=<sizedownloaded> ensures
       // that the server starts from the offset
-      if (bytesDownloaded > 0) {
-        params.set(OFFSET, Long.toString(bytesDownloaded));
+      if (bytesDownloaded > 0 || start > 0) {
+        params.set(OFFSET, Long.toString(start + bytesDownloaded));
+      }
+      if (end < size) {
+        params.set(END_OFFSET, Long.toString(end));
       }
 
       NamedList<?> response;
@@ -1860,6 +1950,156 @@ public class IndexFetcher {
     }
   }
 
+  /**
+   * A range of a file on the local file system. The ranges of a file are written concurrently, each
+   * through its own channel.
+   */
+  private static class FileRange implements FileInterface {
+    private final Path file;
+    private final FileChannel channel;
+    private long position;
+
+    FileRange(Path file, long start) throws IOException {
+      this.file = file;
+      this.channel = FileChannel.open(file, StandardOpenOption.WRITE);
+      this.position = start;
+    }
+
+    @Override
+    public void sync() throws IOException {
+      org.apache.lucene.util.IOUtils.fsync(file, false);
+    }
+
+    @Override
+    public void write(byte[] buf, int packetSize) throws IOException {
+      ByteBuffer bb = ByteBuffer.wrap(buf, 0, packetSize);
+      while (bb.hasRemaining()) {
+        position += channel.write(bb, position);
+      }
+    }
+
+    @Override
+    public void close() throws Exception {
+      channel.close();
+    }
+
+    @Override
+    public void delete() throws Exception {
+      // the other ranges may still be writing to the file, which is removed with the temporary
+      // index directory when the replication fails
+    }
+  }
+
+  /**
+   * Downloads index files with up to {@link ReplicationHandler#MAX_PARALLEL_DOWNLOADS} threads.
+   * Files larger than {@link ReplicationHandler#RANGE_DOWNLOAD_SIZE_MB} are split into ranges that
+   * are downloaded like separate files, with their own checksums and retries. The first failure
+   * aborts the other downloads and is thrown by {@link #await()}.
+   */
+  private class ParallelDownloads implements AutoCloseable {
+    private final ExecutorService executor;
+    private final List<Future<?>> futures = new ArrayList<>();
+    private final AtomicBoolean abort = new AtomicBoolean();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final AtomicLong bytesDownloaded = new AtomicLong();
+
+    ParallelDownloads(int numThreads) {
+      executor =
+          ExecutorUtil.newMDCAwareFixedThreadPool(
+              numThreads, new SolrNamedThreadFactory("IndexFetcherDownload"));
+    }
+
+    /**
+     * Submits the download of a file.
+     *
+     * @param rangeDir the local path of the directory, if the file may be downloaded in ranges
+     */
+    void submit(
+        Map<String, Object> file, Directory tmpIndexDir, Path rangeDir, long latestGeneration)
+        throws IOException {
+      String fileName = (String) file.get(NAME);
+      long size = (Long) file.get(SIZE);
+      if (rangeDir == null || size <= rangeDownloadBytes) {
+        submit(
+            file,
+            () -> new DirectoryFileFetcher(tmpIndexDir, file, fileName, FILE, latestGeneration),
+            new AtomicInteger(1));
+        return;
+      }
+      Path path = rangeDir.resolve(fileName);
+      Files.createFile(path);
+      int numRanges = (int) ((size + rangeDownloadBytes - 1) / rangeDownloadBytes);
+      AtomicInteger remainingRanges = new AtomicInteger(numRanges);
+      for (long start = 0; start < size; start += rangeDownloadBytes) {
+        long rangeStart = start;
+        long rangeEnd = Math.min(size, start + rangeDownloadBytes);
+        submit(
+            file,
+            () ->
+                new FileFetcher(
+                    new FileRange(path, rangeStart),
+                    file,
+                    fileName,
+                    FILE,
+                    latestGeneration,
+                    rangeStart,
+                    rangeEnd),
+            remainingRanges);
+      }
+    }
+
+    private void submit(
+        Map<String, Object> file, Callable<FileFetcher> fetcherSupplier, AtomicInteger remaining) {
+      futures.add(
+          executor.submit(
+              () -> {
+                if (abort.get()) {
+                  return;
+                }
+                try {
+                  FileFetcher fetcher = fetcherSupplier.call();
+                  fetcher.abortAll = abort;
+                  dirFileFetcher = fetcher;
+                  currentFile = file;
+                  fetcher.fetchFile();
+                  bytesDownloaded.addAndGet(fetcher.getBytesDownloaded());
+                  if (remaining.decrementAndGet() == 0) {
+                    filesDownloaded.add(new HashMap<>(file));
+                  }
+                } catch (Throwable t) {
+                  failure.compareAndSet(null, t);
+                  abort.set(true);
+                }
+              }));
+    }
+
+    /** Waits for the submitted downloads and returns the number of bytes downloaded. */
+    long await() throws Exception {
+      try {
+        for (Future<?> future : futures) {
+          future.get();
+        }
+      } catch (InterruptedException e) {
+        abort.set(true);
+        throw e;
+      }
+      Throwable t = failure.get();
+      if (t instanceof Error error) {
+        throw error;
+      } else if (t != null) {
+        throw (Exception) t;
+      }
+      return bytesDownloaded.get();
+    }
+
+    @Override
+    public void close() {
+      // stops the downloads that are still running if the index fetch failed
+      abort.set(true);
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+    }
+  }
+
   protected class DirectoryFileFetcher extends FileFetcher {
     DirectoryFileFetcher(
         Directory tmpIndexDir,
@@ -20,6 +20,7 @@ import static org.apache.solr.common.params.CommonParams.NAME;
 import static org.apache.solr.handler.admin.api.ReplicationAPIBase.CHECKSUM;
 import static org.apache.solr.handler.admin.api.ReplicationAPIBase.COMPRESSION;
 import static org.apache.solr.handler.admin.api.ReplicationAPIBase.CONF_FILE_SHORT;
+import static org.apache.solr.handler.admin.api.ReplicationAPIBase.END_OFFSET;
 import static org.apache.solr.handler.admin.api.ReplicationAPIBase.FILE;
 import static org.apache.solr.handler.admin.api.ReplicationAPIBase.GENERATION;
 import static org.apache.solr.handler.admin.api.ReplicationAPIBase.INTERVAL_ERR_MSG;
@@ -348,6 +349,7 @@ public class ReplicationHandler extends RequestHandlerBase
         dirType,
         solrParams.get(OFFSET),
         solrParams.get(LEN),
+        solrParams.get(END_OFFSET),
         Boolean.parseBoolean(solrParams.get(COMPRESSION)),
         solrParams.getBool(CHECKSUM, false),
         solrParams.getDouble(MAX_WRITE_PER_SECOND, Double.MAX_VALUE),
@@ -1581,6 +1583,15 @@ public class ReplicationHandler extends RequestHandlerBase
 
   public static final String FETCH_FROM_LEADER = "fetchFromLeader";
 
+  /** Maximum number of index files, or ranges of large index files, a follower downloads at once */
+  public static final String MAX_PARALLEL_DOWNLOADS = "maxParallelDownloads";
+
+  /**
+   * Size in MB of the ranges that index files are downloaded in when a follower downloads files in
+   * parallel
+   */
+  public static final String RANGE_DOWNLOAD_SIZE_MB = "rangeDownloadSizeMB";
+
   // In case of TLOG replica, if leaderVersion = zero, don't do commit
   // otherwise updates from current tlog won't be copied over properly to the new tlog,
   // leading to data loss.
@@ -61,6 +61,7 @@ public class CoreReplication extends ReplicationAPIBase implements ReplicationAp
       String dirType,
       String offset,
       String len,
+      String endOffset,
       Boolean compression,
       Boolean checksum,
       double maxWriteMBPerSec,
@@ -69,6 +70,6 @@ public class CoreReplication extends ReplicationAPIBase implements ReplicationAp
       throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, "Must provide a dirType ");
     }
     return doFetchFile(
-        filePath, dirType, offset, len, compression, checksum, maxWriteMBPerSec, gen);
+        filePath, dirType, offset, len, endOffset, compression, checksum, maxWriteMBPerSec, gen);
   }
 }
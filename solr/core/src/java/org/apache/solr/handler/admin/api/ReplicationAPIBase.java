@@ -70,6 +70,7 @@ public abstract class ReplicationAPIBase extends JerseyResource {
   public static final String GENERATION = "generation";
   public static final String OFFSET = "offset";
   public static final String LEN = "len";
+  public static final String END_OFFSET = "endOffset";
   public static final String FILE = "file";
   public static final String MAX_WRITE_PER_SECOND = "maxWriteMBPerSec";
   public static final String CHECKSUM = "checksum";
@@ -108,6 +109,7 @@ public abstract class ReplicationAPIBase extends JerseyResource {
       String dirType,
       String offset,
       String len,
+      String endOffset,
       boolean compression,
       boolean checksum,
       double maxWriteMBPerSec,
@@ -126,6 +128,7 @@ public abstract class ReplicationAPIBase extends JerseyResource {
           new DirectoryFileStream(
               filePath, dirType, offset, len, compression, checksum, maxWriteMBPerSec, gen);
     }
+    dfs.sEndOffset = endOffset;
     solrQueryResponse.add(FILE_STREAM, dfs);
     return dfs;
   }
@@ -260,11 +263,14 @@ public abstract class ReplicationAPIBase extends JerseyResource {
     protected String tlogFileName;
     protected String sOffset;
     protected String sLen;
+    protected String sEndOffset;
     protected final boolean compress;
     protected boolean useChecksum;
 
     protected long offset = -1;
     protected int len = -1;
+    // exclusive end of the range of the file to write, or -1 to write up to the end of the file
+    protected long endOffset = -1;
 
     protected Checksum checksum;
 
@@ -334,6 +340,7 @@ public abstract class ReplicationAPIBase extends JerseyResource {
     protected void initWrite() throws IOException {
       this.offset = (sOffset != null) ? Long.parseLong(sOffset) : -1;
       this.len = (sLen != null) ? Integer.parseInt(sLen) : -1;
+      this.endOffset = (sEndOffset != null) ? Long.parseLong(sEndOffset) : -1;
       if (fileName == null && cfileName == null && tlogFileName == null) {
         // no filename do nothing
         writeNothingAndFlush();
@@ -386,11 +393,12 @@ public abstract class ReplicationAPIBase extends JerseyResource {
         if (offset != -1) in.seek(offset);
 
         long filelen = dir.fileLength(fileName);
+        long end = endOffset == -1 ? filelen : Math.min(endOffset, filelen);
         long maxBytesBeforePause = 0;
 
         while (true) {
           offset = offset == -1 ? 0 : offset;
-          int read = (int) Math.min(buf.length, filelen - offset);
+          int read = (int) Math.min(buf.length, end - offset);
 
           if (read <= 0) {
             writeNothingAndFlush();
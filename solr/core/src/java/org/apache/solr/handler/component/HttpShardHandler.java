@@ -20,6 +20,8 @@ import static org.apache.solr.common.params.CommonParams.PARTIAL_RESULTS;
 import static org.apache.solr.request.SolrQueryRequest.disallowPartialResults;
 
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -28,14 +30,20 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 import net.jcip.annotations.NotThreadSafe;
 import org.apache.solr.client.solrj.SolrRequest;
 import org.apache.solr.client.solrj.SolrResponse;
 import org.apache.solr.client.solrj.impl.LBAsyncSolrClient;
 import org.apache.solr.client.solrj.impl.LBSolrClient;
 import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.client.solrj.response.JavaBinResponseParser;
 import org.apache.solr.client.solrj.routing.NoOpReplicaListTransformer;
 import org.apache.solr.client.solrj.routing.ReplicaListTransformer;
 import org.apache.solr.cloud.CloudDescriptor;
@@ -205,6 +213,10 @@ public class HttpShardHandler extends ShardHandler {
     params.remove(CommonParams.WT); // use default (currently javabin)
     QueryRequest req = createQueryRequest(sreq, params, shard);
     req.setMethod(SolrRequest.METHOD.POST);
+    if (httpShardHandlerFactory.lazyDocumentDecoding) {
+      // the aggregator usually only reads the id and sort values of most returned documents
+      req.setResponseParser(new JavaBinResponseParser().setReadDocumentsLazily(true));
+    }
     if (sreq.headers != null) {
       req.addHeaders(sreq.headers);
     }
@@ -282,7 +294,7 @@ public class HttpShardHandler extends ShardHandler {
       SimpleSolrResponse ssr,
       ShardResponse srsp,
       long startTimeNS) {
-    CompletableFuture<LBSolrClient.Rsp> future = this.lbClient.requestAsync(lbReq);
+    CompletableFuture<LBSolrClient.Rsp> future = requestAsync(lbReq);
     // Hold the cancellation lock so the canceled check and the responseFutureMap put happen as one
     // step: either we register this future for later cancellation, or (if cancelAll already ran) we
     // cancel it now and never track it.
@@ -328,6 +340,91 @@ public class HttpShardHandler extends ShardHandler {
         });
   }
 
+  /**
+   * Sends {@code lbReq}. If hedging is enabled and no response arrived within the configured
+   * percentile of the recent response times of the first replica, as recorded by the load tracker
+   * of the load balancer, the request is sent once more with the other replicas first. The first
+   * successful response wins and the other request is canceled.
+   */
+  private CompletableFuture<LBSolrClient.Rsp> requestAsync(LBSolrClient.Req lbReq) {
+    CompletableFuture<LBSolrClient.Rsp> primary = lbClient.requestAsync(lbReq);
+    long hedgeDelayNanos = hedgeDelayNanos(lbReq);
+    if (hedgeDelayNanos < 0) {
+      return primary;
+    }
+
+    CompletableFuture<LBSolrClient.Rsp> result = new CompletableFuture<>();
+    AtomicReference<CompletableFuture<LBSolrClient.Rsp>> hedge = new AtomicReference<>();
+    // the number of requests that may still complete the result; it fails once all of them did
+    AtomicInteger pending = new AtomicInteger(1);
+    BiConsumer<LBSolrClient.Rsp, Throwable> onComplete =
+        (rsp, throwable) -> {
+          if (throwable == null) {
+            result.complete(rsp);
+          } else if (pending.decrementAndGet() == 0) {
+            result.completeExceptionally(throwable);
+          }
+        };
+    primary.whenComplete(onComplete);
+
+    ScheduledFuture<?> timer;
+    try {
+      timer =
+          httpShardHandlerFactory.hedgeScheduler.schedule(
+              () -> {
+                if (result.isDone()) return;
+                pending.incrementAndGet();
+                if (result.isDone()) return;
+                List<LBSolrClient.Endpoint> endpoints = new ArrayList<>(lbReq.getEndpoints());
+                Collections.rotate(endpoints, -1);
+                CompletableFuture<LBSolrClient.Rsp> hedged =
+                    lbClient.requestAsync(
+                        new LBSolrClient.Req(
+                            lbReq.getRequest(), endpoints, lbReq.getNumServersToTry()));
+                hedge.set(hedged);
+                hedged.whenComplete(onComplete);
+                if (result.isDone()) {
+                  // raced with the completion of the result, which missed this request
+                  hedged.cancel(true);
+                }
+              },
+              hedgeDelayNanos,
+              TimeUnit.NANOSECONDS);
+    } catch (RejectedExecutionException e) {
+      // the factory is shutting down
+      return primary;
+    }
+
+    result.whenComplete(
+        (rsp, throwable) -> {
+          // also called when the result is canceled by cancelAll()
+          timer.cancel(false);
+          primary.cancel(true);
+          CompletableFuture<LBSolrClient.Rsp> hedged = hedge.get();
+          if (hedged != null) {
+            hedged.cancel(true);
+          }
+        });
+    return result;
+  }
+
+  /**
+   * Returns how long to wait for the first replica of {@code lbReq} before hedging the request, or
+   * -1 if it should not be hedged.
+   */
+  private long hedgeDelayNanos(LBSolrClient.Req lbReq) {
+    float percentile = httpShardHandlerFactory.hedgePercentile;
+    if (percentile <= 0 || lbReq.getEndpoints().size() < 2) {
+      return -1;
+    }
+    long delay =
+        lbClient.getLoadTracker().percentile(lbReq.getEndpoints().get(0).getUrl(), percentile);
+    if (delay < 0) {
+      return -1;
+    }
+    return Math.max(delay, TimeUnit.MILLISECONDS.toNanos(httpShardHandlerFactory.hedgeMinDelay));
+  }
+
   /**
    * Enqueue {@code value} into the {@link #responses} queue iff {@code key} is still tracked in
    * {@link #responseFutureMap}, holding the cancellation monitor so this stays atomic with {@link
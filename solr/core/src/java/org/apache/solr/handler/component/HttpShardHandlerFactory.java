@@ -28,6 +28,8 @@ import java.util.Random;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -39,6 +41,7 @@ import org.apache.solr.client.solrj.jetty.HttpJettySolrClient;
 import org.apache.solr.client.solrj.jetty.LBJettySolrClient;
 import org.apache.solr.client.solrj.request.QueryRequest;
 import org.apache.solr.client.solrj.routing.AffinityReplicaListTransformerFactory;
+import org.apache.solr.client.solrj.routing.LatencyAwareReplicaListTransformerFactory;
 import org.apache.solr.client.solrj.routing.ReplicaListTransformer;
 import org.apache.solr.client.solrj.routing.ReplicaListTransformerFactory;
 import org.apache.solr.client.solrj.routing.RequestReplicaListTransformerGenerator;
@@ -96,6 +99,11 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory
   int permittedLoadBalancerRequestsMinimumAbsolute = 0;
   float permittedLoadBalancerRequestsMaximumFraction = 1.0f;
   boolean accessPolicy = false;
+  boolean lazyDocumentDecoding = false;
+  float hedgePercentile = 0f;
+  int hedgeMinDelay = 10;
+  // schedules hedged shard requests, only created if hedging is enabled
+  ScheduledExecutorService hedgeScheduler;
   private SolrMetricsContext solrMetricsContext;
 
   private String scheme = null;
@@ -134,6 +142,15 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory
   // Configure if the threadpool favours fairness over throughput
   static final String INIT_FAIRNESS_POLICY = "fairnessPolicy";
 
+  // Decode the stored fields of documents in shard responses only when they are accessed
+  static final String INIT_LAZY_DOCUMENT_DECODING = "lazyDocumentDecoding";
+
+  // Percentile of a replica's recent response times after which a shard request is hedged
+  static final String INIT_HEDGE_PERCENTILE = "hedgePercentile";
+
+  // The minimum time in milliseconds to wait for a response before hedging a shard request
+  static final String INIT_HEDGE_MIN_DELAY = "hedgeMinDelay";
+
   /** Get {@link ShardHandler} that uses the default http client. */
   @Override
   public ShardHandler getShardHandler() {
@@ -165,6 +182,8 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory
   private void initReplicaListTransformers(NamedList<?> routingConfig) {
     String defaultRouting = null;
     ReplicaListTransformerFactory stableRltFactory = null;
+    ReplicaListTransformerFactory latencyRltFactory =
+        new LatencyAwareReplicaListTransformerFactory(loadbalancer.getLoadTracker());
     ReplicaListTransformerFactory defaultRltFactory;
     if (routingConfig != null && routingConfig.size() > 0) {
       Iterator<? extends Entry<String, ?>> iter = routingConfig.iterator();
@@ -185,6 +204,10 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory
             defaultRouting = checkDefaultReplicaListTransformer(c, key, defaultRouting);
             stableRltFactory = new AffinityReplicaListTransformerFactory(c);
             break;
+          case ShardParams.REPLICA_LATENCY:
+            defaultRouting =
+                checkDefaultReplicaListTransformer(getNamedList(e.getValue()), key, defaultRouting);
+            break;
           default:
             throw new IllegalArgumentException("invalid replica routing spec name: " + key);
         }
@@ -195,11 +218,14 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory
     }
     if (ShardParams.REPLICA_STABLE.equals(defaultRouting)) {
       defaultRltFactory = stableRltFactory;
+    } else if (ShardParams.REPLICA_LATENCY.equals(defaultRouting)) {
+      defaultRltFactory = latencyRltFactory;
     } else {
       defaultRltFactory = RequestReplicaListTransformerGenerator.RANDOM_RLTF;
     }
     this.requestReplicaListTransformerGenerator =
-        new RequestReplicaListTransformerGenerator(defaultRltFactory, stableRltFactory);
+        new RequestReplicaListTransformerGenerator(
+            defaultRltFactory, stableRltFactory, latencyRltFactory);
   }
 
   /**
@@ -220,6 +246,12 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory
    *       shard-handler requests
    *   <li>fairnessPolicy - true if the thread pool should prioritize fairness over throughput,
    *       false otherwise
+   *   <li>lazyDocumentDecoding - true if the fields of documents returned by shards should only be
+   *       decoded when they are accessed, false otherwise
+   *   <li>hedgePercentile - if greater than 0, a shard request that has not been answered within
+   *       this percentile of the recent response times of its replica is sent to another replica
+   *       as well, and the first response is used
+   *   <li>hedgeMinDelay - the minimum time in milliseconds to wait before hedging a shard request
    *   <li>replicaRouting - a NamedList of preferences used to select the order in which replicas
    *       for a shard will be used by created ShardHandlers
    * </ul>
@@ -262,6 +294,20 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory
             permittedLoadBalancerRequestsMaximumFraction,
             sb);
     this.accessPolicy = getParameter(args, INIT_FAIRNESS_POLICY, accessPolicy, sb);
+    this.lazyDocumentDecoding =
+        getParameter(args, INIT_LAZY_DOCUMENT_DECODING, lazyDocumentDecoding, sb);
+    this.hedgePercentile = getParameter(args, INIT_HEDGE_PERCENTILE, hedgePercentile, sb);
+    this.hedgeMinDelay = getParameter(args, INIT_HEDGE_MIN_DELAY, hedgeMinDelay, sb);
+    if (hedgePercentile > 100) {
+      throw new SolrException(
+          ErrorCode.SERVER_ERROR,
+          INIT_HEDGE_PERCENTILE + " must be at most 100, but was " + hedgePercentile);
+    }
+    if (hedgePercentile > 0) {
+      this.hedgeScheduler =
+          Executors.newSingleThreadScheduledExecutor(
+              new SolrNamedThreadFactory("httpShardHedgeScheduler"));
+    }
 
     // magic sysprop to make tests reproducible: set by SolrTestCaseJ4.
     String v = System.getProperty("tests.shardhandler.randomSeed");
@@ -351,6 +397,9 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory
         }
       } finally {
         ExecutorUtil.shutdownAndAwaitTermination(commExecutor);
+        if (hedgeScheduler != null) {
+          ExecutorUtil.shutdownNowAndAwaitTermination(hedgeScheduler);
+        }
       }
     }
     IOUtils.closeQuietly(asyncRequestsGauge);
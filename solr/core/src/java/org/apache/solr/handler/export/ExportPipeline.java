@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler.export;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.solr.common.IteratorWriter;
+import org.apache.solr.common.MapWriter;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.apache.solr.handler.export.ExportWriter.MergeIterator;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pipelined producer / consumer used instead of {@link ExportBuffers} when {@link
+ * ExportWriter#EXPORT_THREADS_PARAM} is greater than one and no streaming expression is given.
+ *
+ * <p>A filler thread merges the sorted segments into a ring of buffers. Each filled buffer is
+ * handed to a worker thread that reads the docValues of its documents, while the writer thread
+ * only serializes documents that have already been read, in buffer order. Every worker uses its
+ * own set of {@link FieldWriter}s, as these are not thread-safe.
+ */
+class ExportPipeline {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static final Batch END = new Batch(null, null);
+
+  private final ExportWriter exportWriter;
+  private final List<LeafReaderContext> leaves;
+  private final IteratorWriter.ItemWriter writer;
+  private final ExecutorService workers;
+  private final MergeIterator mergeIterator;
+  private final BlockingQueue<ExportBuffers.Buffer> freeBuffers;
+  private final BlockingQueue<Batch> filledBatches;
+  private final BlockingQueue<List<FieldWriter>> fieldWriters;
+  private volatile Throwable error;
+  private volatile boolean shutDown;
+
+  ExportPipeline(
+      ExportWriter exportWriter,
+      List<LeafReaderContext> leaves,
+      SolrIndexSearcher searcher,
+      IteratorWriter.ItemWriter writer,
+      Sort sort,
+      int queueSize,
+      FixedBitSet[] sets,
+      ExecutorService workers,
+      int numWorkers)
+      throws IOException {
+    this.exportWriter = exportWriter;
+    this.leaves = leaves;
+    this.writer = writer;
+    this.workers = workers;
+
+    // one buffer per worker, plus the one being serialized
+    int numBuffers = numWorkers + 1;
+    SortDoc sortDoc = exportWriter.getSortDoc(searcher, sort.getSort());
+    this.freeBuffers = new ArrayBlockingQueue<>(numBuffers);
+    for (int i = 0; i < numBuffers; i++) {
+      ExportBuffers.Buffer buffer = new ExportBuffers.Buffer(queueSize);
+      buffer.initialize(sortDoc);
+      freeBuffers.add(buffer);
+    }
+    // every buffer may be waiting to be written, plus the end marker
+    this.filledBatches = new ArrayBlockingQueue<>(numBuffers + 1);
+
+    this.fieldWriters = new ArrayBlockingQueue<>(numWorkers);
+    fieldWriters.add(exportWriter.fieldWriters);
+    for (int i = 1; i < numWorkers; i++) {
+      fieldWriters.add(exportWriter.getFieldWriters(exportWriter.exportFields, exportWriter.req));
+    }
+
+    this.mergeIterator = exportWriter.getMergeIterator(leaves, sets, sortDoc);
+  }
+
+  /**
+   * Start processing and block until all documents have been written.
+   *
+   * @throws IOException on errors, including those of the filler and worker threads
+   */
+  void run() throws IOException {
+    ExecutorService filler =
+        ExecutorUtil.newMDCAwareFixedThreadPool(1, new SolrNamedThreadFactory("ExportPipeline"));
+    try {
+      filler.execute(this::fill);
+      Batch batch;
+      while ((batch = take(filledBatches)) != END) {
+        for (MapWriter doc : await(batch.docs)) {
+          writer.add(doc);
+        }
+        freeBuffers.add(batch.buffer);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } finally {
+      shutDown = true;
+      filler.shutdownNow();
+    }
+  }
+
+  private void fill() {
+    try {
+      while (true) {
+        ExportBuffers.Buffer buffer = take(freeBuffers);
+        exportWriter.fillOutDocs(mergeIterator, buffer);
+        if (buffer.outDocsIndex < 0) {
+          filledBatches.put(END);
+          break;
+        }
+        filledBatches.put(new Batch(buffer, workers.submit(() -> readDocs(buffer))));
+      }
+    } catch (Throwable t) {
+      if (!shutDown && !(t instanceof InterruptedException)) {
+        log.error("filler", t);
+      }
+      error = t;
+      if (t instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private MapWriter[] readDocs(ExportBuffers.Buffer buffer) throws Exception {
+    List<FieldWriter> writers = fieldWriters.take();
+    try {
+      MapWriter[] docs = new MapWriter[buffer.outDocsIndex + 1];
+      for (int i = 0; i < docs.length; i++) {
+        ReadDoc doc = new ReadDoc();
+        exportWriter.writeDoc(buffer.outDocs[i], leaves, doc, writers);
+        docs[i] = doc;
+      }
+      return docs;
+    } finally {
+      fieldWriters.add(writers);
+    }
+  }
+
+  private <T> T take(BlockingQueue<T> queue) throws IOException, InterruptedException {
+    long deadline =
+        System.nanoTime() + TimeUnit.SECONDS.toNanos(ExportBuffers.EXCHANGE_TIMEOUT_SECONDS);
+    while (true) {
+      T t = queue.poll(100, TimeUnit.MILLISECONDS);
+      if (t != null) {
+        return t;
+      }
+      if (error != null) {
+        throw new IOException(error.getMessage(), error);
+      }
+      if (shutDown) {
+        throw new InterruptedException("Export pipeline was shut down");
+      }
+      if (System.nanoTime() - deadline > 0) {
+        throw new IOException("Timed out waiting for the export pipeline");
+      }
+    }
+  }
+
+  private MapWriter[] await(Future<MapWriter[]> docs) throws IOException {
+    try {
+      return docs.get(ExportBuffers.EXCHANGE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } catch (ExecutionException e) {
+      throw new IOException(e.getCause().getMessage(), e.getCause());
+    } catch (TimeoutException e) {
+      throw new IOException("Timed out waiting for the export pipeline", e);
+    }
+  }
+
+  private record Batch(ExportBuffers.Buffer buffer, Future<MapWriter[]> docs) {}
+
+  /**
+   * The fields of a document as written by the {@link FieldWriter}s, kept so that the document can
+   * be serialized later by another thread. Multi-valued fields are copied, since their values would
+   * otherwise be read lazily from docValues iterators that have moved on.
+   */
+  static final class ReadDoc implements MapWriter, MapWriter.EntryWriter {
+    private final List<CharSequence> names = new ArrayList<>();
+    private final List<Object> values = new ArrayList<>();
+
+    @Override
+    public MapWriter.EntryWriter put(CharSequence k, Object v) {
+      if (v instanceof IteratorWriter iteratorWriter) {
+        List<Object> copy = iteratorWriter.toList(new ArrayList<>());
+        v =
+            (IteratorWriter)
+                w -> {
+                  for (Object o : copy) {
+                    w.add(o);
+                  }
+                };
+      }
+      names.add(k);
+      values.add(v);
+      return this;
+    }
+
+    @Override
+    public void writeMap(EntryWriter ew) throws IOException {
+      for (int i = 0; i < names.size(); i++) {
+        ew.put(names.get(i), values.get(i));
+      }
+    }
+  }
+}
@@ -32,6 +32,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortedDocValues;
@@ -55,7 +58,9 @@ import org.apache.solr.common.PushWriter;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.params.StreamParams;
+import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.JavaBinCodec;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.metrics.SolrMetricsContext;
 import org.apache.solr.request.SolrQueryRequest;
@@ -81,6 +86,7 @@ import org.apache.solr.search.SolrIndexSearcher;
 import org.apache.solr.search.SolrReturnFields;
 import org.apache.solr.search.SortSpec;
 import org.apache.solr.search.SyntaxError;
+import org.apache.solr.search.TermBlockCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -94,6 +100,11 @@ import org.slf4j.LoggerFactory;
  * that haven't been sent yet and stores them in a Priority Queue. They are then exported (written
  * across the wire) and marked as sent (unset in the bitmap). This process repeats until all
  * matching documents have been sent.
+ *
+ * <p>With {@link #EXPORT_THREADS_PARAM} greater than one, each segment sorts its next batch in the
+ * background while the current one is merged, so segments are sorted in parallel. Without a
+ * streaming expression the docValues of the merged documents are also read by several threads,
+ * overlapping with the serialization of the response, see {@link ExportPipeline}.
  */
 public class ExportWriter implements SolrCore.RawWriter, Closeable {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
@@ -101,6 +112,7 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
   public static final String BATCH_SIZE_PARAM = "batchSize";
   public static final String QUEUE_SIZE_PARAM = "queueSize";
   public static final String INCLUDE_STORED_FIELDS_PARAM = "includeStoredFields";
+  public static final String EXPORT_THREADS_PARAM = "exportThreads";
 
   public static final int DEFAULT_BATCH_SIZE = 30000;
   public static final int DEFAULT_QUEUE_SIZE = 150000;
@@ -120,11 +132,16 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
   final String metricsPath;
   // The batch size for the output writer thread.
   final int batchSize;
+  // The number of threads used to sort segments and read docValues, capped by the available CPUs.
+  final int exportThreads;
   // The max combined size of the segment level priority queues.
   private int priorityQueueSize;
   StreamExpression streamExpression;
   StreamContext streamContext;
   List<FieldWriter> fieldWriters;
+  String[] exportFields;
+  // Sorts segments and reads docValues when exportThreads > 1, otherwise null.
+  ExecutorService exportExecutor;
   int totalHits = 0;
   FixedBitSet[] sets = null;
   PushWriter writer;
@@ -145,6 +162,12 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
     this.metricsPath = metricsPath;
     this.priorityQueueSize = req.getParams().getInt(QUEUE_SIZE_PARAM, DEFAULT_QUEUE_SIZE);
     this.batchSize = DEFAULT_BATCH_SIZE;
+    this.exportThreads =
+        Math.max(
+            1,
+            Math.min(
+                req.getParams().getInt(EXPORT_THREADS_PARAM, 1),
+                Runtime.getRuntime().availableProcessors()));
   }
 
   @Override
@@ -297,6 +320,7 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
 
     try {
       fieldWriters = getFieldWriters(fields, req);
+      exportFields = fields;
     } catch (Exception e) {
       writeException(e, writer, true);
       return;
@@ -388,9 +412,42 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
   protected void writeDocs(
       SolrQueryRequest req, OutputStream os, IteratorWriter.ItemWriter writer, Sort sort)
       throws IOException {
+    if (exportThreads > 1) {
+      exportExecutor =
+          ExecutorUtil.newMDCAwareFixedThreadPool(
+              exportThreads, new SolrNamedThreadFactory("ExportWriter"));
+    }
+    try {
+      doWriteDocs(req, os, writer, sort);
+    } finally {
+      if (exportExecutor != null) {
+        ExecutorUtil.shutdownNowAndAwaitTermination(exportExecutor);
+        exportExecutor = null;
+      }
+    }
+  }
+
+  private void doWriteDocs(
+      SolrQueryRequest req, OutputStream os, IteratorWriter.ItemWriter writer, Sort sort)
+      throws IOException {
     List<LeafReaderContext> leaves = req.getSearcher().getTopReaderContext().leaves();
     final int queueSize = Math.min(batchSize, totalHits);
 
+    if (exportExecutor != null && streamExpression == null) {
+      new ExportPipeline(
+              this,
+              leaves,
+              req.getSearcher(),
+              writer,
+              sort,
+              queueSize,
+              sets,
+              exportExecutor,
+              exportThreads)
+          .run();
+      return;
+    }
+
     ExportBuffers buffers =
         new ExportBuffers(
             this, leaves, req.getSearcher(), os, writer, sort, queueSize, totalHits, sets);
@@ -491,6 +548,7 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
   public List<FieldWriter> getFieldWriters(String[] fields, SolrQueryRequest req)
       throws IOException {
     DocValuesIteratorCache dvIterCache = new DocValuesIteratorCache(req.getSearcher(), false);
+    TermBlockCache termBlockCache = req.getSearcher().getTermBlockCache();
     SolrReturnFields solrReturnFields = new SolrReturnFields(fields, req);
     boolean includeStoredFields = req.getParams().getBool(INCLUDE_STORED_FIELDS_PARAM, false);
 
@@ -582,7 +640,9 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
         if (multiValued) {
           writer = new MultiFieldWriter(field, fieldType, schemaField, false, docValuesCache);
         } else {
-          writer = new StringFieldWriter(field, fieldType, docValuesCache);
+          TermBlockCache.FieldTerms terms =
+              termBlockCache == null ? null : termBlockCache.forField(field);
+          writer = new StringFieldWriter(field, fieldType, docValuesCache, terms);
         }
       } else if (fieldType instanceof DateValueFieldType) {
         if (multiValued) {
@@ -796,8 +856,11 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
       SegmentIterator[] segmentIterators = new SegmentIterator[leaves.size()];
       for (int i = 0; i < segmentIterators.length; i++) {
         SortQueue sortQueue = new SortQueue(sizes[i], sortDoc.copy());
+        SortQueue prefetchQueue =
+            exportExecutor == null ? null : new SortQueue(sizes[i], sortDoc.copy());
         segmentIterators[i] =
-            new SegmentIterator(bits[i], leaves.get(i), sortQueue, sortDoc.copy());
+            new SegmentIterator(
+                bits[i], leaves.get(i), sortQueue, prefetchQueue, sortDoc.copy(), exportExecutor);
       }
 
       return new MergeIterator(segmentIterators, sortDoc);
@@ -805,43 +868,68 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
     }
   }
 
+  /**
+   * Iterates the matching docs of a segment in sort order, one batch of the queue size at a time.
+   * When an executor is given, the next batch is sorted in the background into a second queue while
+   * the current batch is merged.
+   */
   private static class SegmentIterator {
 
     private final FixedBitSet bits;
-    private final SortQueue queue;
     private final SortDoc sortDoc;
     private final LeafReaderContext context;
-    private final SortDoc[] outDocs;
+    private final ExecutorService executor;
+    private SortQueue queue;
+    private SortDoc[] outDocs;
+
+    // The batch being sorted in the background, only used with an executor
+    private SortQueue prefetchQueue;
+    private SortDoc[] prefetchDocs;
+    private Future<Integer> prefetch;
 
     private SortDoc nextDoc;
     private int index;
 
     public SegmentIterator(
-        FixedBitSet bits, LeafReaderContext context, SortQueue sortQueue, SortDoc sortDoc)
+        FixedBitSet bits,
+        LeafReaderContext context,
+        SortQueue sortQueue,
+        SortQueue prefetchQueue,
+        SortDoc sortDoc,
+        ExecutorService executor)
         throws IOException {
       this.bits = bits;
       this.queue = sortQueue;
       this.sortDoc = sortDoc;
       this.nextDoc = sortDoc.copy();
       this.context = context;
+      this.executor = executor;
       this.outDocs = new SortDoc[sortQueue.maxSize];
-      topDocs();
+      if (executor == null) {
+        index = topDocs(queue, outDocs);
+      } else {
+        this.prefetchQueue = prefetchQueue;
+        this.prefetchDocs = new SortDoc[prefetchQueue.maxSize];
+        index = -1;
+        prefetchNextBatch();
+      }
     }
 
     public SortDoc next() throws IOException {
-      SortDoc _sortDoc = null;
-      if (index > -1) {
-        _sortDoc = outDocs[index--];
-      } else {
-        topDocs();
-        if (index > -1) {
-          _sortDoc = outDocs[index--];
+      if (index < 0) {
+        if (executor == null) {
+          index = topDocs(queue, outDocs);
+        } else if (prefetch != null) {
+          index = awaitNextBatch();
         }
       }
 
+      SortDoc _sortDoc = index > -1 ? outDocs[index--] : null;
       if (_sortDoc != null) {
-        // Clear the bit so it's not loaded again.
-        bits.clear(_sortDoc.docId);
+        if (executor == null) {
+          // Clear the bit so it's not loaded again.
+          bits.clear(_sortDoc.docId);
+        }
 
         // Load the global ordinal (only matters for strings)
         _sortDoc.setGlobalValues(nextDoc);
@@ -855,7 +943,41 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
       return nextDoc;
     }
 
-    private void topDocs() throws IOException {
+    private void prefetchNextBatch() {
+      SortQueue nextQueue = prefetchQueue;
+      SortDoc[] nextDocs = prefetchDocs;
+      prefetch = executor.submit(() -> topDocs(nextQueue, nextDocs));
+    }
+
+    private int awaitNextBatch() throws IOException {
+      int last;
+      try {
+        last = prefetch.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(e);
+      } catch (ExecutionException e) {
+        throw new IOException(e.getCause());
+      }
+
+      // The consumed batch becomes the next one to fill
+      SortQueue consumedQueue = queue;
+      queue = prefetchQueue;
+      prefetchQueue = consumedQueue;
+      SortDoc[] consumedDocs = outDocs;
+      outDocs = prefetchDocs;
+      prefetchDocs = consumedDocs;
+
+      if (last > -1) {
+        prefetchNextBatch();
+      } else {
+        prefetch = null;
+      }
+      return last;
+    }
+
+    /** Sorts the next batch of docs into {@code outDocs} and returns the index of the last one. */
+    private int topDocs(SortQueue queue, SortDoc[] outDocs) throws IOException {
       try {
         queue.reset();
         SortDoc top = queue.top();
@@ -873,14 +995,20 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
         }
 
         // Pop the queue and load up the array.
-        index = -1;
+        int index = -1;
 
         SortDoc _sortDoc;
         while ((_sortDoc = queue.pop()) != null) {
           if (_sortDoc.docId > -1) {
             outDocs[++index] = _sortDoc;
+            if (executor != null) {
+              // Clear the bit now, so that the following batch can be sorted before this one is
+              // consumed.
+              bits.clear(_sortDoc.docId);
+            }
           }
         }
+        return index;
       } catch (Exception e) {
         log.error("Segment Iterator Error:", e);
         throw new IOException(e);
@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.TimeoutException;
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.ComparatorOrder;
 import org.apache.solr.client.solrj.io.comp.FieldComparator;
 import org.apache.solr.client.solrj.io.comp.MultipleFieldComparator;
@@ -53,6 +54,7 @@ import org.slf4j.LoggerFactory;
 public class ExportWriterStream extends TupleStream implements Expressible {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   final TupleEntryWriter tupleEntryWriter = new TupleEntryWriter();
+  final BatchEntryWriter batchEntryWriter = new BatchEntryWriter();
   StreamContext context;
   StreamComparator streamComparator;
   int pos = -1;
@@ -139,8 +141,110 @@ public class ExportWriterStream extends TupleStream implements Expressible {
     exportBuffers = null;
   }
 
+  /**
+   * Writes the fields of a document straight into the columns of a batch. The numeric field
+   * writers put primitive values, which are not boxed.
+   */
+  private static final class BatchEntryWriter implements EntryWriter {
+    TupleBatch batch;
+    int row;
+    int expectedField;
+
+    private int field(CharSequence k) {
+      int field = batch.addField(k.toString(), expectedField);
+      expectedField = field + 1;
+      return field;
+    }
+
+    @Override
+    public EntryWriter put(CharSequence k, Object v) throws IOException {
+      if (v instanceof IteratorWriter) {
+        List<Object> lst = new ArrayList<>();
+        ((IteratorWriter) v).toList(lst);
+        v = lst;
+      } else if (v instanceof MapWriter) {
+        v = new SimpleOrderedMap<>((MapWriter) v);
+      }
+      batch.set(field(k), row, v);
+      return this;
+    }
+
+    @Override
+    public EntryWriter put(CharSequence k, int v) {
+      batch.setInt(field(k), row, v);
+      return this;
+    }
+
+    @Override
+    public EntryWriter put(CharSequence k, long v) {
+      batch.setLong(field(k), row, v);
+      return this;
+    }
+
+    @Override
+    public EntryWriter put(CharSequence k, float v) {
+      batch.setFloat(field(k), row, v);
+      return this;
+    }
+
+    @Override
+    public EntryWriter put(CharSequence k, double v) {
+      batch.setDouble(field(k), row, v);
+      return this;
+    }
+  }
+
   @Override
   public Tuple read() throws IOException {
+    Tuple res = nextBuffer();
+    if (res != null) {
+      // only errors or EOF assigned result so far
+
+      return res;
+    }
+
+    SortDoc sortDoc = buffer.outDocs[++index];
+    tupleEntryWriter.tuple = new Tuple();
+    exportBuffers.exportWriter.writeDoc(
+        sortDoc, exportBuffers.leaves, tupleEntryWriter, exportBuffers.exportWriter.fieldWriters);
+    pos--;
+    return tupleEntryWriter.tuple;
+  }
+
+  @Override
+  public boolean supportsBatches() {
+    return true;
+  }
+
+  /** Writes the documents of the output buffer straight into the batch */
+  @Override
+  public TupleBatch readBatch(int maxRows) throws IOException {
+    TupleBatch batch = new TupleBatch(maxRows);
+    Tuple res = nextBuffer();
+    if (res != null) {
+      batch.setEOF(res);
+      return batch;
+    }
+
+    batchEntryWriter.batch = batch;
+    while (pos >= 0 && !batch.isFull()) {
+      SortDoc sortDoc = buffer.outDocs[++index];
+      batchEntryWriter.row = batch.addRow();
+      batchEntryWriter.expectedField = 0;
+      exportBuffers.exportWriter.writeDoc(
+          sortDoc, exportBuffers.leaves, batchEntryWriter, exportBuffers.exportWriter.fieldWriters);
+      pos--;
+    }
+    batchEntryWriter.batch = null;
+    return batch;
+  }
+
+  /**
+   * Exchanges the output buffer with the reader thread once all its documents were read.
+   *
+   * @return the EOF or EXCEPTION tuple to return, or null if there are documents to read
+   */
+  private Tuple nextBuffer() {
     Tuple res = null;
     if (pos < 0) {
 
@@ -211,18 +315,7 @@ public class ExportWriterStream extends TupleStream implements Expressible {
     if (exportBuffers.getError() != null) {
       res = Tuple.EXCEPTION(exportBuffers.getError(), true);
     }
-    if (res != null) {
-      // only errors or EOF assigned result so far
-
-      return res;
-    }
-
-    SortDoc sortDoc = buffer.outDocs[++index];
-    tupleEntryWriter.tuple = new Tuple();
-    exportBuffers.exportWriter.writeDoc(
-        sortDoc, exportBuffers.leaves, tupleEntryWriter, exportBuffers.exportWriter.fieldWriters);
-    pos--;
-    return tupleEntryWriter.tuple;
+    return res;
   }
 
   @Override
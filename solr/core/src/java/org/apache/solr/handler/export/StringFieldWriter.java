@@ -27,6 +27,7 @@ import org.apache.solr.common.util.ByteArrayUtf8CharSequence;
 import org.apache.solr.common.util.JavaBinCodec;
 import org.apache.solr.schema.FieldType;
 import org.apache.solr.search.DocValuesIteratorCache;
+import org.apache.solr.search.TermBlockCache;
 
 class StringFieldWriter extends FieldWriter {
   protected final String field;
@@ -34,6 +35,7 @@ class StringFieldWriter extends FieldWriter {
   private BytesRef lastRef;
   private int lastOrd = -1;
   private final DocValuesIteratorCache.FieldDocValuesSupplier docValuesCache;
+  private final TermBlockCache.FieldTerms terms;
 
   protected CharsRefBuilder cref = new CharsRefBuilder();
   final ByteArrayUtf8CharSequence utf8 =
@@ -53,9 +55,22 @@ class StringFieldWriter extends FieldWriter {
       String field,
       FieldType fieldType,
       DocValuesIteratorCache.FieldDocValuesSupplier docValuesCache) {
+    this(field, fieldType, docValuesCache, null);
+  }
+
+  /**
+   * @param terms if not null, terms are looked up by global ordinal in the searcher's {@link
+   *     TermBlockCache} instead of in the segment's terms dictionary
+   */
+  public StringFieldWriter(
+      String field,
+      FieldType fieldType,
+      DocValuesIteratorCache.FieldDocValuesSupplier docValuesCache,
+      TermBlockCache.FieldTerms terms) {
     this.field = field;
     this.fieldType = fieldType;
     this.docValuesCache = docValuesCache;
+    this.terms = terms;
   }
 
   @Override
@@ -83,7 +98,11 @@ class StringFieldWriter extends FieldWriter {
       this.lastOrd = stringValue.currentOrd;
     }
 
-    if (ref == null) {
+    if (ref == null && terms != null && stringValue != null) {
+      // The sort value already holds the global ordinal
+      ref = terms.lookupOrd(stringValue.currentOrd);
+      lastRef = ref.clone();
+    } else if (ref == null) {
       SortedDocValues vals =
           docValuesCache.getSortedDocValues(
               sortDoc.docId, readerContext.reader(), readerContext.ord);
@@ -92,7 +111,11 @@ class StringFieldWriter extends FieldWriter {
       }
 
       int ord = vals.ordValue();
-      ref = vals.lookupOrd(ord);
+      if (terms != null) {
+        ref = terms.lookupOrd((int) terms.getGlobalOrds(readerContext.ord).get(ord));
+      } else {
+        ref = vals.lookupOrd(ord);
+      }
 
       if (stringValue != null) {
         // Don't need to set the lastRef if it's not a sort value.
@@ -210,6 +210,10 @@ public class BitDocSet extends DocSet {
   protected static void andNot(FixedBitSet bits, DocSet other) {
     if (other instanceof BitDocSet) {
       bits.andNot(((BitDocSet) other).bits);
+    } else if (other instanceof OffHeapBitDocSet offHeap) {
+      offHeap.andNotTo(bits);
+    } else if (other instanceof RoaringDocSet roaring) {
+      roaring.andNotTo(bits);
     } else {
       DocIterator iter = other.iterator();
       while (iter.hasNext()) {
@@ -227,6 +231,9 @@ public class BitDocSet extends DocSet {
     if (other instanceof BitDocSet otherDocSet) {
       newbits = FixedBitSet.ensureCapacity(newbits, otherDocSet.bits.length());
       newbits.or(otherDocSet.bits);
+    } else if (other instanceof OffHeapBitDocSet || other instanceof RoaringDocSet) {
+      newbits = FixedBitSet.ensureCapacity(newbits, other.getBits().length());
+      other.addAllTo(newbits);
     } else {
       DocIterator iter = other.iterator();
       while (iter.hasNext()) {
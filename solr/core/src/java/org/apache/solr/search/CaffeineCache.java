@@ -295,7 +295,7 @@ public class CaffeineCache<K, V> extends SolrCacheBase
    * @param key the cache key
    * @param newValue the new cached value to increment estimate
    */
-  private void recordRamBytes(K key, V newValue) {
+  protected void recordRamBytes(K key, V newValue) {
     ramBytes.add(
         RamUsageEstimator.sizeOfObject(newValue, RamUsageEstimator.QUERY_DEFAULT_RAM_BYTES_USED));
     ramBytes.add(
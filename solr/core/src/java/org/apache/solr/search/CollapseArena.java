@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.solr.common.util.EnvUtils;
+import org.apache.solr.metrics.otel.instruments.AttributedLongHistogram;
+import org.apache.solr.util.DynamicMap;
+
+/**
+ * Pools the arrays that collapsing collectors index by collapse value or by doc id, for the
+ * lifetime of a {@link SolrIndexSearcher}. Their sizes depend on the searcher's number of docs and
+ * values, so concurrent and subsequent collapse requests on the same searcher can reuse them
+ * instead of allocating them again, which keeps the heap usage flat under collapse traffic on high
+ * cardinality fields.
+ *
+ * <p>A collapse takes its arrays through a {@link Lease}, which returns all of them to the pool
+ * when the collapse completes. The pool keeps at most {@value #MAX_RAM_MB_PROP} MB of arrays per
+ * searcher (default 0, which disables pooling). When pooling is disabled there are no leases, and
+ * collapses allocate their arrays directly, without the bookkeeping and the clearing of reused
+ * arrays that pooling needs.
+ *
+ * @lucene.internal
+ */
+public final class CollapseArena {
+
+  public static final String MAX_RAM_MB_PROP = "solr.search.collapseArena.maxRamMB";
+
+  /** Returns the bytes of arrays a new searcher's arena may pool, read from the property. */
+  static long maxRamBytes() {
+    return EnvUtils.getPropertyAsLong(MAX_RAM_MB_PROP, 0L) * 1024L * 1024L;
+  }
+
+  private final long maxRamBytes;
+  private final Map<ArrayKey, Queue<Object>> pools = new ConcurrentHashMap<>();
+  private final AtomicLong pooledBytes = new AtomicLong();
+  private final LongAdder allocatedBytes = new LongAdder();
+  private final LongAdder reusedBytes = new LongAdder();
+  private volatile AttributedLongHistogram allocatedBytesPerCollapse;
+
+  CollapseArena(long maxRamBytes) {
+    this.maxRamBytes = maxRamBytes;
+  }
+
+  /**
+   * Returns a new lease, to be closed by a single collapse once it no longer uses its arrays, or
+   * null if pooling is disabled.
+   */
+  public Lease newLease() {
+    return maxRamBytes > 0 ? new Lease() : null;
+  }
+
+  /** Number of bytes of arrays that were allocated because none of that size was pooled. */
+  public long getAllocatedBytes() {
+    return allocatedBytes.sum();
+  }
+
+  /** Number of bytes of arrays that were taken from the pool. */
+  public long getReusedBytes() {
+    return reusedBytes.sum();
+  }
+
+  /** Number of bytes of arrays currently in the pool. */
+  public long getPooledBytes() {
+    return pooledBytes.get();
+  }
+
+  void setAllocatedBytesPerCollapse(AttributedLongHistogram histogram) {
+    this.allocatedBytesPerCollapse = histogram;
+  }
+
+  private Object poll(ArrayKey key) {
+    Queue<Object> pool = pools.get(key);
+    Object array = pool == null ? null : pool.poll();
+    if (array != null) {
+      long bytes = RamUsageEstimator.shallowSizeOf(array);
+      pooledBytes.addAndGet(-bytes);
+      reusedBytes.add(bytes);
+    }
+    return array;
+  }
+
+  private void offer(Object array) {
+    int length =
+        switch (array) {
+          case int[] ints -> ints.length;
+          case float[] floats -> floats.length;
+          case long[] longs -> longs.length;
+          default -> throw new IllegalArgumentException("Not a pooled array: " + array);
+        };
+    long bytes = RamUsageEstimator.shallowSizeOf(array);
+    if (pooledBytes.addAndGet(bytes) > maxRamBytes) {
+      pooledBytes.addAndGet(-bytes);
+      return;
+    }
+    pools
+        .computeIfAbsent(
+            new ArrayKey(array.getClass(), length), k -> new ConcurrentLinkedQueue<>())
+        .offer(array);
+  }
+
+  private record ArrayKey(Class<?> type, int length) {}
+
+  /**
+   * The arrays used by one collapse. Not thread-safe: every collector, including the one of each
+   * slice of a multi-threaded collapse, has its own lease.
+   */
+  public final class Lease implements DynamicMap.ArrayAllocator {
+    private final List<Object> arrays = new ArrayList<>();
+    private long allocated;
+
+    private Lease() {}
+
+    @Override
+    public int[] newIntArray(int length) {
+      int[] array = (int[]) poll(new ArrayKey(int[].class, length));
+      if (array == null) {
+        array = new int[length];
+        allocated(array);
+      }
+      arrays.add(array);
+      return array;
+    }
+
+    @Override
+    public float[] newFloatArray(int length) {
+      float[] array = (float[]) poll(new ArrayKey(float[].class, length));
+      if (array == null) {
+        array = new float[length];
+        allocated(array);
+      }
+      arrays.add(array);
+      return array;
+    }
+
+    @Override
+    public long[] newLongArray(int length) {
+      long[] array = (long[]) poll(new ArrayKey(long[].class, length));
+      if (array == null) {
+        array = new long[length];
+        allocated(array);
+      }
+      arrays.add(array);
+      return array;
+    }
+
+    /** Returns a bit set of {@code numBits} clear bits. */
+    public FixedBitSet newFixedBitSet(int numBits) {
+      int numWords = FixedBitSet.bits2words(numBits);
+      long[] bits = (long[]) poll(new ArrayKey(long[].class, numWords));
+      if (bits == null) {
+        bits = new long[numWords];
+        allocated(bits);
+      } else {
+        Arrays.fill(bits, 0L);
+      }
+      arrays.add(bits);
+      return new FixedBitSet(bits, numBits);
+    }
+
+    private void allocated(Object array) {
+      long bytes = RamUsageEstimator.shallowSizeOf(array);
+      allocated += bytes;
+      allocatedBytes.add(bytes);
+    }
+
+    /**
+     * Returns all the arrays of this lease to the pool, and records the bytes this collapse
+     * allocated. The arrays must not be used anymore.
+     */
+    public void close() {
+      for (Object array : arrays) {
+        offer(array);
+      }
+      arrays.clear();
+      AttributedLongHistogram histogram = allocatedBytesPerCollapse;
+      if (histogram != null) {
+        histogram.record(allocated);
+      }
+      allocated = 0;
+    }
+  }
+}
@@ -467,17 +467,23 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         }
 
         boostDocsMap = QueryElevationComponent.getBoostDocs(searcher, this.boosted, context);
-        return collectorFactory.getCollector(
-            this.collapseField,
-            this.groupHeadSelector,
-            this.sortSpec,
-            this.nullPolicy.getCode(),
-            this.hint,
-            this.needsScores4Collapsing,
-            this.needsScores,
-            this.size,
-            boostDocsMap,
-            searcher);
+        DelegatingCollector collector =
+            collectorFactory.getCollector(
+                this.collapseField,
+                this.groupHeadSelector,
+                this.sortSpec,
+                this.nullPolicy.getCode(),
+                this.hint,
+                this.needsScores4Collapsing,
+                this.needsScores,
+                this.size,
+                boostDocsMap,
+                searcher);
+        if (collector instanceof AbstractGroupHeadCollector groupHeadCollector) {
+          groupHeadCollector.filter = this;
+          groupHeadCollector.searcher = searcher;
+        }
+        return collector;
 
       } catch (IOException e) {
         throw new RuntimeException(e);
@@ -583,12 +589,55 @@ public class CollapsingQParserPlugin extends QParserPlugin {
     }
   }
 
+  /**
+   * Base class for collectors that keep the group head of every collapse key of the whole index
+   * until {@link #complete()}. The group heads of the matches are the group heads of the group
+   * heads of each slice of the index, so the slices can be collected concurrently.
+   *
+   * @see SliceablePostFilterCollector
+   */
+  abstract static class AbstractGroupHeadCollector extends DelegatingCollector
+      implements SliceablePostFilterCollector {
+
+    private CollapsingPostFilter filter;
+    private SolrIndexSearcher searcher;
+
+    /**
+     * Provides the arrays of the group heads, which are reused once the collapse completes; null if
+     * pooling is disabled, in which case they are allocated directly.
+     */
+    protected final CollapseArena.Lease lease;
+
+    protected AbstractGroupHeadCollector(CollapseArena.Lease lease) {
+      this.lease = lease;
+    }
+
+    @Override
+    public DelegatingCollector newSliceCollector() {
+      return filter.getFilterCollector(searcher);
+    }
+
+    @Override
+    public final void complete() throws IOException {
+      try {
+        doComplete();
+      } finally {
+        if (lease != null) {
+          lease.close();
+        }
+      }
+    }
+
+    /** Collects the group heads with the delegate, and completes it. */
+    protected abstract void doComplete() throws IOException;
+  }
+
   /**
    * Collapses on Ordinal Values using Score to select the group head.
    *
    * @lucene.internal
    */
-  static class OrdScoreCollector extends DelegatingCollector {
+  static class OrdScoreCollector extends AbstractGroupHeadCollector {
 
     private LeafReaderContext[] contexts;
     private final DocValuesProducer collapseValuesProducer;
@@ -616,8 +665,10 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         int nullPolicy,
         IntIntHashMap boostDocsMap,
         IndexSearcher searcher,
-        boolean collectElevatedDocsWhenCollapsing)
+        boolean collectElevatedDocsWhenCollapsing,
+        CollapseArena.Lease lease)
         throws IOException {
+      super(lease);
       this.maxDoc = maxDoc;
       this.contexts = new LeafReaderContext[segments];
       this.collectElevatedDocsWhenCollapsing = collectElevatedDocsWhenCollapsing;
@@ -626,7 +677,7 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         contexts[i] = con.get(i);
       }
 
-      this.collapsedSet = new FixedBitSet(maxDoc);
+      this.collapsedSet = lease == null ? new FixedBitSet(maxDoc) : lease.newFixedBitSet(maxDoc);
       this.collapseValuesProducer = collapseValuesProducer;
       this.collapseValues = collapseValuesProducer.getSorted(null);
 
@@ -635,8 +686,8 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         this.multiSortedDocValues = (MultiDocValues.MultiSortedDocValues) collapseValues;
         this.ordinalMap = multiSortedDocValues.mapping;
       }
-      this.ords = new IntIntDynamicMap(valueCount, -1);
-      this.scores = new IntFloatDynamicMap(valueCount, -Float.MAX_VALUE);
+      this.ords = new IntIntDynamicMap(valueCount, -1, lease);
+      this.scores = new IntFloatDynamicMap(valueCount, -Float.MAX_VALUE, lease);
       this.nullPolicy = nullPolicy;
       if (nullPolicy == NullPolicy.EXPAND.getCode()) {
         nullScores = new FloatArrayList();
@@ -709,7 +760,7 @@ public class CollapsingQParserPlugin extends QParserPlugin {
     }
 
     @Override
-    public void complete() throws IOException {
+    protected void doComplete() throws IOException {
       if (contexts.length == 0) {
         return;
       }
@@ -810,7 +861,7 @@ public class CollapsingQParserPlugin extends QParserPlugin {
    *
    * @lucene.internal
    */
-  static class IntScoreCollector extends DelegatingCollector {
+  static class IntScoreCollector extends AbstractGroupHeadCollector {
 
     private LeafReaderContext[] contexts;
     private FixedBitSet collapsedSet;
@@ -834,7 +885,9 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         String field,
         IntIntHashMap boostDocsMap,
         IndexSearcher searcher,
-        boolean collectElevatedDocsWhenCollapsing) {
+        boolean collectElevatedDocsWhenCollapsing,
+        CollapseArena.Lease lease) {
+      super(lease);
       this.maxDoc = maxDoc;
       this.contexts = new LeafReaderContext[segments];
       this.collectElevatedDocsWhenCollapsing = collectElevatedDocsWhenCollapsing;
@@ -843,7 +896,7 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         contexts[i] = con.get(i);
       }
 
-      this.collapsedSet = new FixedBitSet(maxDoc);
+      this.collapsedSet = lease == null ? new FixedBitSet(maxDoc) : lease.newFixedBitSet(maxDoc);
       this.nullPolicy = nullPolicy;
       if (nullPolicy == NullPolicy.EXPAND.getCode()) {
         nullScores = new FloatArrayList();
@@ -916,7 +969,7 @@ public class CollapsingQParserPlugin extends QParserPlugin {
     }
 
     @Override
-    public void complete() throws IOException {
+    protected void doComplete() throws IOException {
       if (contexts.length == 0) {
         return;
       }
@@ -1000,7 +1053,7 @@ public class CollapsingQParserPlugin extends QParserPlugin {
    *
    * @lucene.internal
    */
-  static class OrdFieldValueCollector extends DelegatingCollector {
+  static class OrdFieldValueCollector extends AbstractGroupHeadCollector {
     private LeafReaderContext[] contexts;
 
     private DocValuesProducer collapseValuesProducer;
@@ -1034,8 +1087,10 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         IntIntHashMap boostDocsMap,
         FunctionQuery funcQuery,
         IndexSearcher searcher,
-        boolean collectElevatedDocsWhenCollapsing)
+        boolean collectElevatedDocsWhenCollapsing,
+        CollapseArena.Lease lease)
         throws IOException {
+      super(lease);
 
       assert !GroupHeadSelectorType.SCORE.equals(groupHeadSelector.type);
 
@@ -1071,7 +1126,8 @@ public class CollapsingQParserPlugin extends QParserPlugin {
                 boostedDocsCollector,
                 sortSpec,
                 searcher,
-                collapseValues);
+                collapseValues,
+                lease);
       } else if (funcQuery != null) {
         this.collapseStrategy =
             new OrdValueSourceStrategy(
@@ -1084,7 +1140,8 @@ public class CollapsingQParserPlugin extends QParserPlugin {
                 boostedDocsCollector,
                 funcQuery,
                 searcher,
-                collapseValues);
+                collapseValues,
+                lease);
       } else {
         NumberType numType = fieldType.getNumberType();
         if (null == numType) {
@@ -1103,7 +1160,8 @@ public class CollapsingQParserPlugin extends QParserPlugin {
                       groupHeadSelector,
                       this.needsScores,
                       boostedDocsCollector,
-                      collapseValues);
+                      collapseValues,
+                      lease);
               break;
             }
           case FLOAT:
@@ -1116,7 +1174,8 @@ public class CollapsingQParserPlugin extends QParserPlugin {
                       groupHeadSelector,
                       this.needsScores,
                       boostedDocsCollector,
-                      collapseValues);
+                      collapseValues,
+                      lease);
               break;
             }
           case LONG:
@@ -1129,7 +1188,8 @@ public class CollapsingQParserPlugin extends QParserPlugin {
                       groupHeadSelector,
                       this.needsScores,
                       boostedDocsCollector,
-                      collapseValues);
+                      collapseValues,
+                      lease);
               break;
             }
           default:
@@ -1193,7 +1253,7 @@ public class CollapsingQParserPlugin extends QParserPlugin {
     }
 
     @Override
-    public void complete() throws IOException {
+    protected void doComplete() throws IOException {
       if (contexts.length == 0) {
         return;
       }
@@ -1285,7 +1345,7 @@ public class CollapsingQParserPlugin extends QParserPlugin {
    *
    * @lucene.internal
    */
-  static class IntFieldValueCollector extends DelegatingCollector {
+  static class IntFieldValueCollector extends AbstractGroupHeadCollector {
     private LeafReaderContext[] contexts;
     private NumericDocValues collapseValues;
     private int maxDoc;
@@ -1313,8 +1373,10 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         IntIntHashMap boostDocsMap,
         FunctionQuery funcQuery,
         IndexSearcher searcher,
-        boolean collectElevatedDocsWhenCollapsing)
+        boolean collectElevatedDocsWhenCollapsing,
+        CollapseArena.Lease lease)
         throws IOException {
+      super(lease);
       this.collectElevatedDocsWhenCollapsing = collectElevatedDocsWhenCollapsing;
 
       assert !GroupHeadSelectorType.SCORE.equals(groupHeadSelector.type);
@@ -1344,7 +1406,8 @@ public class CollapsingQParserPlugin extends QParserPlugin {
                 this.needsScores,
                 boostedDocsCollector,
                 sortSpec,
-                searcher);
+                searcher,
+                lease);
       } else if (funcQuery != null) {
         this.collapseStrategy =
             new IntValueSourceStrategy(
@@ -1357,7 +1420,8 @@ public class CollapsingQParserPlugin extends QParserPlugin {
                 this.needsScores,
                 boostedDocsCollector,
                 funcQuery,
-                searcher);
+                searcher,
+                lease);
       } else {
         NumberType numType = fieldType.getNumberType();
         assert null != numType; // shouldn't make it here for non-numeric types
@@ -1372,7 +1436,8 @@ public class CollapsingQParserPlugin extends QParserPlugin {
                       nullPolicy,
                       groupHeadSelector,
                       this.needsScores,
-                      boostedDocsCollector);
+                      boostedDocsCollector,
+                      lease);
               break;
             }
           case FLOAT:
@@ -1385,7 +1450,8 @@ public class CollapsingQParserPlugin extends QParserPlugin {
                       nullPolicy,
                       groupHeadSelector,
                       this.needsScores,
-                      boostedDocsCollector);
+                      boostedDocsCollector,
+                      lease);
               break;
             }
           default:
@@ -1440,7 +1506,7 @@ public class CollapsingQParserPlugin extends QParserPlugin {
     }
 
     @Override
-    public void complete() throws IOException {
+    protected void doComplete() throws IOException {
       if (contexts.length == 0) {
         return;
       }
@@ -2155,7 +2221,8 @@ public class CollapsingQParserPlugin extends QParserPlugin {
               nullPolicy,
               boostDocs,
               searcher,
-              collectElevatedDocsWhenCollapsing);
+              collectElevatedDocsWhenCollapsing,
+              searcher.getCollapseArena().newLease());
 
         } else if (isNumericCollapsible(collapseFieldType)) {
           if (blockCollapse) {
@@ -2170,7 +2237,8 @@ public class CollapsingQParserPlugin extends QParserPlugin {
               collapseField,
               boostDocs,
               searcher,
-              collectElevatedDocsWhenCollapsing);
+              collectElevatedDocsWhenCollapsing,
+              searcher.getCollapseArena().newLease());
 
         } else {
           throw new SolrException(
@@ -2206,7 +2274,8 @@ public class CollapsingQParserPlugin extends QParserPlugin {
               boostDocs,
               funcQuery,
               searcher,
-              collectElevatedDocsWhenCollapsing);
+              collectElevatedDocsWhenCollapsing,
+              searcher.getCollapseArena().newLease());
 
         } else if (isNumericCollapsible(collapseFieldType)) {
 
@@ -2236,7 +2305,8 @@ public class CollapsingQParserPlugin extends QParserPlugin {
               boostDocs,
               funcQuery,
               searcher,
-              collectElevatedDocsWhenCollapsing);
+              collectElevatedDocsWhenCollapsing,
+              searcher.getCollapseArena().newLease());
         } else {
           throw new SolrException(
               SolrException.ErrorCode.BAD_REQUEST,
@@ -2310,16 +2380,17 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         int nullPolicy,
         boolean needsScores,
         BoostedDocsCollector boostedDocsCollector,
-        SortedDocValues values) {
-      this.ords = new IntIntDynamicMap(valueCount, -1);
+        SortedDocValues values,
+        CollapseArena.Lease lease) {
+      this.ords = new IntIntDynamicMap(valueCount, -1, lease);
       this.nullPolicy = nullPolicy;
       this.needsScores = needsScores;
-      this.collapsedSet = new FixedBitSet(maxDoc);
+      this.collapsedSet = lease == null ? new FixedBitSet(maxDoc) : lease.newFixedBitSet(maxDoc);
 
       this.boostedDocsCollector = boostedDocsCollector;
 
       if (this.needsScores) {
-        this.scores = new IntFloatDynamicMap(valueCount, 0.0f);
+        this.scores = new IntFloatDynamicMap(valueCount, 0.0f, lease);
         if (nullPolicy == NullPolicy.EXPAND.getCode()) {
           nullScores = new FloatArrayList();
         }
@@ -2381,19 +2452,20 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         GroupHeadSelector groupHeadSelector,
         boolean needsScores,
         BoostedDocsCollector boostedDocsCollector,
-        SortedDocValues values)
+        SortedDocValues values,
+        CollapseArena.Lease lease)
         throws IOException {
-      super(maxDoc, valueCount, nullPolicy, needsScores, boostedDocsCollector, values);
+      super(maxDoc, valueCount, nullPolicy, needsScores, boostedDocsCollector, values, lease);
       this.field = groupHeadSelector.selectorText;
 
       assert GroupHeadSelectorType.MIN_MAX.contains(groupHeadSelector.type);
 
       if (GroupHeadSelectorType.MAX.equals(groupHeadSelector.type)) {
         comp = new MaxIntComp();
-        this.ordVals = new IntIntDynamicMap(valueCount, Integer.MIN_VALUE);
+        this.ordVals = new IntIntDynamicMap(valueCount, Integer.MIN_VALUE, lease);
       } else {
         comp = new MinIntComp();
-        this.ordVals = new IntIntDynamicMap(valueCount, Integer.MAX_VALUE);
+        this.ordVals = new IntIntDynamicMap(valueCount, Integer.MAX_VALUE, lease);
         this.nullVal = Integer.MAX_VALUE;
       }
     }
@@ -2457,20 +2529,21 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         GroupHeadSelector groupHeadSelector,
         boolean needsScores,
         BoostedDocsCollector boostedDocsCollector,
-        SortedDocValues values)
+        SortedDocValues values,
+        CollapseArena.Lease lease)
         throws IOException {
-      super(maxDoc, valueCount, nullPolicy, needsScores, boostedDocsCollector, values);
+      super(maxDoc, valueCount, nullPolicy, needsScores, boostedDocsCollector, values, lease);
       this.field = groupHeadSelector.selectorText;
 
       assert GroupHeadSelectorType.MIN_MAX.contains(groupHeadSelector.type);
 
       if (GroupHeadSelectorType.MAX.equals(groupHeadSelector.type)) {
         comp = new MaxFloatComp();
-        this.ordVals = new IntFloatDynamicMap(valueCount, -Float.MAX_VALUE);
+        this.ordVals = new IntFloatDynamicMap(valueCount, -Float.MAX_VALUE, lease);
         this.nullVal = -Float.MAX_VALUE;
       } else {
         comp = new MinFloatComp();
-        this.ordVals = new IntFloatDynamicMap(valueCount, Float.MAX_VALUE);
+        this.ordVals = new IntFloatDynamicMap(valueCount, Float.MAX_VALUE, lease);
         this.nullVal = Float.MAX_VALUE;
       }
     }
@@ -2537,20 +2610,21 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         GroupHeadSelector groupHeadSelector,
         boolean needsScores,
         BoostedDocsCollector boostedDocsCollector,
-        SortedDocValues values)
+        SortedDocValues values,
+        CollapseArena.Lease lease)
         throws IOException {
-      super(maxDoc, valueCount, nullPolicy, needsScores, boostedDocsCollector, values);
+      super(maxDoc, valueCount, nullPolicy, needsScores, boostedDocsCollector, values, lease);
       this.field = groupHeadSelector.selectorText;
 
       assert GroupHeadSelectorType.MIN_MAX.contains(groupHeadSelector.type);
 
       if (GroupHeadSelectorType.MAX.equals(groupHeadSelector.type)) {
         comp = new MaxLongComp();
-        this.ordVals = new IntLongDynamicMap(valueCount, Long.MIN_VALUE);
+        this.ordVals = new IntLongDynamicMap(valueCount, Long.MIN_VALUE, lease);
       } else {
         this.nullVal = Long.MAX_VALUE;
         comp = new MinLongComp();
-        this.ordVals = new IntLongDynamicMap(valueCount, Long.MAX_VALUE);
+        this.ordVals = new IntLongDynamicMap(valueCount, Long.MAX_VALUE, lease);
       }
     }
 
@@ -2619,9 +2693,10 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         BoostedDocsCollector boostedDocsCollector,
         FunctionQuery funcQuery,
         IndexSearcher searcher,
-        SortedDocValues values)
+        SortedDocValues values,
+        CollapseArena.Lease lease)
         throws IOException {
-      super(maxDoc, valueCount, nullPolicy, needsScores, boostedDocsCollector, values);
+      super(maxDoc, valueCount, nullPolicy, needsScores, boostedDocsCollector, values, lease);
       this.needsScores4Collapsing = needsScores4Collapsing;
       this.valueSource = funcQuery.getValueSource();
       this.rcontext = ValueSource.newContext(searcher);
@@ -2630,11 +2705,11 @@ public class CollapsingQParserPlugin extends QParserPlugin {
 
       if (GroupHeadSelectorType.MAX.equals(groupHeadSelector.type)) {
         comp = new MaxFloatComp();
-        this.ordVals = new IntFloatDynamicMap(valueCount, -Float.MAX_VALUE);
+        this.ordVals = new IntFloatDynamicMap(valueCount, -Float.MAX_VALUE, lease);
       } else {
         this.nullVal = Float.MAX_VALUE;
         comp = new MinFloatComp();
-        this.ordVals = new IntFloatDynamicMap(valueCount, Float.MAX_VALUE);
+        this.ordVals = new IntFloatDynamicMap(valueCount, Float.MAX_VALUE, lease);
       }
 
       collapseScore.setupIfNeeded(groupHeadSelector, rcontext);
@@ -2713,9 +2788,10 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         BoostedDocsCollector boostedDocsCollector,
         SortSpec sortSpec,
         IndexSearcher searcher,
-        SortedDocValues values)
+        SortedDocValues values,
+        CollapseArena.Lease lease)
         throws IOException {
-      super(maxDoc, valueCount, nullPolicy, needsScores, boostedDocsCollector, values);
+      super(maxDoc, valueCount, nullPolicy, needsScores, boostedDocsCollector, values, lease);
       this.needsScores4Collapsing = needsScores4Collapsing;
 
       assert GroupHeadSelectorType.SORT.equals(groupHeadSelector.type);
@@ -2835,18 +2911,19 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         String collapseField,
         int nullPolicy,
         boolean needsScores,
-        BoostedDocsCollector boostedDocsCollector) {
+        BoostedDocsCollector boostedDocsCollector,
+        CollapseArena.Lease lease) {
       this.collapseField = collapseField;
       this.nullPolicy = nullPolicy;
       this.needsScores = needsScores;
-      this.collapsedSet = new FixedBitSet(maxDoc);
+      this.collapsedSet = lease == null ? new FixedBitSet(maxDoc) : lease.newFixedBitSet(maxDoc);
       this.cmap = new IntIntHashMap(size);
-      this.docs = new IntIntDynamicMap(size, 0);
+      this.docs = new IntIntDynamicMap(size, 0, lease);
 
       this.boostedDocsCollector = boostedDocsCollector;
 
       if (needsScores) {
-        this.scores = new IntFloatDynamicMap(size, 0.0f);
+        this.scores = new IntFloatDynamicMap(size, 0.0f, lease);
         if (nullPolicy == NullPolicy.EXPAND.getCode()) {
           nullScores = new FloatArrayList();
         }
@@ -2925,12 +3002,13 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         int nullPolicy,
         GroupHeadSelector groupHeadSelector,
         boolean needsScores,
-        BoostedDocsCollector boostedDocsCollector)
+        BoostedDocsCollector boostedDocsCollector,
+        CollapseArena.Lease lease)
         throws IOException {
 
-      super(maxDoc, size, collapseField, nullPolicy, needsScores, boostedDocsCollector);
+      super(maxDoc, size, collapseField, nullPolicy, needsScores, boostedDocsCollector, lease);
       this.field = groupHeadSelector.selectorText;
-      this.testValues = new IntIntDynamicMap(size, 0);
+      this.testValues = new IntIntDynamicMap(size, 0, lease);
 
       assert GroupHeadSelectorType.MIN_MAX.contains(groupHeadSelector.type);
 
@@ -3019,12 +3097,13 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         int nullPolicy,
         GroupHeadSelector groupHeadSelector,
         boolean needsScores,
-        BoostedDocsCollector boostedDocsCollector)
+        BoostedDocsCollector boostedDocsCollector,
+        CollapseArena.Lease lease)
         throws IOException {
 
-      super(maxDoc, size, collapseField, nullPolicy, needsScores, boostedDocsCollector);
+      super(maxDoc, size, collapseField, nullPolicy, needsScores, boostedDocsCollector, lease);
       this.field = groupHeadSelector.selectorText;
-      this.testValues = new IntFloatDynamicMap(size, 0.0f);
+      this.testValues = new IntFloatDynamicMap(size, 0.0f, lease);
 
       assert GroupHeadSelectorType.MIN_MAX.contains(groupHeadSelector.type);
 
@@ -3122,13 +3201,14 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         boolean needsScores,
         BoostedDocsCollector boostedDocsCollector,
         FunctionQuery funcQuery,
-        IndexSearcher searcher)
+        IndexSearcher searcher,
+        CollapseArena.Lease lease)
         throws IOException {
 
-      super(maxDoc, size, collapseField, nullPolicy, needsScores, boostedDocsCollector);
+      super(maxDoc, size, collapseField, nullPolicy, needsScores, boostedDocsCollector, lease);
 
       this.needsScores4Collapsing = needsScores4Collapsing;
-      this.testValues = new IntFloatDynamicMap(size, 0.0f);
+      this.testValues = new IntFloatDynamicMap(size, 0.0f, lease);
 
       this.valueSource = funcQuery.getValueSource();
       this.rcontext = ValueSource.newContext(searcher);
@@ -3246,10 +3326,11 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         boolean needsScores,
         BoostedDocsCollector boostedDocsCollector,
         SortSpec sortSpec,
-        IndexSearcher searcher)
+        IndexSearcher searcher,
+        CollapseArena.Lease lease)
         throws IOException {
 
-      super(maxDoc, size, collapseField, nullPolicy, needsScores, boostedDocsCollector);
+      super(maxDoc, size, collapseField, nullPolicy, needsScores, boostedDocsCollector, lease);
       this.needsScores4Collapsing = needsScores4Collapsing;
 
       assert GroupHeadSelectorType.SORT.equals(groupHeadSelector.type);
@@ -172,7 +172,7 @@ public final class DocSetBuilder {
       if (filter != null) {
         bitSet.and(filter);
       }
-      return new BitDocSet(bitSet);
+      return DocSetUtil.compactBitSet(bitSet, -1);
       // TODO - if this set will be cached, should we make it smaller if it's below
       // DocSetUtil.smallSetSize?
     } else {
@@ -191,7 +191,7 @@ public final class DocSetBuilder {
       if (filter != null) {
         bitSet.and(filter);
       }
-      return new BitDocSet(bitSet);
+      return DocSetUtil.compactBitSet(bitSet, -1);
     } else {
       // don't need to sort, but still need to remove non accepted docs
       int l = pos;
@@ -91,7 +91,8 @@ class DocSetQuery extends Query implements DocSetProducer {
 
       @Override
       public boolean isCacheable(LeafReaderContext ctx) {
-        return true;
+        // the DocSet holds the top-level doc ids of one searcher
+        return false;
       }
     };
   }
@@ -17,8 +17,10 @@
 package org.apache.solr.search;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReader;
@@ -28,14 +30,19 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.LeafCollector;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.SimpleCollector;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.FixedBitSet;
+import org.apache.solr.common.util.EnvUtils;
 
 /**
  * @lucene.experimental
@@ -53,6 +60,30 @@ public class DocSetUtil {
     return (maxDoc >> 6) + 5; // The +5 is for better test coverage for small sets
   }
 
+  /**
+   * Whether large sets may be stored as {@link RoaringDocSet}s by {@link #compactBitSet}; set with
+   * the {@code solr.search.docset.roaring.enabled} system property. Not final for tests.
+   */
+  static boolean roaringEnabled =
+      EnvUtils.getPropertyAsBool("solr.search.docset.roaring.enabled", false);
+
+  /**
+   * Returns a DocSet for a bitset collected for a large result. This is a {@link BitDocSet} unless
+   * {@link RoaringDocSet}s are enabled and one would take at most half the memory, as is the case
+   * for mid-density results and for results whose docs are clustered in runs.
+   *
+   * @param size the number of set bits, or -1 if not known
+   */
+  public static DocSet compactBitSet(FixedBitSet bits, int size) {
+    if (roaringEnabled) {
+      long bitSetBytes = (long) FixedBitSet.bits2words(bits.length()) * Long.BYTES;
+      if (RoaringDocSet.estimateRamBytesUsed(bits) <= bitSetBytes / 2) {
+        return RoaringDocSet.fromBits(bits);
+      }
+    }
+    return size < 0 ? new BitDocSet(bits) : new BitDocSet(bits, size);
+  }
+
   /**
    * Iterates DocSets to test for equality - slow and for testing purposes only.
    *
@@ -91,7 +122,11 @@ public class DocSetUtil {
       return searcher.offerLiveDocs(collector::getDocSet, size);
     }
 
-    return collector.getDocSet();
+    DocSet docSet = collector.getDocSet();
+    if (docSet instanceof BitDocSet bitDocSet) {
+      return compactBitSet(bitDocSet.getBits(), size);
+    }
+    return docSet;
   }
 
   /**
@@ -145,6 +180,10 @@ public class DocSetUtil {
   public static DocSet createDocSetGeneric(SolrIndexSearcher searcher, Query query)
       throws IOException {
 
+    if (searcher.isParallelDocSetEnabled()) {
+      return createDocSetParallel(searcher, query);
+    }
+
     int maxDoc = searcher.getIndexReader().maxDoc();
     DocSetCollector collector = new DocSetCollector(maxDoc);
 
@@ -156,6 +195,142 @@ public class DocSetUtil {
     return getDocSet(collector, searcher);
   }
 
+  /**
+   * Collects the matches of a query concurrently, one task per index slice on the searcher's
+   * executor. Every task sets bits directly in the words of one shared bitset, so the resulting
+   * {@link BitDocSet} needs no merge copy; only the few words straddling two segments are
+   * accumulated privately and OR'ed in when the tasks are reduced.
+   */
+  static DocSet createDocSetParallel(SolrIndexSearcher searcher, Query query) throws IOException {
+    int maxDoc = searcher.getIndexReader().maxDoc();
+    BitDocSet docSet;
+    try {
+      docSet = searcher.search(query, new SharedBitSetCollectorManager(maxDoc));
+    } catch (RuntimeException ex) {
+      // unwrap so that e.g. ExitingReaderException surfaces as it does when collecting serially
+      if (ex.getCause() instanceof ExecutionException
+          && ex.getCause().getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw ex;
+    }
+
+    if (docSet.size() < smallSetSize(maxDoc)) {
+      return toSmallSet(docSet);
+    }
+    if (docSet.size() == searcher.numDocs()) {
+      return getDocSet(docSet, searcher);
+    }
+    return compactBitSet(docSet.getBits(), docSet.size());
+  }
+
+  /**
+   * Creates collectors that all write into one {@code long[]} bitset of {@code maxDoc} bits.
+   *
+   * <p>Each segment is collected by exactly one collector, so words entirely covered by a segment
+   * are only ever written by one thread. A word may however hold docs of two adjacent segments
+   * collected by different threads; such boundary words are buffered per collector and merged in
+   * {@link #reduce(Collection)}, after all tasks have completed.
+   */
+  static class SharedBitSetCollectorManager
+      implements CollectorManager<SharedBitSetCollector, BitDocSet> {
+    private final int maxDoc;
+    private final long[] bits;
+
+    SharedBitSetCollectorManager(int maxDoc) {
+      this.maxDoc = maxDoc;
+      this.bits = new long[FixedBitSet.bits2words(maxDoc)];
+    }
+
+    @Override
+    public SharedBitSetCollector newCollector() {
+      return new SharedBitSetCollector(bits);
+    }
+
+    @Override
+    public BitDocSet reduce(Collection<SharedBitSetCollector> collectors) {
+      int size = 0;
+      for (SharedBitSetCollector collector : collectors) {
+        collector.flushBoundaryWords();
+        for (int i = 0; i < collector.numBoundaryWords; i++) {
+          bits[collector.boundaryWordIndexes[i]] |= collector.boundaryWords[i];
+        }
+        size += collector.count;
+      }
+      return new BitDocSet(new FixedBitSet(bits, maxDoc), size);
+    }
+  }
+
+  static class SharedBitSetCollector extends SimpleCollector {
+    private final long[] bits;
+    int count;
+
+    private int docBase;
+    // index of the first/last word of the current segment if shared with a neighbour, else -1
+    private int firstSharedWord = -1;
+    private int lastSharedWord = -1;
+    private long firstWordBits;
+    private long lastWordBits;
+
+    int[] boundaryWordIndexes = new int[8];
+    long[] boundaryWords = new long[8];
+    int numBoundaryWords;
+
+    SharedBitSetCollector(long[] bits) {
+      this.bits = bits;
+    }
+
+    @Override
+    protected void doSetNextReader(LeafReaderContext context) {
+      flushBoundaryWords();
+      docBase = context.docBase;
+      int end = docBase + context.reader().maxDoc();
+      firstSharedWord = (docBase & 0x3f) != 0 ? docBase >>> 6 : -1;
+      lastSharedWord = (end & 0x3f) != 0 ? (end - 1) >>> 6 : -1;
+    }
+
+    @Override
+    public void collect(int doc) {
+      int globalId = docBase + doc;
+      int word = globalId >>> 6;
+      long mask = 1L << globalId;
+      if (word == firstSharedWord) {
+        firstWordBits |= mask;
+      } else if (word == lastSharedWord) {
+        lastWordBits |= mask;
+      } else {
+        bits[word] |= mask;
+      }
+      count++;
+    }
+
+    void flushBoundaryWords() {
+      if (firstWordBits != 0) {
+        addBoundaryWord(firstSharedWord, firstWordBits);
+        firstWordBits = 0;
+      }
+      if (lastWordBits != 0) {
+        addBoundaryWord(lastSharedWord, lastWordBits);
+        lastWordBits = 0;
+      }
+    }
+
+    private void addBoundaryWord(int wordIndex, long word) {
+      if (numBoundaryWords == boundaryWords.length) {
+        boundaryWordIndexes = ArrayUtil.grow(boundaryWordIndexes, numBoundaryWords + 1);
+        boundaryWords = ArrayUtil.grow(boundaryWords, numBoundaryWords + 1);
+      }
+      boundaryWordIndexes[numBoundaryWords] = wordIndex;
+      boundaryWords[numBoundaryWords] = word;
+      numBoundaryWords++;
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+      return ScoreMode.COMPLETE_NO_SCORES;
+    }
+  }
+
   public static DocSet createDocSet(SolrIndexSearcher searcher, Term term) throws IOException {
     DirectoryReader reader = searcher.getRawReader(); // raw reader to avoid extra wrapping overhead
     int maxDoc = searcher.getIndexReader().maxDoc();
@@ -248,7 +423,7 @@ public class DocSetUtil {
       return smallSet;
     }
 
-    return docSet;
+    return compactBitSet(docSet.getBits(), sz);
   }
 
   public static DocSet toSmallSet(BitDocSet bitSet) {
@@ -391,6 +391,9 @@ class JoinQuery extends Query implements SolrSearcherRequirer {
               } else {
                 if (toTermSet instanceof BitDocSet) {
                   resultBits = ((BitDocSet) toTermSet).getBits().clone();
+                } else if (!(toTermSet instanceof SortedIntDocSet)) {
+                  // e.g. an OffHeapBitDocSet or RoaringDocSet; resultList only holds int sets
+                  resultBits = toTermSet.getFixedBitSetClone();
                 } else {
                   resultList.add(toTermSet);
                 }
@@ -16,6 +16,7 @@
  */
 package org.apache.solr.search;
 
+import com.carrotsearch.hppc.LongArrayList;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
@@ -23,16 +24,22 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LeafCollector;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorable;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.SimpleCollector;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopDocsCollector;
 import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.FixedBitSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -126,6 +133,142 @@ public class MultiThreadedSearcher {
     return postFilter == null && !cmd.getSegmentTerminateEarly() && cmd.getMultiThreaded();
   }
 
+  /**
+   * Returns true if the slices of the index can be collected concurrently by instances of the post
+   * filter, see {@link #searchSlicedPostFilter}.
+   */
+  static boolean allowMTPostFilter(DelegatingCollector postFilter, QueryCommand cmd) {
+    return postFilter instanceof SliceablePostFilterCollector
+        && !cmd.getSegmentTerminateEarly()
+        && !cmd.isQueryCancellable()
+        && cmd.getMultiThreaded();
+  }
+
+  /**
+   * Collects every slice of the index on the searcher's executor with its own instance of the post
+   * filter, which passes its candidates on to a {@link CandidateCollector}. The candidates of all
+   * slices are then collected with the post filter itself, in index order and with their scores,
+   * so that the delegates of the post filter see the same documents as after serial collection.
+   * The caller completes the post filter.
+   */
+  void searchSlicedPostFilter(Query query, DelegatingCollector postFilter) throws IOException {
+    final IndexSearcher.LeafSlice[] slices = searcher.getSlices();
+    if (slices.length < 2) {
+      searcher.search(query, postFilter);
+      return;
+    }
+
+    final ScoreMode candidateScoreMode = postFilter.getDelegate().scoreMode();
+    final List<DelegatingCollector> sliceCollectors = new ArrayList<>(slices.length);
+    for (int i = 0; i < slices.length; i++) {
+      DelegatingCollector sliceCollector =
+          ((SliceablePostFilterCollector) postFilter).newSliceCollector();
+      sliceCollector.setDelegate(new CandidateCollector(candidateScoreMode));
+      sliceCollectors.add(sliceCollector);
+    }
+    final Weight weight =
+        searcher.createWeight(
+            searcher.rewrite(query), sliceCollectors.getFirst().scoreMode(), 1.0f);
+
+    final List<Callable<long[]>> tasks = new ArrayList<>(slices.length);
+    for (int i = 0; i < slices.length; i++) {
+      final IndexSearcher.LeafSlice slice = slices[i];
+      final DelegatingCollector sliceCollector = sliceCollectors.get(i);
+      tasks.add(
+          () -> {
+            searcher.searchSlice(slice, weight, sliceCollector);
+            sliceCollector.complete();
+            return ((CandidateCollector) sliceCollector.getDelegate()).candidates.toArray();
+          });
+    }
+    final List<long[]> results = searcher.getTaskExecutor().invokeAll(tasks);
+
+    int numCandidates = 0;
+    for (long[] result : results) {
+      numCandidates += result.length;
+    }
+    final long[] candidates = new long[numCandidates];
+    int upto = 0;
+    for (long[] result : results) {
+      System.arraycopy(result, 0, candidates, upto, result.length);
+      upto += result.length;
+    }
+    // the doc is in the high bits
+    Arrays.sort(candidates);
+
+    final List<LeafReaderContext> leaves = searcher.getTopReaderContext().leaves();
+    final CandidateScore score = new CandidateScore();
+    LeafReaderContext leaf = null;
+    LeafCollector leafCollector = null;
+    int leafEnd = 0;
+    int leafOrd = -1;
+    for (long candidate : candidates) {
+      final int doc = (int) (candidate >>> 32);
+      if (doc >= leafEnd) {
+        if (leafCollector != null) {
+          leafCollector.finish();
+        }
+        do {
+          leaf = leaves.get(++leafOrd);
+          leafEnd = leaf.docBase + leaf.reader().maxDoc();
+        } while (doc >= leafEnd);
+        leafCollector = postFilter.getLeafCollector(leaf);
+        leafCollector.setScorer(score);
+      }
+      score.score = Float.intBitsToFloat((int) candidate);
+      leafCollector.collect(doc - leaf.docBase);
+    }
+    if (leafCollector != null) {
+      leafCollector.finish();
+    }
+  }
+
+  /**
+   * Records the documents a post filter passes on for one slice, with their scores, as longs that
+   * sort in doc order.
+   */
+  private static class CandidateCollector extends SimpleCollector {
+    private final ScoreMode scoreMode;
+    private final LongArrayList candidates = new LongArrayList();
+    private Scorable scorer;
+    private int docBase;
+
+    CandidateCollector(ScoreMode scoreMode) {
+      this.scoreMode = scoreMode;
+    }
+
+    @Override
+    protected void doSetNextReader(LeafReaderContext context) {
+      docBase = context.docBase;
+    }
+
+    @Override
+    public void setScorer(Scorable scorer) {
+      this.scorer = scorer;
+    }
+
+    @Override
+    public void collect(int doc) throws IOException {
+      float score = scorer == null ? 0f : scorer.score();
+      long scoreBits = Float.floatToRawIntBits(score) & 0xFFFFFFFFL;
+      candidates.add(((long) (docBase + doc) << 32) | scoreBits);
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+      return scoreMode;
+    }
+  }
+
+  private static class CandidateScore extends Scorable {
+    float score;
+
+    @Override
+    public float score() {
+      return score;
+    }
+  }
+
   static class MaxScoreResult {
     final float maxScore;
 
@@ -42,6 +42,16 @@ class MutableBitDocSet extends BitDocSet {
     return new MutableBitDocSet(bitDocSet.getFixedBitSetClone(), bitDocSet.size);
   }
 
+  /**
+   * Returns a mutable BitDocSet that is an on-heap copy of the provided OffHeapBitDocSet.
+   *
+   * @param offHeapBitDocSet an OffHeapBitDocSet
+   * @return copy of offHeapBitDocSet that is now mutable
+   */
+  public static MutableBitDocSet fromOffHeapBitDocSet(OffHeapBitDocSet offHeapBitDocSet) {
+    return new MutableBitDocSet(offHeapBitDocSet.getFixedBitSetClone(), offHeapBitDocSet.size());
+  }
+
   /**
    * Returns a new BitDocSet with the same bits if the DocSet provided is a MutableBitDocSet.
    * Otherwise, just returns the provided DocSet.
@@ -77,6 +87,16 @@ class MutableBitDocSet extends BitDocSet {
    */
   @Override
   public DocSet intersection(DocSet other) {
+    if (other instanceof OffHeapBitDocSet offHeap) {
+      offHeap.andTo(getFixedBitSet());
+      resetSize();
+      return this;
+    } else if (other instanceof RoaringDocSet roaring) {
+      roaring.andTo(getFixedBitSet());
+      resetSize();
+      return this;
+    }
+
     // intersection is overloaded in the smaller DocSets to be more
     // efficient, so dispatch off of it instead.
     if (!(other instanceof BitDocSet)) {
@@ -0,0 +1,394 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.apache.solr.util.DirectBufferUtils;
+
+/**
+ * An immutable bitset {@link DocSet} whose words live outside the Java heap, in a direct buffer.
+ *
+ * <p>Meant for long-lived, large sets such as {@code filterCache} entries (see {@link
+ * OffHeapFilterCache}): a {@link BitDocSet} over a 100M doc index holds a ~12MB {@code long[]},
+ * which is a humongous allocation for G1 and ends up being copied around the old generation. This
+ * class keeps only a small heap footprint. Set operations that produce new sets (intersection,
+ * union, andNot) return regular on-heap {@link BitDocSet}s, since their results are short-lived.
+ *
+ * <p>The off-heap memory is released by {@link #release()} once the set can no longer be in use,
+ * e.g. when {@link OffHeapFilterCache} is closed with its searcher, or otherwise when the instance
+ * becomes unreachable and is collected, see {@link #onCollected(Runnable)}.
+ *
+ * @lucene.experimental
+ */
+public class OffHeapBitDocSet extends DocSet {
+  private static final long BASE_RAM_BYTES_USED =
+      RamUsageEstimator.shallowSizeOfInstance(OffHeapBitDocSet.class)
+          + RamUsageEstimator.shallowSizeOfInstance(LongBuffer.class)
+          + RamUsageEstimator.shallowSizeOfInstance(ByteBuffer.class);
+
+  private static final Cleaner CLEANER =
+      Cleaner.create(new SolrNamedThreadFactory("offHeapDocSetCleaner"));
+
+  private final ByteBuffer buffer; // the direct buffer that owns the memory behind words
+  private final LongBuffer words; // only ever accessed with absolute get methods; thread-safe
+  private final int numWords;
+  private final int numBits;
+  private final int size;
+
+  private OffHeapBitDocSet(ByteBuffer buffer, int numBits, int size) {
+    this.buffer = buffer;
+    this.words = buffer.asLongBuffer();
+    this.numWords = words.capacity();
+    this.numBits = numBits;
+    this.size = size;
+  }
+
+  /** Copies the bits of the given set into a new off-heap set. */
+  public static OffHeapBitDocSet copyOf(BitDocSet docSet) {
+    FixedBitSet bits = docSet.getBits();
+    long[] src = bits.getBits();
+    int numWords = FixedBitSet.bits2words(bits.length());
+    ByteBuffer buffer =
+        ByteBuffer.allocateDirect(numWords * Long.BYTES).order(ByteOrder.nativeOrder());
+    buffer.asLongBuffer().put(0, src, 0, numWords);
+    return new OffHeapBitDocSet(buffer, bits.length(), docSet.size());
+  }
+
+  /**
+   * Frees the off-heap memory right away. The set must not be used afterwards: reading freed
+   * memory crashes the JVM, so this may only be called once no request can still hold the set.
+   */
+  void release() {
+    DirectBufferUtils.release(buffer);
+  }
+
+  /**
+   * Runs {@code action} once the memory of this set has been freed by the garbage collector, which
+   * happens when nothing references the set anymore. Unlike {@link #release()}, this is safe while
+   * requests may still hold the set. The action must not reference the set.
+   */
+  void onCollected(Runnable action) {
+    // the buffer is only reachable through this set and the views of its words, so it is collected
+    // once no request can read it anymore, and that is when the JDK frees its memory
+    CLEANER.register(buffer, action);
+  }
+
+  /** Returns the number of bytes held outside the heap. */
+  public long offHeapBytesUsed() {
+    return (long) numWords * Long.BYTES;
+  }
+
+  /** Returns the index of the first set bit at or after {@code index}, or NO_MORE_DOCS. */
+  int nextSetBit(int index) {
+    if (index >= numBits) return DocIdSetIterator.NO_MORE_DOCS;
+    int i = index >> 6;
+    long word = words.get(i) >> index; // skip all the bits to the right of index
+    if (word != 0) {
+      return index + Long.numberOfTrailingZeros(word);
+    }
+    while (++i < numWords) {
+      word = words.get(i);
+      if (word != 0) {
+        return (i << 6) + Long.numberOfTrailingZeros(word);
+      }
+    }
+    return DocIdSetIterator.NO_MORE_DOCS;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean exists(int doc) {
+    return doc < numBits && (words.get(doc >> 6) & (1L << doc)) != 0;
+  }
+
+  @Override
+  public DocIterator iterator() {
+    return new DocIterator() {
+      private int pos = nextSetBit(0);
+
+      @Override
+      public boolean hasNext() {
+        return pos != DocIdSetIterator.NO_MORE_DOCS;
+      }
+
+      @Override
+      public Integer next() {
+        return nextDoc();
+      }
+
+      @Override
+      public int nextDoc() {
+        int old = pos;
+        pos = old + 1 >= numBits ? DocIdSetIterator.NO_MORE_DOCS : nextSetBit(old + 1);
+        return old;
+      }
+
+      @Override
+      public float score() {
+        return 0.0f;
+      }
+    };
+  }
+
+  @Override
+  public DocIdSetIterator iterator(LeafReaderContext context) {
+    if (size == 0) return null;
+
+    final int base = context.isTopLevel ? 0 : context.docBase;
+    final int max = context.isTopLevel ? numBits : base + context.reader().maxDoc();
+    if (max <= base) {
+      // entirely empty segment
+      return null;
+    }
+
+    return new DocIdSetIterator() {
+      int adjustedDoc = -1;
+
+      @Override
+      public int docID() {
+        return adjustedDoc;
+      }
+
+      @Override
+      public int nextDoc() {
+        return advance(adjustedDoc + 1);
+      }
+
+      @Override
+      public int advance(int target) {
+        if (target == NO_MORE_DOCS) return adjustedDoc = NO_MORE_DOCS;
+        int adjusted = target + base;
+        if (adjusted >= max) {
+          return adjustedDoc = NO_MORE_DOCS;
+        }
+        int pos = nextSetBit(adjusted);
+        return adjustedDoc = pos < max ? pos - base : NO_MORE_DOCS;
+      }
+
+      @Override
+      public long cost() {
+        // pro-rate the known size for the segment
+        return (long) (size * ((max - base) / (float) numBits));
+      }
+    };
+  }
+
+  @Override
+  public DocSet intersection(DocSet other) {
+    if (other instanceof BitDocSet || other instanceof OffHeapBitDocSet) {
+      FixedBitSet newbits = getFixedBitSetClone();
+      if (other instanceof OffHeapBitDocSet offHeap) {
+        offHeap.andTo(newbits);
+      } else {
+        newbits.and(other.getFixedBitSet());
+      }
+      return new BitDocSet(newbits);
+    }
+    // the other set is smaller and does random access on us
+    return other.intersection(this);
+  }
+
+  @Override
+  public int intersectionSize(DocSet other) {
+    if (other instanceof BitDocSet bitDocSet) {
+      long[] otherBits = bitDocSet.getBits().getBits();
+      int common = Math.min(numWords, otherBits.length);
+      long count = 0;
+      for (int i = 0; i < common; i++) {
+        count += Long.bitCount(words.get(i) & otherBits[i]);
+      }
+      return (int) count;
+    } else if (other instanceof OffHeapBitDocSet offHeap) {
+      int common = Math.min(numWords, offHeap.numWords);
+      long count = 0;
+      for (int i = 0; i < common; i++) {
+        count += Long.bitCount(words.get(i) & offHeap.words.get(i));
+      }
+      return (int) count;
+    }
+    return other.intersectionSize(this);
+  }
+
+  @Override
+  public boolean intersects(DocSet other) {
+    if (other instanceof BitDocSet bitDocSet) {
+      long[] otherBits = bitDocSet.getBits().getBits();
+      int common = Math.min(numWords, otherBits.length);
+      for (int i = 0; i < common; i++) {
+        if ((words.get(i) & otherBits[i]) != 0) return true;
+      }
+      return false;
+    } else if (other instanceof OffHeapBitDocSet offHeap) {
+      int common = Math.min(numWords, offHeap.numWords);
+      for (int i = 0; i < common; i++) {
+        if ((words.get(i) & offHeap.words.get(i)) != 0) return true;
+      }
+      return false;
+    }
+    return other.intersects(this);
+  }
+
+  @Override
+  public DocSet union(DocSet other) {
+    FixedBitSet newbits = getFixedBitSetClone();
+    if (other instanceof BitDocSet bitDocSet) {
+      newbits = FixedBitSet.ensureCapacity(newbits, bitDocSet.getBits().length());
+    } else if (other instanceof OffHeapBitDocSet offHeap) {
+      newbits = FixedBitSet.ensureCapacity(newbits, offHeap.numBits);
+    } else {
+      DocIterator iter = other.iterator();
+      while (iter.hasNext()) {
+        int doc = iter.nextDoc();
+        newbits = FixedBitSet.ensureCapacity(newbits, doc);
+        newbits.set(doc);
+      }
+      return new BitDocSet(newbits);
+    }
+    other.addAllTo(newbits);
+    return new BitDocSet(newbits);
+  }
+
+  @Override
+  public DocSet andNot(DocSet other) {
+    FixedBitSet newbits = getFixedBitSetClone();
+    BitDocSet.andNot(newbits, other);
+    return new BitDocSet(newbits);
+  }
+
+  @Override
+  public DocSetQuery makeQuery() {
+    return new DocSetQuery(this);
+  }
+
+  @Override
+  public void addAllTo(FixedBitSet target) {
+    long[] targetBits = target.getBits();
+    int common = Math.min(numWords, targetBits.length);
+    for (int i = 0; i < common; i++) {
+      targetBits[i] |= words.get(i);
+    }
+  }
+
+  /**
+   * Copies up to {@code dest.length} words starting at word {@code fromWord} into {@code dest},
+   * which must be zero-filled, returning false if they are all zero.
+   */
+  boolean copyWords(int fromWord, long[] dest) {
+    int len = Math.min(dest.length, numWords - fromWord);
+    boolean any = false;
+    for (int i = 0; i < len; i++) {
+      long word = words.get(fromWord + i);
+      dest[i] = word;
+      any |= word != 0;
+    }
+    return any;
+  }
+
+  /** Clears every bit of {@code target} that is not set in this set. */
+  void andTo(FixedBitSet target) {
+    long[] targetBits = target.getBits();
+    int common = Math.min(numWords, targetBits.length);
+    for (int i = 0; i < common; i++) {
+      targetBits[i] &= words.get(i);
+    }
+    Arrays.fill(targetBits, common, targetBits.length, 0L);
+  }
+
+  /** Clears every bit of {@code target} that is set in this set. */
+  void andNotTo(FixedBitSet target) {
+    long[] targetBits = target.getBits();
+    int common = Math.min(numWords, targetBits.length);
+    for (int i = 0; i < common; i++) {
+      targetBits[i] &= ~words.get(i);
+    }
+  }
+
+  @Override
+  public DocSet clone() {
+    return new BitDocSet(getFixedBitSetClone(), size);
+  }
+
+  @Override
+  public Bits getBits() {
+    return new Bits() {
+      @Override
+      public boolean get(int index) {
+        return (words.get(index >> 6) & (1L << index)) != 0;
+      }
+
+      @Override
+      public int length() {
+        return numBits;
+      }
+    };
+  }
+
+  /**
+   * Copies the bits onto the heap, since there is no on-heap bitset to share. The other {@link
+   * DocSet}s deal with this class through {@link #addAllTo}, {@link #andTo} and {@link #andNotTo}
+   * instead, so this is only reached by code that doesn't know about off-heap sets.
+   */
+  @Override
+  protected FixedBitSet getFixedBitSet() {
+    return getFixedBitSetClone();
+  }
+
+  @Override
+  protected FixedBitSet getFixedBitSetClone() {
+    long[] bits = new long[numWords];
+    words.get(0, bits, 0, numWords);
+    return new FixedBitSet(bits, numBits);
+  }
+
+  /** Includes the off-heap memory held by this set, so that caches can bound it by size. */
+  @Override
+  public long ramBytesUsed() {
+    return BASE_RAM_BYTES_USED + offHeapBytesUsed();
+  }
+
+  @Override
+  public Collection<Accountable> getChildResources() {
+    return List.of();
+  }
+
+  @Override
+  public String toString() {
+    return "OffHeapBitDocSet{"
+        + "size="
+        + size
+        + ",offHeapUsed="
+        + RamUsageEstimator.humanReadableUnits(offHeapBytesUsed())
+        + '}';
+  }
+}
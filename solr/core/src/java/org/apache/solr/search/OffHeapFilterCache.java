@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.opentelemetry.api.common.Attributes;
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.lucene.search.Query;
+import org.apache.solr.metrics.SolrMetricsContext;
+import org.apache.solr.metrics.otel.OtelUnit;
+import org.apache.solr.util.IOFunction;
+
+/**
+ * A {@link CaffeineCache} for the {@code filterCache} that stores {@link BitDocSet} values off the
+ * Java heap as {@link OffHeapBitDocSet}s. Small {@link SortedIntDocSet} values are kept as they
+ * are.
+ *
+ * <p>Entries are weighed including their off-heap memory, so when {@code maxRamMB} is configured
+ * the cache is bounded by the total bytes of its bitsets rather than by entry count:
+ *
+ * <pre class="prettyprint">
+ * &lt;filterCache class="solr.OffHeapFilterCache" maxRamMB="2048" autowarmCount="128"/&gt;
+ * </pre>
+ *
+ * <p>An evicted bitset may still be in use by an in-flight request on the same searcher, so its
+ * memory isn't freed right away: it is retired, and freed by the garbage collector once no request
+ * references it anymore. The bitsets still cached when the cache is closed along with its searcher
+ * are freed explicitly, since no request can reference them anymore.
+ *
+ * @lucene.experimental
+ */
+public class OffHeapFilterCache extends CaffeineCache<Query, DocSet> {
+
+  private final LongAdder offHeapBytes = new LongAdder();
+  private final LongAdder retiredOffHeapBytes = new LongAdder();
+  private volatile boolean closed;
+
+  @Override
+  public DocSet put(Query key, DocSet val) {
+    return super.put(key, toOffHeap(val));
+  }
+
+  @Override
+  public DocSet computeIfAbsent(
+      Query key, IOFunction<? super Query, ? extends DocSet> mappingFunction) throws IOException {
+    return super.computeIfAbsent(key, k -> toOffHeap(mappingFunction.apply(k)));
+  }
+
+  private static DocSet toOffHeap(DocSet docSet) {
+    if (docSet instanceof BitDocSet bitDocSet) {
+      return OffHeapBitDocSet.copyOf(bitDocSet);
+    }
+    return docSet;
+  }
+
+  @Override
+  protected void recordRamBytes(Query key, DocSet newValue) {
+    super.recordRamBytes(key, newValue);
+    if (newValue instanceof OffHeapBitDocSet offHeap) {
+      offHeapBytes.add(offHeap.offHeapBytesUsed());
+    }
+  }
+
+  @Override
+  public void onRemoval(Query key, DocSet value, RemovalCause cause) {
+    super.onRemoval(key, value, cause);
+    if (value instanceof OffHeapBitDocSet offHeap) {
+      final long bytes = offHeap.offHeapBytesUsed();
+      offHeapBytes.add(-bytes);
+      if (closed) {
+        offHeap.release();
+      } else {
+        retiredOffHeapBytes.add(bytes);
+        offHeap.onCollected(() -> retiredOffHeapBytes.add(-bytes));
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    // invalidates every entry, which are then released by onRemoval
+    super.close();
+  }
+
+  /** Returns the off-heap bytes held by the current entries. */
+  public long offHeapBytesUsed() {
+    return offHeapBytes.sum();
+  }
+
+  /**
+   * Returns the off-heap bytes held by evicted entries that requests may still reference, until
+   * they are garbage collected.
+   */
+  public long retiredOffHeapBytes() {
+    return retiredOffHeapBytes.sum();
+  }
+
+  @Override
+  public String getName() {
+    return OffHeapFilterCache.class.getName();
+  }
+
+  @Override
+  public void initializeMetrics(
+      SolrMetricsContext solrMetricsContext, Attributes attributes, String metricName) {
+    super.initializeMetrics(solrMetricsContext, attributes, metricName);
+    Attributes cacheAttributes =
+        attributes.toBuilder().put(CATEGORY_ATTR, getCategory().toString()).build();
+    getSolrMetricsContext()
+        .registerCloseable(
+            solrMetricsContext.observableLongGauge(
+                metricName + ".off_heap_used",
+                "Off-heap bytes used by cached bitsets",
+                measurement -> measurement.record(offHeapBytesUsed(), cacheAttributes),
+                OtelUnit.BYTES));
+    getSolrMetricsContext()
+        .registerCloseable(
+            solrMetricsContext.observableLongGauge(
+                metricName + ".off_heap_retired",
+                "Off-heap bytes held by evicted bitsets until they are garbage collected",
+                measurement -> measurement.record(retiredOffHeapBytes(), cacheAttributes),
+                OtelUnit.BYTES));
+  }
+}
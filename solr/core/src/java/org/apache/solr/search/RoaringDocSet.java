@@ -0,0 +1,914 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * An immutable, compressed {@link DocSet} in the style of Roaring bitmaps: the doc id space is cut
+ * into blocks of 65536 docs, and each non-empty block is stored in whichever container is smallest
+ * for its contents:
+ *
+ * <ul>
+ *   <li>an <em>array</em> container, a sorted {@code char[]} of the low 16 bits of each doc, for
+ *       sparse blocks (up to 4096 docs);
+ *   <li>a <em>bitmap</em> container, 1024 {@code long} words, for dense blocks;
+ *   <li>a <em>run</em> container, a list of (start, length) pairs, for blocks whose docs are
+ *       clustered, as is typical of time-sorted indexes.
+ * </ul>
+ *
+ * <p>Set operations work block by block. Intersections and differences return a RoaringDocSet,
+ * except for intersections with a {@link SortedIntDocSet} which stay small; unions with a {@link
+ * BitDocSet} return a BitDocSet. Instances are usually created through {@link
+ * DocSetUtil#compactBitSet(FixedBitSet, int)}.
+ *
+ * @lucene.experimental
+ */
+public class RoaringDocSet extends DocSet {
+  private static final long BASE_RAM_BYTES_USED =
+      RamUsageEstimator.shallowSizeOfInstance(RoaringDocSet.class);
+
+  static final int BLOCK_SHIFT = 16;
+  static final int BLOCK_WORDS = 1 << (BLOCK_SHIFT - 6); // 1024
+  static final int MAX_ARRAY_SIZE = 4096; // beyond this, a bitmap is never larger
+  static final int BITMAP_BYTES = BLOCK_WORDS * Long.BYTES;
+  private static final int LOW_MASK = (1 << BLOCK_SHIFT) - 1;
+
+  private final Container[] containers; // indexed by block; null for empty blocks
+  private final int maxDoc;
+  private final int size;
+
+  private RoaringDocSet(Container[] containers, int maxDoc, int size) {
+    this.containers = containers;
+    this.maxDoc = maxDoc;
+    this.size = size;
+  }
+
+  private static int numBlocks(int maxDoc) {
+    return (int) (((long) maxDoc + LOW_MASK) >>> BLOCK_SHIFT);
+  }
+
+  /** Creates a set holding the same docs as the given bitset. */
+  public static RoaringDocSet fromBits(FixedBitSet bitSet) {
+    long[] bits = bitSet.getBits();
+    int maxDoc = bitSet.length();
+    int numWords = FixedBitSet.bits2words(maxDoc);
+    Container[] containers = new Container[numBlocks(maxDoc)];
+    int size = 0;
+    for (int block = 0; block < containers.length; block++) {
+      int from = block * BLOCK_WORDS;
+      int to = Math.min(from + BLOCK_WORDS, numWords);
+      if (isZero(bits, from, to)) continue;
+      long[] words = new long[BLOCK_WORDS];
+      System.arraycopy(bits, from, words, 0, to - from);
+      Container container = Container.fromWords(words);
+      containers[block] = container;
+      size += container.cardinality();
+    }
+    return new RoaringDocSet(containers, maxDoc, size);
+  }
+
+  /**
+   * Estimates the heap used by {@link #fromBits(FixedBitSet)} for the given bitset, without
+   * building it.
+   */
+  public static long estimateRamBytesUsed(FixedBitSet bitSet) {
+    long[] bits = bitSet.getBits();
+    int numWords = FixedBitSet.bits2words(bitSet.length());
+    int numBlocks = numBlocks(bitSet.length());
+    long bytes =
+        BASE_RAM_BYTES_USED
+            + RamUsageEstimator.alignObjectSize(
+                RamUsageEstimator.NUM_BYTES_ARRAY_HEADER
+                    + (long) numBlocks * RamUsageEstimator.NUM_BYTES_OBJECT_REF);
+    for (int block = 0; block < numBlocks; block++) {
+      int from = block * BLOCK_WORDS;
+      int to = Math.min(from + BLOCK_WORDS, numWords);
+      int cardinality = 0;
+      int runs = 0;
+      long prev = 0;
+      for (int i = from; i < to; i++) {
+        long word = bits[i];
+        cardinality += Long.bitCount(word);
+        runs += Long.bitCount(word & ~((word << 1) | (prev >>> 63)));
+        prev = word;
+      }
+      if (cardinality != 0) {
+        bytes += Container.BASE_RAM_BYTES_USED + Container.payloadBytes(cardinality, runs);
+      }
+    }
+    return bytes;
+  }
+
+  private static boolean isZero(long[] bits, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (bits[i] != 0) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Fills {@code words} with the bits of {@code set} in the given block, returning false if the set
+   * has no docs there.
+   */
+  private static boolean loadBlock(DocSet set, int block, long[] words) {
+    Arrays.fill(words, 0L);
+    if (set instanceof RoaringDocSet roaring) {
+      if (block >= roaring.containers.length || roaring.containers[block] == null) return false;
+      roaring.containers[block].orInto(words, 0, BLOCK_WORDS);
+      return true;
+    } else if (set instanceof BitDocSet bitDocSet) {
+      long[] bits = bitDocSet.getBits().getBits();
+      int from = block * BLOCK_WORDS;
+      int to = Math.min(from + BLOCK_WORDS, bits.length);
+      if (to <= from || isZero(bits, from, to)) return false;
+      System.arraycopy(bits, from, words, 0, to - from);
+      return true;
+    } else if (set instanceof OffHeapBitDocSet offHeap) {
+      return offHeap.copyWords(block * BLOCK_WORDS, words);
+    } else if (set instanceof SortedIntDocSet sortedInts) {
+      int[] docs = sortedInts.getDocs();
+      int n = sortedInts.size();
+      int base = block << BLOCK_SHIFT;
+      int idx = Arrays.binarySearch(docs, 0, n, base);
+      if (idx < 0) idx = -idx - 1;
+      boolean any = false;
+      for (; idx < n && (docs[idx] >>> BLOCK_SHIFT) == block; idx++) {
+        int low = docs[idx] & LOW_MASK;
+        words[low >>> 6] |= 1L << low;
+        any = true;
+      }
+      return any;
+    }
+    boolean any = false;
+    int base = block << BLOCK_SHIFT;
+    for (int low = 0; low <= LOW_MASK; low++) {
+      if (set.exists(base + low)) {
+        words[low >>> 6] |= 1L << low;
+        any = true;
+      }
+    }
+    return any;
+  }
+
+  /** Returns the first doc at or after {@code doc}, or NO_MORE_DOCS. */
+  int nextDoc(int doc) {
+    if (doc >= maxDoc) return DocIdSetIterator.NO_MORE_DOCS;
+    int block = doc >>> BLOCK_SHIFT;
+    int low = doc & LOW_MASK;
+    for (; block < containers.length; block++, low = 0) {
+      Container container = containers[block];
+      if (container != null) {
+        int next = container.nextSetBit(low);
+        if (next >= 0) return (block << BLOCK_SHIFT) | next;
+      }
+    }
+    return DocIdSetIterator.NO_MORE_DOCS;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean exists(int doc) {
+    int block = doc >>> BLOCK_SHIFT;
+    if (block >= containers.length) return false;
+    Container container = containers[block];
+    return container != null && container.contains(doc & LOW_MASK);
+  }
+
+  @Override
+  public DocIterator iterator() {
+    return new DocIterator() {
+      private int pos = nextDoc(0);
+
+      @Override
+      public boolean hasNext() {
+        return pos != DocIdSetIterator.NO_MORE_DOCS;
+      }
+
+      @Override
+      public Integer next() {
+        return nextDoc();
+      }
+
+      @Override
+      public int nextDoc() {
+        int old = pos;
+        pos = RoaringDocSet.this.nextDoc(old + 1);
+        return old;
+      }
+
+      @Override
+      public float score() {
+        return 0.0f;
+      }
+    };
+  }
+
+  @Override
+  public DocIdSetIterator iterator(LeafReaderContext context) {
+    if (size == 0) return null;
+
+    final int base = context.isTopLevel ? 0 : context.docBase;
+    final int max = context.isTopLevel ? maxDoc : base + context.reader().maxDoc();
+    if (max <= base) {
+      // entirely empty segment
+      return null;
+    }
+
+    return new DocIdSetIterator() {
+      int adjustedDoc = -1;
+
+      @Override
+      public int docID() {
+        return adjustedDoc;
+      }
+
+      @Override
+      public int nextDoc() {
+        return advance(adjustedDoc + 1);
+      }
+
+      @Override
+      public int advance(int target) {
+        if (target == NO_MORE_DOCS) return adjustedDoc = NO_MORE_DOCS;
+        int adjusted = target + base;
+        if (adjusted >= max) {
+          return adjustedDoc = NO_MORE_DOCS;
+        }
+        int pos = RoaringDocSet.this.nextDoc(adjusted);
+        return adjustedDoc = pos < max ? pos - base : NO_MORE_DOCS;
+      }
+
+      @Override
+      public long cost() {
+        // pro-rate the known size for the segment
+        return (long) (size * ((max - base) / (float) maxDoc));
+      }
+    };
+  }
+
+  @Override
+  public DocSet intersection(DocSet other) {
+    if (other instanceof SortedIntDocSet) {
+      // the other set is smaller and does random access on us
+      return other.intersection(this);
+    }
+    Container[] result = new Container[containers.length];
+    int resultSize = 0;
+    long[] scratch = new long[BLOCK_WORDS];
+    for (int block = 0; block < containers.length; block++) {
+      Container container = containers[block];
+      if (container == null || !loadBlock(other, block, scratch)) continue;
+      Container and = container.and(scratch);
+      if (and != null) {
+        result[block] = and;
+        resultSize += and.cardinality();
+      }
+    }
+    return new RoaringDocSet(result, maxDoc, resultSize);
+  }
+
+  @Override
+  public int intersectionSize(DocSet other) {
+    if (other instanceof SortedIntDocSet) {
+      return other.intersectionSize(this);
+    }
+    int count = 0;
+    long[] scratch = new long[BLOCK_WORDS];
+    for (int block = 0; block < containers.length; block++) {
+      Container container = containers[block];
+      if (container != null && loadBlock(other, block, scratch)) {
+        count += container.andCount(scratch);
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public boolean intersects(DocSet other) {
+    if (other instanceof SortedIntDocSet) {
+      return other.intersects(this);
+    }
+    long[] scratch = new long[BLOCK_WORDS];
+    for (int block = 0; block < containers.length; block++) {
+      Container container = containers[block];
+      if (container != null
+          && loadBlock(other, block, scratch)
+          && container.andCount(scratch) != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public DocSet union(DocSet other) {
+    if (other instanceof BitDocSet || other instanceof OffHeapBitDocSet) {
+      // the result will be at least as dense as the other set
+      FixedBitSet newbits = other.getFixedBitSetClone();
+      newbits = FixedBitSet.ensureCapacity(newbits, maxDoc);
+      addAllTo(newbits);
+      return new BitDocSet(newbits);
+    }
+    int resultMaxDoc = maxDoc;
+    if (other instanceof RoaringDocSet roaring) {
+      resultMaxDoc = Math.max(resultMaxDoc, roaring.maxDoc);
+    } else if (other instanceof SortedIntDocSet sortedInts) {
+      if (sortedInts.size() > 0) {
+        resultMaxDoc = Math.max(resultMaxDoc, sortedInts.getDocs()[sortedInts.size() - 1] + 1);
+      }
+    } else {
+      DocIterator iter = other.iterator();
+      while (iter.hasNext()) {
+        resultMaxDoc = Math.max(resultMaxDoc, iter.nextDoc() + 1);
+      }
+    }
+    Container[] result = new Container[numBlocks(resultMaxDoc)];
+    int resultSize = 0;
+    long[] scratch = new long[BLOCK_WORDS];
+    for (int block = 0; block < result.length; block++) {
+      Container container = block < containers.length ? containers[block] : null;
+      if (!loadBlock(other, block, scratch)) {
+        if (container != null) {
+          // containers are immutable, so blocks only present on one side can be shared
+          result[block] = container;
+          resultSize += container.cardinality();
+        }
+        continue;
+      }
+      if (container != null) {
+        container.orInto(scratch, 0, BLOCK_WORDS);
+      }
+      Container or = Container.fromWords(scratch);
+      scratch = new long[BLOCK_WORDS]; // fromWords may have kept the array
+      result[block] = or;
+      resultSize += or.cardinality();
+    }
+    return new RoaringDocSet(result, resultMaxDoc, resultSize);
+  }
+
+  @Override
+  public DocSet andNot(DocSet other) {
+    Container[] result = new Container[containers.length];
+    int resultSize = 0;
+    long[] scratch = new long[BLOCK_WORDS];
+    for (int block = 0; block < containers.length; block++) {
+      Container container = containers[block];
+      if (container == null) continue;
+      Container andNot = loadBlock(other, block, scratch) ? container.andNot(scratch) : container;
+      if (andNot != null) {
+        result[block] = andNot;
+        resultSize += andNot.cardinality();
+      }
+    }
+    return new RoaringDocSet(result, maxDoc, resultSize);
+  }
+
+  @Override
+  public DocSetQuery makeQuery() {
+    return new DocSetQuery(this);
+  }
+
+  @Override
+  public void addAllTo(FixedBitSet target) {
+    long[] targetBits = target.getBits();
+    for (int block = 0; block < containers.length; block++) {
+      Container container = containers[block];
+      int off = block * BLOCK_WORDS;
+      if (container != null && off < targetBits.length) {
+        container.orInto(targetBits, off, Math.min(BLOCK_WORDS, targetBits.length - off));
+      }
+    }
+  }
+
+  /** Clears every bit of {@code target} that is not set in this set. */
+  void andTo(FixedBitSet target) {
+    long[] targetBits = target.getBits();
+    for (int off = 0, block = 0; off < targetBits.length; off += BLOCK_WORDS, block++) {
+      int len = Math.min(BLOCK_WORDS, targetBits.length - off);
+      Container container = block < containers.length ? containers[block] : null;
+      if (container == null) {
+        Arrays.fill(targetBits, off, off + len, 0L);
+      } else {
+        container.andInto(targetBits, off, len);
+      }
+    }
+  }
+
+  /** Clears every bit of {@code target} that is set in this set. */
+  void andNotTo(FixedBitSet target) {
+    long[] targetBits = target.getBits();
+    for (int block = 0; block < containers.length; block++) {
+      Container container = containers[block];
+      int off = block * BLOCK_WORDS;
+      if (container != null && off < targetBits.length) {
+        container.andNotInto(targetBits, off, Math.min(BLOCK_WORDS, targetBits.length - off));
+      }
+    }
+  }
+
+  @Override
+  public DocSet clone() {
+    // containers are never modified, so they can be shared
+    return new RoaringDocSet(containers.clone(), maxDoc, size);
+  }
+
+  @Override
+  public Bits getBits() {
+    return new Bits() {
+      @Override
+      public boolean get(int index) {
+        return exists(index);
+      }
+
+      @Override
+      public int length() {
+        return maxDoc;
+      }
+    };
+  }
+
+  @Override
+  protected FixedBitSet getFixedBitSet() {
+    return getFixedBitSetClone();
+  }
+
+  @Override
+  protected FixedBitSet getFixedBitSetClone() {
+    FixedBitSet bits = new FixedBitSet(maxDoc);
+    addAllTo(bits);
+    return bits;
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    long bytes = BASE_RAM_BYTES_USED + RamUsageEstimator.shallowSizeOf(containers);
+    for (Container container : containers) {
+      if (container != null) bytes += container.ramBytesUsed();
+    }
+    return bytes;
+  }
+
+  @Override
+  public Collection<Accountable> getChildResources() {
+    return List.of();
+  }
+
+  @Override
+  public String toString() {
+    int arrays = 0, bitmaps = 0, runs = 0;
+    for (Container container : containers) {
+      if (container instanceof ArrayContainer) arrays++;
+      else if (container instanceof BitmapContainer) bitmaps++;
+      else if (container instanceof RunContainer) runs++;
+    }
+    return "RoaringDocSet{size="
+        + size
+        + ",arrays="
+        + arrays
+        + ",bitmaps="
+        + bitmaps
+        + ",runs="
+        + runs
+        + ",ramUsed="
+        + RamUsageEstimator.humanReadableUnits(ramBytesUsed())
+        + '}';
+  }
+
+  /**
+   * The docs of one block, addressed by the low 16 bits of their ids. Methods taking a {@code
+   * long[] words} operate on a full block of {@link #BLOCK_WORDS} words, and ones taking {@code
+   * (words, off, len)} on the first {@code len} words of the block stored at {@code words[off]}.
+   */
+  abstract static class Container {
+    static final long BASE_RAM_BYTES_USED =
+        RamUsageEstimator.alignObjectSize(
+            RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+                + RamUsageEstimator.NUM_BYTES_OBJECT_REF
+                + Integer.BYTES
+                + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER);
+
+    /** Bytes of array payload needed for a block with the given number of docs and runs. */
+    static long payloadBytes(int cardinality, int runs) {
+      return Math.min(Math.min(2L * cardinality, 4L * runs), BITMAP_BYTES);
+    }
+
+    /**
+     * Creates the smallest container for the given block of words, or null if it is empty. The
+     * array may be retained by the returned container, so the caller must not reuse it.
+     */
+    static Container fromWords(long[] words) {
+      int cardinality = 0;
+      int runs = 0;
+      long prev = 0;
+      for (long word : words) {
+        cardinality += Long.bitCount(word);
+        // a run starts at every set bit whose preceding bit is clear
+        runs += Long.bitCount(word & ~((word << 1) | (prev >>> 63)));
+        prev = word;
+      }
+      if (cardinality == 0) return null;
+
+      if (4L * runs < Math.min(2L * cardinality, BITMAP_BYTES)) {
+        return RunContainer.fromWords(words, runs, cardinality);
+      } else if (cardinality <= MAX_ARRAY_SIZE) {
+        return ArrayContainer.fromWords(words, cardinality);
+      }
+      return new BitmapContainer(words, cardinality);
+    }
+
+    abstract int cardinality();
+
+    abstract boolean contains(int low);
+
+    /** Returns the first doc at or after {@code low}, or -1. */
+    abstract int nextSetBit(int low);
+
+    abstract void orInto(long[] words, int off, int len);
+
+    abstract void andNotInto(long[] words, int off, int len);
+
+    abstract long ramBytesUsed();
+
+    void andInto(long[] words, int off, int len) {
+      long[] mine = toWords();
+      for (int i = 0; i < len; i++) {
+        words[off + i] &= mine[i];
+      }
+    }
+
+    int andCount(long[] words) {
+      long[] mine = toWords();
+      int count = 0;
+      for (int i = 0; i < BLOCK_WORDS; i++) {
+        count += Long.bitCount(mine[i] & words[i]);
+      }
+      return count;
+    }
+
+    Container and(long[] words) {
+      long[] mine = toWords();
+      for (int i = 0; i < BLOCK_WORDS; i++) {
+        mine[i] &= words[i];
+      }
+      return fromWords(mine);
+    }
+
+    Container andNot(long[] words) {
+      long[] mine = toWords();
+      for (int i = 0; i < BLOCK_WORDS; i++) {
+        mine[i] &= ~words[i];
+      }
+      return fromWords(mine);
+    }
+
+    /** Returns a new full block of words holding this container's docs. */
+    long[] toWords() {
+      long[] words = new long[BLOCK_WORDS];
+      orInto(words, 0, BLOCK_WORDS);
+      return words;
+    }
+  }
+
+  static final class ArrayContainer extends Container {
+    private final char[] values; // sorted low 16 bits of the docs
+
+    ArrayContainer(char[] values) {
+      this.values = values;
+    }
+
+    static ArrayContainer fromWords(long[] words, int cardinality) {
+      char[] values = new char[cardinality];
+      int pos = 0;
+      for (int i = 0; i < words.length; i++) {
+        long word = words[i];
+        while (word != 0) {
+          values[pos++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+          word &= word - 1;
+        }
+      }
+      return new ArrayContainer(values);
+    }
+
+    @Override
+    int cardinality() {
+      return values.length;
+    }
+
+    @Override
+    boolean contains(int low) {
+      return Arrays.binarySearch(values, (char) low) >= 0;
+    }
+
+    @Override
+    int nextSetBit(int low) {
+      int idx = Arrays.binarySearch(values, (char) low);
+      if (idx < 0) idx = -idx - 1;
+      return idx < values.length ? values[idx] : -1;
+    }
+
+    @Override
+    void orInto(long[] words, int off, int len) {
+      for (char value : values) {
+        int word = value >>> 6;
+        if (word >= len) break;
+        words[off + word] |= 1L << value;
+      }
+    }
+
+    @Override
+    void andInto(long[] words, int off, int len) {
+      int pos = 0;
+      for (int i = 0; i < len; i++) {
+        long mask = 0;
+        while (pos < values.length && (values[pos] >>> 6) == i) {
+          mask |= 1L << values[pos++];
+        }
+        words[off + i] &= mask;
+      }
+    }
+
+    @Override
+    void andNotInto(long[] words, int off, int len) {
+      for (char value : values) {
+        int word = value >>> 6;
+        if (word >= len) break;
+        words[off + word] &= ~(1L << value);
+      }
+    }
+
+    @Override
+    int andCount(long[] words) {
+      int count = 0;
+      for (char value : values) {
+        if ((words[value >>> 6] & (1L << value)) != 0) count++;
+      }
+      return count;
+    }
+
+    @Override
+    Container and(long[] words) {
+      char[] result = new char[values.length];
+      int pos = 0;
+      for (char value : values) {
+        if ((words[value >>> 6] & (1L << value)) != 0) result[pos++] = value;
+      }
+      // a subset of an array is always smallest as an array
+      return pos == 0 ? null : new ArrayContainer(Arrays.copyOf(result, pos));
+    }
+
+    @Override
+    Container andNot(long[] words) {
+      char[] result = new char[values.length];
+      int pos = 0;
+      for (char value : values) {
+        if ((words[value >>> 6] & (1L << value)) == 0) result[pos++] = value;
+      }
+      if (pos == values.length) return this;
+      return pos == 0 ? null : new ArrayContainer(Arrays.copyOf(result, pos));
+    }
+
+    @Override
+    long ramBytesUsed() {
+      return BASE_RAM_BYTES_USED + RamUsageEstimator.sizeOf(values);
+    }
+  }
+
+  static final class BitmapContainer extends Container {
+    private final long[] words;
+    private final int cardinality;
+
+    BitmapContainer(long[] words, int cardinality) {
+      assert words.length == BLOCK_WORDS;
+      this.words = words;
+      this.cardinality = cardinality;
+    }
+
+    @Override
+    int cardinality() {
+      return cardinality;
+    }
+
+    @Override
+    boolean contains(int low) {
+      return (words[low >>> 6] & (1L << low)) != 0;
+    }
+
+    @Override
+    int nextSetBit(int low) {
+      int i = low >>> 6;
+      long word = words[i] >> low; // skip all the bits to the right of low
+      if (word != 0) {
+        return low + Long.numberOfTrailingZeros(word);
+      }
+      while (++i < BLOCK_WORDS) {
+        word = words[i];
+        if (word != 0) {
+          return (i << 6) + Long.numberOfTrailingZeros(word);
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    void orInto(long[] target, int off, int len) {
+      for (int i = 0; i < len; i++) {
+        target[off + i] |= words[i];
+      }
+    }
+
+    @Override
+    void andInto(long[] target, int off, int len) {
+      for (int i = 0; i < len; i++) {
+        target[off + i] &= words[i];
+      }
+    }
+
+    @Override
+    void andNotInto(long[] target, int off, int len) {
+      for (int i = 0; i < len; i++) {
+        target[off + i] &= ~words[i];
+      }
+    }
+
+    @Override
+    int andCount(long[] target) {
+      int count = 0;
+      for (int i = 0; i < BLOCK_WORDS; i++) {
+        count += Long.bitCount(words[i] & target[i]);
+      }
+      return count;
+    }
+
+    @Override
+    long[] toWords() {
+      return words.clone();
+    }
+
+    @Override
+    long ramBytesUsed() {
+      return BASE_RAM_BYTES_USED + RamUsageEstimator.sizeOf(words);
+    }
+  }
+
+  static final class RunContainer extends Container {
+    // pairs of (first doc, number of docs - 1), sorted and non-adjacent
+    private final char[] runs;
+    private final int cardinality;
+
+    RunContainer(char[] runs, int cardinality) {
+      this.runs = runs;
+      this.cardinality = cardinality;
+    }
+
+    static RunContainer fromWords(long[] words, int numRuns, int cardinality) {
+      char[] runs = new char[2 * numRuns];
+      int pos = 0;
+      int low = nextSetBit(words, 0);
+      while (low >= 0) {
+        int end = nextClearBit(words, low); // exclusive
+        runs[pos++] = (char) low;
+        runs[pos++] = (char) (end - low - 1);
+        low = end > LOW_MASK ? -1 : nextSetBit(words, end);
+      }
+      assert pos == runs.length;
+      return new RunContainer(runs, cardinality);
+    }
+
+    private static int nextSetBit(long[] words, int low) {
+      int i = low >>> 6;
+      long word = words[i] & (-1L << low);
+      while (word == 0) {
+        if (++i == BLOCK_WORDS) return -1;
+        word = words[i];
+      }
+      return (i << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    private static int nextClearBit(long[] words, int low) {
+      int i = low >>> 6;
+      long word = ~words[i] & (-1L << low);
+      while (word == 0) {
+        if (++i == BLOCK_WORDS) return LOW_MASK + 1;
+        word = ~words[i];
+      }
+      return (i << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /** Returns the index of the last run starting at or before {@code low}, or -1. */
+    private int findRun(int low) {
+      int lo = 0, hi = runs.length / 2 - 1;
+      while (lo <= hi) {
+        int mid = (lo + hi) >>> 1;
+        if (runs[2 * mid] <= low) {
+          lo = mid + 1;
+        } else {
+          hi = mid - 1;
+        }
+      }
+      return hi;
+    }
+
+    @Override
+    int cardinality() {
+      return cardinality;
+    }
+
+    @Override
+    boolean contains(int low) {
+      int run = findRun(low);
+      return run >= 0 && low <= runs[2 * run] + runs[2 * run + 1];
+    }
+
+    @Override
+    int nextSetBit(int low) {
+      int run = findRun(low);
+      if (run >= 0 && low <= runs[2 * run] + runs[2 * run + 1]) {
+        return low;
+      }
+      run++;
+      return 2 * run < runs.length ? runs[2 * run] : -1;
+    }
+
+    @Override
+    void orInto(long[] words, int off, int len) {
+      int limit = len << 6;
+      for (int i = 0; i < runs.length; i += 2) {
+        int start = runs[i];
+        if (start >= limit) break;
+        int end = Math.min(start + runs[i + 1] + 1, limit); // exclusive
+        setRange(words, off, start, end);
+      }
+    }
+
+    @Override
+    void andNotInto(long[] words, int off, int len) {
+      int limit = len << 6;
+      for (int i = 0; i < runs.length; i += 2) {
+        int start = runs[i];
+        if (start >= limit) break;
+        int end = Math.min(start + runs[i + 1] + 1, limit); // exclusive
+        clearRange(words, off, start, end);
+      }
+    }
+
+    private static void setRange(long[] words, int off, int start, int end) {
+      int startWord = start >>> 6;
+      int endWord = (end - 1) >>> 6;
+      long startMask = -1L << start;
+      long endMask = -1L >>> -end;
+      if (startWord == endWord) {
+        words[off + startWord] |= startMask & endMask;
+        return;
+      }
+      words[off + startWord] |= startMask;
+      Arrays.fill(words, off + startWord + 1, off + endWord, -1L);
+      words[off + endWord] |= endMask;
+    }
+
+    private static void clearRange(long[] words, int off, int start, int end) {
+      int startWord = start >>> 6;
+      int endWord = (end - 1) >>> 6;
+      long startMask = -1L << start;
+      long endMask = -1L >>> -end;
+      if (startWord == endWord) {
+        words[off + startWord] &= ~(startMask & endMask);
+        return;
+      }
+      words[off + startWord] &= ~startMask;
+      Arrays.fill(words, off + startWord + 1, off + endWord, 0L);
+      words[off + endWord] &= ~endMask;
+    }
+
+    @Override
+    long ramBytesUsed() {
+      return BASE_RAM_BYTES_USED + RamUsageEstimator.sizeOf(runs);
+    }
+  }
+}
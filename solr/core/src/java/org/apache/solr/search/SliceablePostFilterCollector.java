@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.IOException;
+
+/**
+ * Implemented by post filter {@link DelegatingCollector}s that keep the same output when they
+ * collect only the documents they passed on for some subsets of the matches, in index order, as
+ * when they collect all the matches. {@link MultiThreadedSearcher} uses this to collect each slice
+ * of the index on its own thread, with a collector from {@link #newSliceCollector()}, and then
+ * collects the documents passed on by all of them, with their scores, with this collector.
+ *
+ * <p>Collapsing is such a filter: the group heads of the matches are the group heads of the group
+ * heads of each slice.
+ */
+interface SliceablePostFilterCollector {
+
+  /**
+   * Returns a new collector with the same configuration as this one, and no delegate, to collect
+   * one slice of the index. It is created on the request thread, but then used on another thread.
+   */
+  DelegatingCollector newSliceCollector() throws IOException;
+}
@@ -59,6 +59,7 @@ import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Explanation;
 import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LRUQueryCache;
 import org.apache.lucene.search.LeafCollector;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.MultiCollector;
@@ -106,6 +107,7 @@ import org.apache.solr.index.SlowCompositeReaderWrapper;
 import org.apache.solr.metrics.SolrMetricsContext;
 import org.apache.solr.metrics.otel.OtelUnit;
 import org.apache.solr.metrics.otel.instruments.AttributedLongGauge;
+import org.apache.solr.metrics.otel.instruments.AttributedLongHistogram;
 import org.apache.solr.metrics.otel.instruments.AttributedLongTimer;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.request.SolrRequestInfo;
@@ -159,12 +161,17 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
   private final int queryResultWindowSize;
   private final int queryResultMaxDocsCached;
   private final boolean useFilterForSortedQuery;
+  private final int parallelDocSetMinDocs;
 
   private final boolean cachingEnabled;
   private final SolrCache<Query, DocSet> filterCache;
   private final SolrCache<QueryResultKey, DocList> queryResultCache;
   private final SolrCache<String, UnInvertedField> fieldValueCache;
+  private final UnInvertedField.SegmentCache unInvertedSegments =
+      new UnInvertedField.SegmentCache();
   private final SolrCache<Integer, float[]> featureVectorCache;
+  private final TermBlockCache termBlockCache;
+  private final CollapseArena collapseArena = new CollapseArena(CollapseArena.maxRamBytes());
   private final LongAdder fullSortCount = new LongAdder();
   private final LongAdder skipSortCount = new LongAdder();
   private final LongAdder liveDocsNaiveCacheHitCount = new LongAdder();
@@ -325,7 +332,11 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
 
     try {
       try {
-        search(query, collector);
+        if (postFilter != null && MultiThreadedSearcher.allowMTPostFilter(postFilter, cmd)) {
+          new MultiThreadedSearcher(this).searchSlicedPostFilter(query, postFilter);
+        } else {
+          search(query, collector);
+        }
       } finally {
         // The complete() method can use the collectors, so this needs to be surrounded by the same
         // catch logic that limit collecting
@@ -429,6 +440,7 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     this.queryResultWindowSize = solrConfig.queryResultWindowSize;
     this.queryResultMaxDocsCached = solrConfig.queryResultMaxDocsCached;
     this.useFilterForSortedQuery = solrConfig.useFilterForSortedQuery;
+    this.parallelDocSetMinDocs = solrConfig.parallelDocSetMinDocs;
 
     this.docFetcher = new SolrDocumentFetcher(this, solrConfig, enableCache);
 
@@ -479,8 +491,19 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       this.cacheList = NO_CACHES;
     }
 
-    // We already have our own filter cache
-    setQueryCache(null);
+    @SuppressWarnings("unchecked")
+    SolrCache<TermBlockCache.BlockKey, TermBlockCache.Block> termBlocks =
+        (SolrCache<TermBlockCache.BlockKey, TermBlockCache.Block>)
+            cacheMap.get(TermBlockCache.CACHE_NAME);
+    this.termBlockCache = termBlocks == null ? null : new TermBlockCache(this, termBlocks);
+
+    // We already have our own filter cache. The core may add a cache of the matches of non-scoring
+    // queries per segment, which outlives this searcher for the segments it shares with the next.
+    final LRUQueryCache segmentQueryCache = cachingEnabled ? core.getSegmentQueryCache() : null;
+    setQueryCache(segmentQueryCache);
+    if (segmentQueryCache != null) {
+      setQueryCachingPolicy(core.getSegmentQueryCachingPolicy());
+    }
 
     // do this at the end since an exception in the constructor means we won't close
     numOpens.incrementAndGet();
@@ -835,6 +858,19 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     }
   }
 
+  /**
+   * Collects the leaves of a slice in index order, on the calling thread, for collectors that
+   * expect increasing doc ids like the ones of post filters.
+   */
+  void searchSlice(LeafSlice slice, Weight weight, Collector collector) throws IOException {
+    LeafReaderContextPartition[] partitions = slice.partitions.clone();
+    Arrays.sort(
+        partitions,
+        Comparator.comparingInt((LeafReaderContextPartition p) -> p.ctx.ord)
+            .thenComparingInt(p -> p.minDocId));
+    search(partitions, weight, collector);
+  }
+
   /**
    * Retrieve the {@link Document} instance corresponding to the document id.
    *
@@ -880,6 +916,30 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     return fieldValueCache;
   }
 
+  /** expert: internal API, subject to change */
+  public UnInvertedField.SegmentCache getUnInvertedSegments() {
+    return unInvertedSegments;
+  }
+
+  /**
+   * Returns the cache of string docValues terms by global ordinal, or null if no cache named
+   * {@value TermBlockCache#CACHE_NAME} is configured.
+   *
+   * @see TermBlockCache
+   */
+  public TermBlockCache getTermBlockCache() {
+    return termBlockCache;
+  }
+
+  /**
+   * Returns the pool of arrays of the collapsing collectors on this searcher.
+   *
+   * @see CollapseArena
+   */
+  public CollapseArena getCollapseArena() {
+    return collapseArena;
+  }
+
   /** Returns a weighted sort according to this searcher */
   public Sort weightSort(Sort sort) throws IOException {
     return (sort != null) ? sort.rewrite(this) : null;
@@ -1002,6 +1062,9 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     if (answer instanceof BitDocSet) {
       return (BitDocSet) answer;
     }
+    if (answer instanceof OffHeapBitDocSet || answer instanceof RoaringDocSet) {
+      return new BitDocSet(answer.getFixedBitSetClone(), answer.size());
+    }
     FixedBitSet bs = new FixedBitSet(maxDoc());
     DocIterator iter = answer.iterator();
     while (iter.hasNext()) {
@@ -1325,6 +1388,8 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       // for BitDocSet since it clones the backing bitset for andNot and intersection.
       if (end > 1 && answer instanceof BitDocSet) {
         answer = MutableBitDocSet.fromBitDocSet((BitDocSet) answer);
+      } else if (end > 1 && answer instanceof OffHeapBitDocSet) {
+        answer = MutableBitDocSet.fromOffHeapBitDocSet((OffHeapBitDocSet) answer);
       }
 
       // do negative queries first to shrink set size
@@ -1472,6 +1537,18 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     return result;
   }
 
+  /**
+   * Returns true if DocSets for queries without a specialized implementation should be collected
+   * concurrently, one task per index slice on this searcher's executor.
+   *
+   * @see DocSetUtil#createDocSetGeneric(SolrIndexSearcher, Query)
+   */
+  boolean isParallelDocSetEnabled() {
+    return parallelDocSetMinDocs >= 0
+        && reader.maxDoc() >= parallelDocSetMinDocs
+        && getSlices().length > 1;
+  }
+
   // query must be positive
   protected DocSet getDocSetNC(Query query, DocSet filter) throws IOException {
     return DocSetUtil.createDocSet(this, query, filter);
@@ -2522,6 +2599,8 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     // warm the caches in order...
     ModifiableSolrParams params = new ModifiableSolrParams();
     params.add("warming", "true");
+    // before the fieldValueCache is warmed, so that it reuses the segments already un-inverted
+    unInvertedSegments.inherit(old, rawReader);
     for (int i = 0; i < cacheList.length; i++) {
       if (log.isDebugEnabled()) {
         log.debug("autowarming [{}] from [{}]\n\t{}", this, old, old.cacheList[i]);
@@ -2654,6 +2733,29 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
               liveDocsNaiveCacheHitCount.sum(),
               baseAttributes.toBuilder().put(TYPE_ATTR, "naive_hits").build());
         });
+    // arrays of the collapsing collectors
+    collapseArena.setAllocatedBytesPerCollapse(
+        new AttributedLongHistogram(
+            solrMetricsContext.longHistogram(
+                "solr.core.indexsearcher.collapse.allocated",
+                "Bytes of arrays allocated per collapse, rather than taken from the pool",
+                OtelUnit.BYTES),
+            baseAttributes));
+    solrMetricsContext.observableLongCounter(
+        "solr.core.indexsearcher.collapse.arena",
+        "Bytes of arrays of the collapsing collectors",
+        obs -> {
+          obs.record(
+              collapseArena.getAllocatedBytes(),
+              baseAttributes.toBuilder().put(TYPE_ATTR, "allocated").build());
+          obs.record(
+              collapseArena.getReusedBytes(),
+              baseAttributes.toBuilder().put(TYPE_ATTR, "reused").build());
+        });
+    solrMetricsContext.observableLongGauge(
+        "solr.core.indexsearcher.collapse.arena.pooled",
+        "Bytes of arrays pooled for the collapsing collectors",
+        obs -> obs.record(collapseArena.getPooledBytes(), baseAttributes));
     // reader stats (numeric)
     solrMetricsContext.observableLongGauge(
         "solr.core.indexsearcher.index.num_docs",
@@ -652,6 +652,13 @@ public class SortedIntDocSet extends DocSet {
   @Override
   public DocSet union(DocSet other) {
     // TODO could be more efficient if both are SortedIntDocSet
+    if (other instanceof OffHeapBitDocSet || other instanceof RoaringDocSet) {
+      // these have no on-heap bitset to share; OR them into our copy instead of copying them too
+      FixedBitSet newbits =
+          FixedBitSet.ensureCapacity(getFixedBitSetClone(), other.getBits().length());
+      other.addAllTo(newbits);
+      return new BitDocSet(newbits);
+    }
     FixedBitSet otherBits = other.getFixedBitSet();
     FixedBitSet newbits = FixedBitSet.ensureCapacity(getFixedBitSetClone(), otherBits.length());
     newbits.or(otherBits);
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.IOException;
+import org.apache.lucene.index.MultiDocValues;
+import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * Caches the terms of single-valued string docValues fields in blocks of consecutive global
+ * ordinals, for the lifetime of a {@link SolrIndexSearcher}. Requests that repeatedly resolve the
+ * ordinals of the same fields, such as {@code /export} of high cardinality string fields, then
+ * decode each block of the terms dictionary once per searcher instead of once per document.
+ *
+ * <p>The {@link OrdinalMap}s used to compute global ordinals are already cached by the searcher's
+ * {@link SolrIndexSearcher#getSlowAtomicReader() slow atomic reader}. The blocks are stored in the
+ * user cache named {@value #CACHE_NAME}, so the cache is only enabled when it is configured in
+ * {@code solrconfig.xml}, where its size is set and from which it gets the usual cache metrics:
+ *
+ * <pre class="prettyprint">
+ * &lt;cache name="termBlockCache" class="solr.CaffeineCache" maxRamMB="32" autowarmCount="0"/&gt;
+ * </pre>
+ *
+ * <p>Global ordinals change with every searcher, so the cache can't be autowarmed.
+ *
+ * @lucene.internal
+ */
+public final class TermBlockCache {
+
+  public static final String CACHE_NAME = "termBlockCache";
+
+  static final int BLOCK_SHIFT = 10;
+  static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+  private final SolrIndexSearcher searcher;
+  private final SolrCache<BlockKey, Block> blocks;
+
+  TermBlockCache(SolrIndexSearcher searcher, SolrCache<BlockKey, Block> blocks) {
+    this.searcher = searcher;
+    this.blocks = blocks;
+  }
+
+  /**
+   * Returns a handle to look up the terms of a field by global ordinal, or null if the field has no
+   * {@link SortedDocValues}. The handle is not thread-safe.
+   */
+  public FieldTerms forField(String field) throws IOException {
+    SortedDocValues values = searcher.getSlowAtomicReader().getSortedDocValues(field);
+    if (values == null) {
+      return null;
+    }
+    return new FieldTerms(field, values);
+  }
+
+  /** Returns the number of cached blocks. */
+  public long size() {
+    return blocks.size();
+  }
+
+  /** Terms of one field, by global ordinal. */
+  public final class FieldTerms {
+    private final String field;
+    private final SortedDocValues globalValues;
+    private final OrdinalMap ordinalMap;
+    private final BytesRef term = new BytesRef();
+    private Block block;
+    private int blockIndex = -1;
+
+    private FieldTerms(String field, SortedDocValues globalValues) {
+      this.field = field;
+      this.globalValues = globalValues;
+      this.ordinalMap =
+          globalValues instanceof MultiDocValues.MultiSortedDocValues multi ? multi.mapping : null;
+    }
+
+    /** Returns the mapping of the ordinals of a segment to global ordinals. */
+    public LongValues getGlobalOrds(int segmentIndex) {
+      return ordinalMap == null ? LongValues.IDENTITY : ordinalMap.getGlobalOrds(segmentIndex);
+    }
+
+    /**
+     * Returns the term of a global ordinal. The returned {@link BytesRef} is only valid until the
+     * next call.
+     */
+    public BytesRef lookupOrd(int globalOrd) throws IOException {
+      int index = globalOrd >>> BLOCK_SHIFT;
+      if (index != blockIndex) {
+        block = blocks.computeIfAbsent(new BlockKey(field, index), key -> loadBlock(key.index()));
+        blockIndex = index;
+      }
+      return block.term(globalOrd & (BLOCK_SIZE - 1), term);
+    }
+
+    private Block loadBlock(int index) throws IOException {
+      int start = index << BLOCK_SHIFT;
+      int end = (int) Math.min((long) start + BLOCK_SIZE, globalValues.getValueCount());
+      int[] offsets = new int[end - start + 1];
+      BytesRefBuilder bytes = new BytesRefBuilder();
+      for (int ord = start; ord < end; ord++) {
+        bytes.append(globalValues.lookupOrd(ord));
+        offsets[ord - start + 1] = bytes.length();
+      }
+      return new Block(ArrayUtil.copyOfSubArray(bytes.bytes(), 0, bytes.length()), offsets);
+    }
+  }
+
+  record BlockKey(String field, int index) {}
+
+  /** The terms of up to {@link #BLOCK_SIZE} consecutive ordinals. */
+  record Block(byte[] bytes, int[] offsets) implements Accountable {
+
+    BytesRef term(int i, BytesRef ref) {
+      ref.bytes = bytes;
+      ref.offset = offsets[i];
+      ref.length = offsets[i + 1] - offsets[i];
+      return ref;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+      return 2 * RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+          + RamUsageEstimator.sizeOf(bytes)
+          + RamUsageEstimator.sizeOf(offsets);
+    }
+  }
+}
@@ -17,8 +17,11 @@
 package org.apache.solr.search.facet;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Callable;
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.MultiDocValues;
@@ -26,10 +29,12 @@ import org.apache.lucene.index.OrdinalMap;
 import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.LongValues;
 import org.apache.lucene.util.UnicodeUtil;
 import org.apache.solr.common.SolrException;
+import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.schema.SchemaField;
 import org.apache.solr.search.facet.SlotAcc.CountSlotAcc;
 import org.apache.solr.search.facet.SlotAcc.SweepCountAccStruct;
@@ -101,6 +106,11 @@ class FacetFieldProcessorByArrayDV extends FacetFieldProcessorByArray {
     final List<SweepCountAccStruct> others = SweepingCountSlotAcc.otherStructsOf(this);
     assert null != base;
 
+    if (others.isEmpty() && canCollectInParallel()) {
+      collectDocsInParallel(base.countAcc);
+      return;
+    }
+
     // TODO: refactor some of this logic into a base class
     boolean countOnly = collectAcc == null && allBucketsAcc == null;
     boolean fullRange = startTermIndex == 0 && endTermIndex == si.getValueCount();
@@ -205,6 +215,143 @@ class FacetFieldProcessorByArrayDV extends FacetFieldProcessorByArray {
     Arrays.fill(reuse, null); // better GC
   }
 
+  /**
+   * Returns true if the request asked for {@link CommonParams#MULTI_THREADED} collection and all
+   * accumulators of the first phase can be collected per index slice and merged afterwards.
+   */
+  private boolean canCollectInParallel() {
+    if (fcontext.req == null
+        || !fcontext.req.getParams().getBool(CommonParams.MULTI_THREADED, false)
+        || allBucketsAcc != null
+        || fcontext.searcher.getSlices().length < 2) {
+      return false;
+    }
+    for (SlotAcc acc : collectAccs()) {
+      if (!(acc instanceof MergeableSlotAcc mergeable)
+          || !mergeable.canCollectInParallel()
+          || acc.key == null
+          || freq.getFacetStats().get(acc.key) == null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private SlotAcc[] collectAccs() {
+    if (collectAcc == null) {
+      return new SlotAcc[0];
+    } else if (collectAcc instanceof MultiAcc multiAcc) {
+      return multiAcc.subAccs;
+    } else {
+      return new SlotAcc[] {collectAcc};
+    }
+  }
+
+  /**
+   * Collects every slice of the index on the searcher's executor. Each task counts into its own
+   * array and collects into its own accumulators, which are then merged into {@code countAcc} and
+   * {@link #collectAcc}.
+   */
+  private void collectDocsInParallel(CountSlotAcc countAcc) throws IOException {
+    final SlotAcc[] accs = collectAccs();
+    final IndexSearcher.LeafSlice[] slices = fcontext.searcher.getSlices();
+    final List<Callable<SliceResult>> tasks = new ArrayList<>(slices.length);
+    for (IndexSearcher.LeafSlice slice : slices) {
+      tasks.add(() -> collectSlice(slice, accs));
+    }
+    final List<SliceResult> results = fcontext.searcher.getTaskExecutor().invokeAll(tasks);
+
+    // leave the accumulators positioned as after serial collection, e.g. for term lookups
+    setNextReaderFirstPhase(fcontext.searcher.getIndexReader().leaves().get(0));
+    for (SliceResult result : results) {
+      for (int slot = 0; slot < result.counts.length; slot++) {
+        if (result.counts[slot] != 0) {
+          countAcc.incrementCount(slot, result.counts[slot]);
+        }
+      }
+      for (int i = 0; i < accs.length; i++) {
+        ((MergeableSlotAcc) accs[i]).merge(result.accs[i]);
+      }
+    }
+  }
+
+  private SliceResult collectSlice(IndexSearcher.LeafSlice slice, SlotAcc[] accs)
+      throws IOException {
+    final SlotAcc[] sliceAccs = new SlotAcc[accs.length];
+    for (int i = 0; i < accs.length; i++) {
+      AggValueSource agg = freq.getFacetStats().get(accs[i].key);
+      sliceAccs[i] = agg.createSlotAcc(fcontext, nDocs, maxSlots);
+      sliceAccs[i].key = accs[i].key;
+    }
+    final long[] counts = new long[maxSlots];
+
+    // accumulators expect leaves in index order
+    final IndexSearcher.LeafReaderContextPartition[] partitions = slice.partitions.clone();
+    Arrays.sort(
+        partitions,
+        Comparator.comparingInt((IndexSearcher.LeafReaderContextPartition p) -> p.ctx.ord)
+            .thenComparingInt(p -> p.minDocId));
+
+    for (IndexSearcher.LeafReaderContextPartition partition : partitions) {
+      final LeafReaderContext subCtx = partition.ctx;
+      final DocIdSetIterator disi = fcontext.base.iterator(subCtx);
+      if (disi == null) {
+        continue;
+      }
+      SortedDocValues singleDv = null;
+      SortedSetDocValues multiDv = null;
+      if (multiValuedField) {
+        multiDv = subCtx.reader().getSortedSetDocValues(sf.getName());
+        if (multiDv == null) {
+          continue;
+        }
+        if (unwrap_singleValued_multiDv) {
+          singleDv = DocValues.unwrapSingleton(multiDv);
+        }
+      } else {
+        singleDv = subCtx.reader().getSortedDocValues(sf.getName());
+        if (singleDv == null) {
+          continue;
+        }
+      }
+      for (SlotAcc acc : sliceAccs) {
+        acc.setNextReader(subCtx);
+      }
+      final LongValues toGlobal = ordinalMap == null ? null : ordinalMap.getGlobalOrds(subCtx.ord);
+
+      for (int doc = disi.advance(partition.minDocId);
+          doc < partition.maxDocId;
+          doc = disi.nextDoc()) {
+        if (singleDv != null) {
+          if (singleDv.advanceExact(doc)) {
+            collectOrd(doc, singleDv.ordValue(), toGlobal, counts, sliceAccs);
+          }
+        } else if (multiDv.advanceExact(doc)) {
+          for (int o = 0; o < multiDv.docValueCount(); o++) {
+            collectOrd(doc, (int) multiDv.nextOrd(), toGlobal, counts, sliceAccs);
+          }
+        }
+      }
+    }
+    return new SliceResult(counts, sliceAccs);
+  }
+
+  private void collectOrd(
+      int doc, int segOrd, LongValues toGlobal, long[] counts, SlotAcc[] sliceAccs)
+      throws IOException {
+    int ord = toGlobal != null ? (int) toGlobal.get(segOrd) : segOrd;
+    int arrIdx = ord - startTermIndex;
+    if (arrIdx >= 0 && arrIdx < nTerms) {
+      counts[arrIdx]++;
+      for (SlotAcc acc : sliceAccs) {
+        // mergeable accumulators don't use the slot context, which isn't thread-safe
+        acc.collect(doc, arrIdx, null);
+      }
+    }
+  }
+
+  private record SliceResult(long[] counts, SlotAcc[] accs) {}
+
   @Override
   protected BytesRef lookupOrd(int ord) throws IOException {
     return si.lookupOrd(ord);
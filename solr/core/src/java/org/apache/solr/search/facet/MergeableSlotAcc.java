@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.facet;
+
+/**
+ * Implemented by {@link SlotAcc}s whose values can be collected by several instances in parallel
+ * and then combined. {@link FacetFieldProcessorByArrayDV} uses this to collect each slice of the
+ * index on its own thread, into accumulators created by the same {@link AggValueSource}, and then
+ * merges them slot by slot into the accumulator used for sorting and the response.
+ *
+ * <p>Accumulators collected this way must not use the {@code slotContext} of {@link
+ * SlotAcc#collect(int, int, java.util.function.IntFunction)}, as it isn't thread-safe.
+ */
+interface MergeableSlotAcc {
+
+  /** Returns true if separate instances of this accumulator may collect concurrently. */
+  default boolean canCollectInParallel() {
+    return true;
+  }
+
+  /**
+   * Adds the values collected by {@code other} to the values of this accumulator. {@code other} is
+   * of the same class and has the same number of slots.
+   */
+  void merge(SlotAcc other);
+}
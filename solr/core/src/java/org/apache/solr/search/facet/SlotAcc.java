@@ -27,6 +27,7 @@ import java.util.function.IntFunction;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.queries.function.FunctionValues;
 import org.apache.lucene.queries.function.ValueSource;
+import org.apache.lucene.queries.function.valuesource.FieldCacheSource;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.util.FixedBitSet;
@@ -403,11 +404,25 @@ public abstract class SlotAcc implements Closeable {
     }
   }
 
-  static class SumSlotAcc extends DoubleFuncSlotAcc {
+  static class SumSlotAcc extends DoubleFuncSlotAcc implements MergeableSlotAcc {
     public SumSlotAcc(ValueSource values, FacetContext fcontext, int numSlots) {
       super(values, fcontext, numSlots);
     }
 
+    @Override
+    public boolean canCollectInParallel() {
+      // arbitrary functions may keep per-request state
+      return valueSource instanceof FieldCacheSource;
+    }
+
+    @Override
+    public void merge(SlotAcc other) {
+      double[] otherResult = ((SumSlotAcc) other).result;
+      for (int i = 0; i < result.length; i++) {
+        result[i] += otherResult[i];
+      }
+    }
+
     @Override
     public void collect(int doc, int slotNum, IntFunction<SlotContext> slotContext)
         throws IOException {
@@ -431,7 +446,7 @@ public abstract class SlotAcc implements Closeable {
     }
   }
 
-  static class AvgSlotAcc extends DoubleFuncSlotAcc {
+  static class AvgSlotAcc extends DoubleFuncSlotAcc implements MergeableSlotAcc {
     int[] counts;
 
     public AvgSlotAcc(ValueSource values, FacetContext fcontext, int numSlots) {
@@ -439,6 +454,20 @@ public abstract class SlotAcc implements Closeable {
       counts = new int[numSlots];
     }
 
+    @Override
+    public boolean canCollectInParallel() {
+      return valueSource instanceof FieldCacheSource;
+    }
+
+    @Override
+    public void merge(SlotAcc other) {
+      AvgSlotAcc otherAvg = (AvgSlotAcc) other;
+      for (int i = 0; i < result.length; i++) {
+        result[i] += otherAvg.result[i];
+        counts[i] += otherAvg.counts[i];
+      }
+    }
+
     @Override
     public void reset() {
       super.reset();
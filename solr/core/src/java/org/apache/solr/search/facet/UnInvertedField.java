@@ -16,25 +16,39 @@
  */
 package org.apache.solr.search.facet;
 
+import com.carrotsearch.hppc.IntArrayList;
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import org.apache.lucene.index.FilteredTermsEnum;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.CharsRefBuilder;
 import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.StringHelper;
+import org.apache.lucene.util.packed.PackedInts;
 import org.apache.solr.common.SolrException;
-import org.apache.solr.index.SlowCompositeReaderWrapper;
 import org.apache.solr.schema.FieldType;
 import org.apache.solr.schema.TrieField;
 import org.apache.solr.search.BitDocSet;
@@ -56,21 +70,28 @@ import org.slf4j.LoggerFactory;
  * Final form of the un-inverted field: Each document points to a list of term numbers that are
  * contained in that document.
  *
- * <p>Term numbers are in sorted order, and are encoded as variable-length deltas from the previous
- * term number. Real term numbers start at 2 since 0 and 1 are reserved. A term number of 0 signals
- * the end of the termNumber list.
+ * <p>The field is un-inverted one segment at a time. Each segment holds the term numbers of its
+ * documents relative to its own terms, and an {@link OrdinalMap} maps them to the term numbers of
+ * the whole index while they are read. Un-inverted segments are cached by segment core in a
+ * {@link SegmentCache} that lives as long as the searcher. When a new searcher is warmed, it takes
+ * over the segments it shares with the previous searcher, for the fields still in the previous
+ * searcher's {@code fieldValueCache}, so only new and merged segments are un-inverted.
  *
- * <p>There is a single int[maxDoc()] which either contains a pointer into a byte[] for the
- * termNumber lists, or directly contains the termNumber list if it fits in the 4 bytes of an
+ * <p>Within a segment, term numbers are in sorted order, and are encoded as variable-length deltas
+ * from the previous term number. Real term numbers start at 2 since 0 and 1 are reserved. A term
+ * number of 0 signals the end of the termNumber list.
+ *
+ * <p>There is a single int[maxDoc()] per segment which either contains a pointer into a byte[] for
+ * the termNumber lists, or directly contains the termNumber list if it fits in the 4 bytes of an
  * integer. If the first byte in the integer is 1, the next 3 bytes are a pointer into a byte[]
  * where the termNumber list starts.
  *
  * <p>There are actually 256 byte arrays, to compensate for the fact that the pointers into the byte
  * arrays are only 3 bytes long. The correct byte array for a document is a function of its id.
  *
- * <p>To save space and speed up faceting, any term that matches enough documents will not be
- * un-inverted... it will be skipped while building the un-inverted field structure, and will use a
- * set intersection method during faceting.
+ * <p>To save space and speed up faceting, any term that matches enough documents of a segment will
+ * not be un-inverted... it will be skipped while building the un-inverted segment, and will use a
+ * set intersection method during faceting, for all segments.
  *
  * <p>To further save memory, the terms (the actual string values) are not all stored in memory, but
  * a TermIndex is used to convert term numbers to term values only for the terms needed after
@@ -103,70 +124,30 @@ public class UnInvertedField extends DocTermOrds {
   final AtomicLong use = new AtomicLong(); // number of uses
 
   /* The number of documents holding the term {@code maxDocs = maxTermCounts[termNum]}. */
-  int[] maxTermCounts = new int[1024];
+  private volatile int[] maxTermCounts;
 
   /* termNum -> docIDs for big terms. */
   final Map<Integer, TopTerm> bigTerms = new LinkedHashMap<>();
 
-  private SolrIndexSearcher.DocsEnumState deState;
+  /* The termNums of bigTerms, which are skipped when reading the un-inverted segments. */
+  private FixedBitSet bigTermNums;
+
   private final SolrIndexSearcher searcher;
+  private final SegmentOrds[] segments;
+  private final int[] docStarts;
+  private final OrdinalMap ordinalMap; // null unless there are several segments
+
+  /* The number of segments that were un-inverted by a previous searcher. */
+  int reusedSegments;
 
   private static final UnInvertedField uifPlaceholder = new UnInvertedField();
 
   private UnInvertedField() { // Dummy for synchronization.
     super("fake", 0, 0); // cheapest initialization I can find.
     searcher = null;
-  }
-
-  /**
-   * Called for each term in the field being uninverted. Collects {@link #maxTermCounts} for all
-   * bigTerms as well as storing them in {@link #bigTerms}.
-   *
-   * @param te positioned at the current term.
-   * @param termNum the ID/pointer/ordinal of the current term. Monotonically increasing between
-   *     calls.
-   */
-  @Override
-  protected void visitTerm(TermsEnum te, int termNum) throws IOException {
-
-    if (termNum >= maxTermCounts.length) {
-      // resize by doubling - for very large number of unique terms, expanding
-      // by 4K and resultant GC will dominate uninvert times.  Resize at end if material
-      int[] newMaxTermCounts = new int[Math.min(Integer.MAX_VALUE - 16, maxTermCounts.length * 2)];
-      System.arraycopy(maxTermCounts, 0, newMaxTermCounts, 0, termNum);
-      maxTermCounts = newMaxTermCounts;
-    }
-
-    final BytesRef term = te.term();
-
-    if (te.docFreq() > maxTermDocFreq) {
-      Term t = new Term(field, term); // this makes a deep copy of the term bytes
-      TopTerm topTerm = new TopTerm();
-      topTerm.term = t.bytes();
-      topTerm.termNum = termNum;
-      topTerm.termQuery = new TermQuery(t);
-
-      bigTerms.put(topTerm.termNum, topTerm);
-
-      if (deState == null) {
-        deState = new SolrIndexSearcher.DocsEnumState();
-        deState.fieldName = field;
-        deState.liveDocs = searcher.getLiveDocsBits();
-        // TODO: check for MultiTermsEnum in SolrIndexSearcher could now fail?
-        deState.termsEnum = te;
-        deState.postingsEnum = postingsEnum;
-        deState.minSetSizeCached = maxTermDocFreq;
-      }
-
-      postingsEnum = deState.postingsEnum;
-      DocSet set = searcher.getDocSet(deState);
-      maxTermCounts[termNum] = set.size();
-    }
-  }
-
-  @Override
-  protected void setActualDocFreq(int termNum, int docFreq) {
-    maxTermCounts[termNum] = docFreq;
+    segments = new SegmentOrds[0];
+    docStarts = new int[0];
+    ordinalMap = null;
   }
 
   public long memSize() {
@@ -174,15 +155,25 @@ public class UnInvertedField extends DocTermOrds {
     if (memsz != 0) return memsz;
     long sz = super.ramBytesUsed();
     sz += 8 * 8 + 32; // local fields
+    for (SegmentOrds segment : segments) {
+      sz += segment.ramBytesUsed();
+    }
+    if (ordinalMap != null) sz += ordinalMap.ramBytesUsed();
     sz += bigTerms.size() * 64L;
     for (TopTerm tt : bigTerms.values()) {
       sz += tt.memSize();
     }
+    if (bigTermNums != null) sz += bigTermNums.ramBytesUsed();
     if (maxTermCounts != null) sz += maxTermCounts.length * 4L;
     memsz = sz;
     return sz;
   }
 
+  @Override
+  public long ramBytesUsed() {
+    return memSize();
+  }
+
   public UnInvertedField(String field, SolrIndexSearcher searcher) throws IOException {
     super(
         field,
@@ -196,19 +187,51 @@ public class UnInvertedField extends DocTermOrds {
 
     assert TestInjection.injectUIFOutOfMemoryError();
 
+    final long startTime = System.nanoTime();
     final String prefix = TrieField.getMainValuePrefix(searcher.getSchema().getFieldType(field));
+    this.prefix = prefix == null ? null : new BytesRef(prefix);
     this.searcher = searcher;
+    this.tnums = null; // the term numbers are held by the segments
+
+    final List<LeafReaderContext> leaves = searcher.getRawReader().leaves();
+    segments = new SegmentOrds[leaves.size()];
+    docStarts = new int[leaves.size()];
+    final TermsEnum[] subs = new TermsEnum[leaves.size()];
+    final long[] weights = new long[leaves.size()];
     try {
-      // TODO: it's wasteful to create one of these each time
-      // but DocTermOrds will throw an exception if it thinks the field has doc values (which is
-      // faked by UnInvertingReader)
-      LeafReader r = SlowCompositeReaderWrapper.wrap(searcher.getRawReader());
-      uninvert(r, r.getLiveDocs(), prefix == null ? null : new BytesRef(prefix));
+      for (LeafReaderContext leaf : leaves) {
+        SegmentOrds segment = getSegmentOrds(leaf.reader());
+        segments[leaf.ord] = segment;
+        docStarts[leaf.ord] = leaf.docBase;
+        subs[leaf.ord] = termsEnum(leaf.reader());
+        weights[leaf.ord] = segment.numTerms();
+        termInstances += segment.termInstances();
+      }
     } catch (IllegalStateException ise) {
       throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, ise);
     }
-    if (tnums != null) {
-      for (byte[] target : tnums) {
+    final long midPoint = System.nanoTime();
+
+    if (segments.length > 1) {
+      ordinalMap = OrdinalMap.build(null, subs, weights, PackedInts.DEFAULT);
+      if (ordinalMap.getValueCount() >= Integer.MAX_VALUE) {
+        throw new SolrException(
+            SolrException.ErrorCode.BAD_REQUEST,
+            "Field has too many unique values. field=" + field);
+      }
+      numTermsInField = (int) ordinalMap.getValueCount();
+    } else {
+      ordinalMap = null;
+      numTermsInField = segments.length == 0 ? 0 : segments[0].numTerms();
+    }
+
+    indexTerms(leaves);
+    collectBigTerms();
+
+    for (SegmentOrds segment : segments) {
+      byte[][] segmentTnums = segment.docTnums();
+      if (segmentTnums == null) continue;
+      for (byte[] target : segmentTnums) {
         if (target != null && target.length > (1 << 24) * .9) {
           log.warn(
               "Approaching too many values for UnInvertedField faceting on field '{}' : bucket size={}",
@@ -218,24 +241,313 @@ public class UnInvertedField extends DocTermOrds {
       }
     }
 
-    // free space if outrageously wasteful (tradeoff memory/cpu)
-    if ((maxTermCounts.length - numTermsInField) > 1024) { // too much waste!
-      int[] newMaxTermCounts = new int[numTermsInField];
-      System.arraycopy(maxTermCounts, 0, newMaxTermCounts, 0, numTermsInField);
-      maxTermCounts = newMaxTermCounts;
-    }
+    final long endTime = System.nanoTime();
+    total_time = (int) TimeUnit.MILLISECONDS.convert(endTime - startTime, TimeUnit.NANOSECONDS);
+    phase1_time = (int) TimeUnit.MILLISECONDS.convert(midPoint - startTime, TimeUnit.NANOSECONDS);
 
     log.info("UnInverted multi-valued field {}", this);
-    // System.out.println("CREATED: " + toString() + " ti.index=" + ti.index);
+  }
+
+  /** Returns the un-inverted segment, from the cache if a previous searcher un-inverted it. */
+  private SegmentOrds getSegmentOrds(LeafReader reader) throws IOException {
+    final IndexReader.CacheHelper cacheHelper = reader.getCoreCacheHelper();
+    if (cacheHelper == null) {
+      return new SegmentOrds(reader, field, prefix, maxTermDocFreq);
+    }
+    final Map<String, SegmentOrds> fields =
+        searcher.getUnInvertedSegments().segments.computeIfAbsent(
+            cacheHelper.getKey(), key -> new ConcurrentHashMap<>());
+    final SegmentOrds cached = fields.get(field);
+    if (cached != null) {
+      reusedSegments++;
+      return cached;
+    }
+    try {
+      return fields.computeIfAbsent(
+          field,
+          f -> {
+            try {
+              return new SegmentOrds(reader, f, prefix, maxTermDocFreq);
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /** Returns the terms of the field in a segment, in the order of their segment term numbers. */
+  private TermsEnum termsEnum(LeafReader reader) throws IOException {
+    final Terms terms = reader.terms(field);
+    if (terms == null) {
+      return TermsEnum.EMPTY;
+    }
+    if (prefix == null) {
+      return terms.iterator();
+    }
+    final BytesRef termPrefix = prefix;
+    return new FilteredTermsEnum(terms.iterator()) {
+      {
+        setInitialSeekTerm(termPrefix);
+      }
+
+      @Override
+      protected AcceptStatus accept(BytesRef term) {
+        return StringHelper.startsWith(term, termPrefix) ? AcceptStatus.YES : AcceptStatus.END;
+      }
+    };
+  }
+
+  /** Builds the index of every 128th term, looking up the terms in the segments. */
+  private void indexTerms(List<LeafReaderContext> leaves) throws IOException {
+    final TermsEnum[] segmentTerms = new TermsEnum[segments.length];
+    final List<BytesRef> indexedTerms = new ArrayList<>();
+    for (int termNum = 0; termNum < numTermsInField; termNum += 1 << DEFAULT_INDEX_INTERVAL_BITS) {
+      final int segment;
+      final int segmentTermNum;
+      if (ordinalMap == null) {
+        segment = 0;
+        segmentTermNum = termNum;
+      } else {
+        segment = ordinalMap.getFirstSegmentNumber(termNum);
+        segmentTermNum = (int) ordinalMap.getFirstSegmentOrd(termNum);
+      }
+      if (segmentTerms[segment] == null) {
+        segmentTerms[segment] = segments[segment].getOrdTermsEnum(leaves.get(segment).reader());
+      }
+      final BytesRef term =
+          BytesRef.deepCopyOf(segments[segment].lookupTerm(segmentTerms[segment], segmentTermNum));
+      sizeOfIndexedStrings += term.length;
+      indexedTerms.add(term);
+    }
+    indexedTermsArray = indexedTerms.toArray(new BytesRef[0]);
+  }
+
+  /**
+   * Terms that were not un-inverted in some segment are big terms of the whole field: they are
+   * counted with set intersections, and skipped in the segments that did un-invert them.
+   */
+  private void collectBigTerms() {
+    final TreeMap<Integer, BytesRef> terms = new TreeMap<>();
+    for (int i = 0; i < segments.length; i++) {
+      final SegmentOrds segment = segments[i];
+      final LongValues toGlobal = ordinalMap == null ? null : ordinalMap.getGlobalOrds(i);
+      for (int j = 0; j < segment.bigTermNums.size(); j++) {
+        int segmentTermNum = segment.bigTermNums.get(j);
+        int termNum = toGlobal == null ? segmentTermNum : (int) toGlobal.get(segmentTermNum);
+        terms.putIfAbsent(termNum, segment.bigTerms.get(j));
+      }
+    }
+    if (terms.isEmpty()) {
+      return;
+    }
+    bigTermNums = new FixedBitSet(numTermsInField);
+    for (Map.Entry<Integer, BytesRef> entry : terms.entrySet()) {
+      Term t = new Term(field, entry.getValue());
+      TopTerm topTerm = new TopTerm();
+      topTerm.term = t.bytes();
+      topTerm.termNum = entry.getKey();
+      topTerm.termQuery = new TermQuery(t);
+      bigTerms.put(topTerm.termNum, topTerm);
+      bigTermNums.set(topTerm.termNum);
+    }
+  }
+
+  /**
+   * Returns the number of documents holding each term, as used when counting the complement of a
+   * large domain: live documents for big terms, all documents for the others, just like the
+   * un-inverted segments.
+   */
+  private int[] getMaxTermCounts() throws IOException {
+    int[] counts = maxTermCounts;
+    if (counts != null) {
+      return counts;
+    }
+    synchronized (this) {
+      if (maxTermCounts == null) {
+        counts = new int[numTermsInField];
+        for (LeafReaderContext leaf : searcher.getRawReader().leaves()) {
+          final TermsEnum te = termsEnum(leaf.reader());
+          final LongValues toGlobal =
+              ordinalMap == null ? LongValues.IDENTITY : ordinalMap.getGlobalOrds(leaf.ord);
+          for (int segmentTermNum = 0; te.next() != null; segmentTermNum++) {
+            counts[(int) toGlobal.get(segmentTermNum)] += te.docFreq();
+          }
+        }
+        for (TopTerm tt : bigTerms.values()) {
+          counts[tt.termNum] = searcher.getDocSet(tt.termQuery).size();
+        }
+        maxTermCounts = counts;
+      }
+      return maxTermCounts;
+    }
   }
 
   public int getNumTerms() {
     return numTermsInField;
   }
 
+  /**
+   * The segments un-inverted on a searcher, by segment core and field.
+   *
+   * @lucene.internal
+   */
+  public static final class SegmentCache {
+    private final Map<IndexReader.CacheKey, Map<String, SegmentOrds>> segments =
+        new ConcurrentHashMap<>();
+
+    /**
+     * Takes over the segments of the previous searcher that are part of the given reader too, for
+     * the fields whose {@link UnInvertedField} is still cached by the previous searcher. The other
+     * segments are left behind, to be released with the previous searcher.
+     */
+    public void inherit(SolrIndexSearcher previous, IndexReader reader) {
+      final SolrCache<String, UnInvertedField> fieldValueCache = previous.getFieldValueCache();
+      if (fieldValueCache == null) {
+        return;
+      }
+      final Map<IndexReader.CacheKey, Map<String, SegmentOrds>> previousSegments =
+          previous.getUnInvertedSegments().segments;
+      for (LeafReaderContext leaf : reader.leaves()) {
+        final IndexReader.CacheHelper cacheHelper = leaf.reader().getCoreCacheHelper();
+        final Map<String, SegmentOrds> fields =
+            cacheHelper == null ? null : previousSegments.get(cacheHelper.getKey());
+        if (fields == null) {
+          continue;
+        }
+        final Map<String, SegmentOrds> inherited = new ConcurrentHashMap<>();
+        fields.forEach(
+            (field, segment) -> {
+              Object uif = fieldValueCache.get(field);
+              if (uif instanceof UnInvertedField && uif != uifPlaceholder) {
+                inherited.put(field, segment);
+              }
+            });
+        if (!inherited.isEmpty()) {
+          segments.put(cacheHelper.getKey(), inherited);
+        }
+      }
+    }
+  }
+
+  /**
+   * The un-inverted terms of one segment, shared by the {@link UnInvertedField}s of all searchers
+   * holding the segment. Terms whose docFreq exceeds {@code maxTermDocFreq} are not un-inverted.
+   */
+  static final class SegmentOrds extends DocTermOrds {
+    final IntArrayList bigTermNums = new IntArrayList();
+    final List<BytesRef> bigTerms = new ArrayList<>();
+
+    SegmentOrds(LeafReader reader, String field, BytesRef prefix, int maxTermDocFreq)
+        throws IOException {
+      super(field, maxTermDocFreq, DEFAULT_INDEX_INTERVAL_BITS);
+      uninvert(reader, null, prefix);
+    }
+
+    @Override
+    protected void visitTerm(TermsEnum te, int termNum) throws IOException {
+      if (te.docFreq() > maxTermDocFreq) {
+        bigTermNums.add(termNum);
+        bigTerms.add(BytesRef.deepCopyOf(te.term()));
+      }
+    }
+
+    long termInstances() {
+      return termInstances;
+    }
+
+    int[] docIndex() {
+      return index;
+    }
+
+    byte[][] docTnums() {
+      return tnums;
+    }
+  }
+
+  /**
+   * Reads the term numbers of the un-inverted terms of top-level documents, mapped from segment
+   * term numbers and in increasing order. Not thread-safe.
+   */
+  final class TermNumsReader {
+    int[] termNums = new int[8];
+    private int segStart;
+    private int segEnd = -1;
+    private int[] segIndex;
+    private byte[][] segTnums;
+    private LongValues toGlobal;
+
+    /** Reads the term numbers of a document into {@link #termNums} and returns how many. */
+    int read(int doc) {
+      if (doc < segStart || doc >= segEnd) {
+        setSegment(ReaderUtil.subIndex(doc, docStarts));
+      }
+      if (segIndex == null) {
+        return 0;
+      }
+      final int segDoc = doc - segStart;
+      int code = segIndex[segDoc];
+      int n = 0;
+
+      if ((code & 0x80000000) != 0) {
+        int pos = code & 0x7fffffff;
+        int whichArray = (segDoc >>> 16) & 0xff;
+        byte[] arr = segTnums[whichArray];
+        int tnum = 0;
+        for (; ; ) {
+          int delta = 0;
+          for (; ; ) {
+            byte b = arr[pos++];
+            delta = (delta << 7) | (b & 0x7f);
+            if ((b & 0x80) == 0) break;
+          }
+          if (delta == 0) break;
+          tnum += delta - TNUM_OFFSET;
+          n = add(n, tnum);
+        }
+      } else {
+        int tnum = 0;
+        int delta = 0;
+        for (; ; ) {
+          delta = (delta << 7) | (code & 0x7f);
+          if ((code & 0x80) == 0) {
+            if (delta == 0) break;
+            tnum += delta - TNUM_OFFSET;
+            n = add(n, tnum);
+            delta = 0;
+          }
+          code >>>= 8;
+        }
+      }
+      return n;
+    }
+
+    private int add(int n, int segmentTermNum) {
+      int termNum = toGlobal == null ? segmentTermNum : (int) toGlobal.get(segmentTermNum);
+      if (bigTermNums != null && bigTermNums.get(termNum)) {
+        return n;
+      }
+      if (n == termNums.length) {
+        termNums = ArrayUtil.grow(termNums, n + 1);
+      }
+      termNums[n] = termNum;
+      return n + 1;
+    }
+
+    private void setSegment(int segment) {
+      segStart = docStarts[segment];
+      segEnd = segment + 1 < docStarts.length ? docStarts[segment + 1] : searcher.maxDoc();
+      segIndex = segments[segment].docIndex();
+      segTnums = segments[segment].docTnums();
+      toGlobal = ordinalMap == null ? null : ordinalMap.getGlobalOrds(segment);
+    }
+  }
+
   public class DocToTerm implements Closeable {
     private final DocSet[] bigTermSets;
     private final int[] bigTermNums;
+    private final TermNumsReader termNumsReader = new TermNumsReader();
     private TermsEnum te;
 
     public DocToTerm() throws IOException {
@@ -272,37 +584,10 @@ public class UnInvertedField extends DocTermOrds {
 
     public void getSmallTerms(int doc, Callback target) {
       if (termInstances > 0) {
-        int code = index[doc];
-
-        if ((code & 0x80000000) != 0) {
-          int pos = code & 0x7fffffff;
-          int whichArray = (doc >>> 16) & 0xff;
-          byte[] arr = tnums[whichArray];
-          int tnum = 0;
-          for (; ; ) {
-            int delta = 0;
-            for (; ; ) {
-              byte b = arr[pos++];
-              delta = (delta << 7) | (b & 0x7f);
-              if ((b & 0x80) == 0) break;
-            }
-            if (delta == 0) break;
-            tnum += delta - TNUM_OFFSET;
-            target.call(tnum);
-          }
-        } else {
-          int tnum = 0;
-          int delta = 0;
-          for (; ; ) {
-            delta = (delta << 7) | (code & 0x7f);
-            if ((code & 0x80) == 0) {
-              if (delta == 0) break;
-              tnum += delta - TNUM_OFFSET;
-              target.call(tnum);
-              delta = 0;
-            }
-            code >>>= 8;
-          }
+        final int n = termNumsReader.read(doc);
+        final int[] termNums = termNumsReader.termNums;
+        for (int i = 0; i < n; i++) {
+          target.call(termNums[i]);
         }
       }
     }
@@ -332,8 +617,6 @@ public class UnInvertedField extends DocTermOrds {
     SweepCountAccStruct baseCountAccStruct = SweepingCountSlotAcc.baseStructOf(processor);
     final List<SweepCountAccStruct> others = SweepingCountSlotAcc.otherStructsOf(processor);
 
-    final int[] index = this.index;
-
     boolean doNegative =
         baseSize > maxDoc >> 1
             && termInstances > 0
@@ -375,45 +658,20 @@ public class UnInvertedField extends DocTermOrds {
           SweepDocIterator.newInstance(baseCountAccStruct, others);
       final SweepDocIterator iter = iterAndCounts.iter;
       final SegCountGlobal counts = new SegCountGlobal(iterAndCounts.countAccs);
+      final TermNumsReader termNumsReader = new TermNumsReader();
       while (iter.hasNext()) {
         int doc = iter.nextDoc();
         int maxIdx = iter.registerCounts(counts);
-        int code = index[doc];
-
-        if ((code & 0x80000000) != 0) {
-          int pos = code & 0x7fffffff;
-          int whichArray = (doc >>> 16) & 0xff;
-          byte[] arr = tnums[whichArray];
-          int tnum = 0;
-          for (; ; ) {
-            int delta = 0;
-            for (; ; ) {
-              byte b = arr[pos++];
-              delta = (delta << 7) | (b & 0x7f);
-              if ((b & 0x80) == 0) break;
-            }
-            if (delta == 0) break;
-            tnum += delta - TNUM_OFFSET;
-            counts.incrementCount(tnum, 1, maxIdx);
-          }
-        } else {
-          int tnum = 0;
-          int delta = 0;
-          for (; ; ) {
-            delta = (delta << 7) | (code & 0x7f);
-            if ((code & 0x80) == 0) {
-              if (delta == 0) break;
-              tnum += delta - TNUM_OFFSET;
-              counts.incrementCount(tnum, 1, maxIdx);
-              delta = 0;
-            }
-            code >>>= 8;
-          }
+        final int n = termNumsReader.read(doc);
+        final int[] termNums = termNumsReader.termNums;
+        for (int i = 0; i < n; i++) {
+          counts.incrementCount(termNums[i], 1, maxIdx);
         }
       }
     }
 
     if (doNegative) {
+      final int[] maxTermCounts = getMaxTermCounts();
       final CountSlotAcc baseCounts = processor.countAcc;
       for (int i = 0; i < numTermsInField; i++) {
         //       counts[i] = maxTermCounts[i] - counts[i];
@@ -497,6 +755,7 @@ public class UnInvertedField extends DocTermOrds {
       final SweepDocIterator iter = sweepIterAndCounts.iter;
       final CountSlotAcc[] countAccs = sweepIterAndCounts.countAccs;
       final SegCountGlobal counts = new SegCountGlobal(countAccs);
+      final TermNumsReader termNumsReader = new TermNumsReader();
       while (iter.hasNext()) {
         int doc = iter.nextDoc();
         int maxIdx = iter.registerCounts(counts);
@@ -518,49 +777,15 @@ public class UnInvertedField extends DocTermOrds {
         }
         int segDoc = doc - segBase;
 
-        int code = index[doc];
-
-        if ((code & 0x80000000) != 0) {
-          int pos = code & 0x7fffffff;
-          int whichArray = (doc >>> 16) & 0xff;
-          byte[] arr = tnums[whichArray];
-          int tnum = 0;
-          for (; ; ) {
-            int delta = 0;
-            for (; ; ) {
-              byte b = arr[pos++];
-              delta = (delta << 7) | (b & 0x7f);
-              if ((b & 0x80) == 0) break;
-            }
-            if (delta == 0) break;
-            tnum += delta - TNUM_OFFSET;
-            int arrIdx = tnum - startTermIndex;
-            if (arrIdx < 0) continue;
-            if (arrIdx >= nTerms) break;
-            counts.incrementCount(arrIdx, 1, maxIdx);
-            if (collectBase) {
-              processor.collectFirstPhase(segDoc, arrIdx, processor.slotContext);
-            }
-          }
-        } else {
-          int tnum = 0;
-          int delta = 0;
-          for (; ; ) {
-            delta = (delta << 7) | (code & 0x7f);
-            if ((code & 0x80) == 0) {
-              if (delta == 0) break;
-              tnum += delta - TNUM_OFFSET;
-              int arrIdx = tnum - startTermIndex;
-              if (arrIdx >= 0) {
-                if (arrIdx >= nTerms) break;
-                counts.incrementCount(arrIdx, 1, maxIdx);
-                if (collectBase) {
-                  processor.collectFirstPhase(segDoc, arrIdx, processor.slotContext);
-                }
-              }
-              delta = 0;
-            }
-            code >>>= 8;
+        final int n = termNumsReader.read(doc);
+        final int[] termNums = termNumsReader.termNums;
+        for (int i = 0; i < n; i++) {
+          int arrIdx = termNums[i] - startTermIndex;
+          if (arrIdx < 0) continue;
+          if (arrIdx >= nTerms) break;
+          counts.incrementCount(arrIdx, 1, maxIdx);
+          if (collectBase) {
+            processor.collectFirstPhase(segDoc, arrIdx, processor.slotContext);
           }
         }
       }
@@ -614,6 +839,10 @@ public class UnInvertedField extends DocTermOrds {
         + bigTerms.size()
         + ",termInstances="
         + termInstances
+        + ",segments="
+        + segments.length
+        + ",reusedSegments="
+        + reusedSegments
         + ",uses="
         + use.get()
         + "}";
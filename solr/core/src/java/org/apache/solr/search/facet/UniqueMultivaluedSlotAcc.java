@@ -45,6 +45,12 @@ class UniqueMultivaluedSlotAcc extends UniqueSlotAcc implements UnInvertedField.
     return docToTerm.lookupOrd(ord);
   }
 
+  @Override
+  public boolean canCollectInParallel() {
+    // each instance registers a close hook on the shared request context
+    return false;
+  }
+
   private FixedBitSet bits; // bits for the current slot, only set for the callback
 
   @Override
@@ -27,7 +27,7 @@ import org.apache.solr.common.util.SimpleOrderedMap;
 import org.apache.solr.schema.SchemaField;
 import org.apache.solr.util.hll.HLL;
 
-abstract class UniqueSlotAcc extends SlotAcc {
+abstract class UniqueSlotAcc extends SlotAcc implements MergeableSlotAcc {
   HLLAgg.HLLFactory factory;
   SchemaField field;
   FixedBitSet[] arr;
@@ -136,6 +136,22 @@ abstract class UniqueSlotAcc extends SlotAcc {
 
   protected abstract BytesRef lookupOrd(int ord) throws IOException;
 
+  @Override
+  public void merge(SlotAcc other) {
+    FixedBitSet[] otherArr = ((UniqueSlotAcc) other).arr;
+    for (int i = 0; i < arr.length; i++) {
+      if (otherArr[i] == null) {
+        continue;
+      }
+      if (arr[i] == null) {
+        arr[i] = otherArr[i];
+      } else {
+        arr[i].or(otherArr[i]);
+      }
+    }
+    counts = null;
+  }
+
   // we only calculate all the counts when sorting by count
   public void calcCounts() {
     counts = new int[arr.length];
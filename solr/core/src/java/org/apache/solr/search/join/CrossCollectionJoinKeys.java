@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.join;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.apache.lucene.index.PrefixCodedTerms;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.packed.PackedInts;
+import org.apache.lucene.util.packed.PackedLongValues;
+import org.apache.solr.common.util.EnvUtils;
+import org.apache.solr.core.CoreContainer;
+
+/**
+ * The distinct join keys streamed from a remote collection by {@link CrossCollectionJoinQuery},
+ * kept compressed in the order they were streamed: string keys are prefix-coded, and numeric keys
+ * are delta-packed.
+ *
+ * <p>The keys are cached per node, for the {@code ttl} of the queries that look them up, so that
+ * the joins of later requests, and the autowarming of join filters by new searchers, do not stream
+ * them again. The cache keeps at most {@value #CACHE_MAX_RAM_MB_PROP} MB of keys (default 0, which
+ * disables it).
+ *
+ * @lucene.internal
+ */
+final class CrossCollectionJoinKeys implements Accountable {
+
+  public static final String CACHE_MAX_RAM_MB_PROP = "solr.join.crossCollection.keyCacheMaxRamMB";
+
+  static final long CACHE_MAX_RAM_BYTES =
+      EnvUtils.getPropertyAsLong(CACHE_MAX_RAM_MB_PROP, 0L) * 1024L * 1024L;
+
+  private static final String FIELD = "";
+
+  private static final long BASE_RAM_BYTES =
+      RamUsageEstimator.shallowSizeOfInstance(CrossCollectionJoinKeys.class);
+
+  /** Identifies the keys of a remote query. */
+  record Key(String source, String collection, String query, String fromField, String params) {}
+
+  private final PrefixCodedTerms terms; // null if the keys are numeric
+  private final PackedLongValues longs; // null if the keys are strings
+  private final long createdNanos = System.nanoTime();
+
+  private CrossCollectionJoinKeys(PrefixCodedTerms terms, PackedLongValues longs) {
+    this.terms = terms;
+    this.longs = longs;
+  }
+
+  /** Passes all the keys to {@code consumer}, in the order they were streamed. */
+  void forEach(KeyConsumer consumer) throws IOException {
+    if (terms != null) {
+      PrefixCodedTerms.TermIterator it = terms.iterator();
+      for (BytesRef term = it.next(); term != null; term = it.next()) {
+        if (!consumer.accept(term.utf8ToString())) {
+          return;
+        }
+      }
+    } else {
+      PackedLongValues.Iterator it = longs.iterator();
+      while (it.hasNext()) {
+        if (!consumer.accept(it.next())) {
+          return;
+        }
+      }
+    }
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return BASE_RAM_BYTES
+        + (terms == null ? 0 : terms.ramBytesUsed())
+        + (longs == null ? 0 : longs.ramBytesUsed());
+  }
+
+  /** Receives the keys, and returns false to stop. */
+  interface KeyConsumer {
+    boolean accept(Object value) throws IOException;
+  }
+
+  /** Returns the cached keys, or null if they are not cached or older than {@code ttl} seconds. */
+  static CrossCollectionJoinKeys getCached(CoreContainer coreContainer, Key key, int ttl) {
+    Cache<Key, CrossCollectionJoinKeys> cache = cache(coreContainer);
+    CrossCollectionJoinKeys keys = cache.getIfPresent(key);
+    if (keys != null
+        && TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - keys.createdNanos) >= ttl) {
+      cache.asMap().remove(key, keys);
+      return null;
+    }
+    return keys;
+  }
+
+  static void putCached(CoreContainer coreContainer, Key key, CrossCollectionJoinKeys keys) {
+    cache(coreContainer).put(key, keys);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Cache<Key, CrossCollectionJoinKeys> cache(CoreContainer coreContainer) {
+    return coreContainer
+        .getObjectCache()
+        .computeIfAbsent(
+            CrossCollectionJoinKeys.class.getName(),
+            Cache.class,
+            k ->
+                Caffeine.newBuilder()
+                    .maximumWeight(CACHE_MAX_RAM_BYTES)
+                    .weigher(
+                        (Key key, CrossCollectionJoinKeys keys) ->
+                            (int) Math.min(Integer.MAX_VALUE, keys.ramBytesUsed()))
+                    .build());
+  }
+
+  /**
+   * Accumulates the keys as they are streamed. Keys that are neither strings nor integers make the
+   * keys uncacheable.
+   */
+  static final class Builder {
+    private PrefixCodedTerms.Builder terms;
+    private PackedLongValues.Builder longs;
+    private boolean cacheable = true;
+
+    void add(Object value) {
+      if (!cacheable) {
+        return;
+      }
+      if (value instanceof String s && longs == null) {
+        if (terms == null) {
+          terms = new PrefixCodedTerms.Builder();
+        }
+        terms.add(FIELD, new BytesRef(s));
+      } else if ((value instanceof Long || value instanceof Integer) && terms == null) {
+        if (longs == null) {
+          longs = PackedLongValues.deltaPackedBuilder(PackedInts.COMPACT);
+        }
+        longs.add(((Number) value).longValue());
+      } else {
+        cacheable = false;
+        terms = null;
+        longs = null;
+      }
+    }
+
+    /** Returns the keys, or null if they cannot be cached. */
+    CrossCollectionJoinKeys build() {
+      if (!cacheable) {
+        return null;
+      }
+      if (longs != null) {
+        return new CrossCollectionJoinKeys(null, longs.build());
+      }
+      if (terms == null) {
+        terms = new PrefixCodedTerms.Builder();
+      }
+      return new CrossCollectionJoinKeys(terms.finish(), null);
+    }
+  }
+}
@@ -36,6 +36,7 @@ import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.ScorerSupplier;
 import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.FixedBitSet;
 import org.apache.solr.client.solrj.impl.CloudSolrClient;
@@ -60,6 +61,7 @@ import org.apache.solr.common.cloud.ZkStateReader;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.core.CoreContainer;
 import org.apache.solr.schema.FieldType;
 import org.apache.solr.search.BitDocSet;
 import org.apache.solr.search.DocSet;
@@ -116,9 +118,19 @@ public class CrossCollectionJoinQuery extends Query implements SolrSearcherRequi
   private interface JoinKeyCollector {
     void collect(Object value) throws IOException;
 
+    /** Returns true if none of the keys that may still be collected can match a document. */
+    default boolean isDone() {
+      return false;
+    }
+
     DocSet getDocSet() throws IOException;
   }
 
+  /**
+   * Looks up the keys in the terms dictionary. As long as the keys are streamed in ascending order,
+   * the terms enum only moves forward: the keys that sort before its current term are skipped
+   * without a seek, and no key can match once it is exhausted.
+   */
   private static class TermsJoinKeyCollector implements JoinKeyCollector {
 
     FieldType fieldType;
@@ -126,8 +138,13 @@ public class CrossCollectionJoinQuery extends Query implements SolrSearcherRequi
 
     TermsEnum termsEnum;
     BytesRefBuilder bytes;
+    BytesRefBuilder lastKey;
     PostingsEnum postingsEnum;
 
+    boolean ordered = true;
+    BytesRef term; // the current term of termsEnum while the keys are ordered
+    boolean exhausted;
+
     FixedBitSet bitSet;
 
     public TermsJoinKeyCollector(FieldType fieldType, Terms terms, SolrIndexSearcher searcher)
@@ -137,6 +154,7 @@ public class CrossCollectionJoinQuery extends Query implements SolrSearcherRequi
 
       termsEnum = terms.iterator();
       bytes = new BytesRefBuilder();
+      lastKey = new BytesRefBuilder();
 
       bitSet = new FixedBitSet(searcher.maxDoc());
     }
@@ -144,10 +162,38 @@ public class CrossCollectionJoinQuery extends Query implements SolrSearcherRequi
     @Override
     public void collect(Object value) throws IOException {
       fieldType.readableToIndexed((String) value, bytes);
-      if (termsEnum.seekExact(bytes.get())) {
-        postingsEnum = termsEnum.postings(postingsEnum, PostingsEnum.NONE);
-        bitSet.or(postingsEnum);
+      BytesRef key = bytes.get();
+      if (ordered && lastKey.length() > 0 && key.compareTo(lastKey.get()) < 0) {
+        // not in the order of the terms dictionary, seek every key from now on
+        ordered = false;
+      }
+      lastKey.copyBytes(key);
+
+      if (ordered) {
+        if (exhausted || (term != null && key.compareTo(term) < 0)) {
+          return;
+        }
+        if (term == null || key.compareTo(term) > 0) {
+          TermsEnum.SeekStatus status = termsEnum.seekCeil(key);
+          if (status == TermsEnum.SeekStatus.END) {
+            exhausted = true;
+            return;
+          }
+          term = termsEnum.term();
+          if (status == TermsEnum.SeekStatus.NOT_FOUND) {
+            return;
+          }
+        }
+      } else if (!termsEnum.seekExact(key)) {
+        return;
       }
+      postingsEnum = termsEnum.postings(postingsEnum, PostingsEnum.NONE);
+      bitSet.or(postingsEnum);
+    }
+
+    @Override
+    public boolean isDone() {
+      return ordered && exhausted;
     }
 
     @Override
@@ -159,9 +205,16 @@ public class CrossCollectionJoinQuery extends Query implements SolrSearcherRequi
     }
   }
 
+  /**
+   * Looks up the keys with point set queries on blocks of {@value #BLOCK_SIZE} keys, so that only
+   * one block of keys is held at a time.
+   */
   private class PointJoinKeyCollector extends GraphPointsCollector implements JoinKeyCollector {
 
+    static final int BLOCK_SIZE = 1 << 16;
+
     SolrIndexSearcher searcher;
+    FixedBitSet bitSet;
 
     public PointJoinKeyCollector(SolrIndexSearcher searcher) {
       super(searcher.getSchema().getField(toField), null, null);
@@ -172,18 +225,32 @@ public class CrossCollectionJoinQuery extends Query implements SolrSearcherRequi
     public void collect(Object value) throws IOException {
       if (value instanceof Long || value instanceof Integer) {
         set.add(((Number) value).longValue());
+        if (set.size() >= BLOCK_SIZE) {
+          collectBlock();
+        }
       } else {
         throw new UnsupportedOperationException("Unsupported field type for XCJFQuery");
       }
     }
 
+    private void collectBlock() throws IOException {
+      Query query = getResultQuery(searcher.getSchema().getField(toField), false);
+      if (query != null) {
+        if (bitSet == null) {
+          bitSet = new FixedBitSet(searcher.maxDoc());
+        }
+        DocSetUtil.createDocSet(searcher, query, null).addAllTo(bitSet);
+      }
+      set.clear();
+    }
+
     @Override
     public DocSet getDocSet() throws IOException {
-      Query query = getResultQuery(searcher.getSchema().getField(toField), false);
-      if (query == null) {
+      collectBlock();
+      if (bitSet == null) {
         return DocSet.empty();
       }
-      return DocSetUtil.createDocSet(searcher, query, null);
+      return new BitDocSet(bitSet);
     }
   }
 
@@ -303,14 +370,6 @@ public class CrossCollectionJoinQuery extends Query implements SolrSearcherRequi
     }
 
     private DocSet getDocSet() throws IOException {
-      TupleStream solrStream;
-      if (solrConnection != null || solrUrl == null) {
-        var solrClientCache = searcher.getCore().getCoreContainer().getSolrClientCache();
-        solrStream = createCloudSolrStream(solrClientCache);
-      } else {
-        solrStream = createSolrStream();
-      }
-
       FieldType fieldType = searcher.getSchema().getFieldType(toField);
       JoinKeyCollector collector;
       if (fieldType.isPointField()) {
@@ -323,6 +382,36 @@ public class CrossCollectionJoinQuery extends Query implements SolrSearcherRequi
         collector = new TermsJoinKeyCollector(fieldType, terms, searcher);
       }
 
+      CoreContainer coreContainer = searcher.getCore().getCoreContainer();
+      CrossCollectionJoinKeys.Key cacheKey = null;
+      CrossCollectionJoinKeys.Builder keys = null;
+      if (CrossCollectionJoinKeys.CACHE_MAX_RAM_BYTES > 0) {
+        cacheKey =
+            new CrossCollectionJoinKeys.Key(
+                solrConnection != null ? solrConnection.toString() : solrUrl,
+                collection,
+                query,
+                fromField,
+                otherParamsString + " " + createHashRangeFq());
+        CrossCollectionJoinKeys cached =
+            CrossCollectionJoinKeys.getCached(coreContainer, cacheKey, ttl);
+        if (cached != null) {
+          cached.forEach(
+              value -> {
+                collector.collect(value);
+                return !collector.isDone();
+              });
+          return collector.getDocSet();
+        }
+        keys = new CrossCollectionJoinKeys.Builder();
+      }
+
+      TupleStream solrStream;
+      if (solrConnection != null || solrUrl == null) {
+        solrStream = createCloudSolrStream(coreContainer.getSolrClientCache());
+      } else {
+        solrStream = createSolrStream();
+      }
       try {
         solrStream.open();
         while (true) {
@@ -331,12 +420,25 @@ public class CrossCollectionJoinQuery extends Query implements SolrSearcherRequi
             throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, tuple.getException());
           }
           if (tuple.EOF) {
+            if (keys != null) {
+              CrossCollectionJoinKeys built = keys.build();
+              if (built != null) {
+                CrossCollectionJoinKeys.putCached(coreContainer, cacheKey, built);
+              }
+            }
             break;
           }
 
           Object value = tuple.get(fromField);
           if (null != value) {
+            if (keys != null) {
+              keys.add(value);
+            }
             collector.collect(value);
+            if (keys == null && collector.isDone()) {
+              // no other key can match, don't stream them
+              break;
+            }
           }
         }
       } catch (IOException e) {
@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.join;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefHash;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.schema.SchemaField;
+import org.apache.solr.schema.StrField;
+import org.apache.solr.search.SolrIndexSearcher;
+
+/**
+ * The edges that {@link GraphQuery} follows between the documents of a segment, read once from the
+ * doc values of the "from" and "to" string fields: the values of the "to" field of each document,
+ * and the documents of each value of the "from" field (the nodes), all as segment ordinals. A hop
+ * of the traversal is then a walk over int arrays, with a term lookup per node to cross segments,
+ * rather than the collection of the edge values and a query on them.
+ *
+ * <p>The adjacency of a segment ignores deletions, so it is cached by segment core for each pair of
+ * fields until the core is closed: the searchers opened after a commit only read the new and merged
+ * segments.
+ *
+ * @lucene.internal
+ */
+final class GraphAdjacency {
+
+  private static final Map<IndexReader.CacheKey, Map<Fields, GraphAdjacency>> cache =
+      new ConcurrentHashMap<>();
+
+  private static final IndexReader.ClosedListener purgeSegment = cache::remove;
+
+  private record Fields(String from, String to) {}
+
+  // the "to" values of doc d are edges[edgeStart[d]] to edges[edgeStart[d + 1] - 1]
+  private final int[] edgeStart;
+  private final int[] edges;
+  // the docs of "from" value n are nodeDocs[nodeStart[n]] to nodeDocs[nodeStart[n + 1] - 1]
+  private final int[] nodeStart;
+  private final int[] nodeDocs;
+
+  /** Returns true if the traversal between these fields can use an adjacency. */
+  static boolean supports(SchemaField fromField, SchemaField toField) {
+    return fromField.getType() instanceof StrField
+        && fromField.hasDocValues()
+        && toField.getType() instanceof StrField
+        && toField.hasDocValues();
+  }
+
+  /** Returns the adjacency of this segment, from the cache if already built. */
+  static GraphAdjacency get(LeafReader reader, String fromField, String toField)
+      throws IOException {
+    final IndexReader.CacheHelper cacheHelper = reader.getCoreCacheHelper();
+    if (cacheHelper == null) {
+      return new GraphAdjacency(reader, fromField, toField);
+    }
+    final Map<Fields, GraphAdjacency> adjacencies =
+        cache.computeIfAbsent(
+            cacheHelper.getKey(),
+            key -> {
+              cacheHelper.addClosedListener(purgeSegment);
+              return new ConcurrentHashMap<>();
+            });
+    try {
+      return adjacencies.computeIfAbsent(
+          new Fields(fromField, toField),
+          fields -> {
+            try {
+              return new GraphAdjacency(reader, fields.from(), fields.to());
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private GraphAdjacency(LeafReader reader, String fromField, String toField) throws IOException {
+    final int maxDoc = reader.maxDoc();
+    final int numNodes =
+        toIntExact(DocValues.getSortedSet(reader, fromField).getValueCount(), fromField);
+
+    // the documents of each node, first counted then filled
+    nodeStart = new int[numNodes + 1];
+    SortedSetDocValues values = DocValues.getSortedSet(reader, fromField);
+    for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+      for (int i = 0; i < values.docValueCount(); i++) {
+        nodeStart[(int) values.nextOrd() + 1]++;
+      }
+    }
+    nodeDocs = new int[toOffsets(nodeStart, fromField)];
+    int[] next = Arrays.copyOf(nodeStart, numNodes);
+    values = DocValues.getSortedSet(reader, fromField);
+    for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+      for (int i = 0; i < values.docValueCount(); i++) {
+        nodeDocs[next[(int) values.nextOrd()]++] = doc;
+      }
+    }
+
+    // the "to" values of each document
+    edgeStart = new int[maxDoc + 1];
+    values = DocValues.getSortedSet(reader, toField);
+    for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+      edgeStart[doc + 1] = values.docValueCount();
+    }
+    edges = new int[toOffsets(edgeStart, toField)];
+    values = DocValues.getSortedSet(reader, toField);
+    for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+      for (int i = 0, e = edgeStart[doc]; i < values.docValueCount(); i++, e++) {
+        edges[e] = (int) values.nextOrd();
+      }
+    }
+  }
+
+  /** Turns the counts in {@code starts[1..]} into offsets, and returns the total count. */
+  private static int toOffsets(int[] starts, String field) {
+    long total = 0;
+    for (int i = 1; i < starts.length; i++) {
+      total += starts[i];
+      starts[i] = toIntExact(total, field);
+    }
+    return starts[starts.length - 1];
+  }
+
+  private static int toIntExact(long count, String field) {
+    if (count > ArrayUtil.MAX_ARRAY_LENGTH) {
+      throw new SolrException(
+          SolrException.ErrorCode.BAD_REQUEST,
+          "Too many values in field "
+              + field
+              + " to traverse the graph with ordinals, use useOrdinals=false");
+    }
+    return (int) count;
+  }
+
+  /**
+   * Returns the documents of the searcher reached from {@code roots} in at most {@code maxDepth}
+   * hops (-1 for no limit), including the roots. A hop only reaches the live documents in {@code
+   * filter}, if not null.
+   */
+  static FixedBitSet traverse(
+      SolrIndexSearcher searcher,
+      String fromField,
+      String toField,
+      FixedBitSet roots,
+      Bits filter,
+      int maxDepth)
+      throws IOException {
+    final List<LeafReaderContext> leaves = searcher.getTopReaderContext().leaves();
+    final int numLeaves = leaves.size();
+    final GraphAdjacency[] adjacencies = new GraphAdjacency[numLeaves];
+    // to look up the terms of the "to" ordinals, and the "from" ordinals of the terms
+    final SortedSetDocValues[] toValues = new SortedSetDocValues[numLeaves];
+    final SortedSetDocValues[] fromValues = new SortedSetDocValues[numLeaves];
+    final Bits[] liveDocs = new Bits[numLeaves];
+    for (LeafReaderContext leaf : leaves) {
+      adjacencies[leaf.ord] = get(leaf.reader(), fromField, toField);
+      toValues[leaf.ord] = DocValues.getSortedSet(leaf.reader(), toField);
+      fromValues[leaf.ord] = DocValues.getSortedSet(leaf.reader(), fromField);
+      liveDocs[leaf.ord] = leaf.reader().getLiveDocs();
+    }
+
+    final FixedBitSet result = roots.clone();
+    FixedBitSet frontier = roots.clone();
+    FixedBitSet next = new FixedBitSet(roots.length());
+    // the documents of a node are all reached the first time one of its edges is followed, so the
+    // node is never looked up again
+    final BytesRefHash visitedNodes = new BytesRefHash();
+    for (int depth = 0; maxDepth == -1 || depth < maxDepth; depth++) {
+      boolean found = false;
+      for (LeafReaderContext leaf : leaves) {
+        final GraphAdjacency adjacency = adjacencies[leaf.ord];
+        final int end = leaf.docBase + leaf.reader().maxDoc();
+        for (int doc = nextSetBit(frontier, leaf.docBase);
+            doc < end;
+            doc = nextSetBit(frontier, doc + 1)) {
+          final int segmentDoc = doc - leaf.docBase;
+          final int edgeEnd = adjacency.edgeStart[segmentDoc + 1];
+          for (int e = adjacency.edgeStart[segmentDoc]; e < edgeEnd; e++) {
+            final BytesRef term = toValues[leaf.ord].lookupOrd(adjacency.edges[e]);
+            if (visitedNodes.add(term) < 0) {
+              continue;
+            }
+            for (LeafReaderContext target : leaves) {
+              final long node = fromValues[target.ord].lookupTerm(term);
+              found |=
+                  adjacencies[target.ord].reach(
+                      target, node, liveDocs[target.ord], result, filter, next);
+            }
+          }
+        }
+      }
+      if (!found) {
+        break;
+      }
+      result.or(next);
+      final FixedBitSet reached = next;
+      next = frontier;
+      frontier = reached;
+      next.clear();
+    }
+    return result;
+  }
+
+  /**
+   * Adds to {@code next} the live documents of {@code node} in this segment that are not in {@code
+   * result} yet, and returns true if there were any.
+   */
+  private boolean reach(
+      LeafReaderContext leaf,
+      long node,
+      Bits liveDocs,
+      FixedBitSet result,
+      Bits filter,
+      FixedBitSet next) {
+    if (node < 0) {
+      return false;
+    }
+    boolean found = false;
+    for (int n = nodeStart[(int) node]; n < nodeStart[(int) node + 1]; n++) {
+      final int doc = nodeDocs[n];
+      final int target = leaf.docBase + doc;
+      if ((liveDocs == null || liveDocs.get(doc))
+          && !result.get(target)
+          && (filter == null || filter.get(target))) {
+        next.set(target);
+        found = true;
+      }
+    }
+    return found;
+  }
+
+  private static int nextSetBit(FixedBitSet bits, int from) {
+    return from < bits.length() ? bits.nextSetBit(from) : DocIdSetIterator.NO_MORE_DOCS;
+  }
+}
@@ -81,6 +81,12 @@ public class GraphQuery extends Query implements SolrSearcherRequirer {
   /** Use automaton compilation for graph query traversal (experimental + expert use only) */
   private boolean useAutn = true;
 
+  /**
+   * Traverse the graph over the cached {@link GraphAdjacency} of each segment, rather than with a
+   * query for each hop, when both fields are string fields with docValues.
+   */
+  private boolean useOrdinals = false;
+
   /**
    * If this is true, the graph traversal result will only return documents that do not have a value
    * in the edge field. (Only leaf nodes returned from the graph)
@@ -137,6 +143,7 @@ public class GraphQuery extends Query implements SolrSearcherRequirer {
     sb.append("[returnRoot=").append(returnRoot).append(']');
     sb.append("[onlyLeafNodes=").append(onlyLeafNodes).append(']');
     sb.append("[useAutn=").append(useAutn).append(']');
+    sb.append("[useOrdinals=").append(useOrdinals).append(']');
     return sb.toString();
   }
 
@@ -181,6 +188,9 @@ public class GraphQuery extends Query implements SolrSearcherRequirer {
      * @throws IOException - if a sub search fails... maybe other cases too! :)
      */
     private DocSet getDocSet() throws IOException {
+      if (useOrdinals && GraphAdjacency.supports(matchSchemaField, collectSchemaField)) {
+        return getDocSetFromAdjacency();
+      }
       // Size that the bit set needs to be.
       int capacity = fromSearcher.getRawReader().maxDoc();
       // The bit set to contain the results that match the query.
@@ -254,6 +264,24 @@ public class GraphQuery extends Query implements SolrSearcherRequirer {
       }
     }
 
+    /** Computes the same doc set as {@link #getDocSet()}, walking the edges of the adjacency. */
+    private DocSet getDocSetFromAdjacency() throws IOException {
+      FixedBitSet rootBits = fromSearcher.getDocSetBits(q).getBits();
+      FixedBitSet filterBits =
+          traversalFilter == null ? null : fromSearcher.getDocSetBits(traversalFilter).getBits();
+      FixedBitSet resultBits =
+          GraphAdjacency.traverse(fromSearcher, fromField, toField, rootBits, filterBits, maxDepth);
+      if (!returnRoot) {
+        resultBits.andNot(rootBits);
+      }
+      BitDocSet resultSet = new BitDocSet(resultBits);
+      if (onlyLeafNodes) {
+        return resultSet.intersection(resolveLeafNodes());
+      } else {
+        return resultSet;
+      }
+    }
+
     private DocSet resolveLeafNodes() throws IOException {
       String field = collectSchemaField.getName();
       BooleanQuery.Builder leafNodeQuery = new BooleanQuery.Builder();
@@ -293,7 +321,8 @@ public class GraphQuery extends Query implements SolrSearcherRequirer {
 
     @Override
     public boolean isCacheable(LeafReaderContext ctx) {
-      return true;
+      // the traversal follows edges through the whole index
+      return false;
     }
   }
 
@@ -396,6 +425,18 @@ public class GraphQuery extends Query implements SolrSearcherRequirer {
     this.useAutn = useAutn;
   }
 
+  /**
+   * @return If true, and both fields are string fields with docValues, the graph is traversed over
+   *     the ordinals of their values, which are cached for the searcher.
+   */
+  public boolean isUseOrdinals() {
+    return useOrdinals;
+  }
+
+  public void setUseOrdinals(boolean useOrdinals) {
+    this.useOrdinals = useOrdinals;
+  }
+
   /**
    * @return if true only documents that do not have a value in the edge id field will be returned.
    */
@@ -431,6 +472,7 @@ public class GraphQuery extends Query implements SolrSearcherRequirer {
     result = prime * result + Objects.hashCode(toField);
     result = prime * result + Objects.hashCode(traversalFilter);
     result = prime * result + (useAutn ? 1231 : 1237);
+    result = prime * result + (useOrdinals ? 1231 : 1237);
     return result;
   }
 
@@ -445,6 +487,7 @@ public class GraphQuery extends Query implements SolrSearcherRequirer {
         && onlyLeafNodes == other.onlyLeafNodes
         && returnRoot == other.returnRoot
         && useAutn == other.useAutn
+        && useOrdinals == other.useOrdinals
         && Objects.equals(q, other.q)
         && Objects.equals(toField, other.toField)
         && Objects.equals(traversalFilter, other.traversalFilter);
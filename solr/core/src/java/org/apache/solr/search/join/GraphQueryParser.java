@@ -58,6 +58,8 @@ public class GraphQueryParser extends QParser {
     // if true, an automaton will be compiled to issue the next graph hop
     // this avoid having a large number of boolean clauses. (and it's faster too!)
     boolean useAutn = localParams.getBool("useAutn", false);
+    // if true, hops follow the cached ordinals of string fields with docValues, without queries
+    boolean useOrdinals = localParams.getBool("useOrdinals", false);
 
     // Construct a graph query object based on parameters passed in.
     GraphQuery gq = new GraphQuery(rootNodeQuery, fromField, toField, traversalFilter);
@@ -66,6 +68,7 @@ public class GraphQueryParser extends QParser {
     gq.setOnlyLeafNodes(onlyLeafNodes);
     gq.setReturnRoot(returnRootNodes);
     gq.setUseAutn(useAutn);
+    gq.setUseOrdinals(useOrdinals);
     // return the parsed graph query.
     return gq;
   }
@@ -0,0 +1,343 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.security.Principal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.request.GenericSolrRequest;
+import org.apache.solr.client.solrj.request.JavaBinUpdateRequestCodec;
+import org.apache.solr.client.solrj.request.RequestWriter;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.EnvUtils;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.update.SolrCmdDistributor.ForwardNode;
+import org.apache.solr.update.SolrCmdDistributor.Req;
+import org.apache.solr.update.SolrCmdDistributor.SolrError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces the adds and deletes by id that shard leaders send to the same replica, from any number
+ * of concurrent update requests, into a single javabin stream request.
+ *
+ * <p>Each replica has a queue, drained by at most one sender at a time. The sender waits up to
+ * {@value #LINGER_MS_PROP} ms after a command was queued for more commands, then streams up to
+ * {@value #MAX_BATCH_SIZE_PROP} consecutive commands with the same parameters in one request, one
+ * {@link org.apache.solr.client.solrj.request.UpdateRequest} after the other, as {@link
+ * org.apache.solr.client.solrj.impl.ConcurrentUpdateBaseSolrClient} does. Commands are therefore
+ * sent in the order they were queued, with their own versions. While a batch is being sent, the
+ * next one fills up, so batches grow with the load.
+ *
+ * <p>The outcome of a batch is reported to every command in it: the replication trackers of its
+ * request are updated, and on failure an error is added to the errors of its {@link
+ * SolrCmdDistributor} so that the command can be retried on its own.
+ *
+ * <p>Batching is disabled by default, and enabled with {@value #ENABLED_PROP}.
+ */
+public class ReplicaUpdateBatcher implements Closeable {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  public static final String ENABLED_PROP = "solr.cloud.replication.batching";
+  public static final String LINGER_MS_PROP = "solr.cloud.replication.batchLingerMs";
+  public static final String MAX_BATCH_SIZE_PROP = "solr.cloud.replication.batchMaxSize";
+
+  private final UpdateShardHandler updateShardHandler;
+  private final long lingerNanos;
+  private final int maxBatchSize;
+  private final Map<String, ReplicaQueue> queues = new ConcurrentHashMap<>();
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder commands = new LongAdder();
+  private volatile boolean closed;
+
+  public ReplicaUpdateBatcher(
+      UpdateShardHandler updateShardHandler, long lingerMs, int maxBatchSize) {
+    this.updateShardHandler = updateShardHandler;
+    this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, lingerMs));
+    this.maxBatchSize = Math.max(1, maxBatchSize);
+  }
+
+  /** Returns a batcher configured by system properties, or null if batching is disabled. */
+  static ReplicaUpdateBatcher create(UpdateShardHandler updateShardHandler) {
+    if (!EnvUtils.getPropertyAsBool(ENABLED_PROP, false)) {
+      return null;
+    }
+    return new ReplicaUpdateBatcher(
+        updateShardHandler,
+        EnvUtils.getPropertyAsLong(LINGER_MS_PROP, 2L),
+        EnvUtils.getPropertyAsInteger(MAX_BATCH_SIZE_PROP, 500));
+  }
+
+  /**
+   * Returns true if the request can be batched: an asynchronous add or delete by id that a leader
+   * sends to one of its replicas.
+   */
+  boolean accepts(Req req) {
+    if (req.synchronous || req.node instanceof ForwardNode) {
+      return false;
+    }
+    if (req.cmd instanceof AddUpdateCommand) {
+      return true;
+    }
+    return req.cmd instanceof DeleteUpdateCommand delete && delete.isDeleteById();
+  }
+
+  /**
+   * Queues the request for its replica. Once it is sent, any error is added to {@code errors}, and
+   * {@code outstanding} is decremented.
+   */
+  void submit(Req req, Outstanding outstanding, List<SolrError> errors) {
+    Queued queued =
+        new Queued(
+            req,
+            req.uReq.getParams(),
+            req.uReq.getUserPrincipal(),
+            outstanding,
+            errors,
+            System.nanoTime());
+    outstanding.increment();
+    if (closed) {
+      fail(
+          List.of(queued),
+          new SolrException(
+              SolrException.ErrorCode.SERVICE_UNAVAILABLE, "Replica update batcher is closed"));
+      return;
+    }
+    queues
+        .computeIfAbsent(
+            req.node.getUrl(),
+            url -> new ReplicaQueue(req.node.getBaseUrl(), req.node.getCoreName()))
+        .add(queued);
+  }
+
+  /** Number of requests sent to replicas. */
+  long getRequestCount() {
+    return requests.sum();
+  }
+
+  /** Number of commands sent to replicas. */
+  long getCommandCount() {
+    return commands.sum();
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    for (ReplicaQueue queue : queues.values()) {
+      queue.wakeUp();
+    }
+  }
+
+  private void send(String baseUrl, String coreName, List<Queued> batch) {
+    Queued first = batch.get(0);
+    GenericSolrRequest request =
+        new GenericSolrRequest(
+            SolrRequest.METHOD.POST,
+            "/update",
+            SolrRequest.SolrRequestType.UPDATE,
+            first.params());
+    request.setRequiresCollection(true);
+    request.setUserPrincipal(first.principal());
+    request.setContentWriter(
+        new RequestWriter.ContentWriter() {
+          @Override
+          public void write(OutputStream os) throws IOException {
+            // the commands are unmarshalled one after the other, as if they had been streamed
+            for (Queued queued : batch) {
+              new JavaBinUpdateRequestCodec().marshal(queued.req().uReq, os);
+            }
+          }
+
+          @Override
+          public String getContentType() {
+            return CommonParams.JAVABIN_MIME;
+          }
+        });
+
+    requests.increment();
+    commands.add(batch.size());
+    int rf;
+    try {
+      NamedList<Object> rsp =
+          updateShardHandler
+              .getUpdateOnlyHttpClient()
+              .requestWithBaseUrl(baseUrl, request, coreName);
+      rf = Req.getRfFromResponse(rsp);
+    } catch (Exception e) {
+      log.error("Error sending a batch of {} updates to {}/{}", batch.size(), baseUrl, coreName, e);
+      fail(batch, e);
+      return;
+    }
+    for (Queued queued : batch) {
+      try {
+        queued.req().trackRequestResult(rf, true);
+      } finally {
+        queued.outstanding().decrement();
+      }
+    }
+  }
+
+  private static void fail(List<Queued> batch, Exception e) {
+    for (Queued queued : batch) {
+      try {
+        SolrError error = new SolrError();
+        error.e = e;
+        error.req = queued.req();
+        if (e instanceof SolrException solrException) {
+          error.statusCode = solrException.code();
+        }
+        queued.errors().add(error);
+        if (!queued.req().shouldRetry(error)) {
+          // only track the error if we are not retrying the request
+          queued.req().trackRequestResult(Integer.MAX_VALUE, false);
+        }
+      } finally {
+        queued.outstanding().decrement();
+      }
+    }
+  }
+
+  /** A command waiting to be sent, with the state of the distributor that submitted it. */
+  private record Queued(
+      Req req,
+      SolrParams params,
+      Principal principal,
+      Outstanding outstanding,
+      List<SolrError> errors,
+      long queuedNanos) {
+
+    boolean canBatchWith(Queued other) {
+      return Objects.equals(principal, other.principal) && params.equals(other.params);
+    }
+  }
+
+  /** The commands queued for a replica, and the sender that drains them. */
+  private class ReplicaQueue implements Runnable {
+    private final String baseUrl;
+    private final String coreName;
+    private final Deque<Queued> queue = new ArrayDeque<>(); // guarded by this
+    private boolean running; // guarded by this
+
+    ReplicaQueue(String baseUrl, String coreName) {
+      this.baseUrl = baseUrl;
+      this.coreName = coreName;
+    }
+
+    void add(Queued queued) {
+      synchronized (this) {
+        queue.add(queued);
+        if (queue.size() >= maxBatchSize) {
+          notifyAll();
+        }
+        if (running) {
+          return;
+        }
+        running = true;
+      }
+      try {
+        updateShardHandler.getUpdateExecutor().execute(this);
+      } catch (RejectedExecutionException e) {
+        fail(drain(), e);
+      }
+    }
+
+    synchronized void wakeUp() {
+      notifyAll();
+    }
+
+    @Override
+    public void run() {
+      try {
+        List<Queued> batch;
+        while ((batch = nextBatch()) != null) {
+          send(baseUrl, coreName, batch);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        fail(drain(), e);
+      }
+    }
+
+    /** Takes the next batch, or returns null and stops the sender if the queue is empty. */
+    private synchronized List<Queued> nextBatch() throws InterruptedException {
+      if (queue.isEmpty()) {
+        running = false;
+        return null;
+      }
+      // the first command has waited long enough if it was queued while the previous batch was sent
+      long deadline = queue.peekFirst().queuedNanos() + lingerNanos;
+      long remaining;
+      while (queue.size() < maxBatchSize
+          && !closed
+          && (remaining = deadline - System.nanoTime()) > 0) {
+        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+      }
+      Queued first = queue.pollFirst();
+      List<Queued> batch = new ArrayList<>();
+      batch.add(first);
+      while (batch.size() < maxBatchSize
+          && !queue.isEmpty()
+          && first.canBatchWith(queue.peekFirst())) {
+        batch.add(queue.pollFirst());
+      }
+      return batch;
+    }
+
+    private synchronized List<Queued> drain() {
+      List<Queued> drained = new ArrayList<>(queue);
+      queue.clear();
+      running = false;
+      return drained;
+    }
+  }
+
+  /** Counts the batched commands of a {@link SolrCmdDistributor} that were not sent yet. */
+  static final class Outstanding {
+    private int count; // guarded by this
+
+    synchronized void increment() {
+      count++;
+    }
+
+    synchronized void decrement() {
+      if (--count == 0) {
+        notifyAll();
+      }
+    }
+
+    synchronized void await() throws InterruptedException {
+      while (count > 0) {
+        wait();
+      }
+    }
+  }
+}
@@ -67,10 +67,18 @@ public class SolrCmdDistributor implements Closeable {
   private final CompletionService<Object> completionService;
   private final Set<Future<Object>> pending = new HashSet<>();
 
+  private final ReplicaUpdateBatcher batcher;
+  private final ReplicaUpdateBatcher.Outstanding batched = new ReplicaUpdateBatcher.Outstanding();
+
   public SolrCmdDistributor(UpdateShardHandler updateShardHandler) {
+    this(updateShardHandler, updateShardHandler.getReplicaUpdateBatcher());
+  }
+
+  SolrCmdDistributor(UpdateShardHandler updateShardHandler, ReplicaUpdateBatcher batcher) {
     this.clients = new StreamingSolrClients(updateShardHandler);
     this.completionService =
         new ExecutorCompletionService<>(updateShardHandler.getUpdateExecutor());
+    this.batcher = batcher;
   }
 
   /* For tests only */
@@ -78,6 +86,7 @@ public class SolrCmdDistributor implements Closeable {
     this.clients = clients;
     this.retryPause = retryPause;
     completionService = new ExecutorCompletionService<>(clients.getUpdateExecutor());
+    batcher = null;
   }
 
   public void finish() {
@@ -277,6 +286,14 @@ public class SolrCmdDistributor implements Closeable {
   public void blockAndDoRetries() throws IOException {
     clients.blockUntilFinished();
 
+    // wait for the batched updates to be sent
+    try {
+      batched.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      log.error("blockAndDoRetries interrupted", e);
+    }
+
     // wait for any async commits to complete
     while (pending != null && pending.size() > 0) {
       Future<Object> future = null;
@@ -351,6 +368,8 @@ public class SolrCmdDistributor implements Closeable {
                 doRequest(req);
                 return null;
               }));
+    } else if (batcher != null && batcher.accepts(req)) {
+      batcher.submit(req, batched, errors);
     } else {
       doRequest(req);
     }
@@ -433,10 +452,16 @@ public class SolrCmdDistributor implements Closeable {
     public void trackRequestResult(
         org.eclipse.jetty.client.Response resp, InputStream respBody, boolean success) {
 
+      trackRequestResult(getRfFromResponse(respBody), success);
+    }
+
+    /**
+     * Same as above, but with the "rf" of a response that was already parsed, or {@link
+     * Integer#MAX_VALUE} if there was none.
+     */
+    void trackRequestResult(int rfFromResp, boolean success) {
       // Returning Integer.MAX_VALUE here means there was no "rf" on the response, therefore we just
       // need to increment our achieved rf if we are a leader, i.e. have a leaderTracker.
-      int rfFromResp = getRfFromResponse(respBody);
-
       if (leaderTracker != null && rfFromResp == Integer.MAX_VALUE) {
         leaderTracker.trackRequestResult(node, success);
       }
@@ -450,16 +475,7 @@ public class SolrCmdDistributor implements Closeable {
       if (inputStream != null) {
         try {
           JavaBinResponseParser brp = new JavaBinResponseParser();
-          NamedList<Object> nl = brp.processResponse(inputStream, null);
-          Object hdr = nl.get("responseHeader");
-          if (hdr != null && hdr instanceof NamedList) {
-            @SuppressWarnings({"unchecked"})
-            NamedList<Object> hdrList = (NamedList<Object>) hdr;
-            Object rfObj = hdrList.get(UpdateRequest.REPFACT);
-            if (rfObj != null && rfObj instanceof Integer) {
-              return (Integer) rfObj;
-            }
-          }
+          return getRfFromResponse(brp.processResponse(inputStream, null));
         } catch (Exception e) {
           log.warn(
               "Failed to parse response from {} during replication factor accounting", node, e);
@@ -467,6 +483,19 @@ public class SolrCmdDistributor implements Closeable {
       }
       return Integer.MAX_VALUE;
     }
+
+    static int getRfFromResponse(NamedList<Object> nl) {
+      Object hdr = nl.get("responseHeader");
+      if (hdr != null && hdr instanceof NamedList) {
+        @SuppressWarnings({"unchecked"})
+        NamedList<Object> hdrList = (NamedList<Object>) hdr;
+        Object rfObj = hdrList.get(UpdateRequest.REPFACT);
+        if (rfObj != null && rfObj instanceof Integer) {
+          return (Integer) rfObj;
+        }
+      }
+      return Integer.MAX_VALUE;
+    }
   }
 
   public static Diagnostics.Callable
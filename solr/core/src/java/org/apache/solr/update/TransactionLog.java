@@ -47,6 +47,7 @@ import org.apache.solr.common.util.FastInputStream;
 import org.apache.solr.common.util.FastOutputStream;
 import org.apache.solr.common.util.JavaBinCodec;
 import org.apache.solr.common.util.ObjectReleaseTracker;
+import org.apache.solr.util.DirectBufferUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -86,6 +87,11 @@ public class TransactionLog implements Closeable {
   protected volatile boolean deleteOnClose = true;
 
   protected AtomicInteger refcount = new AtomicInteger(1);
+
+  // Read-only memory mapping of the whole log, set once the log has been capped; see mapForReads().
+  // Any later write invalidates it (see endRecord), so readers fall back to the channel for
+  // anything past its end. Unmapped on close().
+  protected volatile ByteBuffer mappedLog;
   protected Map<String, Integer> globalStringMap = new HashMap<>();
   protected List<String> globalStringList = new ArrayList<>();
 
@@ -376,6 +382,7 @@ public class TransactionLog implements Closeable {
   protected void endRecord(long startRecordPosition) throws IOException {
     fos.writeInt((int) (fos.size() - startRecordPosition));
     numRecords++;
+    mappedLog = null;
   }
 
   protected void checkWriteHeader(LogCodec codec, SolrInputDocument optional) throws IOException {
@@ -561,6 +568,14 @@ public class TransactionLog implements Closeable {
     if (pos < 0) return null;
 
     try {
+      ByteBuffer mapped = mappedLog;
+      if (mapped != null && pos < mapped.limit()) {
+        // capped log: no need to flush, and no lock contention with other readers
+        try (LogCodec codec = new LogCodec(resolver)) {
+          return codec.readVal(new MappedFastInputStream(mapped, pos));
+        }
+      }
+
       // make sure any unflushed buffer has been flushed
       synchronized (this) {
         // TODO: optimize this by keeping track of what we have flushed up to
@@ -613,18 +628,60 @@ public class TransactionLog implements Closeable {
    */
   public void closeOutput() {}
 
+  /**
+   * Memory-maps this log for subsequent reads. Should only be called once the log has been capped
+   * (i.e. it won't be written to anymore); {@link #lookup(long)} and the readers then decode
+   * records straight from the mapping instead of issuing a positional channel read per buffer
+   * fill, and without synchronizing on the log. Should anything be written to the log after all,
+   * the mapping is dropped and reads transparently go back to the channel.
+   *
+   * @return true if the log is mapped; false if it could not be (e.g. it is larger than 2GB)
+   */
+  public boolean mapForReads() {
+    synchronized (this) {
+      if (mappedLog != null) return true;
+      try {
+        fos.flush();
+        long size = fos.size();
+        if (size == 0 || size > Integer.MAX_VALUE) {
+          return false;
+        }
+        mappedLog = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        return true;
+      } catch (IOException e) {
+        log.warn("Could not memory-map tlog {}; reads will use the file channel", tlog, e);
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Drops the memory mapping, if any, and releases it right away rather than leaving it to the
+   * garbage collector. Only safe once no reader can still be using it, i.e. on close.
+   */
+  private void unmap() {
+    ByteBuffer mapped = mappedLog;
+    mappedLog = null;
+    if (mapped != null) {
+      DirectBufferUtils.release(mapped);
+    }
+  }
+
+  /** Returns true if reads of this log are currently served from a memory mapping. */
+  public boolean isMappedForReads() {
+    return mappedLog != null;
+  }
+
   public void finish(UpdateLog.SyncLevel syncLevel) {
     if (syncLevel == UpdateLog.SyncLevel.NONE) return;
     try {
-      synchronized (this) {
-        fos.flush();
-      }
+      flushOutput();
 
       if (syncLevel == UpdateLog.SyncLevel.FSYNC) {
         // Since fsync is outside of synchronized block, we can end up with a partial
         // last record on power failure (which is OK, and does not represent an error...
         // we just need to be aware of it when reading).
-        channel.force(true);
+        force();
       }
 
     } catch (IOException e) {
@@ -632,6 +689,23 @@ public class TransactionLog implements Closeable {
     }
   }
 
+  /** Flushes buffered records to the underlying channel, without forcing them to disk. */
+  protected void flushOutput() throws IOException {
+    synchronized (this) {
+      fos.flush();
+    }
+  }
+
+  /**
+   * Forces everything written to the underlying channel to durable storage. Not synchronized, so
+   * that writers can keep appending while the fsync is in progress.
+   *
+   * @see TransactionLogGroupCommitter
+   */
+  protected void force() throws IOException {
+    channel.force(true);
+  }
+
   @Override
   public void close() {
     try {
@@ -642,6 +716,7 @@ public class TransactionLog implements Closeable {
       synchronized (this) {
         fos.flush();
         fos.close();
+        unmap();
       }
 
       if (deleteOnClose) {
@@ -709,11 +784,17 @@ public class TransactionLog implements Closeable {
 
   public class LogReader {
     protected ChannelFastInputStream fis;
+    // non-null if this reader was opened on a capped, memory-mapped log
+    protected ByteBuffer mapped;
     private LogCodec codec = new LogCodec(resolver);
 
     public LogReader(long startingPos) throws IOException {
       incref();
-      fis = channelInputStreamOpener.open(channel, startingPos);
+      mapped = mappedLog;
+      fis =
+          mapped != null
+              ? new MappedFastInputStream(mapped, startingPos)
+              : channelInputStreamOpener.open(channel, startingPos);
     }
 
     // for classes that extend
@@ -728,6 +809,19 @@ public class TransactionLog implements Closeable {
     public Object next() throws IOException, InterruptedException {
       long pos = fis.position();
 
+      if (mapped != null) {
+        if (pos == 0 && mapped.limit() > 0) {
+          readHeader(fis);
+          pos = fis.position();
+        }
+        if (pos < mapped.limit()) {
+          return readRecord(pos);
+        }
+        // the log has been written to since it was mapped: read the rest through the channel
+        mapped = null;
+        fis = channelInputStreamOpener.open(channel, pos);
+      }
+
       synchronized (TransactionLog.this) {
         if (trace) {
           log.trace("Reading log record.  pos={} currentSize={}", pos, fos.size());
@@ -753,6 +847,11 @@ public class TransactionLog implements Closeable {
         }
       }
 
+      return readRecord(pos);
+    }
+
+    private Object readRecord(long pos) throws IOException {
+
       Object o = codec.readVal(fis);
 
       // skip over record size
@@ -877,13 +976,18 @@ public class TransactionLog implements Closeable {
       incref();
 
       long sz;
-      synchronized (TransactionLog.this) {
-        fos.flush();
-        sz = fos.size();
-        assert sz == getLogFileSize();
+      ByteBuffer mapped = mappedLog;
+      if (mapped != null) {
+        sz = mapped.limit();
+        fis = new MappedFastInputStream(mapped, 0);
+      } else {
+        synchronized (TransactionLog.this) {
+          fos.flush();
+          sz = fos.size();
+          assert sz == getLogFileSize();
+        }
+        fis = channelInputStreamOpener.open(channel, 0);
       }
-
-      fis = channelInputStreamOpener.open(channel, 0);
       if (sz >= 4) {
         // readHeader(fis);  // should not be needed
         prevPos = sz - 4;
@@ -1025,6 +1129,35 @@ public class TransactionLog implements Closeable {
     }
   }
 
+  /**
+   * A {@link ChannelFastInputStream} over a read-only memory mapping of a capped log (see {@link
+   * #mapForReads()}). Buffer refills are plain memory copies out of the page cache rather than
+   * positional channel reads, and strings can then be decoded directly from the buffer.
+   */
+  public static class MappedFastInputStream extends ChannelFastInputStream {
+    private final ByteBuffer mapped;
+
+    public MappedFastInputStream(ByteBuffer mapped, long position) {
+      super(null, position);
+      this.mapped = mapped;
+    }
+
+    @Override
+    public int readWrappedStream(byte[] target, int offset, int len) {
+      long remaining = mapped.limit() - readFromStream;
+      if (remaining <= 0) return -1;
+      int n = (int) Math.min(len, remaining);
+      // absolute bulk get; doesn't touch the shared buffer's position, so it is safe to share
+      mapped.get((int) readFromStream, target, offset, n);
+      return n;
+    }
+
+    @Override
+    public void close() {
+      // the mapping is owned by the TransactionLog; nothing to release here
+    }
+  }
+
   /** Opens {@link OutputStream} from {@link FileChannel}. */
   protected interface OutputStreamOpener {
 
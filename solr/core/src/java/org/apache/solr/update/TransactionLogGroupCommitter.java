@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.apache.solr.metrics.otel.instruments.AttributedLongHistogram;
+import org.apache.solr.metrics.otel.instruments.AttributedLongTimer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces concurrent {@link UpdateLog.SyncLevel#FSYNC} requests into group commits.
+ *
+ * <p>Without group commit every indexing thread that finishes a request flushes the shared {@link
+ * TransactionLog} output buffer and forces the channel to disk itself, so concurrent writers
+ * serialize behind one another's fsync. With group commit, callers enqueue a sync request and
+ * block; a single flusher thread drains every pending request, performs one flush and one fsync
+ * per affected log, and then releases all of the waiting callers at once. A record is durable once
+ * its caller returns from {@link #sync(TransactionLog)}, exactly as with a direct {@link
+ * TransactionLog#finish(UpdateLog.SyncLevel)}.
+ *
+ * <p>Callers are expected to hold a reference to the log (see {@link TransactionLog#incref()}) for
+ * the duration of the call; the flusher thread never closes or releases logs itself.
+ *
+ * @lucene.experimental
+ */
+public class TransactionLogGroupCommitter implements Closeable {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final LinkedBlockingQueue<SyncRequest> pending = new LinkedBlockingQueue<>();
+  private final Thread flusher;
+  private volatile boolean closed;
+
+  private volatile AttributedLongHistogram batchSizeHistogram;
+  private volatile AttributedLongTimer fsyncTimer;
+
+  private static final class SyncRequest {
+    final TransactionLog tlog;
+    final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    SyncRequest(TransactionLog tlog) {
+      this.tlog = tlog;
+    }
+  }
+
+  public TransactionLogGroupCommitter(String name) {
+    flusher = new SolrNamedThreadFactory("tlogGroupCommit-" + name).newThread(this::run);
+    flusher.setDaemon(true);
+    flusher.start();
+  }
+
+  /**
+   * Sets the instruments used to report the number of sync requests satisfied by each group commit
+   * and the time spent in each fsync. Either may be null.
+   */
+  public void setMetrics(
+      AttributedLongHistogram batchSizeHistogram, AttributedLongTimer fsyncTimer) {
+    this.batchSizeHistogram = batchSizeHistogram;
+    this.fsyncTimer = fsyncTimer;
+  }
+
+  /**
+   * Blocks until everything written to the given log before this call has been flushed and forced
+   * to durable storage.
+   */
+  public void sync(TransactionLog tlog) {
+    if (closed) {
+      // fall back to a direct sync so that shutdown never loses durability
+      tlog.finish(UpdateLog.SyncLevel.FSYNC);
+      return;
+    }
+    SyncRequest request = new SyncRequest(tlog);
+    pending.add(request);
+    if (closed && pending.remove(request)) {
+      // we raced with close() and nobody will pick this request up
+      tlog.finish(UpdateLog.SyncLevel.FSYNC);
+      return;
+    }
+    try {
+      request.future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SolrException(
+          SolrException.ErrorCode.SERVER_ERROR, "Interrupted waiting for tlog sync", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof SolrException se) {
+        throw se;
+      }
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, cause);
+    }
+  }
+
+  private void run() {
+    List<SyncRequest> batch = new ArrayList<>();
+    while (true) {
+      try {
+        SyncRequest first = pending.poll(250, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          if (closed) break;
+          continue;
+        }
+        batch.add(first);
+        pending.drainTo(batch);
+        commit(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (Throwable t) {
+        // commit() completes every future; this only guards the loop against surprises
+        log.error("Unexpected error in tlog group commit thread", t);
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  private void commit(List<SyncRequest> batch) {
+    if (batch.isEmpty()) return;
+
+    // a batch usually targets a single log, but may straddle a log rollover
+    Map<TransactionLog, List<SyncRequest>> byLog = new IdentityHashMap<>();
+    for (SyncRequest request : batch) {
+      byLog.computeIfAbsent(request.tlog, k -> new ArrayList<>()).add(request);
+    }
+
+    for (Map.Entry<TransactionLog, List<SyncRequest>> entry : byLog.entrySet()) {
+      TransactionLog tlog = entry.getKey();
+      List<SyncRequest> requests = entry.getValue();
+      try {
+        // every request was enqueued after its record was written, so this flush covers it
+        tlog.flushOutput();
+        AttributedLongTimer timer = fsyncTimer;
+        AttributedLongTimer.MetricTimer ctx = timer == null ? null : timer.start();
+        try {
+          tlog.force();
+        } finally {
+          if (ctx != null) ctx.stop();
+        }
+
+        AttributedLongHistogram histogram = batchSizeHistogram;
+        if (histogram != null) histogram.record((long) requests.size());
+
+        for (SyncRequest request : requests) {
+          request.future.complete(null);
+        }
+      } catch (IOException | RuntimeException e) {
+        SolrException se =
+            e instanceof SolrException solrException
+                ? solrException
+                : new SolrException(SolrException.ErrorCode.SERVER_ERROR, e);
+        for (SyncRequest request : requests) {
+          request.future.completeExceptionally(se);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    // don't interrupt the flusher: an interrupt during FileChannel.force() closes the channel
+    try {
+      flusher.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    List<SyncRequest> leftover = new ArrayList<>();
+    pending.drainTo(leftover);
+    commit(leftover);
+  }
+}
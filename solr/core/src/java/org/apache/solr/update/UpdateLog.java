@@ -80,6 +80,8 @@ import org.apache.solr.metrics.SolrMetricProducer;
 import org.apache.solr.metrics.SolrMetricsContext;
 import org.apache.solr.metrics.otel.OtelUnit;
 import org.apache.solr.metrics.otel.instruments.AttributedLongCounter;
+import org.apache.solr.metrics.otel.instruments.AttributedLongHistogram;
+import org.apache.solr.metrics.otel.instruments.AttributedLongTimer;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.request.SolrQueryRequestBase;
 import org.apache.solr.request.SolrRequestInfo;
@@ -259,6 +261,17 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
 
   protected SyncLevel defaultSyncLevel = SyncLevel.FLUSH;
 
+  /** If true, concurrent {@link SyncLevel#FSYNC} requests are coalesced into group commits. */
+  protected boolean groupCommit;
+
+  protected TransactionLogGroupCommitter groupCommitter;
+
+  /**
+   * If true, tlogs that have been capped with a commit are memory-mapped, so that real-time get,
+   * peer sync and replay read them without channel reads or synchronizing on the log.
+   */
+  protected boolean mmapOldLogs;
+
   protected volatile UpdateHandler uhandler; // a core reload can change this reference!
   protected volatile boolean cancelApplyBufferUpdate;
   protected List<Long> startingVersions;
@@ -267,6 +280,8 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
   protected AttributedLongCounter applyingBufferedOpsCounter;
   protected AttributedLongCounter replayOpsCounter;
   protected AttributedLongCounter copyOverOldUpdatesCounter;
+  protected AttributedLongHistogram groupCommitBatchSizeHistogram;
+  protected AttributedLongTimer groupCommitFsyncTimer;
   protected SolrMetricsContext solrMetricsContext;
 
   public static class LogPtr {
@@ -379,6 +394,10 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
   public void init(PluginInfo info) {
     dataDir = (String) info.initArgs.get("dir");
     defaultSyncLevel = SyncLevel.getSyncLevel((String) info.initArgs.get("syncLevel"));
+    Object groupCommitArg = info.initArgs.get("groupCommit");
+    groupCommit = groupCommitArg != null && Boolean.parseBoolean(groupCommitArg.toString());
+    Object mmapOldLogsArg = info.initArgs.get("mmapOldLogs");
+    mmapOldLogs = mmapOldLogsArg != null && Boolean.parseBoolean(mmapOldLogsArg.toString());
 
     numRecordsToKeep = objToInt(info.initArgs.get("numRecordsToKeep"), 100);
     maxNumLogsToKeep = objToInt(info.initArgs.get("maxNumLogsToKeep"), 10);
@@ -397,9 +416,10 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     updateLocks = new UpdateLocks(timeoutMs);
 
     log.info(
-        "Initializing UpdateLog: dataDir={} defaultSyncLevel={} numRecordsToKeep={} maxNumLogsToKeep={}",
+        "Initializing UpdateLog: dataDir={} defaultSyncLevel={} groupCommit={} numRecordsToKeep={} maxNumLogsToKeep={}",
         dataDir,
         defaultSyncLevel,
+        groupCommit,
         numRecordsToKeep,
         maxNumLogsToKeep);
   }
@@ -468,6 +488,10 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
 
     initTlogDir(core);
 
+    if (groupCommit) {
+      groupCommitter = new TransactionLogGroupCommitter(core.getName());
+    }
+
     usableForChildDocs = core.getLatestSchema().isUsableForChildDocs();
 
     try {
@@ -624,6 +648,15 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
       newestLogsOnStartup.addFirst(ll);
       if (newestLogsOnStartup.size() >= 2) break;
     }
+
+    if (mmapOldLogs) {
+      // older logs were necessarily capped before the next one was started
+      for (TransactionLog ll : logs) {
+        if (!newestLogsOnStartup.contains(ll)) {
+          ll.mapForReads();
+        }
+      }
+    }
   }
 
   @Override
@@ -681,6 +714,25 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
                 "solr.core.update_log.old_updates_copied",
                 "Total number of updates copied from previous tlog or last tlog to a new tlog"),
             baseAttributes);
+
+    groupCommitBatchSizeHistogram =
+        new AttributedLongHistogram(
+            solrMetricsContext.longHistogram(
+                "solr.core.update_log.group_commit.batch_size",
+                "Number of sync requests satisfied by each tlog group commit"),
+            baseAttributes);
+
+    groupCommitFsyncTimer =
+        new AttributedLongTimer(
+            solrMetricsContext.longHistogram(
+                "solr.core.update_log.group_commit.fsync_time",
+                "Time spent forcing the tlog to disk per group commit",
+                OtelUnit.MILLISECONDS),
+            baseAttributes);
+
+    if (groupCommitter != null) {
+      groupCommitter.setMetrics(groupCommitBatchSizeHistogram, groupCommitFsyncTimer);
+    }
   }
 
   @Override
@@ -1088,6 +1140,9 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
         // TODO: check that this works to cap a tlog we were using to buffer so we don't replay on
         // startup.
         prevTlog.writeCommit(cmd);
+        if (mmapOldLogs) {
+          prevTlog.mapForReads();
+        }
 
         addOldLog(prevTlog, true);
         // the old log list will decref when no longer needed
@@ -1392,7 +1447,11 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     }
 
     try {
-      currLog.finish(syncLevel);
+      if (syncLevel == SyncLevel.FSYNC && groupCommitter != null) {
+        groupCommitter.sync(currLog);
+      } else {
+        currLog.finish(syncLevel);
+      }
     } finally {
       currLog.decref();
     }
@@ -1408,6 +1467,9 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
       try {
         if (ll.endsWithCommit()) {
           ll.closeOutput();
+          if (mmapOldLogs) {
+            ll.mapForReads();
+          }
           ll.decref();
           continue;
         }
@@ -1706,6 +1768,11 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     try (Closeable c = releaseTlogDir) {
       recoveryExecutor.shutdown(); // no new tasks
 
+      if (groupCommitter != null) {
+        // pending syncs must complete before their logs are closed below
+        groupCommitter.close();
+      }
+
       synchronized (this) {
 
         // Don't delete the old tlogs, we want to be able to replay from them and retrieve old
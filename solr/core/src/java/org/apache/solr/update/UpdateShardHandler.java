@@ -68,6 +68,8 @@ public class UpdateShardHandler implements SolrInfoBean {
 
   private final HttpJettySolrClient recoveryOnlyClient;
 
+  private final ReplicaUpdateBatcher replicaUpdateBatcher = ReplicaUpdateBatcher.create(this);
+
   private final InstrumentedHttpListenerFactory trackHttpSolrMetrics;
 
   private SolrMetricsContext solrMetricsContext;
@@ -207,6 +209,14 @@ public class UpdateShardHandler implements SolrInfoBean {
     return updateExecutor;
   }
 
+  /**
+   * @return the batcher of the updates leaders send to their replicas, or null if disabled
+   * @see ReplicaUpdateBatcher#ENABLED_PROP
+   */
+  public ReplicaUpdateBatcher getReplicaUpdateBatcher() {
+    return replicaUpdateBatcher;
+  }
+
   /**
    * @return executor for recovery operations
    */
@@ -217,6 +227,7 @@ public class UpdateShardHandler implements SolrInfoBean {
   @Override
   public void close() {
     try {
+      IOUtils.closeQuietly(replicaUpdateBatcher);
       // do not interrupt, do not interrupt
       ExecutorUtil.shutdownAndAwaitTermination(updateExecutor);
       ExecutorUtil.shutdownAndAwaitTermination(recoveryExecutor);
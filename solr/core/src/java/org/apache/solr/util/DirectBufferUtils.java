@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import org.apache.solr.common.util.SuppressForbidden;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Releases the memory of direct or memory-mapped {@link ByteBuffer}s eagerly, instead of waiting
+ * for the buffers to be garbage collected.
+ *
+ * <p>Accessing a buffer after it has been released crashes the JVM, so callers must make sure
+ * nothing can still be reading it.
+ */
+public final class DirectBufferUtils {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  // null if the JVM doesn't allow it; buffers are then only released by the garbage collector
+  private static final MethodHandle CLEANER = lookupCleaner();
+
+  private DirectBufferUtils() {}
+
+  /**
+   * Releases the memory of the given buffer, which must be a direct buffer as allocated or mapped,
+   * not a slice or view of one.
+   *
+   * @return true if the memory was released; false if it is left to the garbage collector
+   */
+  public static boolean release(ByteBuffer buffer) {
+    if (CLEANER == null || !buffer.isDirect()) {
+      return false;
+    }
+    try {
+      CLEANER.invokeExact(buffer);
+      return true;
+    } catch (Throwable t) {
+      log.warn("Could not release direct buffer; it will be released on garbage collection", t);
+      return false;
+    }
+  }
+
+  @SuppressForbidden(reason = "Releases direct buffers eagerly through sun.misc.Unsafe")
+  private static MethodHandle lookupCleaner() {
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      return MethodHandles.lookup()
+          .findVirtual(
+              unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+          .bindTo(theUnsafe.get(null));
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      log.debug("Direct buffers can't be released eagerly", e);
+      return null;
+    }
+  }
+}
@@ -51,4 +51,16 @@ public interface DynamicMap {
     // +2 let's us not to worry about which comparison operator to choose
     return threshold(expectedKeyMax) + 2;
   }
+
+  /**
+   * Allocates the arrays of array based maps. The content of the returned arrays is undefined, the
+   * maps fill them.
+   */
+  interface ArrayAllocator {
+    int[] newIntArray(int length);
+
+    float[] newFloatArray(int length);
+
+    long[] newLongArray(int length);
+  }
 }
@@ -29,6 +29,7 @@ public class IntFloatDynamicMap implements DynamicMap {
   private float[] keyValues;
   private float emptyValue;
   private int threshold;
+  private final ArrayAllocator allocator; // may be null
 
   /**
    * Create map with expected max value of key. Although the map will automatically do resizing to
@@ -36,6 +37,15 @@ public class IntFloatDynamicMap implements DynamicMap {
    * expectedKeyMax} is discourage since it can leads to use LOT OF memory.
    */
   public IntFloatDynamicMap(int expectedKeyMax, float emptyValue) {
+    this(expectedKeyMax, emptyValue, null);
+  }
+
+  /**
+   * Same as above, but takes the array of an array based map from {@code allocator}, e.g. from a
+   * pool, instead of allocating it.
+   */
+  public IntFloatDynamicMap(int expectedKeyMax, float emptyValue, ArrayAllocator allocator) {
+    this.allocator = allocator;
     this.threshold = threshold(expectedKeyMax);
     this.maxSize = expectedKeyMax;
     this.emptyValue = emptyValue;
@@ -47,8 +57,8 @@ public class IntFloatDynamicMap implements DynamicMap {
   }
 
   private void upgradeToArray() {
-    keyValues = new float[maxSize];
-    if (emptyValue != 0.0f) {
+    keyValues = allocator == null ? new float[maxSize] : allocator.newFloatArray(maxSize);
+    if (emptyValue != 0.0f || allocator != null) {
       Arrays.fill(keyValues, emptyValue);
     }
     if (hashMap != null) {
@@ -60,8 +70,14 @@ public class IntFloatDynamicMap implements DynamicMap {
   private void growBuffer(int minSize) {
     assert keyValues != null;
     int size = keyValues.length;
-    keyValues = ArrayUtil.grow(keyValues, minSize);
-    if (emptyValue != 0.0f) {
+    if (allocator == null) {
+      keyValues = ArrayUtil.grow(keyValues, minSize);
+    } else {
+      float[] grown = allocator.newFloatArray(ArrayUtil.oversize(minSize, Float.BYTES));
+      System.arraycopy(keyValues, 0, grown, 0, size);
+      keyValues = grown;
+    }
+    if (emptyValue != 0.0f || allocator != null) {
       for (int i = size; i < keyValues.length; i++) {
         keyValues[i] = emptyValue;
       }
@@ -30,6 +30,7 @@ public class IntIntDynamicMap implements DynamicMap {
   private int[] keyValues;
   private int emptyValue;
   private int threshold;
+  private final ArrayAllocator allocator; // may be null
 
   /**
    * Create map with expected max value of key. Although the map will automatically do resizing to
@@ -37,6 +38,15 @@ public class IntIntDynamicMap implements DynamicMap {
    * expectedKeyMax} is discourage since it can leads to use LOT OF memory.
    */
   public IntIntDynamicMap(int expectedKeyMax, int emptyValue) {
+    this(expectedKeyMax, emptyValue, null);
+  }
+
+  /**
+   * Same as above, but takes the array of an array based map from {@code allocator}, e.g. from a
+   * pool, instead of allocating it.
+   */
+  public IntIntDynamicMap(int expectedKeyMax, int emptyValue, ArrayAllocator allocator) {
+    this.allocator = allocator;
     this.threshold = threshold(expectedKeyMax);
     this.maxSize = expectedKeyMax;
     this.emptyValue = emptyValue;
@@ -48,8 +58,8 @@ public class IntIntDynamicMap implements DynamicMap {
   }
 
   private void upgradeToArray() {
-    keyValues = new int[maxSize];
-    if (emptyValue != 0) {
+    keyValues = allocator == null ? new int[maxSize] : allocator.newIntArray(maxSize);
+    if (emptyValue != 0 || allocator != null) {
       Arrays.fill(keyValues, emptyValue);
     }
     if (hashMap != null) {
@@ -61,8 +71,14 @@ public class IntIntDynamicMap implements DynamicMap {
   private void growBuffer(int minSize) {
     assert keyValues != null;
     int size = keyValues.length;
-    keyValues = ArrayUtil.grow(keyValues, minSize);
-    if (emptyValue != 0) {
+    if (allocator == null) {
+      keyValues = ArrayUtil.grow(keyValues, minSize);
+    } else {
+      int[] grown = allocator.newIntArray(ArrayUtil.oversize(minSize, Integer.BYTES));
+      System.arraycopy(keyValues, 0, grown, 0, size);
+      keyValues = grown;
+    }
+    if (emptyValue != 0 || allocator != null) {
       for (int i = size; i < keyValues.length; i++) {
         keyValues[i] = emptyValue;
       }
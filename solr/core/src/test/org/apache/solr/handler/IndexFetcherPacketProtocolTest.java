@@ -24,6 +24,7 @@ import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.lucene.store.Directory;
@@ -196,6 +197,50 @@ public class IndexFetcherPacketProtocolTest extends SolrTestCaseJ4 {
     assertFetchPacketsSuccess(5 * PACKET_SZ + 12345, "test-large-5mb.bin");
   }
 
+  @Test
+  public void testFileRanges() throws Exception {
+    // ranges are fetched in parallel by followers that download large files in ranges
+    int fileSize = 3 * PACKET_SZ + 777;
+    String fileName = "test-ranges.bin";
+    byte[] content = createDeterministicContent(fileSize);
+    int[][] ranges = {
+      {0, PACKET_SZ}, {PACKET_SZ, 2 * PACKET_SZ + 10}, {2 * PACKET_SZ + 10, fileSize}, {5, 6},
+    };
+    for (int[] range : ranges) {
+      byte[] streamBytes =
+          serializeFileToPacketStream(
+              content, fileName, Integer.toString(range[0]), Integer.toString(range[1]));
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      int result = invokeFetchPackets(streamBytes, output, fileName, range[1] - range[0]);
+      assertEquals("fetchPackets return code mismatch", 0, result);
+      assertArrayEquals(
+          "Output content should match the range " + range[0] + "-" + range[1],
+          Arrays.copyOfRange(content, range[0], range[1]),
+          output.toByteArray());
+    }
+  }
+
+  @Test
+  public void testFileRangesFromLeaderIgnoringEndOffset() throws Exception {
+    // a leader that doesn't support endOffset streams the rest of the file from the offset
+    int fileSize = 3 * PACKET_SZ + 777;
+    String fileName = "test-ranges-no-end.bin";
+    byte[] content = createDeterministicContent(fileSize);
+    int[][] ranges = {{0, PACKET_SZ}, {PACKET_SZ, 2 * PACKET_SZ + 10}, {5, 6}};
+    for (int[] range : ranges) {
+      byte[] streamBytes =
+          serializeFileToPacketStream(content, fileName, Integer.toString(range[0]), null);
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      int result =
+          invokeFetchPackets(streamBytes, output, fileName, fileSize, range[0], range[1]);
+      assertEquals("fetchPackets return code mismatch", 0, result);
+      assertArrayEquals(
+          "Output content should stop at the end of the range " + range[0] + "-" + range[1],
+          Arrays.copyOfRange(content, range[0], range[1]),
+          output.toByteArray());
+    }
+  }
+
   private void assertFetchPacketsSuccess(int fileSize, String fileName) throws Exception {
     log.info("Testing file transfer: {} ({} bytes)", fileName, fileSize);
 
@@ -226,6 +271,12 @@ public class IndexFetcherPacketProtocolTest extends SolrTestCaseJ4 {
 
   /** Writes file content to a directory and serializes it using the replication packet protocol. */
   private byte[] serializeFileToPacketStream(byte[] content, String fileName) throws Exception {
+    return serializeFileToPacketStream(content, fileName, null, null);
+  }
+
+  /** Same as above but only serializes the range of the file between the given offsets. */
+  private byte[] serializeFileToPacketStream(
+      byte[] content, String fileName, String offset, String endOffset) throws Exception {
     DirectoryFactory directoryFactory = h.getCore().getDirectoryFactory();
     Directory dir =
         directoryFactory.get(
@@ -260,6 +311,7 @@ public class IndexFetcherPacketProtocolTest extends SolrTestCaseJ4 {
                   String.class,
                   String.class,
                   String.class,
+                  String.class,
                   boolean.class,
                   boolean.class,
                   double.class,
@@ -269,7 +321,7 @@ public class IndexFetcherPacketProtocolTest extends SolrTestCaseJ4 {
       try {
         stream =
             doFetchFileHandle.invoke(
-                replicationAPI, fileName, "file", null, null, false, true, 0.0, null);
+                replicationAPI, fileName, "file", offset, null, endOffset, false, true, 0.0, null);
       } catch (Exception e) {
         throw e;
       } catch (Throwable t) {
@@ -298,6 +350,18 @@ public class IndexFetcherPacketProtocolTest extends SolrTestCaseJ4 {
   private int invokeFetchPackets(
       byte[] streamBytes, ByteArrayOutputStream output, String fileName, long expectedSize)
       throws Exception {
+    return invokeFetchPackets(streamBytes, output, fileName, expectedSize, 0, expectedSize);
+  }
+
+  /** Same as above, for a FileFetcher of the range of the file between start and end. */
+  private int invokeFetchPackets(
+      byte[] streamBytes,
+      ByteArrayOutputStream output,
+      String fileName,
+      long fileSize,
+      long start,
+      long end)
+      throws Exception {
 
     Class<?> fileFetcherClass = null;
     for (Class<?> innerClass : IndexFetcher.class.getDeclaredClasses()) {
@@ -313,7 +377,7 @@ public class IndexFetcherPacketProtocolTest extends SolrTestCaseJ4 {
     try {
       Map<String, Object> fileDetails = new HashMap<>();
       fileDetails.put("name", fileName);
-      fileDetails.put("size", expectedSize);
+      fileDetails.put("size", fileSize);
 
       Object mockFileInterface = createMockFileInterface(output);
 
@@ -329,12 +393,15 @@ public class IndexFetcherPacketProtocolTest extends SolrTestCaseJ4 {
                   Map.class,
                   String.class,
                   String.class,
+                  long.class,
+                  long.class,
                   long.class));
 
       Object fileFetcher;
       try {
         fileFetcher =
-            ctorHandle.invoke(indexFetcher, mockFileInterface, fileDetails, fileName, "file", 0L);
+            ctorHandle.invoke(
+                indexFetcher, mockFileInterface, fileDetails, fileName, "file", 0L, start, end);
       } catch (Exception e) {
         throw e;
       } catch (Throwable t) {
@@ -1455,6 +1455,46 @@ public class TestReplicationHandler extends SolrTestCaseJ4 {
     assertTrue(timeTakenInSeconds - approximateTimeInSeconds > 0);
   }
 
+  @Test
+  public void testParallelRangeReplication() throws Exception {
+    leaderClient.deleteByQuery("*:*");
+    leaderClient.commit();
+
+    // enough stored text for the stored fields to be downloaded in several 1MB ranges
+    final int totalDocs = 1000;
+    for (int i = 0; i < totalDocs; i++) {
+      index(leaderClient, "id", i, "name", TestUtil.randomSimpleString(random(), 2000, 4000));
+    }
+    leaderClient.optimize();
+    long largestFile = 0;
+    try (Directory dir = FSDirectory.open(Path.of(leader.getDataDir()).resolve("index"))) {
+      for (String file : dir.listAll()) {
+        largestFile = Math.max(largestFile, dir.fileLength(file));
+      }
+    }
+    assertTrue("no file to split in ranges: " + largestFile, largestFile > 1024 * 1024);
+
+    followerJetty.stop();
+    System.setProperty("solr.replication.maxparalleldownloads", "4");
+    System.setProperty("solr.replication.rangedownloadsizemb", "1");
+    try {
+      follower.setTestPort(leaderJetty.getLocalPort());
+      followerJetty = createAndStartJetty(follower);
+      followerClient.close();
+      followerClient =
+          createNewSolrClient(buildUrl(followerJetty.getLocalPort()), DEFAULT_TEST_CORENAME);
+
+      pullFromTo(leaderJetty, followerJetty);
+
+      NamedList<Object> followerQueryRsp = rQuery(totalDocs, "*:*", followerClient);
+      assertEquals(totalDocs, numFound(followerQueryRsp));
+      assertVersions(leaderClient, followerClient);
+    } finally {
+      System.clearProperty("solr.replication.maxparalleldownloads");
+      System.clearProperty("solr.replication.rangedownloadsizemb");
+    }
+  }
+
   @Test
   public void doTestIllegalFilePaths() {
     // Loop through the file=, cf=, tlogFile= params and prove that it throws exception for path
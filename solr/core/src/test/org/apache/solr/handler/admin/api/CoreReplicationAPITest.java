@@ -87,14 +87,16 @@ public class CoreReplicationAPITest extends SolrTestCaseJ4 {
   @Test
   public void testFetchFile() throws Exception {
     ReplicationAPIBase.DirectoryFileStream actual =
-        coreReplicationAPI.doFetchFile("./test", "file", null, null, false, false, 0, null);
+        coreReplicationAPI.doFetchFile("./test", "file", null, null, null, false, false, 0, null);
     assertNotNull(actual);
 
     actual =
-        coreReplicationAPI.doFetchFile("./test", "tlogFile", null, null, false, false, 0, null);
+        coreReplicationAPI.doFetchFile(
+            "./test", "tlogFile", null, null, null, false, false, 0, null);
     assertTrue(actual instanceof ReplicationAPIBase.LocalFsTlogFileStream);
 
-    actual = coreReplicationAPI.doFetchFile("./test", "cf", null, null, false, false, 0, null);
+    actual =
+        coreReplicationAPI.doFetchFile("./test", "cf", null, null, null, false, false, 0, null);
     assertTrue(actual instanceof ReplicationAPIBase.LocalFsConfFileStream);
   }
 
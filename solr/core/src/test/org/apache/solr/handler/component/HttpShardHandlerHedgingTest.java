@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler.component;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.client.solrj.impl.LBAsyncSolrClient;
+import org.apache.solr.client.solrj.impl.LBSolrClient;
+import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.client.solrj.routing.ReplicaLoadTracker;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/** Tests the hedging of slow shard requests by {@link HttpShardHandler}. */
+public class HttpShardHandlerHedgingTest extends SolrTestCaseJ4 {
+
+  private static final String SLOW = "http://127.0.0.1:8983/solr/c1_shard1_replica_n1";
+  private static final String FAST = "http://127.0.0.1:7574/solr/c1_shard1_replica_n2";
+  private static final int HEDGE_MIN_DELAY_MS = 50;
+
+  /** A request sent by the stubbed load balancer, completed by the test */
+  private record SentRequest(LBSolrClient.Req req, CompletableFuture<LBSolrClient.Rsp> future) {
+    String firstUrl() {
+      return req.getEndpoints().get(0).getUrl();
+    }
+  }
+
+  private HttpShardHandlerFactory factory;
+  private HttpShardHandler handler;
+  private final BlockingQueue<SentRequest> sent = new LinkedBlockingQueue<>();
+
+  @BeforeClass
+  public static void ensureWorkingMockito() {
+    assumeWorkingMockito();
+  }
+
+  @Before
+  public void setUpHandler() {
+    factory = new HttpShardHandlerFactory();
+    factory.hedgePercentile = 50;
+    factory.hedgeMinDelay = HEDGE_MIN_DELAY_MS;
+    factory.hedgeScheduler =
+        Executors.newSingleThreadScheduledExecutor(new SolrNamedThreadFactory("testHedge"));
+    // the first replica answered quickly so far, so the request is hedged after hedgeMinDelay
+    ReplicaLoadTracker loadTracker = new ReplicaLoadTracker();
+    for (int i = 0; i < ReplicaLoadTracker.MIN_SAMPLES; i++) {
+      loadTracker.requestStarted(SLOW);
+      loadTracker.requestFinished(SLOW, TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    LBAsyncSolrClient lbClient = Mockito.mock(LBAsyncSolrClient.class);
+    Mockito.when(lbClient.getLoadTracker()).thenReturn(loadTracker);
+    Mockito.when(lbClient.requestAsync(Mockito.any(LBSolrClient.Req.class)))
+        .thenAnswer(
+            inv -> {
+              CompletableFuture<LBSolrClient.Rsp> future = new CompletableFuture<>();
+              sent.add(new SentRequest(inv.getArgument(0), future));
+              return future;
+            });
+    handler = new HttpShardHandler(factory);
+    handler.lbClient = lbClient;
+  }
+
+  @After
+  public void tearDownHandler() throws Exception {
+    ExecutorUtil.shutdownNowAndAwaitTermination(factory.hedgeScheduler);
+  }
+
+  @Test
+  public void testHedgeAnswersForSlowReplica() throws Exception {
+    long start = System.nanoTime();
+    ShardResponse srsp = sendShardRequest();
+
+    SentRequest primary = sent.poll(5, TimeUnit.SECONDS);
+    assertNotNull(primary);
+    assertEquals(SLOW, primary.firstUrl());
+
+    SentRequest hedge = sent.poll(5, TimeUnit.SECONDS);
+    assertNotNull("the slow request should have been hedged", hedge);
+    assertTrue(
+        "the request was hedged before hedgeMinDelay",
+        System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(HEDGE_MIN_DELAY_MS));
+    assertEquals("the hedge should go to the other replica first", FAST, hedge.firstUrl());
+    assertEquals(2, hedge.req().getEndpoints().size());
+
+    hedge.future().complete(response(FAST));
+    assertSame(srsp, handler.responses.poll(5, TimeUnit.SECONDS));
+    assertNull(srsp.getException());
+    assertEquals(FAST, srsp.getShardAddress());
+    assertTrue("the slow request should be canceled", primary.future().isCancelled());
+    assertNull(sent.poll(HEDGE_MIN_DELAY_MS * 2, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testFirstResponseWinsOverHedge() throws Exception {
+    ShardResponse srsp = sendShardRequest();
+    SentRequest primary = sent.poll(5, TimeUnit.SECONDS);
+    SentRequest hedge = sent.poll(5, TimeUnit.SECONDS);
+    assertNotNull(hedge);
+
+    // the first replica answers after all, before the hedge
+    primary.future().complete(response(SLOW));
+    assertSame(srsp, handler.responses.poll(5, TimeUnit.SECONDS));
+    assertEquals(SLOW, srsp.getShardAddress());
+    assertTrue("the losing hedge should be canceled", hedge.future().isCancelled());
+  }
+
+  @Test
+  public void testNoHedgeWhenAnsweredInTime() throws Exception {
+    ShardResponse srsp = sendShardRequest();
+    SentRequest primary = sent.poll(5, TimeUnit.SECONDS);
+    primary.future().complete(response(SLOW));
+    assertSame(srsp, handler.responses.poll(5, TimeUnit.SECONDS));
+    assertEquals(SLOW, srsp.getShardAddress());
+    assertNull(
+        "no hedge should be sent once answered",
+        sent.poll(HEDGE_MIN_DELAY_MS * 4, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testFailsOnlyWhenBothRequestsFail() throws Exception {
+    ShardResponse srsp = sendShardRequest();
+    SentRequest primary = sent.poll(5, TimeUnit.SECONDS);
+    SentRequest hedge = sent.poll(5, TimeUnit.SECONDS);
+    assertNotNull(hedge);
+
+    hedge
+        .future()
+        .completeExceptionally(new SolrException(SolrException.ErrorCode.SERVER_ERROR, "hedge"));
+    assertNull(
+        "the shard should wait for the first request",
+        handler.responses.poll(HEDGE_MIN_DELAY_MS, TimeUnit.MILLISECONDS));
+
+    primary
+        .future()
+        .completeExceptionally(
+            new SolrException(SolrException.ErrorCode.SERVICE_UNAVAILABLE, "primary"));
+    assertSame(srsp, handler.responses.poll(5, TimeUnit.SECONDS));
+    assertNotNull(srsp.getException());
+    assertEquals("primary", srsp.getException().getMessage());
+  }
+
+  private ShardResponse sendShardRequest() {
+    ShardRequest sreq = new ShardRequest();
+    sreq.params = new ModifiableSolrParams();
+    sreq.actualShards = new String[] {"shard1"};
+    ShardResponse srsp = new ShardResponse();
+    srsp.setShardRequest(sreq);
+    srsp.setShard("shard1");
+    HttpShardHandler.SimpleSolrResponse ssr = new HttpShardHandler.SimpleSolrResponse();
+    srsp.setSolrResponse(ssr);
+
+    ModifiableSolrParams params = new ModifiableSolrParams();
+    LBSolrClient.Req lbReq =
+        new LBSolrClient.Req(
+            new QueryRequest(params),
+            List.of(new LBSolrClient.Endpoint(SLOW), new LBSolrClient.Endpoint(FAST)));
+    handler.makeShardRequest(sreq, "shard1", params, lbReq, ssr, srsp, System.nanoTime());
+    return srsp;
+  }
+
+  private static LBSolrClient.Rsp response(String url) {
+    return new LBSolrClient.Rsp() {
+      {
+        server = url;
+      }
+    };
+  }
+}
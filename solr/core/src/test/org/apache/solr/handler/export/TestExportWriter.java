@@ -1173,6 +1173,97 @@ public class TestExportWriter extends SolrTestCaseJ4 {
     validateSort(numDocs);
   }
 
+  @Test
+  public void testExportThreads() throws Exception {
+    assertU(delQ("*:*"));
+    assertU(commit());
+
+    int numDocs = 2000;
+    for (int i = 0; i < numDocs; i++) {
+      assertU(
+          adoc(
+              "id",
+              String.valueOf(i),
+              "intdv",
+              String.valueOf(random().nextInt(10)),
+              "longdv",
+              String.valueOf(i),
+              "stringdv",
+              TestUtil.randomSimpleString(random(), 1, 3),
+              "stringdv_m",
+              TestUtil.randomSimpleString(random(), 1, 3),
+              "stringdv_m",
+              TestUtil.randomSimpleString(random(), 1, 3),
+              "int_is_p",
+              String.valueOf(random().nextInt(100)),
+              "int_is_p",
+              String.valueOf(random().nextInt(100))));
+      if (random().nextInt(200) == 0) {
+        assertU(commit());
+      }
+    }
+    assertU(commit());
+
+    // small segment queues, so that every segment is sorted in several batches
+    String fl = "id,intdv,longdv,stringdv,stringdv_m,int_is_p";
+    for (String sort : new String[] {"intdv asc,longdv desc", "stringdv desc,longdv asc"}) {
+      String expected =
+          h.query(req("q", "*:*", "qt", "/export", "fl", fl, "sort", sort, "queueSize", "20"));
+      String actual =
+          h.query(
+              req(
+                  "q",
+                  "*:*",
+                  "qt",
+                  "/export",
+                  "fl",
+                  fl,
+                  "sort",
+                  sort,
+                  "queueSize",
+                  "20",
+                  ExportWriter.EXPORT_THREADS_PARAM,
+                  "4"));
+      assertEquals(expected, actual);
+    }
+
+    // the parallel segment sort is also used by streaming expressions
+    String expr = "top(n=5,input(),sort=\"longdv desc\")";
+    String expected =
+        h.query(
+            req(
+                "q",
+                "*:*",
+                "qt",
+                "/export",
+                "fl",
+                fl,
+                "sort",
+                "intdv asc",
+                "expr",
+                expr,
+                "queueSize",
+                "20"));
+    String actual =
+        h.query(
+            req(
+                "q",
+                "*:*",
+                "qt",
+                "/export",
+                "fl",
+                fl,
+                "sort",
+                "intdv asc",
+                "expr",
+                expr,
+                "queueSize",
+                "20",
+                ExportWriter.EXPORT_THREADS_PARAM,
+                "4"));
+    assertEquals(expected, actual);
+  }
+
   private void createLargeIndex() throws Exception {
     int BATCH_SIZE = 5000;
     int NUM_BATCHES = 20;
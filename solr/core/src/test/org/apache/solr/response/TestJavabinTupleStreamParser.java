@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
 import org.apache.solr.client.solrj.io.stream.JavabinTupleStreamParser;
 import org.apache.solr.client.solrj.io.stream.StreamContext;
@@ -167,6 +168,102 @@ public class TestJavabinTupleStreamParser extends SolrTestCaseJ4 {
     assertEquals(Boolean.TRUE, m.get("EOF"));
   }
 
+  public void testBatches() throws IOException {
+    List<Map<String, Object>> l = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      l.add(Map.of("id", i, "f", i * 1.5f, "l", (long) i, "s", "Some str " + i));
+    }
+    l.add(Map.of("id", 10, "s", "Some str 10"));
+    // the /stream handler ends the response with an EOF document
+    l.add(Map.of("EOF", true, "RESPONSE_TIME", 206));
+    byte[] bytes = serialize(listStream(l));
+
+    for (boolean onlyJsonTypes : new boolean[] {true, false}) {
+      List<Map<String, Object>> expected = new ArrayList<>();
+      try (JavabinTupleStreamParser parser =
+          new JavabinTupleStreamParser(new ByteArrayInputStream(bytes), onlyJsonTypes)) {
+        for (Map<String, Object> m = parser.next(); m != null; m = parser.next()) {
+          expected.add(m);
+        }
+      }
+
+      Map<String, Object> expectedEOF = expected.remove(expected.size() - 1);
+      assertEquals(Boolean.TRUE, expectedEOF.get("EOF"));
+
+      List<Map<String, Object>> actual = new ArrayList<>();
+      try (JavabinTupleStreamParser parser =
+          new JavabinTupleStreamParser(new ByteArrayInputStream(bytes), onlyJsonTypes)) {
+        boolean more = true;
+        while (more) {
+          TupleBatch batch = new TupleBatch(3);
+          more = parser.nextBatch(batch);
+          assertTrue(batch.size() == 3 || !more);
+          if (more) {
+            assertNull(batch.getEOF());
+          } else {
+            Tuple eof = batch.getEOF();
+            assertNotNull(eof);
+            assertTrue(eof.EOF);
+            assertEquals(expectedEOF, eof.getFields());
+            assertEquals(-1, batch.getFieldIndex("EOF"));
+            assertEquals(-1, batch.getFieldIndex("RESPONSE_TIME"));
+          }
+          if (batch.size() > 0) {
+            int id = batch.getFieldIndex("id");
+            assertEquals(
+                onlyJsonTypes ? TupleBatch.ColumnType.LONG : TupleBatch.ColumnType.INT,
+                batch.getColumnType(id));
+            int longField = batch.getFieldIndex("l");
+            assertEquals(TupleBatch.ColumnType.LONG, batch.getColumnType(longField));
+          }
+          for (int row = 0; row < batch.size(); row++) {
+            actual.add(batch.getTuple(row).getFields());
+          }
+        }
+      }
+      assertEquals(expected, actual);
+    }
+  }
+
+  private static TupleStream listStream(List<Map<String, Object>> l) {
+    Iterator<Map<String, Object>> iterator = l.iterator();
+    return new TupleStream() {
+      @Override
+      public void setStreamContext(StreamContext context) {}
+
+      @Override
+      public List<TupleStream> children() {
+        return null;
+      }
+
+      @Override
+      public void open() {}
+
+      @Override
+      public void close() {}
+
+      @Override
+      public Tuple read() {
+        if (iterator.hasNext()) return new Tuple(iterator.next());
+        else return null;
+      }
+
+      @Override
+      public StreamComparator getStreamSort() {
+        return null;
+      }
+
+      @Override
+      public Explanation toExplanation(StreamFactory factory) {
+        return new StreamExplanation(getStreamNodeId().toString())
+            .withFunctionName("Dummy")
+            .withImplementingClass(this.getClass().getName())
+            .withExpressionType(Explanation.ExpressionType.STREAM_SOURCE)
+            .withExpression("--non-expressible--");
+      }
+    };
+  }
+
   @SuppressWarnings({"unchecked", "rawtypes"})
   public void testSolrDocumentList() throws IOException {
     SolrQueryResponse response = new SolrQueryResponse();
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.util.Utils;
+import org.apache.solr.util.IntFloatDynamicMap;
+import org.apache.solr.util.IntIntDynamicMap;
+import org.apache.solr.util.IntLongDynamicMap;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+
+/** Tests that collapses on arrays pooled by {@link CollapseArena} select the right group heads. */
+public class TestCollapseArena extends SolrTestCaseJ4 {
+
+  private static final int NUM_DOCS = 500;
+  private static final int[] groups = new int[NUM_DOCS];
+  private static final int[] prices = new int[NUM_DOCS];
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    System.setProperty(CollapseArena.MAX_RAM_MB_PROP, "1");
+    initCore("solrconfig.xml", "schema_latest.xml");
+
+    // distinct prices, so that there are no ties for the head of a group
+    List<Integer> distinctPrices = new ArrayList<>();
+    for (int id = 0; id < NUM_DOCS; id++) {
+      distinctPrices.add(id);
+    }
+    Collections.shuffle(distinctPrices, random());
+    for (int id = 0; id < NUM_DOCS; id++) {
+      groups[id] = random().nextInt(120);
+      prices[id] = distinctPrices.get(id);
+      assertU(
+          adoc(
+              "id",
+              Integer.toString(id),
+              "group_s",
+              "g" + groups[id],
+              "price_i",
+              Integer.toString(prices[id])));
+    }
+    assertU(commit());
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    System.clearProperty(CollapseArena.MAX_RAM_MB_PROP);
+  }
+
+  public void testNoLeaseWhenDisabled() {
+    assertNull(new CollapseArena(0).newLease());
+  }
+
+  public void testLeaseReusesArrays() {
+    CollapseArena arena = new CollapseArena(1024 * 1024);
+    CollapseArena.Lease lease = arena.newLease();
+    int[] ints = lease.newIntArray(100);
+    FixedBitSet bits = lease.newFixedBitSet(1000);
+    bits.set(0, 1000);
+    long intBytes = RamUsageEstimator.shallowSizeOf(ints);
+    long bitBytes = RamUsageEstimator.shallowSizeOf(bits.getBits());
+    assertEquals(intBytes + bitBytes, arena.getAllocatedBytes());
+    assertEquals(0, arena.getReusedBytes());
+    assertEquals(0, arena.getPooledBytes());
+
+    lease.close();
+    assertEquals(intBytes + bitBytes, arena.getPooledBytes());
+
+    lease = arena.newLease();
+    assertSame(ints, lease.newIntArray(100));
+    FixedBitSet reusedBits = lease.newFixedBitSet(1000);
+    assertSame(bits.getBits(), reusedBits.getBits());
+    assertEquals(0, reusedBits.cardinality());
+    assertEquals(intBytes + bitBytes, arena.getReusedBytes());
+    assertEquals(intBytes + bitBytes, arena.getAllocatedBytes());
+    assertEquals(0, arena.getPooledBytes());
+
+    // only arrays of the same type and length are reused
+    int[] longer = lease.newIntArray(101);
+    assertNotSame(ints, longer);
+    float[] floats = lease.newFloatArray(100);
+    assertEquals(
+        intBytes
+            + bitBytes
+            + RamUsageEstimator.shallowSizeOf(longer)
+            + RamUsageEstimator.shallowSizeOf(floats),
+        arena.getAllocatedBytes());
+    lease.close();
+  }
+
+  public void testReusedMapsAreCleared() {
+    CollapseArena arena = new CollapseArena(1024 * 1024);
+    int valueCount = 1000;
+    for (int i = 0; i < 3; i++) {
+      CollapseArena.Lease lease = arena.newLease();
+      IntIntDynamicMap ints = new IntIntDynamicMap(valueCount, -1, lease);
+      IntFloatDynamicMap floats = new IntFloatDynamicMap(valueCount, -Float.MAX_VALUE, lease);
+      IntLongDynamicMap longs = new IntLongDynamicMap(valueCount, Long.MIN_VALUE, lease);
+      // no value is left by the collapse of the previous lease
+      for (int key = 0; key < valueCount; key++) {
+        assertEquals(-1, ints.get(key));
+        assertEquals(-Float.MAX_VALUE, floats.get(key), 0f);
+        assertEquals(Long.MIN_VALUE, longs.get(key));
+      }
+      // enough keys for the maps to be array based
+      for (int key = 0; key < valueCount; key += 2) {
+        ints.put(key, key);
+        floats.put(key, key);
+        longs.put(key, key);
+      }
+      lease.close();
+    }
+    assertTrue(arena.getReusedBytes() > 0);
+  }
+
+  public void testPooledBytesWithinMaxRam() {
+    long arrayBytes = RamUsageEstimator.shallowSizeOf(new int[1000]);
+    CollapseArena arena = new CollapseArena(2 * arrayBytes);
+    CollapseArena.Lease lease = arena.newLease();
+    for (int i = 0; i < 5; i++) {
+      lease.newIntArray(1000);
+    }
+    lease.close();
+    assertEquals(5 * arrayBytes, arena.getAllocatedBytes());
+    assertEquals(2 * arrayBytes, arena.getPooledBytes());
+
+    lease = arena.newLease();
+    for (int i = 0; i < 5; i++) {
+      lease.newIntArray(1000);
+    }
+    assertEquals(2 * arrayBytes, arena.getReusedBytes());
+    assertEquals(8 * arrayBytes, arena.getAllocatedBytes());
+    assertEquals(0, arena.getPooledBytes());
+    lease.close();
+    assertEquals(2 * arrayBytes, arena.getPooledBytes());
+  }
+
+  public void testCollapsesOnPooledArrays() throws Exception {
+    Map<String, IntPredicate> filters = new HashMap<>();
+    filters.put("*:*", id -> true);
+    filters.put("price_i:[0 TO 249]", id -> prices[id] <= 249);
+    filters.put("price_i:[250 TO *]", id -> prices[id] >= 250);
+    filters.put("id:(1 OR 2 OR 3 OR 4 OR 5)", id -> id >= 1 && id <= 5);
+
+    List<String> runs = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      runs.addAll(filters.keySet());
+    }
+    Collections.shuffle(runs, random());
+    for (String fq : runs) {
+      IntPredicate filter = filters.get(fq);
+      assertEquals(fq, heads(filter, true), collapse("*:*", "max=price_i", fq));
+      assertEquals(fq, heads(filter, false), collapse("*:*", "min=price_i", fq));
+      // the score is the price
+      assertEquals(fq, heads(filter, true), collapse("{!func}price_i", "", fq));
+    }
+  }
+
+  public void testArenaMetrics() throws Exception {
+    CollapseArena arena = h.getCore().withSearcher(SolrIndexSearcher::getCollapseArena);
+    collapse("*:*", "max=price_i", "price_i:[0 TO 99]");
+    long allocated = arena.getAllocatedBytes();
+    long reused = arena.getReusedBytes();
+    assertTrue(allocated > 0);
+    assertTrue(arena.getPooledBytes() > 0);
+
+    // the same arrays again, all from the pool
+    collapse("*:*", "max=price_i", "price_i:[100 TO 199]");
+    assertEquals(allocated, arena.getAllocatedBytes());
+    assertTrue(arena.getReusedBytes() > reused);
+    assertTrue(arena.getPooledBytes() <= CollapseArena.maxRamBytes());
+  }
+
+  /** The ids of the docs with the max or min price of their group among the filtered docs */
+  private static Set<String> heads(IntPredicate filter, boolean max) {
+    Map<Integer, Integer> heads = new HashMap<>();
+    for (int id = 0; id < NUM_DOCS; id++) {
+      if (!filter.test(id)) {
+        continue;
+      }
+      Integer head = heads.get(groups[id]);
+      if (head == null || (max ? prices[id] > prices[head] : prices[id] < prices[head])) {
+        heads.put(groups[id], id);
+      }
+    }
+    Set<String> ids = new HashSet<>();
+    for (int id : heads.values()) {
+      ids.add(Integer.toString(id));
+    }
+    return ids;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Set<String> collapse(String q, String selector, String fq) throws Exception {
+    String response =
+        h.query(
+            req(
+                "q",
+                q,
+                "fq",
+                "{!collapse field=group_s " + selector + "}",
+                "fq",
+                fq,
+                "fl",
+                "id",
+                "rows",
+                Integer.toString(NUM_DOCS),
+                "wt",
+                "json"));
+    Map<String, Object> json = (Map<String, Object>) Utils.fromJSONString(response);
+    Map<String, Object> docs = (Map<String, Object>) json.get("response");
+    Set<String> ids = new HashSet<>();
+    for (Map<String, Object> doc : (List<Map<String, Object>>) docs.get("docs")) {
+      ids.add((String) doc.get("id"));
+    }
+    return ids;
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.core.NodeConfig;
+import org.apache.solr.index.NoMergePolicyFactory;
+import org.apache.solr.update.UpdateShardHandlerConfig;
+import org.apache.solr.util.TestHarness;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+
+/**
+ * Tests that collapsing the slices of the index concurrently with {@link
+ * CommonParams#MULTI_THREADED} selects the same group heads as serial collapsing.
+ */
+public class TestCollapseMultiThreaded extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    // keep enough segments for the searcher to have several slices
+    systemSetPropertySolrTestsMergePolicyFactory(NoMergePolicyFactory.class.getName());
+
+    NodeConfig nodeConfig =
+        new NodeConfig.NodeConfigBuilder("testNode", TEST_PATH())
+            .setUseSchemaCache(Boolean.getBoolean("shareSchema"))
+            .setUpdateShardHandlerConfig(UpdateShardHandlerConfig.TEST_DEFAULT)
+            .setIndexSearcherExecutorThreads(4)
+            .build();
+    createCoreContainer(
+        nodeConfig,
+        new TestHarness.TestCoresLocator(
+            DEFAULT_TEST_CORENAME,
+            createTempDir("data").toAbsolutePath().toString(),
+            "solrconfig-tlog.xml",
+            "schema_latest.xml"));
+    h.coreName = DEFAULT_TEST_CORENAME;
+
+    int id = 0;
+    int numSegments = atLeast(12);
+    for (int seg = 0; seg < numSegments; seg++) {
+      int segSize = 1 + random().nextInt(50);
+      for (int i = 0; i < segSize; i++, id++) {
+        List<String> fields = new ArrayList<>();
+        fields.add("id");
+        fields.add(Integer.toString(id));
+        fields.add("price_i");
+        fields.add(Integer.toString(random().nextInt(20)));
+        // some docs are in no group, and groups span segments
+        if (random().nextInt(10) != 0) {
+          int group = random().nextInt(30);
+          fields.add("group_s");
+          fields.add("g" + group);
+          fields.add("group_i");
+          fields.add(Integer.toString(group));
+        }
+        assertU(adoc(fields.toArray(new String[0])));
+      }
+      assertU(commit());
+    }
+
+    h.getCore()
+        .withSearcher(
+            searcher -> {
+              assertTrue(
+                  "Expected > 1 slice, got " + searcher.getSlices().length,
+                  searcher.getSlices().length > 1);
+              return null;
+            });
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    System.clearProperty(SYSTEM_PROPERTY_SOLR_TESTS_MERGEPOLICYFACTORY);
+  }
+
+  public void testSameAsSerial() throws Exception {
+    String[] collapses = {
+      "{!collapse field=group_s}",
+      "{!collapse field=group_s nullPolicy=expand}",
+      "{!collapse field=group_s nullPolicy=collapse max=price_i}",
+      "{!collapse field=group_s min=price_i}",
+      "{!collapse field=group_s sort='price_i desc, id asc'}",
+      "{!collapse field=group_i}",
+      "{!collapse field=group_i nullPolicy=expand min=price_i}",
+      "{!collapse field=group_i sort='price_i asc'}"
+    };
+    // ties in scores and values are won by the first doc of the index
+    String[] queries = {"*:*", "{!func}price_i", "price_i:[5 TO *]"};
+    for (String collapse : collapses) {
+      for (String q : queries) {
+        String serial = collapseResponse(q, collapse, false);
+        String parallel = collapseResponse(q, collapse, true);
+        assertEquals(collapse + " q=" + q, serial, parallel);
+      }
+    }
+  }
+
+  private String collapseResponse(String q, String collapse, boolean multiThreaded)
+      throws Exception {
+    return h.query(
+        req(
+            "q",
+            q,
+            "fq",
+            collapse,
+            "fl",
+            "id,score",
+            "sort",
+            "score desc, id asc",
+            "rows",
+            "1000",
+            "omitHeader",
+            "true",
+            CommonParams.MULTI_THREADED,
+            Boolean.toString(multiThreaded)));
+  }
+}
@@ -128,7 +128,7 @@ public class TestDocSet extends SolrTestCase {
   }
 
   public DocSet getDocSet(FixedBitSet bs) {
-    switch (rand.nextInt(9)) {
+    switch (rand.nextInt(11)) {
       case 0:
       case 1:
       case 2:
@@ -145,6 +145,10 @@ public class TestDocSet extends SolrTestCase {
         return getIntDocSet(bs);
       case 8:
         return getIntDocSet(bs);
+      case 9:
+        return OffHeapBitDocSet.copyOf(new BitDocSet(bs));
+      case 10:
+        return RoaringDocSet.fromBits(bs);
     }
     return null;
   }
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.solr.SolrTestCase;
+
+/** Tests {@link OffHeapBitDocSet} against the equivalent on-heap {@link BitDocSet}. */
+public class TestOffHeapBitDocSet extends SolrTestCase {
+
+  private BitDocSet randomBitDocSet(int maxDoc) {
+    FixedBitSet bits = new FixedBitSet(maxDoc);
+    int density = random().nextInt(10) + 1;
+    for (int i = 0; i < maxDoc; i++) {
+      if (random().nextInt(density) == 0) bits.set(i);
+    }
+    return new BitDocSet(bits);
+  }
+
+  private SortedIntDocSet randomSortedIntDocSet(int maxDoc) {
+    int n = random().nextInt(20);
+    FixedBitSet bits = new FixedBitSet(maxDoc);
+    for (int i = 0; i < n; i++) {
+      bits.set(random().nextInt(maxDoc));
+    }
+    int[] docs = new int[bits.cardinality()];
+    int pos = 0;
+    for (int doc = bits.nextSetBit(0);
+        doc != DocIdSetIterator.NO_MORE_DOCS;
+        doc = doc + 1 < maxDoc ? bits.nextSetBit(doc + 1) : DocIdSetIterator.NO_MORE_DOCS) {
+      docs[pos++] = doc;
+    }
+    return new SortedIntDocSet(docs);
+  }
+
+  private static void assertSameDocs(DocSet expected, DocSet actual) {
+    assertEquals(expected.size(), actual.size());
+    DocIterator e = expected.iterator();
+    DocIterator a = actual.iterator();
+    while (e.hasNext()) {
+      assertTrue(a.hasNext());
+      assertEquals(e.nextDoc(), a.nextDoc());
+    }
+    assertFalse(a.hasNext());
+  }
+
+  public void testOperations() {
+    for (int iter = 0; iter < 50; iter++) {
+      int maxDoc = random().nextInt(1000) + 1;
+      BitDocSet a = randomBitDocSet(maxDoc);
+      OffHeapBitDocSet offHeap = OffHeapBitDocSet.copyOf(a);
+      assertSameDocs(a, offHeap);
+      assertEquals(a.getBits(), offHeap.getFixedBitSetClone());
+      for (int i = 0; i < maxDoc; i++) {
+        assertEquals(a.exists(i), offHeap.exists(i));
+        assertEquals(a.getBits().get(i), offHeap.getBits().get(i));
+      }
+      assertTrue(offHeap.ramBytesUsed() >= offHeap.offHeapBytesUsed());
+
+      DocSet[] others = {
+        randomBitDocSet(maxDoc),
+        OffHeapBitDocSet.copyOf(randomBitDocSet(maxDoc)),
+        randomSortedIntDocSet(maxDoc),
+        DocSet.empty()
+      };
+      for (DocSet b : others) {
+        assertSameDocs(a.intersection(b), offHeap.intersection(b));
+        assertSameDocs(b.intersection(a), b.intersection(offHeap));
+        assertEquals(a.intersectionSize(b), offHeap.intersectionSize(b));
+        assertEquals(b.intersectionSize(a), b.intersectionSize(offHeap));
+        assertEquals(a.intersects(b), offHeap.intersects(b));
+        assertEquals(a.unionSize(b), offHeap.unionSize(b));
+        assertEquals(a.andNotSize(b), offHeap.andNotSize(b));
+        assertSameDocs(a.union(b), offHeap.union(b));
+        assertSameDocs(b.union(a), b.union(offHeap));
+        assertSameDocs(a.andNot(b), offHeap.andNot(b));
+        assertSameDocs(b.andNot(a), b.andNot(offHeap));
+
+        MutableBitDocSet mutable = MutableBitDocSet.fromOffHeapBitDocSet(offHeap);
+        assertSameDocs(
+            a.intersection(b), MutableBitDocSet.unwrapIfMutable(mutable.intersection(b)));
+      }
+
+      FixedBitSet target = new FixedBitSet(maxDoc);
+      offHeap.addAllTo(target);
+      assertEquals(a.getBits(), target);
+    }
+  }
+
+  public void testFilterCacheStoresOffHeap() throws IOException {
+    OffHeapFilterCache cache = new OffHeapFilterCache();
+    Map<String, String> params = new HashMap<>();
+    params.put("maxRamMB", "1");
+    cache.init(params, null, new NoOpRegenerator());
+
+    Query q1 = new TermQuery(new Term("f", "a"));
+    Query q2 = new MatchAllDocsQuery();
+    Query q3 = new TermQuery(new Term("f", "b"));
+    BitDocSet bits = randomBitDocSet(10000);
+
+    cache.put(q1, bits);
+    DocSet cached = cache.get(q1);
+    assertTrue(cached instanceof OffHeapBitDocSet);
+    assertSameDocs(bits, cached);
+    assertEquals(((OffHeapBitDocSet) cached).offHeapBytesUsed(), cache.offHeapBytesUsed());
+
+    DocSet computed = cache.computeIfAbsent(q2, q -> randomBitDocSet(10000));
+    assertTrue(computed instanceof OffHeapBitDocSet);
+    assertSame(computed, cache.get(q2));
+
+    // small sets are kept as is
+    SortedIntDocSet small = randomSortedIntDocSet(10000);
+    cache.put(q3, small);
+    assertSame(small, cache.get(q3));
+
+    // evicted sets may still be in use, so they are only freed once garbage collected
+    long used = cache.offHeapBytesUsed();
+    cache.clear();
+    assertEquals(0, cache.offHeapBytesUsed());
+    assertEquals(used, cache.retiredOffHeapBytes());
+    assertSameDocs(bits, cached);
+
+    cache.put(q1, bits);
+    cache.close();
+    assertEquals(0, cache.offHeapBytesUsed());
+    assertEquals(used, cache.retiredOffHeapBytes());
+  }
+
+  public void testEvictedSetsFreedWhenCollected() throws Exception {
+    OffHeapFilterCache cache = new OffHeapFilterCache();
+    Map<String, String> params = new HashMap<>();
+    params.put("size", "2");
+    cache.init(params, null, new NoOpRegenerator());
+    try {
+      // far more bitsets than the cache holds, as under filter churn on a long-lived searcher
+      for (int i = 0; i < 100; i++) {
+        cache.put(new TermQuery(new Term("f", Integer.toString(i))), randomBitDocSet(100000));
+      }
+      long setBytes = (long) FixedBitSet.bits2words(100000) * Long.BYTES;
+      assertEquals(cache.size() * setBytes, cache.offHeapBytesUsed());
+
+      // nothing references the evicted sets anymore
+      for (int i = 0; i < 100 && cache.retiredOffHeapBytes() != 0; i++) {
+        System.gc();
+        Thread.sleep(50);
+      }
+      assertEquals(0, cache.retiredOffHeapBytes());
+    } finally {
+      cache.close();
+    }
+  }
+}
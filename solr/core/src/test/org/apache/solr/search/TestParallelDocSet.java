@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+
+/** Tests the concurrent DocSet collection used by {@link DocSetUtil#createDocSetGeneric}. */
+public class TestParallelDocSet extends SolrTestCase {
+
+  public void testSharedBitSetCollectorManager() throws IOException {
+    ExecutorService executor =
+        ExecutorUtil.newMDCAwareFixedThreadPool(4, new SolrNamedThreadFactory("parallelDocSet"));
+    try (Directory dir = new ByteBuffersDirectory();
+        IndexWriter writer =
+            new IndexWriter(dir, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+      int numSegments = atLeast(8);
+      int numDocs = 0;
+      for (int seg = 0; seg < numSegments; seg++) {
+        // odd segment sizes so that most segment boundaries fall inside a 64-bit word
+        int segSize = 1 + random().nextInt(200);
+        for (int i = 0; i < segSize; i++) {
+          Document doc = new Document();
+          doc.add(new StringField("id", Integer.toString(numDocs++), Field.Store.NO));
+          doc.add(new StringField("f", random().nextBoolean() ? "a" : "b", Field.Store.NO));
+          writer.addDocument(doc);
+        }
+        writer.commit();
+      }
+      for (int i = 0; i < numDocs / 10; i++) {
+        writer.deleteDocuments(new Term("id", Integer.toString(random().nextInt(numDocs))));
+      }
+      writer.commit();
+
+      try (DirectoryReader reader = DirectoryReader.open(dir)) {
+        // one slice per segment, so that neighbouring segments are collected by different threads
+        IndexSearcher searcher =
+            new IndexSearcher(reader, executor) {
+              @Override
+              protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+                return slices(leaves, 1, 1, false);
+              }
+            };
+        assertEquals(reader.leaves().size(), searcher.getSlices().length);
+
+        for (String value : new String[] {"a", "b"}) {
+          Query query = new TermQuery(new Term("f", value));
+
+          FixedBitSet expected = new FixedBitSet(reader.maxDoc());
+          Weight weight =
+              searcher.createWeight(searcher.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
+          for (LeafReaderContext ctx : reader.leaves()) {
+            Scorer scorer = weight.scorer(ctx);
+            if (scorer == null) continue;
+            Bits liveDocs = ctx.reader().getLiveDocs();
+            DocIdSetIterator it = scorer.iterator();
+            for (int doc = it.nextDoc();
+                doc != DocIdSetIterator.NO_MORE_DOCS;
+                doc = it.nextDoc()) {
+              if (liveDocs == null || liveDocs.get(doc)) {
+                expected.set(ctx.docBase + doc);
+              }
+            }
+          }
+
+          BitDocSet parallel =
+              searcher.search(query, new DocSetUtil.SharedBitSetCollectorManager(reader.maxDoc()));
+          assertEquals(expected.cardinality(), parallel.size());
+          assertEquals(expected, parallel.getBits());
+        }
+      }
+    } finally {
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+    }
+  }
+}
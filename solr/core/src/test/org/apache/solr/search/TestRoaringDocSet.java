@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.solr.SolrTestCase;
+
+/**
+ * Tests {@link RoaringDocSet} across multiple 64K blocks and all container types, against the
+ * other DocSet implementations. {@link TestDocSet} covers small random sets.
+ */
+public class TestRoaringDocSet extends SolrTestCase {
+
+  /** Returns a bitset mixing empty, sparse, dense and clustered blocks. */
+  private FixedBitSet randomBits(int maxDoc) {
+    FixedBitSet bits = new FixedBitSet(maxDoc);
+    for (int base = 0; base < maxDoc; base += 1 << 16) {
+      int end = Math.min(base + (1 << 16), maxDoc);
+      switch (random().nextInt(4)) {
+        case 0: // empty
+          break;
+        case 1: // sparse
+          for (int i = 0, n = random().nextInt(2000); i < n; i++) {
+            bits.set(base + random().nextInt(end - base));
+          }
+          break;
+        case 2: // dense
+          for (int doc = base; doc < end; doc++) {
+            if (random().nextInt(3) == 0) bits.set(doc);
+          }
+          break;
+        default: // runs
+          for (int doc = base; doc < end; ) {
+            int len = random().nextInt(500) + 1;
+            if (random().nextBoolean()) bits.set(doc, Math.min(doc + len, end));
+            doc += len;
+          }
+      }
+    }
+    return bits;
+  }
+
+  private static SortedIntDocSet toSortedIntDocSet(FixedBitSet bits) {
+    return (SortedIntDocSet) DocSetUtil.toSmallSet(new BitDocSet(bits));
+  }
+
+  private static void assertSameDocs(FixedBitSet expected, DocSet actual) {
+    assertEquals(expected.cardinality(), actual.size());
+    DocIterator iter = actual.iterator();
+    for (int doc = expected.nextSetBit(0);
+        doc < expected.length();
+        doc = doc + 1 < expected.length() ? expected.nextSetBit(doc + 1) : Integer.MAX_VALUE) {
+      assertTrue(iter.hasNext());
+      assertEquals(doc, iter.nextDoc());
+    }
+    assertFalse(iter.hasNext());
+  }
+
+  public void testContainers() {
+    int maxDoc = random().nextInt(5 << 16) + 1;
+    FixedBitSet bits = randomBits(maxDoc);
+    RoaringDocSet set = RoaringDocSet.fromBits(bits);
+    assertSameDocs(bits, set);
+    for (int i = 0; i < 1000; i++) {
+      int doc = random().nextInt(maxDoc);
+      assertEquals(bits.get(doc), set.exists(doc));
+      assertEquals(bits.get(doc), set.getBits().get(doc));
+    }
+    assertEquals(bits, set.getFixedBitSetClone());
+    assertEquals(RoaringDocSet.estimateRamBytesUsed(bits), set.ramBytesUsed(), 1024);
+  }
+
+  public void testOperations() {
+    for (int iter = 0; iter < 10; iter++) {
+      int maxDoc = random().nextInt(4 << 16) + 1;
+      FixedBitSet aBits = randomBits(maxDoc);
+      FixedBitSet bBits = randomBits(maxDoc);
+      RoaringDocSet a = RoaringDocSet.fromBits(aBits);
+
+      FixedBitSet and = aBits.clone();
+      and.and(bBits);
+      FixedBitSet or = aBits.clone();
+      or.or(bBits);
+      FixedBitSet andNot = aBits.clone();
+      andNot.andNot(bBits);
+      FixedBitSet notAnd = bBits.clone();
+      notAnd.andNot(aBits);
+
+      List<DocSet> others = new ArrayList<>();
+      others.add(RoaringDocSet.fromBits(bBits));
+      others.add(new BitDocSet(bBits.clone()));
+      others.add(OffHeapBitDocSet.copyOf(new BitDocSet(bBits)));
+      others.add(toSortedIntDocSet(bBits));
+      for (DocSet b : others) {
+        assertSameDocs(and, a.intersection(b));
+        assertSameDocs(and, b.intersection(a));
+        assertSameDocs(or, a.union(b));
+        assertSameDocs(or, b.union(a));
+        assertSameDocs(andNot, a.andNot(b));
+        assertSameDocs(notAnd, b.andNot(a));
+        assertEquals(and.cardinality(), a.intersectionSize(b));
+        assertEquals(and.cardinality(), b.intersectionSize(a));
+        assertEquals(and.cardinality() > 0, a.intersects(b));
+        assertEquals(or.cardinality(), a.unionSize(b));
+        assertEquals(andNot.cardinality(), a.andNotSize(b));
+
+        MutableBitDocSet mutable = MutableBitDocSet.fromBitDocSet(new BitDocSet(bBits.clone()));
+        assertSameDocs(and, MutableBitDocSet.unwrapIfMutable(mutable.intersection(a)));
+        mutable = MutableBitDocSet.fromBitDocSet(new BitDocSet(bBits.clone()));
+        assertSameDocs(notAnd, MutableBitDocSet.unwrapIfMutable(mutable.andNot(a)));
+      }
+    }
+  }
+
+  public void testCompactBitSet() {
+    boolean enabled = DocSetUtil.roaringEnabled;
+    try {
+      int maxDoc = 10 << 16;
+      // a time-range like filter: one long run
+      FixedBitSet clustered = new FixedBitSet(maxDoc);
+      clustered.set(maxDoc / 3, 2 * maxDoc / 3);
+      // every other doc: runs and arrays would both be larger than a bitmap
+      FixedBitSet dense = new FixedBitSet(maxDoc);
+      for (int doc = 0; doc < maxDoc; doc += 2) dense.set(doc);
+
+      DocSetUtil.roaringEnabled = false;
+      assertTrue(DocSetUtil.compactBitSet(clustered, -1) instanceof BitDocSet);
+
+      DocSetUtil.roaringEnabled = true;
+      DocSet compact = DocSetUtil.compactBitSet(clustered, -1);
+      assertTrue(compact instanceof RoaringDocSet);
+      assertSameDocs(clustered, compact);
+      assertTrue(compact.ramBytesUsed() < new BitDocSet(clustered).ramBytesUsed() / 100);
+      assertTrue(DocSetUtil.compactBitSet(dense, -1) instanceof BitDocSet);
+    } finally {
+      DocSetUtil.roaringEnabled = enabled;
+    }
+  }
+}
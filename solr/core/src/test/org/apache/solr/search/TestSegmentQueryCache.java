@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.LRUQueryCache;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermRangeQuery;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.index.NoMergePolicyFactory;
+import org.junit.BeforeClass;
+
+/** Tests that the segment query cache of a core is reused by the searchers it opens. */
+public class TestSegmentQueryCache extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    // keep the segments of previous searchers
+    systemSetPropertySolrTestsMergePolicyFactory(NoMergePolicyFactory.class.getName());
+    initCore("solrconfig-segmentquerycache.xml", "schema11.xml");
+  }
+
+  private int numMatches;
+
+  private void addDocs(int from, int to) {
+    for (int i = from; i < to; i++) {
+      char letter = (char) ('a' + i % 26);
+      if (letter >= 'b' && letter <= 'd') {
+        numMatches++;
+      }
+      assertU(adoc("id", Integer.toString(i), "foo_s", String.valueOf(letter)));
+    }
+    assertU(commit());
+  }
+
+  private int count(Query query) throws Exception {
+    return h.getCore()
+        .withSearcher(searcher -> DocSetUtil.createDocSetGeneric(searcher, query).size());
+  }
+
+  private Set<IndexReader.CacheKey> segmentKeys() throws Exception {
+    return h.getCore()
+        .withSearcher(
+            searcher -> {
+              Set<IndexReader.CacheKey> keys = new HashSet<>();
+              for (LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+                keys.add(leaf.reader().getCoreCacheHelper().getKey());
+              }
+              return keys;
+            });
+  }
+
+  public void testReuseAcrossReopen() throws Exception {
+    LRUQueryCache cache = h.getCore().getSegmentQueryCache();
+    assertNotNull(cache);
+    Query query = TermRangeQuery.newStringRange("foo_s", "b", "d", true, true);
+
+    addDocs(0, 100);
+    addDocs(100, 200);
+    // the caching policy only caches queries that were used several times
+    for (int i = 0; i < 6; i++) {
+      assertEquals(numMatches, count(query));
+    }
+    Set<IndexReader.CacheKey> segments = segmentKeys();
+    assertEquals(segments.size(), cache.getCacheSize());
+    long hits = cache.getHitCount();
+    assertEquals(numMatches, count(query));
+    assertEquals(hits + segments.size(), cache.getHitCount());
+
+    // deletes are applied to the cached matches of a segment
+    assertU(delI("1"));
+    numMatches--;
+    addDocs(200, 300);
+    Set<IndexReader.CacheKey> reopened = segmentKeys();
+    Set<IndexReader.CacheKey> unchanged = new HashSet<>(reopened);
+    unchanged.retainAll(segments);
+    assertFalse(unchanged.isEmpty());
+    hits = cache.getHitCount();
+    assertEquals(numMatches, count(query));
+    assertEquals(
+        "the unchanged segments should be reused", hits + unchanged.size(), cache.getHitCount());
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.tests.util.TestUtil;
+import org.apache.lucene.util.LongValues;
+import org.apache.solr.SolrTestCaseJ4;
+import org.junit.BeforeClass;
+
+/** Tests that {@link TermBlockCache} returns the same terms as the docValues it caches. */
+public class TestTermBlockCache extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    initCore("solrconfig-sortingresponse.xml", "schema-sortingresponse.xml");
+  }
+
+  public void testLookupOrd() throws Exception {
+    int numDocs = atLeast(3000);
+    for (int i = 0; i < numDocs; i++) {
+      assertU(
+          adoc("id", String.valueOf(i), "stringdv", TestUtil.randomSimpleString(random(), 1, 8)));
+      if (random().nextInt(500) == 0) {
+        assertU(commit());
+      }
+    }
+    assertU(commit());
+
+    h.getCore()
+        .withSearcher(
+            searcher -> {
+              TermBlockCache cache = searcher.getTermBlockCache();
+              assertNotNull(cache);
+              TermBlockCache.FieldTerms terms = cache.forField("stringdv");
+              SortedDocValues global =
+                  searcher.getSlowAtomicReader().getSortedDocValues("stringdv");
+              int valueCount = global.getValueCount();
+              for (int i = 0; i < 1000; i++) {
+                int ord = random().nextInt(valueCount);
+                assertEquals(global.lookupOrd(ord), terms.lookupOrd(ord));
+              }
+              int numBlocks =
+                  (valueCount + TermBlockCache.BLOCK_SIZE - 1) / TermBlockCache.BLOCK_SIZE;
+              assertTrue(cache.size() <= numBlocks);
+
+              // segment ordinals are mapped to global ordinals
+              for (LeafReaderContext leaf : searcher.getTopReaderContext().leaves()) {
+                SortedDocValues values = DocValues.getSorted(leaf.reader(), "stringdv");
+                LongValues globalOrds = terms.getGlobalOrds(leaf.ord);
+                while (values.nextDoc() != DocIdSetIterator.NO_MORE_DOCS) {
+                  int ord = values.ordValue();
+                  assertEquals(values.lookupOrd(ord), terms.lookupOrd((int) globalOrds.get(ord)));
+                }
+              }
+
+              // another handle on the same searcher reuses the cached blocks
+              long cached = cache.size();
+              TermBlockCache.FieldTerms other = cache.forField("stringdv");
+              other.lookupOrd(0);
+              other.lookupOrd(valueCount - 1);
+              assertEquals(cached, cache.size());
+
+              // the blocks are held by the configured user cache, which reports the usual metrics
+              SolrCache<?, ?> blocks = searcher.getCache(TermBlockCache.CACHE_NAME);
+              assertEquals(cached, blocks.size());
+              assertTrue(blocks.ramBytesUsed() > 0);
+              return null;
+            });
+  }
+}
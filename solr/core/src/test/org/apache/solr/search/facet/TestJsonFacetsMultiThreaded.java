@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.facet;
+
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.core.NodeConfig;
+import org.apache.solr.index.NoMergePolicyFactory;
+import org.apache.solr.update.UpdateShardHandlerConfig;
+import org.apache.solr.util.TestHarness;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+
+/**
+ * Tests that terms facets collected per index slice with {@link CommonParams#MULTI_THREADED} return
+ * the same results as serial collection.
+ */
+public class TestJsonFacetsMultiThreaded extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    // keep enough segments for the searcher to have several slices
+    systemSetPropertySolrTestsMergePolicyFactory(NoMergePolicyFactory.class.getName());
+
+    NodeConfig nodeConfig =
+        new NodeConfig.NodeConfigBuilder("testNode", TEST_PATH())
+            .setUseSchemaCache(Boolean.getBoolean("shareSchema"))
+            .setUpdateShardHandlerConfig(UpdateShardHandlerConfig.TEST_DEFAULT)
+            .setIndexSearcherExecutorThreads(4)
+            .build();
+    createCoreContainer(
+        nodeConfig,
+        new TestHarness.TestCoresLocator(
+            DEFAULT_TEST_CORENAME,
+            createTempDir("data").toAbsolutePath().toString(),
+            "solrconfig-tlog.xml",
+            "schema_latest.xml"));
+    h.coreName = DEFAULT_TEST_CORENAME;
+
+    int id = 0;
+    int numSegments = atLeast(12);
+    for (int seg = 0; seg < numSegments; seg++) {
+      int segSize = 1 + random().nextInt(50);
+      for (int i = 0; i < segSize; i++, id++) {
+        // whole numbers, so that sums don't depend on the order of additions
+        assertU(
+            adoc(
+                "id",
+                Integer.toString(id),
+                "cat_sd",
+                "cat" + random().nextInt(20),
+                "tags_sds",
+                "tag" + random().nextInt(10),
+                "tags_sds",
+                "tag" + random().nextInt(10),
+                "val_sd",
+                "val" + random().nextInt(30),
+                "price_dd",
+                Integer.toString(random().nextInt(100))));
+      }
+      assertU(commit());
+    }
+
+    h.getCore()
+        .withSearcher(
+            searcher -> {
+              assertTrue(
+                  "Expected > 1 slice, got " + searcher.getSlices().length,
+                  searcher.getSlices().length > 1);
+              return null;
+            });
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    System.clearProperty(SYSTEM_PROPERTY_SOLR_TESTS_MERGEPOLICYFACTORY);
+  }
+
+  public void testSameAsSerial() throws Exception {
+    String[] facets = {
+      "{f:{type:terms, field:cat_sd, limit:-1}}",
+      "{f:{type:terms, field:tags_sds, limit:-1}}",
+      "{f:{type:terms, field:cat_sd, limit:5, sort:'x desc',"
+          + " facet:{x:'sum(price_dd)', y:'avg(price_dd)', u:'unique(val_sd)'}}}",
+      "{f:{type:terms, field:tags_sds, limit:-1,"
+          + " facet:{x:'sum(price_dd)', y:'avg(price_dd)', u:'unique(val_sd)'}}}",
+      "{f:{type:terms, field:cat_sd, prefix:cat1, limit:-1, facet:{u:'unique(val_sd)'}}}",
+      "{f:{type:terms, field:cat_sd, limit:-1, sort:'u asc', facet:{u:'unique(val_sd)'}}}"
+    };
+    for (String facet : facets) {
+      for (String q : new String[] {"*:*", "tags_sds:tag1"}) {
+        String serial = facetResponse(q, facet, false);
+        String parallel = facetResponse(q, facet, true);
+        assertEquals(facet, serial, parallel);
+      }
+    }
+  }
+
+  private String facetResponse(String q, String facet, boolean multiThreaded) throws Exception {
+    return h.query(
+        req(
+            "q",
+            q,
+            "rows",
+            "0",
+            "omitHeader",
+            "true",
+            "json.facet",
+            facet,
+            CommonParams.MULTI_THREADED,
+            Boolean.toString(multiThreaded)));
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.facet;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.index.NoMergePolicyFactory;
+import org.junit.BeforeClass;
+
+/**
+ * Tests that {@link UnInvertedField} reuses the segments un-inverted by previous searchers, and
+ * that the stitched segments facet like the terms of the whole index.
+ */
+public class TestUnInvertedField extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    // new segments must not be merged with the ones they are compared to
+    systemSetPropertySolrTestsMergePolicyFactory(NoMergePolicyFactory.class.getName());
+    initCore("solrconfig.xml", "schema11.xml");
+  }
+
+  String t(int tnum) {
+    return String.format(Locale.ROOT, "t%05d", tnum);
+  }
+
+  private Set<IndexReader.CacheKey> previousSegments = Set.of();
+
+  public void testReuseAcrossReopen() throws Exception {
+    int id = 0;
+    int numCommits = atLeast(4);
+    for (int c = 0; c < numCommits; c++) {
+      int numDocs = 1 + random().nextInt(200);
+      for (int i = 0; i < numDocs; i++, id++) {
+        // more than 128 terms per segment to use the index of terms, and a value common enough to
+        // be counted with set intersections
+        assertU(
+            adoc(
+                "id",
+                Integer.toString(id),
+                "foo_ss",
+                t(random().nextInt(1000)),
+                "foo_ss",
+                t(random().nextInt(300)),
+                "foo_ss",
+                random().nextBoolean() ? "common" : t(random().nextInt(50))));
+      }
+      if (id > 10 && random().nextBoolean()) {
+        assertU(delI(Integer.toString(random().nextInt(id))));
+      }
+      assertU(commit());
+
+      assertFacetsMatch();
+      previousSegments =
+          h.getCore()
+              .withSearcher(
+                  searcher -> {
+                    UnInvertedField uif = UnInvertedField.getUnInvertedField("foo_ss", searcher);
+                    Set<IndexReader.CacheKey> segments = new HashSet<>();
+                    for (LeafReaderContext leaf : searcher.getRawReader().leaves()) {
+                      segments.add(leaf.reader().getCoreCacheHelper().getKey());
+                    }
+                    Set<IndexReader.CacheKey> unchanged = new HashSet<>(segments);
+                    unchanged.retainAll(previousSegments);
+                    // only the segments written since the previous searcher were un-inverted
+                    assertEquals(uif.toString(), unchanged.size(), uif.reusedSegments);
+                    return segments;
+                  });
+    }
+  }
+
+  public void testSegmentsFollowFieldValueCache() throws Exception {
+    for (int i = 0; i < 50; i++) {
+      assertU(adoc("id", "a" + i, "bar_ss", t(i), "bar_ss", t(i + 1)));
+    }
+    assertU(commit());
+    h.getCore()
+        .withSearcher(searcher -> UnInvertedField.getUnInvertedField("bar_ss", searcher));
+
+    // the field is no longer cached by the previous searcher, so its segments are not taken over
+    h.getCore()
+        .withSearcher(
+            searcher -> {
+              searcher.getFieldValueCache().clear();
+              return null;
+            });
+    assertU(adoc("id", "b", "bar_ss", t(100)));
+    assertU(commit());
+    h.getCore()
+        .withSearcher(
+            searcher -> {
+              UnInvertedField uif = UnInvertedField.getUnInvertedField("bar_ss", searcher);
+              assertEquals(uif.toString(), 0, uif.reusedSegments);
+              return null;
+            });
+
+    // while it is cached, the next searcher reuses every segment it shares with the previous one
+    assertU(adoc("id", "c", "bar_ss", t(101)));
+    assertU(commit());
+    h.getCore()
+        .withSearcher(
+            searcher -> {
+              UnInvertedField uif = UnInvertedField.getUnInvertedField("bar_ss", searcher);
+              assertEquals(
+                  uif.toString(), searcher.getRawReader().leaves().size() - 1, uif.reusedSegments);
+              return null;
+            });
+  }
+
+  private void assertFacetsMatch() throws Exception {
+    String[] facets = {
+      "{f:{type:terms, field:foo_ss, limit:-1, method:%s}}",
+      "{f:{type:terms, field:foo_ss, limit:-1, prefix:t001, method:%s}}",
+      "{f:{type:terms, field:foo_ss, limit:20, offset:5, sort:'index asc', method:%s}}",
+      "{f:{type:terms, field:foo_ss, limit:10, method:%s, facet:{u:'unique(foo_ss)'}}}"
+    };
+    for (String facet : facets) {
+      for (String q : new String[] {"*:*", "id:[0 TO 99]"}) {
+        String expected =
+            h.query(
+                req(
+                    "q",
+                    q,
+                    "rows",
+                    "0",
+                    "omitHeader",
+                    "true",
+                    "json.facet",
+                    String.format(Locale.ROOT, facet, "enum")));
+        String actual =
+            h.query(
+                req(
+                    "q",
+                    q,
+                    "rows",
+                    "0",
+                    "omitHeader",
+                    "true",
+                    "json.facet",
+                    String.format(Locale.ROOT, facet, "uif")));
+        assertEquals(facet + " q=" + q, expected, actual);
+      }
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.join;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import org.apache.solr.SolrTestCase;
+
+public class CrossCollectionJoinKeysTest extends SolrTestCase {
+
+  public void testStringKeys() throws Exception {
+    TreeSet<String> expected = new TreeSet<>();
+    int numKeys = atLeast(1000);
+    for (int i = 0; i < numKeys; i++) {
+      expected.add("key_" + random().nextInt(100000));
+    }
+    // streamed in sorted order, like the keys of a join
+    assertEquals(new ArrayList<>(expected), readKeys(new ArrayList<>(expected)));
+  }
+
+  public void testNumericKeys() throws Exception {
+    List<Object> expected = new ArrayList<>();
+    long value = random().nextInt(1000) - 500;
+    int numKeys = atLeast(1000);
+    for (int i = 0; i < numKeys; i++) {
+      value += 1 + random().nextInt(1000);
+      expected.add(value);
+    }
+    assertEquals(expected, readKeys(expected));
+  }
+
+  public void testEmptyKeys() throws Exception {
+    assertEquals(List.of(), readKeys(List.of()));
+  }
+
+  public void testMixedKeysAreNotCacheable() {
+    CrossCollectionJoinKeys.Builder builder = new CrossCollectionJoinKeys.Builder();
+    builder.add(1L);
+    builder.add("a");
+    assertNull(builder.build());
+
+    builder = new CrossCollectionJoinKeys.Builder();
+    builder.add(1.5d);
+    assertNull(builder.build());
+  }
+
+  public void testStopsWhenConsumerReturnsFalse() throws Exception {
+    CrossCollectionJoinKeys.Builder builder = new CrossCollectionJoinKeys.Builder();
+    for (long i = 0; i < 10; i++) {
+      builder.add(i);
+    }
+    List<Object> read = new ArrayList<>();
+    builder
+        .build()
+        .forEach(
+            value -> {
+              read.add(value);
+              return read.size() < 3;
+            });
+    assertEquals(List.of(0L, 1L, 2L), read);
+  }
+
+  private static List<Object> readKeys(List<?> keys) throws Exception {
+    CrossCollectionJoinKeys.Builder builder = new CrossCollectionJoinKeys.Builder();
+    for (Object key : keys) {
+      builder.add(key);
+    }
+    CrossCollectionJoinKeys built = builder.build();
+    assertNotNull(built);
+    assertTrue(built.ramBytesUsed() > 0);
+    List<Object> read = new ArrayList<>();
+    built.forEach(
+        value -> {
+          read.add(value);
+          return true;
+        });
+    return read;
+  }
+}
@@ -16,6 +16,9 @@
  */
 package org.apache.solr.search.join;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.params.SolrParams;
@@ -142,6 +145,51 @@ public class GraphQueryTest extends SolrTestCaseJ4 {
         "/response/numFound==1");
   }
 
+  @Test
+  public void testOrdinalsSameAsQueries() throws Exception {
+    // a random graph, over segments with deleted and updated documents
+    int numNodes = 200;
+    for (int i = 0; i < 3 * numNodes; i++) {
+      int node = random().nextInt(numNodes);
+      List<String> fields = new ArrayList<>(List.of("id", "rg_" + node, "rnode_s", "n" + node));
+      fields.addAll(List.of("rnode_sdN", "n" + node, "rtext_s", "t" + random().nextInt(3)));
+      int numEdges = random().nextInt(4);
+      for (int e = 0; e < numEdges; e++) {
+        // some edges point to no node
+        String edge = "n" + random().nextInt(numNodes + 20);
+        fields.addAll(List.of("redge_ss", edge, "redge_sdsN", edge));
+      }
+      assertU(adoc(fields.toArray(new String[0])));
+      if (random().nextInt(50) == 0) {
+        assertU(commit());
+      }
+      if (random().nextInt(20) == 0) {
+        assertU(delI("rg_" + random().nextInt(numNodes)));
+      }
+    }
+    assertU(commit());
+
+    String[] graphs = {
+      "{!graph from=rnode_s to=redge_ss %s}rnode_s:(n1 n2 n3)",
+      "{!graph from=rnode_sdN to=redge_sdsN %s}rnode_s:n4",
+      "{!graph from=redge_ss to=rnode_s %s}rnode_s:n5",
+      "{!graph from=rnode_s to=redge_ss maxDepth=2 %s}rnode_s:(n6 n7)",
+      "{!graph from=rnode_s to=redge_ss returnRoot=false %s}rnode_s:n8",
+      "{!graph from=rnode_s to=redge_ss returnOnlyLeaf=true %s}rnode_s:(n9 n10)",
+      "{!graph from=rnode_s to=redge_ss traversalFilter='rtext_s:(t0 t1)' %s}rnode_s:n11",
+      "{!graph from=rnode_s to=redge_ss maxDepth=0 %s}rnode_s:n12"
+    };
+    for (String graph : graphs) {
+      String expected = graphResponse(String.format(Locale.ROOT, graph, "useOrdinals=false"));
+      String actual = graphResponse(String.format(Locale.ROOT, graph, "useOrdinals=true"));
+      assertEquals(graph, expected, actual);
+    }
+  }
+
+  private String graphResponse(String q) throws Exception {
+    return h.query(req("q", q, "fl", "id", "sort", "id asc", "rows", "1000", "omitHeader", "true"));
+  }
+
   @Test
   public void testGraphQueryParserValidation() {
     // from schema field existence
@@ -364,6 +364,61 @@ public class SolrCmdDistributorTest extends BaseDistributedSearchTestCase {
     testDeletes(true, false);
     getRfFromResponseShouldNotCloseTheInputStream();
     testStuckUpdates();
+    testBatchedUpdates();
+  }
+
+  private void testBatchedUpdates() throws Exception {
+    final var solrclient = clients.getFirst();
+    solrclient.commit(true, true);
+    long numFoundBefore = solrclient.query(new SolrQuery("*:*")).getResults().getNumFound();
+    ZkNodeProps nodeProps =
+        new ZkNodeProps(
+            ZkStateReader.BASE_URL_PROP,
+            solrclient.getBaseURL(),
+            ZkStateReader.CORE_NAME_PROP,
+            solrclient.getDefaultCollection());
+    List<Node> nodes = List.of(new StdNode(new ZkCoreNodeProps(nodeProps)));
+
+    int numThreads = 4;
+    int docsPerThread = 50;
+    List<SolrError> errors = new ArrayList<>();
+    try (ReplicaUpdateBatcher batcher = new ReplicaUpdateBatcher(updateShardHandler, 50, 10)) {
+      // the adds of concurrent distributors to the same replica are sent together
+      List<Thread> threads = new ArrayList<>();
+      for (int t = 0; t < numThreads; t++) {
+        threads.add(
+            new Thread(
+                () -> {
+                  try (SolrCmdDistributor cmdDistrib =
+                      new SolrCmdDistributor(updateShardHandler, batcher)) {
+                    for (int i = 0; i < docsPerThread; i++) {
+                      AddUpdateCommand cmd = new AddUpdateCommand(null);
+                      cmd.solrDoc = sdoc("id", uniqueId.incrementAndGet());
+                      cmdDistrib.distribAdd(cmd, nodes, new ModifiableSolrParams());
+                    }
+                    cmdDistrib.finish();
+                    synchronized (errors) {
+                      errors.addAll(cmdDistrib.getErrors());
+                    }
+                  } catch (IOException e) {
+                    throw new RuntimeException(e);
+                  }
+                }));
+      }
+      threads.forEach(Thread::start);
+      for (Thread thread : threads) {
+        thread.join();
+      }
+      assertEquals(errors.toString(), 0, errors.size());
+      assertEquals(numThreads * docsPerThread, batcher.getCommandCount());
+      assertTrue(
+          "commands should have been batched: " + batcher.getRequestCount(),
+          batcher.getRequestCount() < batcher.getCommandCount());
+    }
+
+    solrclient.commit(true, true);
+    long numFoundAfter = solrclient.query(new SolrQuery("*:*")).getResults().getNumFound();
+    assertEquals(numFoundBefore + numThreads * docsPerThread, numFoundAfter);
   }
 
   private void testDeletes(boolean dbq, boolean withFailures) throws Exception {
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.apache.solr.update.TransactionLog.LogReader;
+import org.junit.Test;
+
+public class TransactionLogGroupCommitterTest extends SolrTestCase {
+
+  @Test
+  public void testConcurrentSyncs() throws Exception {
+    String tlogFileName =
+        String.format(Locale.ROOT, UpdateLog.LOG_FILENAME_PATTERN, UpdateLog.TLOG_NAME, 0L);
+    Path logFile = createTempDir().resolve(tlogFileName);
+
+    final int numThreads = 8;
+    final int docsPerThread = atLeast(50);
+
+    ExecutorService executor =
+        ExecutorUtil.newMDCAwareFixedThreadPool(
+            numThreads, new SolrNamedThreadFactory("testConcurrentSyncs"));
+    try (TransactionLog tlog = new TransactionLog(logFile, null);
+        TransactionLogGroupCommitter committer = new TransactionLogGroupCommitter("test")) {
+      tlog.deleteOnClose = false;
+
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < numThreads; t++) {
+        final int thread = t;
+        futures.add(
+            executor.submit(
+                () -> {
+                  for (int i = 0; i < docsPerThread; i++) {
+                    AddUpdateCommand cmd = new AddUpdateCommand(null);
+                    cmd.solrDoc = new SolrInputDocument();
+                    cmd.solrDoc.addField("id", thread + "_" + i);
+                    long pos = tlog.write(cmd);
+                    committer.sync(tlog);
+                    // everything up to and including our record must be on disk by now
+                    assertTrue(tlog.getLogSize() > pos);
+                  }
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+    }
+
+    try (TransactionLog tlog = new TransactionLog(logFile, null, true)) {
+      LogReader reader = tlog.getReader(0);
+      int count = 0;
+      while (reader.next() != null) {
+        count++;
+      }
+      reader.close();
+      assertEquals(numThreads * docsPerThread, count);
+    }
+  }
+
+  @Test
+  public void testSyncsShareFsyncs() throws Exception {
+    String tlogFileName =
+        String.format(Locale.ROOT, UpdateLog.LOG_FILENAME_PATTERN, UpdateLog.TLOG_NAME, 0L);
+    Path logFile = createTempDir().resolve(tlogFileName);
+
+    final int numThreads = 8;
+    final int docsPerThread = atLeast(20);
+    AtomicInteger forces = new AtomicInteger();
+
+    ExecutorService executor =
+        ExecutorUtil.newMDCAwareFixedThreadPool(
+            numThreads, new SolrNamedThreadFactory("testSyncsShareFsyncs"));
+    try (TransactionLog tlog =
+            new TransactionLog(logFile, null) {
+              @Override
+              protected void force() throws IOException {
+                forces.incrementAndGet();
+                try {
+                  // a slow disk, so that syncs pile up behind the fsync in progress
+                  Thread.sleep(5);
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                }
+                super.force();
+              }
+            };
+        TransactionLogGroupCommitter committer = new TransactionLogGroupCommitter("test")) {
+      tlog.deleteOnClose = false;
+
+      CyclicBarrier start = new CyclicBarrier(numThreads);
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < numThreads; t++) {
+        final int thread = t;
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  for (int i = 0; i < docsPerThread; i++) {
+                    AddUpdateCommand cmd = new AddUpdateCommand(null);
+                    cmd.solrDoc = new SolrInputDocument();
+                    cmd.solrDoc.addField("id", thread + "_" + i);
+                    tlog.write(cmd);
+                    committer.sync(tlog);
+                  }
+                  return null;
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+    }
+
+    // every sync was served by an fsync, and concurrent syncs shared them
+    assertTrue(forces.get() > 0);
+    assertTrue(
+        "expected fewer fsyncs than the " + numThreads * docsPerThread + " syncs: " + forces.get(),
+        forces.get() < numThreads * docsPerThread);
+  }
+
+  @Test
+  public void testFsyncFailure() throws Exception {
+    String tlogFileName =
+        String.format(Locale.ROOT, UpdateLog.LOG_FILENAME_PATTERN, UpdateLog.TLOG_NAME, 0L);
+    Path logFile = createTempDir().resolve(tlogFileName);
+
+    try (TransactionLog tlog =
+            new TransactionLog(logFile, null) {
+              @Override
+              protected void force() throws IOException {
+                throw new IOException("simulated fsync failure");
+              }
+            };
+        TransactionLogGroupCommitter committer = new TransactionLogGroupCommitter("test")) {
+      AddUpdateCommand cmd = new AddUpdateCommand(null);
+      cmd.solrDoc = new SolrInputDocument();
+      tlog.write(cmd);
+      SolrException e = expectThrows(SolrException.class, () -> committer.sync(tlog));
+      assertTrue(e.getCause() instanceof IOException);
+      // the flusher survives the failure
+      SolrException again = expectThrows(SolrException.class, () -> committer.sync(tlog));
+      assertEquals("simulated fsync failure", again.getCause().getMessage());
+    }
+  }
+
+  @Test
+  public void testSyncAfterClose() throws Exception {
+    String tlogFileName =
+        String.format(Locale.ROOT, UpdateLog.LOG_FILENAME_PATTERN, UpdateLog.TLOG_NAME, 0L);
+    Path logFile = createTempDir().resolve(tlogFileName);
+
+    TransactionLogGroupCommitter committer = new TransactionLogGroupCommitter("test");
+    committer.close();
+
+    try (TransactionLog tlog = new TransactionLog(logFile, null)) {
+      AddUpdateCommand cmd = new AddUpdateCommand(null);
+      cmd.solrDoc = new SolrInputDocument();
+      long pos = tlog.write(cmd);
+      // a closed committer falls back to syncing on the caller's thread
+      committer.sync(tlog);
+      assertTrue(tlog.getLogSize() > pos);
+    }
+  }
+}
@@ -18,6 +18,7 @@
 package org.apache.solr.update;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Locale;
@@ -71,4 +72,89 @@ public class TransactionLogTest extends SolrTestCase {
       assertEquals(uuid, (UUID) doc.getFieldValue("uuid"));
     }
   }
+
+  @Test
+  public void testMappedReads() throws IOException, InterruptedException {
+    String tlogFileName =
+        String.format(
+            Locale.ROOT, UpdateLog.LOG_FILENAME_PATTERN, UpdateLog.TLOG_NAME, Long.MAX_VALUE);
+    Path path = createTempDir();
+    Path logFile = path.resolve(tlogFileName);
+    final int numDocs = 100;
+    try (TransactionLog tlog = new TransactionLog(logFile, null)) {
+      long[] pointers = new long[numDocs];
+      for (int i = 0; i < numDocs; i++) {
+        AddUpdateCommand updateCommand = new AddUpdateCommand(null);
+        updateCommand.solrDoc = new SolrInputDocument();
+        updateCommand.solrDoc.addField("id", "doc" + i);
+        updateCommand.setVersion(i + 1);
+        pointers[i] = tlog.write(updateCommand);
+      }
+      CommitUpdateCommand commit = new CommitUpdateCommand(null, false);
+      commit.setVersion(numDocs + 1);
+      tlog.writeCommit(commit);
+
+      assertFalse(tlog.isMappedForReads());
+      assertTrue(tlog.mapForReads());
+      assertTrue(tlog.isMappedForReads());
+
+      for (int i = 0; i < numDocs; i++) {
+        List<?> entry = (List<?>) tlog.lookup(pointers[i]);
+        assertEquals((long) (i + 1), entry.get(UpdateLog.VERSION_IDX));
+        SolrInputDocument doc = (SolrInputDocument) entry.get(2);
+        assertEquals("doc" + i, doc.getFieldValue("id").toString());
+      }
+
+      LogReader reader = tlog.getReader(0);
+      int count = 0;
+      while (reader.next() != null) {
+        count++;
+      }
+      reader.close();
+      assertEquals(numDocs + 1, count); // the adds plus the commit
+
+      TransactionLog.ReverseReader reverseReader = tlog.getReverseReader();
+      assertEquals((long) (numDocs + 1), ((List<?>) reverseReader.next()).get(1));
+      assertEquals((long) numDocs, ((List<?>) reverseReader.next()).get(1));
+      reverseReader.close();
+
+      // writing again drops the mapping, and reads still see everything
+      reader = tlog.getReader(0);
+      AddUpdateCommand updateCommand = new AddUpdateCommand(null);
+      updateCommand.solrDoc = new SolrInputDocument();
+      updateCommand.setVersion(numDocs + 2);
+      long last = tlog.write(updateCommand);
+      assertFalse(tlog.isMappedForReads());
+      assertEquals((long) (numDocs + 2), ((List<?>) tlog.lookup(last)).get(1));
+
+      // a reader opened on the mapping carries on past its end through the channel
+      count = 0;
+      Object o, lastRecord = null;
+      while ((o = reader.next()) != null) {
+        lastRecord = o;
+        count++;
+      }
+      reader.close();
+      assertEquals(numDocs + 2, count);
+      assertEquals((long) (numDocs + 2), ((List<?>) lastRecord).get(1));
+    }
+  }
+
+  @Test
+  public void testCloseReleasesMapping() throws IOException {
+    String tlogFileName =
+        String.format(Locale.ROOT, UpdateLog.LOG_FILENAME_PATTERN, UpdateLog.TLOG_NAME, 0);
+    Path logFile = createTempDir().resolve(tlogFileName);
+    TransactionLog tlog = new TransactionLog(logFile, null);
+    AddUpdateCommand updateCommand = new AddUpdateCommand(null);
+    updateCommand.solrDoc = new SolrInputDocument();
+    updateCommand.solrDoc.addField("id", "doc");
+    updateCommand.setVersion(1);
+    tlog.write(updateCommand);
+    assertTrue(tlog.mapForReads());
+
+    tlog.decref();
+    assertFalse(tlog.isMappedForReads());
+    assertFalse(Files.exists(logFile));
+  }
 }
@@ -17,6 +17,7 @@
 
 package org.apache.solr.util;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -86,4 +87,53 @@ public class DynamicMapsTest extends SolrTestCase {
     assertEquals(-1, map.get(101));
     assertEquals(-1, map.get(0));
   }
+
+  public void testArraysFromAllocator() {
+    // like a pool, the allocator returns arrays that still hold the values of a previous use
+    DynamicMap.ArrayAllocator allocator =
+        new DynamicMap.ArrayAllocator() {
+          @Override
+          public int[] newIntArray(int length) {
+            int[] array = new int[length];
+            Arrays.fill(array, 7);
+            return array;
+          }
+
+          @Override
+          public float[] newFloatArray(int length) {
+            float[] array = new float[length];
+            Arrays.fill(array, 7f);
+            return array;
+          }
+
+          @Override
+          public long[] newLongArray(int length) {
+            long[] array = new long[length];
+            Arrays.fill(array, 7L);
+            return array;
+          }
+        };
+    IntIntDynamicMap intMap = new IntIntDynamicMap(10, 0, allocator);
+    IntFloatDynamicMap floatMap = new IntFloatDynamicMap(10, 0f, allocator);
+    IntLongDynamicMap longMap = new IntLongDynamicMap(10, 0L, allocator);
+    Map<Integer, Integer> standard = new HashMap<>();
+    for (int i = 0; i < 100; i++) {
+      int key = random().nextInt(1000) + 1;
+      int val = random().nextInt(100) + 100;
+      standard.put(key, val);
+      intMap.put(key, val);
+      floatMap.put(key, val);
+      longMap.put(key, val);
+    }
+
+    for (int key = 0; key < 1100; key++) {
+      int expected = standard.getOrDefault(key, 0);
+      assertEquals(expected, intMap.get(key));
+      assertEquals(expected, floatMap.get(key), 0.0001);
+      assertEquals(expected, longMap.get(key));
+    }
+    AtomicInteger size = new AtomicInteger(0);
+    intMap.forEachValue(i -> size.incrementAndGet());
+    assertEquals(standard.size(), size.get());
+  }
 }
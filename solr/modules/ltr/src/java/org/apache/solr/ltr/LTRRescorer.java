@@ -22,6 +22,7 @@ import java.util.Comparator;
 import java.util.List;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Explanation;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Rescorer;
@@ -30,7 +31,10 @@ import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.search.Weight;
+import org.apache.solr.ltr.feature.Feature;
 import org.apache.solr.ltr.interleaving.OriginalRankingLTRScoringQuery;
+import org.apache.solr.ltr.model.LTRScoringModel;
+import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.search.IncompleteRerankingException;
 import org.apache.solr.search.QueryLimits;
 
@@ -42,13 +46,25 @@ import org.apache.solr.search.QueryLimits;
 public class LTRRescorer extends Rescorer {
 
   private final LTRScoringQuery scoringQuery;
+  private final boolean batchFeatureExtraction;
 
   public LTRRescorer() {
     this.scoringQuery = null;
+    this.batchFeatureExtraction = false;
   }
 
   public LTRRescorer(LTRScoringQuery scoringQuery) {
+    this(scoringQuery, false);
+  }
+
+  /**
+   * @param batchFeatureExtraction if true, each feature is extracted for all the documents to
+   *     rerank of a segment at once and the model scores all documents in one go, see {@link
+   *     #scoreFeaturesBatched(int, LTRScoringQuery.ModelWeight, ScoreDoc[], List, ScoreDoc[])}
+   */
+  public LTRRescorer(LTRScoringQuery scoringQuery, boolean batchFeatureExtraction) {
     this.scoringQuery = scoringQuery;
+    this.batchFeatureExtraction = batchFeatureExtraction;
   }
 
   private static final Comparator<ScoreDoc> docComparator = Comparator.comparingInt(a -> a.doc);
@@ -137,7 +153,11 @@ public class LTRRescorer extends Rescorer {
         (LTRScoringQuery.ModelWeight)
             searcher.createWeight(searcher.rewrite(scoringQuery), ScoreMode.COMPLETE, 1);
 
-    scoreFeatures(docsToRerank, modelWeight, firstPassResults, leaves, reranked);
+    if (batchFeatureExtraction) {
+      scoreFeaturesBatched(docsToRerank, modelWeight, firstPassResults, leaves, reranked);
+    } else {
+      scoreFeatures(docsToRerank, modelWeight, firstPassResults, leaves, reranked);
+    }
     // Must sort all documents that we reranked, and then select the top
     Arrays.sort(reranked, scoreComparator);
     return reranked;
@@ -184,6 +204,120 @@ public class LTRRescorer extends Rescorer {
     }
   }
 
+  /**
+   * Scores the documents column by column instead of document by document: for every segment, the
+   * scorer of each model feature is created once and walks over all the documents to rerank of that
+   * segment in docid order, which the hits are sorted by. The feature values of all documents are
+   * then normalized and scored by the model at once, using {@link LTRScoringModel#score(float[][],
+   * int, float[])}.
+   *
+   * <p>Only the features of the model are extracted and the feature vector cache is bypassed, but
+   * the extracted values are recorded in the {@link RequestFeatureVectors} of the request, if any.
+   * The scores are the same as the ones of {@link #scoreFeatures(int, LTRScoringQuery.ModelWeight,
+   * ScoreDoc[], List, ScoreDoc[])}.
+   */
+  public void scoreFeaturesBatched(
+      int docsToRerank,
+      LTRScoringQuery.ModelWeight modelWeight,
+      ScoreDoc[] hits,
+      List<LeafReaderContext> leaves,
+      ScoreDoc[] reranked)
+      throws IOException {
+    final Feature.FeatureWeight[] featureWeights = modelWeight.getModelFeatureWeights();
+    final float[][] featureVectors = new float[hits.length][];
+    for (int i = 0; i < hits.length; i++) {
+      final float[] featureVector = new float[featureWeights.length];
+      for (int f = 0; f < featureWeights.length; f++) {
+        featureVector[f] = featureWeights[f].getDefaultValue();
+      }
+      featureVectors[i] = featureVector;
+    }
+
+    final DocInfo docInfo = new DocInfo();
+    int from = 0;
+    while (from < hits.length) {
+      final LeafReaderContext readerContext =
+          leaves.get(ReaderUtil.subIndex(hits[from].doc, leaves));
+      final int docBase = readerContext.docBase;
+      final int endDoc = docBase + readerContext.reader().maxDoc();
+      int to = from;
+      while (to < hits.length && hits[to].doc < endDoc) {
+        to++;
+      }
+      for (int f = 0; f < featureWeights.length; f++) {
+        final Feature.FeatureWeight.FeatureScorer scorer =
+            featureWeights[f].featureScorer(readerContext);
+        if (scorer == null) {
+          continue;
+        }
+        scorer.setDocInfo(docInfo);
+        final DocIdSetIterator iterator = scorer.iterator();
+        for (int i = from; i < to; i++) {
+          final ScoreDoc hit = hits[i];
+          final int targetDoc = hit.doc - docBase;
+          int doc = iterator.docID();
+          if (doc < targetDoc) {
+            doc = iterator.advance(targetDoc);
+          }
+          if (doc == targetDoc) {
+            docInfo.setOriginalDocScore(hit.score);
+            docInfo.setOriginalDocId(hit.doc);
+            final float featureValue = scorer.score();
+            if (!Float.isNaN(featureValue)) {
+              featureVectors[i][f] = featureValue;
+            }
+          }
+        }
+        checkQueryLimits();
+      }
+      from = to;
+    }
+
+    final LTRScoringModel ltrScoringModel = scoringQuery.getScoringModel();
+    recordFeatureVectors(modelWeight, featureWeights, hits, featureVectors);
+    for (float[] featureVector : featureVectors) {
+      ltrScoringModel.normalizeFeaturesInPlace(featureVector);
+    }
+    final float[] scores = new float[hits.length];
+    ltrScoringModel.score(featureVectors, hits.length, scores);
+    for (int hitPosition = 0; hitPosition < hits.length; hitPosition++) {
+      final ScoreDoc hit = hits[hitPosition];
+      hit.score = scores[hitPosition];
+      collectHit(docsToRerank, hitPosition, hit, reranked);
+    }
+  }
+
+  /**
+   * Records the values extracted by {@link #scoreFeaturesBatched(int, LTRScoringQuery.ModelWeight,
+   * ScoreDoc[], List, ScoreDoc[])} in the request scoped feature vectors, so that the
+   * <code>[features]</code> transformer doesn't extract them again.
+   */
+  private void recordFeatureVectors(
+      LTRScoringQuery.ModelWeight modelWeight,
+      Feature.FeatureWeight[] featureWeights,
+      ScoreDoc[] hits,
+      float[][] featureVectors) {
+    final SolrQueryRequest request = scoringQuery.getRequest();
+    final RequestFeatureVectors requestFeatureVectors =
+        (request == null ? null : SolrQueryRequestContextUtils.getFeatureVectors(request));
+    if (requestFeatureVectors == null) {
+      return;
+    }
+    final int numFeaturesInStore = modelWeight.getAllFeaturesInStore().length;
+    final RequestFeatureVectors.Vectors vectors =
+        requestFeatureVectors.getVectors(
+            scoringQuery.getScoringModel().getFeatureStoreName(),
+            scoringQuery.getExternalFeatureInfo(),
+            numFeaturesInStore);
+    for (int i = 0; i < hits.length; i++) {
+      final float[] featureVector = new float[numFeaturesInStore];
+      for (int f = 0; f < featureWeights.length; f++) {
+        featureVector[featureWeights[f].getIndex()] = featureVectors[i][f];
+      }
+      vectors.put(hits[i].doc, featureVector, featureWeights);
+    }
+  }
+
   /** Scores a single document. */
   protected void scoreSingleHit(
       int docsToRerank,
@@ -208,6 +342,11 @@ public class LTRRescorer extends Rescorer {
     scorer.getDocInfo().setOriginalDocScore(hit.score);
     scorer.getDocInfo().setOriginalDocId(hit.doc);
     hit.score = scorer.score();
+    checkQueryLimits();
+    collectHit(docsToRerank, hitPosition, hit, reranked);
+  }
+
+  private static void checkQueryLimits() {
     if (QueryLimits.getCurrentLimits()
         .maybeExitWithPartialResults(
             "Learning To Rank rescoring -"
@@ -215,6 +354,11 @@ public class LTRRescorer extends Rescorer {
                 + " If partial results are tolerated the reranking got reverted and all documents preserved their original score and ranking.")) {
       throw new IncompleteRerankingException();
     }
+  }
+
+  /** Keeps the {@code docsToRerank} best of the scored hits in {@code reranked}. */
+  private static void collectHit(
+      int docsToRerank, int hitPosition, ScoreDoc hit, ScoreDoc[] reranked) {
     if (hitPosition < docsToRerank) {
       reranked[hitPosition] = hit;
     } else if (hitPosition == docsToRerank) {
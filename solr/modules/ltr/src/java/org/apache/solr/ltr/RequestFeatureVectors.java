@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.ltr;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.solr.ltr.feature.Feature;
+
+/**
+ * The feature vectors extracted while serving a single request, keyed by feature store, external
+ * feature information and docid.
+ *
+ * <p>The vectors extracted by the rescorer are reused by the <code>[features]</code> transformer
+ * and by the second model of an interleaving request, as long as they use the same feature store
+ * and the same efi, so the features of a document are extracted at most once per request. Only
+ * the features that were actually extracted are recorded for a document, a lookup asking for a
+ * feature that was not extracted yet misses and the newly extracted features are merged into the
+ * existing vector.
+ */
+public class RequestFeatureVectors {
+
+  private final Map<List<Object>, Vectors> vectors = new ConcurrentHashMap<>();
+
+  /**
+   * @param featureStoreName the name of the feature store the features belong to
+   * @param efi the external feature information the features were extracted with
+   * @param numFeaturesInStore the number of features in the feature store
+   * @return the feature vectors of the documents for the given feature store and efi
+   */
+  public Vectors getVectors(
+      String featureStoreName, Map<String, String[]> efi, int numFeaturesInStore) {
+    final TreeMap<String, List<String>> efiKey = new TreeMap<>();
+    if (efi != null) {
+      for (final Map.Entry<String, String[]> entry : efi.entrySet()) {
+        efiKey.put(entry.getKey(), Arrays.asList(entry.getValue()));
+      }
+    }
+    return vectors.computeIfAbsent(
+        List.of(featureStoreName, efiKey), k -> new Vectors(numFeaturesInStore));
+  }
+
+  /** The feature vectors of the documents for one feature store and efi. */
+  public static class Vectors {
+
+    private final int numFeaturesInStore;
+    private final Map<Integer, Entry> docs = new ConcurrentHashMap<>();
+
+    private Vectors(int numFeaturesInStore) {
+      this.numFeaturesInStore = numFeaturesInStore;
+    }
+
+    /**
+     * @param docId the docid of the document, relative to the searcher
+     * @param featureWeights the features that are needed
+     * @return the feature vector of the document, indexed by feature index, or null if any of the
+     *     given features was not extracted for the document yet. The returned array must not be
+     *     modified.
+     */
+    public float[] get(int docId, Feature.FeatureWeight[] featureWeights) {
+      final Entry entry = docs.get(docId);
+      if (entry == null) {
+        return null;
+      }
+      for (final Feature.FeatureWeight featureWeight : featureWeights) {
+        if (!entry.extracted.get(featureWeight.getIndex())) {
+          return null;
+        }
+      }
+      return entry.values;
+    }
+
+    /**
+     * Records the features extracted for a document.
+     *
+     * @param docId the docid of the document, relative to the searcher
+     * @param featureVector the feature values, indexed by feature index
+     * @param featureWeights the features that were extracted, only those values are recorded
+     */
+    public void put(int docId, float[] featureVector, Feature.FeatureWeight[] featureWeights) {
+      final FixedBitSet extracted = new FixedBitSet(numFeaturesInStore);
+      for (final Feature.FeatureWeight featureWeight : featureWeights) {
+        extracted.set(featureWeight.getIndex());
+      }
+      docs.merge(docId, new Entry(featureVector, extracted), Entry::merge);
+    }
+  }
+
+  /** The values of a document, only the ones of the extracted features are meaningful */
+  private static final class Entry {
+    final float[] values;
+    final FixedBitSet extracted;
+
+    Entry(float[] values, FixedBitSet extracted) {
+      this.values = values;
+      this.extracted = extracted;
+    }
+
+    Entry merge(Entry other) {
+      final float[] mergedValues = values.clone();
+      for (int i = 0; i < mergedValues.length; i++) {
+        if (other.extracted.get(i)) {
+          mergedValues[i] = other.values[i];
+        }
+      }
+      final FixedBitSet mergedExtracted = extracted.clone();
+      mergedExtracted.or(other.extracted);
+      return new Entry(mergedValues, mergedExtracted);
+    }
+  }
+}
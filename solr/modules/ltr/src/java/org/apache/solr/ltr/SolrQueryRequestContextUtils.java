@@ -35,6 +35,9 @@ public class SolrQueryRequestContextUtils {
   /** key of the feature vector store name in the request context */
   private static final String STORE = LTR_PREFIX + "store";
 
+  /** key of the request scoped feature vectors in the request context */
+  private static final String FEATURE_VECTORS = LTR_PREFIX + "feature_vectors";
+
   /** feature logger accessors */
   public static void setFeatureLogger(SolrQueryRequest req, FeatureLogger featureLogger) {
     req.getContext().put(FEATURE_LOGGER, featureLogger);
@@ -70,4 +73,13 @@ public class SolrQueryRequestContextUtils {
   public static String getFvStoreName(SolrQueryRequest req) {
     return (String) req.getContext().get(STORE);
   }
+
+  /** request scoped feature vectors accessors */
+  public static void enableFeatureVectorsReuse(SolrQueryRequest req) {
+    req.getContext().computeIfAbsent(FEATURE_VECTORS, k -> new RequestFeatureVectors());
+  }
+
+  public static RequestFeatureVectors getFeatureVectors(SolrQueryRequest req) {
+    return (RequestFeatureVectors) req.getContext().get(FEATURE_VECTORS);
+  }
 }
@@ -120,7 +120,8 @@ public class FieldLengthFeature extends Feature {
         return new ValueFeatureScorer(
             this, 0f, DocIdSetIterator.all(DocIdSetIterator.NO_MORE_DOCS));
       }
-      return new FieldLengthFeatureScorer(this, norms);
+      return QueryIndependentFeatureCache.wrap(
+          this, context, new FieldLengthFeatureScorer(this, norms));
     }
 
     public class FieldLengthFeatureScorer extends FeatureScorer {
@@ -175,8 +175,12 @@ public class FieldValueFeature extends Feature {
         throw new IllegalArgumentException(
             "Doc values type " + docValuesType.name() + " of field " + field + " is not supported");
       }
-      return new FieldValueFeatureScorer(
-          this, context, DocIdSetIterator.all(DocIdSetIterator.NO_MORE_DOCS));
+      // reading stored fields is costly and their values can't change within a segment
+      return QueryIndependentFeatureCache.wrap(
+          this,
+          context,
+          new FieldValueFeatureScorer(
+              this, context, DocIdSetIterator.all(DocIdSetIterator.NO_MORE_DOCS)));
     }
 
     /** A FeatureScorer that reads the stored value for a field */
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.ltr.feature;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.solr.search.SolrCache;
+import org.apache.solr.search.SolrIndexSearcher;
+
+/**
+ * Cross-request cache of the values of features that do not depend on the query, such as {@link
+ * FieldValueFeature} reading stored fields and {@link FieldLengthFeature}. The values are keyed by
+ * segment core, feature and docid, so they remain valid across commits for the segments that are
+ * still part of the index.
+ *
+ * <p>The cache is enabled by declaring a user defined cache named {@value #CACHE_NAME} in the
+ * <code>&lt;query&gt;</code> section of solrconfig.xml, e.g. <code>
+ * &lt;cache name="ltrQueryIndependentFeatureCache" class="solr.CaffeineCache" size="65536"
+ * autowarmCount="65536" regenerator="solr.NoOpRegenerator"/&gt;</code>
+ */
+public class QueryIndependentFeatureCache {
+
+  public static final String CACHE_NAME = "ltrQueryIndependentFeatureCache";
+
+  private QueryIndependentFeatureCache() {}
+
+  /**
+   * @return a scorer caching the values computed by the given scorer if the cache is configured,
+   *     the given scorer otherwise
+   */
+  static Feature.FeatureWeight.FeatureScorer wrap(
+      Feature.FeatureWeight weight,
+      LeafReaderContext context,
+      Feature.FeatureWeight.FeatureScorer scorer) {
+    if (!(weight.searcher instanceof SolrIndexSearcher)) {
+      return scorer;
+    }
+    @SuppressWarnings({"unchecked"})
+    final SolrCache<PerSegCacheKey, Float> cache =
+        ((SolrIndexSearcher) weight.searcher).getCache(CACHE_NAME);
+    final IndexReader.CacheHelper cacheHelper = context.reader().getCoreCacheHelper();
+    if (cache == null || cacheHelper == null) {
+      return scorer;
+    }
+    return new CachingFeatureScorer(
+        weight, scorer, cache, cacheHelper.getKey(), (Feature) weight.getQuery());
+  }
+
+  private static class CachingFeatureScorer extends Feature.FeatureWeight.FeatureScorer {
+
+    private final Feature.FeatureWeight.FeatureScorer in;
+    private final SolrCache<PerSegCacheKey, Float> cache;
+    private final Object segCoreKey;
+    private final Feature feature;
+
+    CachingFeatureScorer(
+        Feature.FeatureWeight weight,
+        Feature.FeatureWeight.FeatureScorer in,
+        SolrCache<PerSegCacheKey, Float> cache,
+        Object segCoreKey,
+        Feature feature) {
+      super(weight, in.iterator());
+      this.in = in;
+      this.cache = cache;
+      this.segCoreKey = segCoreKey;
+      this.feature = feature;
+    }
+
+    @Override
+    public float score() throws IOException {
+      return cache.computeIfAbsent(
+          new PerSegCacheKey(segCoreKey, feature, docID()), k -> in.score());
+    }
+
+    @Override
+    public float getMaxScore(int upTo) throws IOException {
+      return in.getMaxScore(upTo);
+    }
+  }
+
+  private static class PerSegCacheKey {
+    final WeakReference<Object> segCoreKeyRef;
+    final Feature feature;
+    final int docId;
+    final int hashCode; // cached because we can't necessarily compute after construction
+
+    private PerSegCacheKey(Object segCoreKey, Feature feature, int docId) {
+      this.segCoreKeyRef = new WeakReference<>(segCoreKey);
+      this.feature = feature;
+      this.docId = docId;
+      this.hashCode = (segCoreKey.hashCode() * 31 + feature.hashCode()) * 31 + docId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof PerSegCacheKey that)) return false;
+
+      if (docId != that.docId || !feature.equals(that.feature)) return false;
+
+      // compare by referent not reference
+      Object segCoreKey = segCoreKeyRef.get();
+      if (segCoreKey == null) {
+        return false;
+      }
+      return segCoreKey.equals(that.segCoreKeyRef.get());
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
@@ -23,6 +23,8 @@ import java.util.Objects;
 import java.util.TreeMap;
 import org.apache.solr.ltr.FeatureLogger;
 import org.apache.solr.ltr.LTRScoringQuery;
+import org.apache.solr.ltr.RequestFeatureVectors;
+import org.apache.solr.ltr.SolrQueryRequestContextUtils;
 import org.apache.solr.ltr.feature.Feature;
 import org.apache.solr.ltr.model.LTRScoringModel;
 import org.apache.solr.ltr.response.transform.LTRFeatureLoggerTransformerFactory;
@@ -39,6 +41,7 @@ public abstract class FeatureExtractor {
   LTRScoringModel ltrScoringModel;
   FeatureLogger logger;
   Map<String, String[]> efi;
+  RequestFeatureVectors.Vectors requestFeatureVectors;
 
   FeatureExtractor(
       FeatureTraversalScorer traversalScorer,
@@ -53,6 +56,13 @@ public abstract class FeatureExtractor {
     this.allFeaturesInStore = allFeaturesInStore;
     this.ltrScoringModel = ltrScoringModel;
     this.efi = efi;
+    final RequestFeatureVectors featureVectors =
+        (request == null ? null : SolrQueryRequestContextUtils.getFeatureVectors(request));
+    if (featureVectors != null) {
+      this.requestFeatureVectors =
+          featureVectors.getVectors(
+              ltrScoringModel.getFeatureStoreName(), efi, allFeaturesInStore.length);
+    }
   }
 
   protected float[] initFeatureVector(LTRScoringQuery.FeatureInfo[] featuresInfos) {
@@ -69,22 +79,17 @@ public abstract class FeatureExtractor {
 
   public void fillFeaturesInfo() throws IOException {
     if (traversalScorer.getActiveDoc() == traversalScorer.getTargetDoc()) {
-      SolrCache<Integer, float[]> featureVectorCache = null;
       float[] featureVector;
-
-      if (request != null) {
-        featureVectorCache = request.getSearcher().getFeatureVectorCache();
-      }
-      if (featureVectorCache != null) {
-        int fvCacheKey =
-            computeFeatureVectorCacheKey(traversalScorer.getDocInfo().getOriginalDocId());
-        featureVector = featureVectorCache.get(fvCacheKey);
+      if (requestFeatureVectors != null) {
+        // the features may have already been extracted while serving the same request
+        final int docId = traversalScorer.getDocInfo().getOriginalDocId();
+        featureVector = requestFeatureVectors.get(docId, extractedFeatureWeights);
         if (featureVector == null) {
-          featureVector = extractFeatureVector();
-          featureVectorCache.put(fvCacheKey, featureVector);
+          featureVector = getOrExtractFeatureVector();
+          requestFeatureVectors.put(docId, featureVector, extractedFeatureWeights);
         }
       } else {
-        featureVector = extractFeatureVector();
+        featureVector = getOrExtractFeatureVector();
       }
 
       for (int i = 0; i < extractedFeatureWeights.length; i++) {
@@ -99,6 +104,24 @@ public abstract class FeatureExtractor {
     }
   }
 
+  private float[] getOrExtractFeatureVector() throws IOException {
+    SolrCache<Integer, float[]> featureVectorCache = null;
+    if (request != null) {
+      featureVectorCache = request.getSearcher().getFeatureVectorCache();
+    }
+    if (featureVectorCache == null) {
+      return extractFeatureVector();
+    }
+    final int fvCacheKey =
+        computeFeatureVectorCacheKey(traversalScorer.getDocInfo().getOriginalDocId());
+    float[] featureVector = featureVectorCache.get(fvCacheKey);
+    if (featureVector == null) {
+      featureVector = extractFeatureVector();
+      featureVectorCache.put(fvCacheKey, featureVector);
+    }
+    return featureVector;
+  }
+
   private int computeFeatureVectorCacheKey(int docId) {
     int prime = 31;
     int result = docId;
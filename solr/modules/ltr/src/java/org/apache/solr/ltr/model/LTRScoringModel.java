@@ -253,6 +253,21 @@ public abstract class LTRScoringModel implements Accountable {
    */
   public abstract float score(float[] modelFeatureValuesNormalized);
 
+  /**
+   * Scores several documents at once. Models that can evaluate a batch of documents more
+   * efficiently than one at a time should override this; the scores must be the same as the ones
+   * of {@link #score(float[])}.
+   *
+   * @param modelFeatureValuesNormalized normalized feature values, one array per document
+   * @param numDocs the number of documents to score, the first ones in the arrays
+   * @param scores receives the final score of each document
+   */
+  public void score(float[][] modelFeatureValuesNormalized, int numDocs, float[] scores) {
+    for (int i = 0; i < numDocs; i++) {
+      scores[i] = score(modelFeatureValuesNormalized[i]);
+    }
+  }
+
   /**
    * Similar to the score() function, except it returns an explanation of how the features were used
    * to calculate the score.
@@ -18,6 +18,7 @@ package org.apache.solr.ltr.model;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
@@ -114,6 +115,9 @@ public class MultipleAdditiveTreesModel extends LTRScoringModel {
    */
   private List<RegressionTree> trees;
 
+  /** the trees compiled for scoring, built once the model is validated */
+  private FlatTrees flatTrees;
+
   private boolean isNullSameAsZero = true;
 
   private RegressionTree createRegressionTree(Map<String, Object> map) {
@@ -294,6 +298,7 @@ public class MultipleAdditiveTreesModel extends LTRScoringModel {
     for (RegressionTree tree : trees) {
       tree.validate();
     }
+    flatTrees = new FlatTrees(trees);
   }
 
   @Override
@@ -323,11 +328,150 @@ public class MultipleAdditiveTreesModel extends LTRScoringModel {
 
   @Override
   public float score(float[] modelFeatureValuesNormalized) {
-    float score = 0;
-    for (final RegressionTree t : trees) {
-      score += t.score(modelFeatureValuesNormalized);
+    return flatTrees.score(modelFeatureValuesNormalized, isNullSameAsZero);
+  }
+
+  @Override
+  public void score(float[][] modelFeatureValuesNormalized, int numDocs, float[] scores) {
+    flatTrees.score(modelFeatureValuesNormalized, numDocs, scores, isNullSameAsZero);
+  }
+
+  /**
+   * The trees of the model compiled into flat arrays, indexed by node. The nodes of every tree are
+   * laid out in pre-order, so the left child of a split directly follows it and only the offset of
+   * the right child needs to be stored. Compared to walking the {@link RegressionTreeNode} objects
+   * this avoids chasing pointers through the heap, and scoring several documents per tree keeps
+   * the nodes of the tree in the CPU caches.
+   *
+   * <p>Scores are summed up per document in the order of the trees, exactly like {@link
+   * RegressionTree#score(float[])} does, so they are identical to the ones of the object trees.
+   */
+  private static final class FlatTrees {
+
+    /** feature index of a leaf node */
+    private static final int LEAF = -1;
+
+    /** feature index of a split on a feature that is not part of the model, scoring 0 */
+    private static final int UNSUPPORTED = -2;
+
+    /** number of documents scored against a tree before moving on to the next tree */
+    private static final int DOC_BLOCK_SIZE = 64;
+
+    private final int[] roots;
+    private final float[] weights;
+    private final int[] featureIndexes;
+    private final float[] thresholds;
+    private final float[] values;
+    private final int[] rightChildren;
+    private final boolean[] missingLeft;
+    private int numNodes;
+
+    FlatTrees(List<RegressionTree> trees) {
+      int size = 0;
+      for (RegressionTree tree : trees) {
+        size += countNodes(tree.root);
+      }
+      roots = new int[trees.size()];
+      weights = new float[trees.size()];
+      featureIndexes = new int[size];
+      thresholds = new float[size];
+      values = new float[size];
+      rightChildren = new int[size];
+      missingLeft = new boolean[size];
+      for (int i = 0; i < trees.size(); i++) {
+        roots[i] = numNodes;
+        weights[i] = trees.get(i).weight;
+        add(trees.get(i).root);
+      }
+    }
+
+    private static int countNodes(RegressionTreeNode root) {
+      int count = 0;
+      Deque<RegressionTreeNode> stack = new ArrayDeque<>();
+      stack.push(root);
+      while (!stack.isEmpty()) {
+        RegressionTreeNode node = stack.pop();
+        count++;
+        if (!node.isLeaf()) {
+          stack.push(node.left);
+          stack.push(node.right);
+        }
+      }
+      return count;
+    }
+
+    private void add(RegressionTreeNode root) {
+      Deque<RegressionTreeNode> stack = new ArrayDeque<>();
+      // parents waiting for the offset of their right child, in the same order as stack
+      Deque<Integer> parents = new ArrayDeque<>();
+      stack.push(root);
+      parents.push(-1);
+      while (!stack.isEmpty()) {
+        RegressionTreeNode node = stack.pop();
+        int parent = parents.pop();
+        int idx = numNodes++;
+        if (parent >= 0) {
+          rightChildren[parent] = idx;
+        }
+        if (node.isLeaf()) {
+          featureIndexes[idx] = LEAF;
+          values[idx] = node.value;
+        } else {
+          featureIndexes[idx] = node.featureIndex < 0 ? UNSUPPORTED : node.featureIndex;
+          thresholds[idx] = node.threshold;
+          missingLeft[idx] = Objects.equals(node.missing, "left");
+          // the left child is popped next, the right one once the left subtree is done
+          stack.push(node.right);
+          parents.push(idx);
+          stack.push(node.left);
+          parents.push(-1);
+        }
+      }
+    }
+
+    float score(float[] featureVector, boolean isNullSameAsZero) {
+      float score = 0;
+      for (int i = 0; i < roots.length; i++) {
+        score += weights[i] * leafValue(featureVector, roots[i], isNullSameAsZero);
+      }
+      return score;
+    }
+
+    void score(float[][] featureVectors, int numDocs, float[] scores, boolean isNullSameAsZero) {
+      Arrays.fill(scores, 0, numDocs, 0f);
+      for (int from = 0; from < numDocs; from += DOC_BLOCK_SIZE) {
+        final int to = Math.min(numDocs, from + DOC_BLOCK_SIZE);
+        for (int i = 0; i < roots.length; i++) {
+          final float weight = weights[i];
+          final int root = roots[i];
+          for (int doc = from; doc < to; doc++) {
+            scores[doc] += weight * leafValue(featureVectors[doc], root, isNullSameAsZero);
+          }
+        }
+      }
+    }
+
+    private float leafValue(float[] featureVector, int node, boolean isNullSameAsZero) {
+      while (true) {
+        final int featureIndex = featureIndexes[node];
+        if (featureIndex == LEAF) {
+          return values[node];
+        }
+        // unsupported feature (tree is looking for a feature that does not exist)
+        if (featureIndex == UNSUPPORTED || featureIndex >= featureVector.length) {
+          return 0f;
+        }
+        final float featureValue = featureVector[featureIndex];
+        if (featureValue <= thresholds[node]) {
+          node++;
+        } else if (isNullSameAsZero || featureValue > thresholds[node] || !missingLeft[node]) {
+          // with null support a NaN value follows the missing branch, right by default
+          node = rightChildren[node];
+        } else {
+          node++;
+        }
+      }
     }
-    return score;
   }
 
   private static float scoreNode(float[] featureVector, RegressionTreeNode regressionTreeNode) {
@@ -125,6 +125,8 @@ public class LTRFeatureLoggerTransformerFactory extends TransformerFactory {
 
     // Hint to enable feature vector cache since we are requesting features
     SolrQueryRequestContextUtils.enableFeatureLogging(req);
+    // Reuse the feature vectors already extracted by the rescorer when logging them
+    SolrQueryRequestContextUtils.enableFeatureVectorsReuse(req);
 
     // Communicate which feature store we are requesting features for
     final String fvStoreName = localparams.get(FV_STORE);
@@ -79,6 +79,12 @@ public class LTRQParserPlugin extends QParserPlugin
   /** query parser plugin: include the candidate cutoff in the response header */
   public static final String ECHO_RERANK_CUTOFF = "echoReRankCutoff";
 
+  /**
+   * query parser plugin: the param that selects extracting each feature for all documents to rerank
+   * at once, instead of all features document by document
+   */
+  public static final String BATCH_FEATURE_EXTRACTION = "batchFeatureExtraction";
+
   /** query parser plugin: default interleaving algorithm */
   public static final String DEFAULT_INTERLEAVING_ALGORITHM = Interleaving.TEAM_DRAFT;
 
@@ -161,6 +167,10 @@ public class LTRQParserPlugin extends QParserPlugin
       }
       final boolean isInterleaving = (modelNames.length > 1);
       final boolean isLoggingFeatures = SolrQueryRequestContextUtils.isLoggingFeatures(req);
+      if (isInterleaving) {
+        // the models may share features, extract them only once per document
+        SolrQueryRequestContextUtils.enableFeatureVectorsReuse(req);
+      }
 
       final Map<String, String[]> externalFeatureInfo = extractEFIParams(localParams);
 
@@ -241,7 +251,8 @@ public class LTRQParserPlugin extends QParserPlugin
 
       if (!isInterleaving) {
         SolrQueryRequestContextUtils.setScoringQueries(req, new LTRScoringQuery[] {rerankingQuery});
-        return new LTRQuery(rerankingQuery, reRankDocs);
+        return new LTRQuery(
+            rerankingQuery, reRankDocs, localParams.getBool(BATCH_FEATURE_EXTRACTION, false));
       } else {
         String interleavingAlgorithm =
             localParams.get(INTERLEAVING_ALGORITHM, DEFAULT_INTERLEAVING_ALGORITHM);
@@ -37,6 +37,14 @@ public class LTRQuery extends AbstractReRankQuery {
     this(scoringQuery, reRankDocs, new LTRRescorer(scoringQuery));
   }
 
+  /**
+   * @param batchFeatureExtraction whether to extract the features of all documents to rerank
+   *     feature by feature, see {@link LTRRescorer#LTRRescorer(LTRScoringQuery, boolean)}
+   */
+  public LTRQuery(LTRScoringQuery scoringQuery, int reRankDocs, boolean batchFeatureExtraction) {
+    this(scoringQuery, reRankDocs, new LTRRescorer(scoringQuery, batchFeatureExtraction));
+  }
+
   protected LTRQuery(LTRScoringQuery scoringQuery, int reRankDocs, LTRRescorer rescorer) {
     super(defaultQuery, reRankDocs, rescorer);
     this.scoringQuery = scoringQuery;
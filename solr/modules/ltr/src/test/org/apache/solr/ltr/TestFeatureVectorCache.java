@@ -230,7 +230,8 @@ public class TestFeatureVectorCache extends TestRerankBase {
     query.add("fl", "id,score,fv:[fv efi.efi_feature=4]");
     query.add("rq", "{!ltr reRankDocs=3 model=featurevectorcache_linear_model efi.efi_feature=4}");
 
-    // No caching for reranking but logging should hit since we have the same feature store and efis
+    // No caching for reranking, logging reuses the feature vectors extracted for reranking since we
+    // have the same feature store and efis, so it doesn't even look them up
     assertJQ(
         "/query" + query.toQueryString(),
         "/response/docs/[0]/=={"
@@ -240,11 +241,11 @@ public class TestFeatureVectorCache extends TestRerankBase {
             + docs0fv_default_csv
             + "'}");
     assertEquals(docs.size(), getFeatureVectorCacheInserts(core).getValue(), 0);
-    assertEquals(docs.size() * 2, getFeatureVectorCacheLookups(core), 0);
-    assertEquals(docs.size(), getFeatureVectorCacheHits(core).getValue(), 0);
+    assertEquals(docs.size(), getFeatureVectorCacheLookups(core), 0);
+    assertEquals(0, getFeatureVectorCacheHits(core).getValue(), 0);
 
     query.add("sort", "popularity desc");
-    // Caching, we want to see hits and same scores
+    // Caching for reranking, we want to see hits and same scores
     assertJQ(
         "/query" + query.toQueryString(),
         "/response/docs/[0]/=={"
@@ -254,8 +255,8 @@ public class TestFeatureVectorCache extends TestRerankBase {
             + docs0fv_default_csv
             + "'}");
     assertEquals(docs.size(), getFeatureVectorCacheInserts(core).getValue(), 0);
-    assertEquals(docs.size() * 4, getFeatureVectorCacheLookups(core), 0);
-    assertEquals(docs.size() * 3, getFeatureVectorCacheHits(core).getValue(), 0);
+    assertEquals(docs.size() * 2, getFeatureVectorCacheLookups(core), 0);
+    assertEquals(docs.size(), getFeatureVectorCacheHits(core).getValue(), 0);
   }
 
   @Test
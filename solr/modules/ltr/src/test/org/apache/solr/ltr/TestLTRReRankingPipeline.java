@@ -232,6 +232,62 @@ public class TestLTRReRankingPipeline extends SolrTestCaseJ4 {
     }
   }
 
+  @Test
+  public void testBatchFeatureExtraction() throws IOException {
+    assertU(delQ("*:*"));
+    for (int i = 0; i < 20; i++) {
+      if (random().nextBoolean()) {
+        assertU(adoc("id", Integer.toString(i), "field", "wizard oz"));
+      } else {
+        assertU(
+            adoc(
+                "id",
+                Integer.toString(i),
+                "field",
+                "wizard oz",
+                "finalScoreFloat",
+                Float.toString(random().nextFloat())));
+      }
+      if (random().nextInt(5) == 0) {
+        // spread the documents over several segments
+        assertU(commit());
+      }
+    }
+    assertU(commit());
+
+    try (SolrQueryRequest solrQueryRequest =
+        new SolrQueryRequestBase(h.getCore(), new ModifiableSolrParams())) {
+      final SolrIndexSearcher searcher = solrQueryRequest.getSearcher();
+      final TermQuery query = new TermQuery(new Term("field", "wizard"));
+
+      final List<Feature> features = makeFieldValueFeatures(new int[] {0, 1, 2}, "finalScoreFloat");
+      final List<Normalizer> norms =
+          new ArrayList<Normalizer>(
+              Collections.nCopies(features.size(), IdentityNormalizer.INSTANCE));
+      final LTRScoringModel ltrScoringModel =
+          TestLinearModel.createLinearModel(
+              "test",
+              features,
+              norms,
+              "test",
+              features,
+              TestLinearModel.makeFeatureWeights(features, 0.3));
+      final LTRScoringQuery scoringQuery = new LTRScoringQuery(ltrScoringModel);
+      scoringQuery.setRequest(solrQueryRequest);
+
+      final int topN = random().nextInt(20) + 1;
+      final TopDocs expected =
+          new LTRRescorer(scoringQuery).rescore(searcher, searcher.search(query, 20), topN);
+      final TopDocs actual =
+          new LTRRescorer(scoringQuery, true).rescore(searcher, searcher.search(query, 20), topN);
+      assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+      for (int i = 0; i < expected.scoreDocs.length; i++) {
+        assertEquals(expected.scoreDocs[i].doc, actual.scoreDocs[i].doc);
+        assertEquals(expected.scoreDocs[i].score, actual.scoreDocs[i].score, 0f);
+      }
+    }
+  }
+
   @Test
   public void testDocParam() throws Exception {
     try (SolrQueryRequest solrQueryRequest =
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.ltr;
+
+import java.io.IOException;
+import java.util.Map;
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.ltr.feature.Feature;
+import org.apache.solr.ltr.feature.ValueFeature;
+import org.junit.Test;
+
+public class TestRequestFeatureVectors extends SolrTestCase {
+
+  private static Feature.FeatureWeight[] featureWeights(int... indexes) throws IOException {
+    final Feature.FeatureWeight[] featureWeights = new Feature.FeatureWeight[indexes.length];
+    for (int i = 0; i < indexes.length; i++) {
+      final Feature feature = new ValueFeature("f" + indexes[i], Map.of());
+      feature.setIndex(indexes[i]);
+      featureWeights[i] = feature.createWeight(null, false, null, null, Map.of());
+    }
+    return featureWeights;
+  }
+
+  @Test
+  public void testOnlyExtractedFeaturesAreReused() throws IOException {
+    final RequestFeatureVectors.Vectors vectors =
+        new RequestFeatureVectors().getVectors("store", Map.of("user", new String[] {"a"}), 4);
+    final Feature.FeatureWeight[] modelFeatures = featureWeights(0, 2);
+    final Feature.FeatureWeight[] allFeatures = featureWeights(0, 1, 2, 3);
+
+    assertNull(vectors.get(7, modelFeatures));
+
+    vectors.put(7, new float[] {10f, Float.NaN, 12f, Float.NaN}, modelFeatures);
+    assertArrayEquals(
+        new float[] {10f, Float.NaN, 12f, Float.NaN}, vectors.get(7, modelFeatures), 0f);
+    assertNull(vectors.get(8, modelFeatures));
+    assertNull(vectors.get(7, allFeatures));
+
+    vectors.put(7, new float[] {0f, 11f, 0f, 13f}, featureWeights(1, 3));
+    assertArrayEquals(new float[] {10f, 11f, 12f, 13f}, vectors.get(7, allFeatures), 0f);
+  }
+
+  @Test
+  public void testVectorsAreKeyedByStoreAndEfi() {
+    final RequestFeatureVectors featureVectors = new RequestFeatureVectors();
+    final RequestFeatureVectors.Vectors vectors =
+        featureVectors.getVectors("store", Map.of("user", new String[] {"a"}), 4);
+
+    assertSame(
+        vectors, featureVectors.getVectors("store", Map.of("user", new String[] {"a"}), 4));
+    assertNotSame(
+        vectors, featureVectors.getVectors("store", Map.of("user", new String[] {"b"}), 4));
+    assertNotSame(
+        vectors, featureVectors.getVectors("other", Map.of("user", new String[] {"a"}), 4));
+    assertNotSame(vectors, featureVectors.getVectors("store", null, 4));
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.ltr.feature;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.solr.client.solrj.request.SolrQuery;
+import org.apache.solr.common.util.Utils;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.ltr.TestRerankBase;
+import org.apache.solr.ltr.model.LinearModel;
+import org.apache.solr.util.SolrMetricTestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestQueryIndependentFeatureCache extends TestRerankBase {
+
+  private static final int NUM_DOCS = 4;
+
+  private SolrCore core = null;
+
+  @Before
+  public void before() throws Exception {
+    setupFeatureVectorCacheTest(false);
+
+    assertU(adoc("id", "1", "title", "w1", "noDvFloatField", "1.5"));
+    assertU(adoc("id", "2", "title", "w2 w3", "noDvFloatField", "2.5"));
+    assertU(adoc("id", "3", "title", "w1 w4 w5", "noDvFloatField", "3.5"));
+    assertU(adoc("id", "4", "title", "w2 w6 w7 w8", "noDvFloatField", "4.5"));
+    assertU(commit());
+
+    loadFeature("titleLength", FieldLengthFeature.class.getName(), "{\"field\":\"title\"}");
+    loadFeature(
+        "storedValue", FieldValueFeature.class.getName(), "{\"field\":\"noDvFloatField\"}");
+    loadFeature(
+        "matchTitle", SolrFeature.class.getName(), "{\"fq\":[\"{!terms f=title}${user_query}\"]}");
+
+    loadModel(
+        "modelA",
+        LinearModel.class.getName(),
+        new String[] {"titleLength", "storedValue", "matchTitle"},
+        "{\"weights\":{\"titleLength\":1.0, \"storedValue\":2.0, \"matchTitle\":10.0}}");
+    loadModel(
+        "modelB",
+        LinearModel.class.getName(),
+        new String[] {"titleLength", "storedValue"},
+        "{\"weights\":{\"titleLength\":3.0, \"storedValue\":5.0}}");
+
+    core = solrTestRule.getCoreContainer().getCore(DEFAULT_TEST_CORENAME);
+  }
+
+  @After
+  public void after() throws Exception {
+    core.close();
+    aftertest();
+  }
+
+  private double getCacheInserts() {
+    return SolrMetricTestUtils.getCacheSearcherOpsInserts(
+            core, QueryIndependentFeatureCache.CACHE_NAME)
+        .getValue();
+  }
+
+  private double getCacheHits() {
+    return SolrMetricTestUtils.getCacheSearcherOpsHits(
+            core, QueryIndependentFeatureCache.CACHE_NAME)
+        .getValue();
+  }
+
+  /** Returns the requested fields of each document by id */
+  @SuppressWarnings({"unchecked"})
+  private static Map<String, Map<String, Object>> query(String rq, String fl) throws Exception {
+    final SolrQuery query = new SolrQuery();
+    query.setQuery("*:*");
+    query.add("rows", String.valueOf(NUM_DOCS));
+    query.add("fl", fl);
+    query.add("rq", rq);
+    final String res = restTestHarness.query("/query" + query.toQueryString());
+    final Map<String, Object> jsonParse = (Map<String, Object>) Utils.fromJSONString(res);
+    final List<Object> docs =
+        (List<Object>) ((Map<String, Object>) jsonParse.get("response")).get("docs");
+    assertEquals(NUM_DOCS, docs.size());
+    final Map<String, Map<String, Object>> docsById = new HashMap<>();
+    for (Object doc : docs) {
+      docsById.put((String) ((Map<String, Object>) doc).get("id"), (Map<String, Object>) doc);
+    }
+    return docsById;
+  }
+
+  private static double score(Map<String, Map<String, Object>> docs, String id) {
+    return ((Number) docs.get(id).get("score")).doubleValue();
+  }
+
+  @Test
+  public void testInterleavedModelsShareQueryIndependentFeatures() throws Exception {
+    // a different efi for each request keeps the featureVectorCache from answering instead
+    final Map<String, Map<String, Object>> scoresA =
+        query("{!ltr model=modelA reRankDocs=4 efi.user_query=w1 efi.run=1}", "id,score");
+    // the length and stored value of each document, but not the query dependent match
+    assertEquals(NUM_DOCS * 2, getCacheInserts(), 0);
+    assertEquals(0, getCacheHits(), 0);
+
+    final Map<String, Map<String, Object>> scoresB =
+        query("{!ltr model=modelB reRankDocs=4 efi.user_query=w1 efi.run=2}", "id,score");
+    assertEquals(NUM_DOCS * 2, getCacheInserts(), 0);
+    assertEquals(NUM_DOCS * 2, getCacheHits(), 0);
+
+    final Map<String, Map<String, Object>> interleaved =
+        query(
+            "{!ltr model=modelA model=modelB reRankDocs=4 efi.user_query=w1 efi.run=3}",
+            "id,score,pick:[interleaving]");
+    for (String id : interleaved.keySet()) {
+      final Object pick = interleaved.get(id).get("pick");
+      final Map<String, Map<String, Object>> expected = "modelA".equals(pick) ? scoresA : scoresB;
+      assertEquals(id, score(expected, id), score(interleaved, id), 0);
+    }
+    // modelA extracts the features from the cache, modelB reuses the vectors modelA extracted
+    assertEquals(NUM_DOCS * 2, getCacheInserts(), 0);
+    assertEquals(NUM_DOCS * 4, getCacheHits(), 0);
+  }
+
+  @Test
+  public void testQueryDependentFeaturesAreNotCached() throws Exception {
+    final Map<String, Map<String, Object>> w1 =
+        query("{!ltr model=modelA reRankDocs=4 efi.user_query=w1}", "id,score");
+    final Map<String, Map<String, Object>> w2 =
+        query("{!ltr model=modelA reRankDocs=4 efi.user_query=w2}", "id,score");
+
+    // the documents of the matching term of each request get the weight of matchTitle
+    assertEquals(10, score(w1, "1") - score(w2, "1"), 0);
+    assertEquals(10, score(w1, "3") - score(w2, "3"), 0);
+    assertEquals(-10, score(w1, "2") - score(w2, "2"), 0);
+    assertEquals(-10, score(w1, "4") - score(w2, "4"), 0);
+
+    // only titleLength and storedValue were cached, and reused by the second request
+    assertEquals(NUM_DOCS * 2, getCacheInserts(), 0);
+    assertEquals(NUM_DOCS * 2, getCacheHits(), 0);
+  }
+}
@@ -18,8 +18,16 @@ package org.apache.solr.ltr.model;
 
 import static org.hamcrest.core.StringContains.containsString;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.apache.solr.client.solrj.request.SolrQuery;
 import org.apache.solr.ltr.TestRerankBase;
+import org.apache.solr.ltr.feature.Feature;
+import org.apache.solr.ltr.norm.IdentityNormalizer;
+import org.apache.solr.ltr.norm.Normalizer;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -354,4 +362,112 @@ public class TestMultipleAdditiveTreesModel extends TestRerankBase {
     assertThat(qryResult, containsString(" Go Right "));
     assertThat(qryResult, containsString(" Go Left "));
   }
+
+  @Test
+  public void testScoresMatchTreeWalk() throws Exception {
+    final List<String> featureNames = new ArrayList<>();
+    final int numFeatures = random().nextInt(10) + 1;
+    for (int i = 0; i < numFeatures; i++) {
+      featureNames.add("f" + i);
+    }
+    final List<Feature> features = getFeatures(featureNames);
+    final List<Normalizer> norms =
+        new ArrayList<>(Collections.nCopies(features.size(), IdentityNormalizer.INSTANCE));
+
+    final List<Object> trees = new ArrayList<>();
+    final int numTrees = random().nextInt(50) + 1;
+    for (int i = 0; i < numTrees; i++) {
+      final Map<String, Object> tree = new HashMap<>();
+      tree.put("weight", Float.toString(random().nextFloat() * 2 - 1));
+      tree.put("root", randomNode(featureNames, random().nextInt(6)));
+      trees.add(tree);
+    }
+
+    for (boolean isNullSameAsZero : new boolean[] {true, false}) {
+      final Map<String, Object> params = new HashMap<>();
+      params.put("trees", trees);
+      params.put("isNullSameAsZero", isNullSameAsZero);
+      final LTRScoringModel model =
+          LTRScoringModel.getInstance(
+              solrResourceLoader,
+              MultipleAdditiveTreesModel.class.getName(),
+              "randomtreesmodel",
+              features,
+              norms,
+              "test",
+              features,
+              params);
+
+      final int numDocs = random().nextInt(200) + 1;
+      final float[][] featureVectors = new float[numDocs][numFeatures];
+      for (float[] featureVector : featureVectors) {
+        for (int i = 0; i < numFeatures; i++) {
+          featureVector[i] = random().nextInt(10) == 0 ? Float.NaN : random().nextFloat();
+        }
+      }
+      final float[] scores = new float[numDocs];
+      model.score(featureVectors, numDocs, scores);
+      for (int doc = 0; doc < numDocs; doc++) {
+        final float expected =
+            walkTrees(trees, featureNames, featureVectors[doc], isNullSameAsZero);
+        assertEquals(
+            Float.floatToIntBits(expected), Float.floatToIntBits(model.score(featureVectors[doc])));
+        assertEquals(Float.floatToIntBits(expected), Float.floatToIntBits(scores[doc]));
+      }
+    }
+  }
+
+  private static Map<String, Object> randomNode(List<String> featureNames, int depth) {
+    final Map<String, Object> node = new HashMap<>();
+    if (depth == 0 || random().nextInt(4) == 0) {
+      node.put("value", Float.toString(random().nextFloat() * 100 - 50));
+    } else {
+      // sometimes split on a feature the model does not have, which scores 0
+      node.put(
+          "feature",
+          random().nextInt(20) == 0
+              ? "unknown"
+              : featureNames.get(random().nextInt(featureNames.size())));
+      node.put("threshold", Float.toString(random().nextFloat()));
+      node.put("missing", random().nextBoolean() ? "left" : "right");
+      node.put("left", randomNode(featureNames, depth - 1));
+      node.put("right", randomNode(featureNames, depth - 1));
+    }
+    return node;
+  }
+
+  /** Scores the trees as given in the model params, node by node */
+  @SuppressWarnings("unchecked")
+  private static float walkTrees(
+      List<Object> trees, List<String> featureNames, float[] fv, boolean isNullSameAsZero) {
+    float score = 0;
+    for (Object o : trees) {
+      final Map<String, Object> tree = (Map<String, Object>) o;
+      Map<String, Object> node = (Map<String, Object>) tree.get("root");
+      float value;
+      while (true) {
+        if (!node.containsKey("feature")) {
+          value = Float.parseFloat((String) node.get("value"));
+          break;
+        }
+        final int idx = featureNames.indexOf((String) node.get("feature"));
+        if (idx < 0) {
+          value = 0f;
+          break;
+        }
+        final float threshold = Float.parseFloat((String) node.get("threshold")) + 1E-6f;
+        final boolean left;
+        if (fv[idx] <= threshold) {
+          left = true;
+        } else if (isNullSameAsZero || fv[idx] > threshold) {
+          left = false;
+        } else {
+          left = "left".equals(node.get("missing"));
+        }
+        node = (Map<String, Object>) node.get(left ? "left" : "right");
+      }
+      score += Float.parseFloat((String) tree.get("weight")) * value;
+    }
+    return score;
+  }
 }
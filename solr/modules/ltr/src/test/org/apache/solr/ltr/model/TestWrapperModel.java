@@ -236,6 +236,12 @@ public class TestWrapperModel extends TestRerankBase {
     ++methodCount;
     Mockito.verify(wrappedModel, Mockito.times(1)).score(null);
 
+    // score (batch) : delegate
+    Mockito.reset(wrappedModel);
+    wrapperModel.score(null, 0, null);
+    ++methodCount;
+    Mockito.verify(wrappedModel, Mockito.times(1)).score(null, 0, null);
+
     // normalizeFeaturesInPlace : delegate
     Mockito.reset(wrappedModel);
     wrapperModel.normalizeFeaturesInPlace(null);
@@ -0,0 +1,433 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.io;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A batch of rows of a stream sharing one field schema, stored column by column. Long and int
+ * values are kept in a {@code long[]} and double and float values in a {@code double[]}, so that
+ * operators reading a batch don't box them or hash a map per row. A column only falls back to an
+ * {@code Object[]} if it gets values of different types or of other types. The boxed value of a
+ * cell is of the same type as the value that was set, so {@link #getTuple(int)} returns the same
+ * tuple as the one the row was built from.
+ *
+ * <p>A batch is built by the stream that produces it, and is read only after that.
+ *
+ * @see org.apache.solr.client.solrj.io.stream.TupleStream#readBatch(int)
+ */
+public class TupleBatch {
+
+  /** The default maximum number of rows of a batch */
+  public static final int DEFAULT_SIZE = 1024;
+
+  /** The type of the values of a column */
+  public enum ColumnType {
+    LONG,
+    INT,
+    DOUBLE,
+    FLOAT,
+    OBJECT
+  }
+
+  private final int capacity;
+  private final List<String> fields;
+  private final Map<String, Integer> fieldIndexes;
+  private final List<Column> columns;
+  private int size;
+  private Tuple eof;
+
+  /**
+   * @param capacity the maximum number of rows of the batch
+   */
+  public TupleBatch(int capacity) {
+    this(capacity, new ArrayList<>(), new HashMap<>(), new ArrayList<>());
+  }
+
+  private TupleBatch(
+      int capacity, List<String> fields, Map<String, Integer> fieldIndexes, List<Column> columns) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("The capacity of a batch must be positive: " + capacity);
+    }
+    this.capacity = capacity;
+    this.fields = fields;
+    this.fieldIndexes = fieldIndexes;
+    this.columns = columns;
+  }
+
+  /** Returns the number of rows of the batch */
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean isFull() {
+    return size == capacity;
+  }
+
+  /** Returns the names of the fields of the batch, the index of a field being its position */
+  public List<String> getFields() {
+    return Collections.unmodifiableList(fields);
+  }
+
+  /** Returns the index of the field, or -1 if the batch has no such field */
+  public int getFieldIndex(String field) {
+    Integer index = fieldIndexes.get(field);
+    return index == null ? -1 : index;
+  }
+
+  /** Returns the index of the field, adding it to the batch if needed */
+  public int addField(String field) {
+    Integer index = fieldIndexes.get(field);
+    if (index == null) {
+      index = fields.size();
+      fields.add(field);
+      fieldIndexes.put(field, index);
+      columns.add(new Column(capacity));
+    }
+    return index;
+  }
+
+  /**
+   * Same as {@link #addField(String)}, but first checks whether the field is the one at {@code
+   * expectedIndex}. Rows built in the same field order thus don't look up their fields.
+   */
+  public int addField(String field, int expectedIndex) {
+    if (expectedIndex < fields.size() && fields.get(expectedIndex).equals(field)) {
+      return expectedIndex;
+    }
+    return addField(field);
+  }
+
+  /** Adds an empty row to the batch and returns its index */
+  public int addRow() {
+    if (size == capacity) {
+      throw new IllegalStateException("The batch is full: " + capacity + " rows");
+    }
+    return size++;
+  }
+
+  /**
+   * Removes the last row of the batch and returns its tuple. The fields after the first {@code
+   * numFields} ones, which the caller knows only that row has, are removed too.
+   */
+  public Tuple removeLastRow(int numFields) {
+    int row = size - 1;
+    Tuple tuple = getTuple(row);
+    for (Column column : columns) {
+      column.set(row, null);
+    }
+    for (int field = fields.size() - 1; field >= numFields; field--) {
+      fieldIndexes.remove(fields.remove(field));
+      columns.remove(field);
+    }
+    size--;
+    return tuple;
+  }
+
+  /** Adds a row with the fields of the tuple to the batch */
+  public void add(Tuple tuple) {
+    add(tuple.getFields());
+  }
+
+  /** Adds a row with the given fields to the batch */
+  public void add(Map<String, ?> fields) {
+    int row = addRow();
+    int expectedIndex = 0;
+    for (Map.Entry<String, ?> entry : fields.entrySet()) {
+      int field = addField(entry.getKey(), expectedIndex);
+      columns.get(field).set(row, entry.getValue());
+      expectedIndex = field + 1;
+    }
+  }
+
+  public void set(int field, int row, Object value) {
+    columns.get(field).set(row, value);
+  }
+
+  public void setLong(int field, int row, long value) {
+    columns.get(field).setLong(row, value, ColumnType.LONG);
+  }
+
+  public void setInt(int field, int row, int value) {
+    columns.get(field).setLong(row, value, ColumnType.INT);
+  }
+
+  public void setDouble(int field, int row, double value) {
+    columns.get(field).setDouble(row, value, ColumnType.DOUBLE);
+  }
+
+  public void setFloat(int field, int row, float value) {
+    columns.get(field).setDouble(row, value, ColumnType.FLOAT);
+  }
+
+  /**
+   * Returns the type of the values of the column. {@link #getLong(int, int)} and {@link
+   * #getDouble(int, int)} read the values of {@link ColumnType#LONG}, {@link ColumnType#INT},
+   * {@link ColumnType#DOUBLE} and {@link ColumnType#FLOAT} columns without boxing them.
+   */
+  public ColumnType getColumnType(int field) {
+    ColumnType type = columns.get(field).type;
+    return type == null ? ColumnType.OBJECT : type;
+  }
+
+  public boolean isNull(int field, int row) {
+    return !columns.get(field).present.get(row);
+  }
+
+  /** Returns the value of the cell, or null if it has none */
+  public Object get(int field, int row) {
+    return columns.get(field).get(row);
+  }
+
+  /** Returns the value of a non null numeric cell as a long */
+  public long getLong(int field, int row) {
+    Column column = columns.get(field);
+    switch (column.type) {
+      case LONG:
+      case INT:
+        return column.longs[row];
+      case DOUBLE:
+      case FLOAT:
+        return (long) column.doubles[row];
+      default:
+        return ((Number) column.objects[row]).longValue();
+    }
+  }
+
+  /** Returns the value of a non null numeric cell as a double */
+  public double getDouble(int field, int row) {
+    Column column = columns.get(field);
+    switch (column.type) {
+      case LONG:
+      case INT:
+        return column.longs[row];
+      case DOUBLE:
+      case FLOAT:
+        return column.doubles[row];
+      default:
+        return ((Number) column.objects[row]).doubleValue();
+    }
+  }
+
+  /** Returns true if the two rows have equal values for the field, null values being equal */
+  public boolean equals(int field, int row, int otherRow) {
+    Column column = columns.get(field);
+    boolean present = column.present.get(row);
+    if (present != column.present.get(otherRow)) {
+      return false;
+    } else if (!present) {
+      return true;
+    }
+    switch (column.type) {
+      case LONG:
+      case INT:
+        return column.longs[row] == column.longs[otherRow];
+      case DOUBLE:
+      case FLOAT:
+        // the same as Double.equals and Float.equals
+        return Double.doubleToLongBits(column.doubles[row])
+            == Double.doubleToLongBits(column.doubles[otherRow]);
+      default:
+        return column.objects[row].equals(column.objects[otherRow]);
+    }
+  }
+
+  /** Builds the tuple of a row, with the fields of the row that are not null */
+  public Tuple getTuple(int row) {
+    Tuple tuple = new Tuple();
+    for (int field = 0; field < columns.size(); field++) {
+      Object value = columns.get(field).get(row);
+      if (value != null) {
+        tuple.put(fields.get(field), value);
+      }
+    }
+    return tuple;
+  }
+
+  /**
+   * Returns a batch with the same rows, and the columns of this batch for which {@code rename}
+   * returns a name, under that name. The columns are shared, not copied.
+   */
+  public TupleBatch select(Function<String, String> rename) {
+    TupleBatch selected =
+        new TupleBatch(capacity, new ArrayList<>(), new HashMap<>(), new ArrayList<>());
+    for (int field = 0; field < fields.size(); field++) {
+      String name = rename.apply(fields.get(field));
+      if (name != null) {
+        Integer index = selected.fieldIndexes.get(name);
+        if (index == null) {
+          selected.fieldIndexes.put(name, selected.fields.size());
+          selected.fields.add(name);
+          selected.columns.add(columns.get(field));
+        } else {
+          selected.columns.set(index, columns.get(field));
+        }
+      }
+    }
+    selected.size = size;
+    selected.eof = eof;
+    return selected;
+  }
+
+  /**
+   * Returns the EOF tuple of the stream if the batch is the last one, which may still have rows,
+   * or null otherwise.
+   */
+  public Tuple getEOF() {
+    return eof;
+  }
+
+  public void setEOF(Tuple eof) {
+    this.eof = eof;
+  }
+
+  private static final class Column {
+    final int capacity;
+    final BitSet present = new BitSet();
+    // null until the first non null value is set
+    ColumnType type;
+    long[] longs;
+    double[] doubles;
+    Object[] objects;
+
+    Column(int capacity) {
+      this.capacity = capacity;
+    }
+
+    private static ColumnType typeOf(Object value) {
+      if (value instanceof Long) {
+        return ColumnType.LONG;
+      } else if (value instanceof Integer) {
+        return ColumnType.INT;
+      } else if (value instanceof Double) {
+        return ColumnType.DOUBLE;
+      } else if (value instanceof Float) {
+        return ColumnType.FLOAT;
+      } else {
+        return ColumnType.OBJECT;
+      }
+    }
+
+    private void init(ColumnType type) {
+      this.type = type;
+      switch (type) {
+        case LONG:
+        case INT:
+          longs = new long[capacity];
+          break;
+        case DOUBLE:
+        case FLOAT:
+          doubles = new double[capacity];
+          break;
+        default:
+          objects = new Object[capacity];
+      }
+    }
+
+    /** Boxes the values of the column, once it has values of different types */
+    private void toObjects() {
+      Object[] boxed = new Object[capacity];
+      for (int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1)) {
+        boxed[row] = get(row);
+      }
+      type = ColumnType.OBJECT;
+      objects = boxed;
+      longs = null;
+      doubles = null;
+    }
+
+    void set(int row, Object value) {
+      if (value == null) {
+        present.clear(row);
+        if (objects != null) {
+          objects[row] = null;
+        }
+        return;
+      }
+
+      ColumnType valueType = typeOf(value);
+      if (type == null) {
+        init(valueType);
+      } else if (type != valueType && type != ColumnType.OBJECT) {
+        toObjects();
+      }
+      switch (type) {
+        case LONG:
+          longs[row] = (Long) value;
+          break;
+        case INT:
+          longs[row] = (Integer) value;
+          break;
+        case DOUBLE:
+          doubles[row] = (Double) value;
+          break;
+        case FLOAT:
+          doubles[row] = (Float) value;
+          break;
+        default:
+          objects[row] = value;
+      }
+      present.set(row);
+    }
+
+    void setLong(int row, long value, ColumnType valueType) {
+      if (type == valueType) {
+        longs[row] = value;
+        present.set(row);
+      } else {
+        set(row, valueType == ColumnType.INT ? (Object) (int) value : (Object) value);
+      }
+    }
+
+    void setDouble(int row, double value, ColumnType valueType) {
+      if (type == valueType) {
+        doubles[row] = value;
+        present.set(row);
+      } else {
+        set(row, valueType == ColumnType.FLOAT ? (Object) (float) value : (Object) value);
+      }
+    }
+
+    Object get(int row) {
+      if (!present.get(row)) {
+        return null;
+      }
+      switch (type) {
+        case LONG:
+          return longs[row];
+        case INT:
+          return (int) longs[row];
+        case DOUBLE:
+          return doubles[row];
+        case FLOAT:
+          return (float) doubles[row];
+        default:
+          return objects[row];
+      }
+    }
+  }
+}
@@ -18,9 +18,13 @@ package org.apache.solr.client.solrj.io.stream;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
 import org.apache.solr.client.solrj.io.Tuple;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
 import org.apache.solr.client.solrj.io.stream.expr.Explanation;
@@ -31,6 +35,7 @@ import org.apache.solr.client.solrj.io.stream.expr.StreamExpression;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionNamedParameter;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionValue;
 import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
+import org.apache.solr.common.util.IOUtils;
 
 /**
  * Takes two streams (fullStream and hashStream) and joins them similar to an InnerJoinStream. The
@@ -41,6 +46,12 @@ import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
  * being computed on then that tuple will not be considered a match to anything. Ie, all fields
  * which are part of the hash must have a non-null value.
  *
+ * <p>If the hashStream has more tuples than the {@value TupleSpillFile#MAX_BUFFERED_TUPLES_PARAM}
+ * memory budget, both streams are partitioned by hash to local disk and joined partition by
+ * partition, the joined tuples being merged back in the order of the fullStream. A partition that
+ * is still larger than the budget is partitioned again, up to a few times: the hashed tuples of a
+ * single key can't be split, so the last partitions are joined in memory whatever their size.
+ *
  * @since 6.0.0
  */
 public class HashJoinStream extends TupleStream implements Expressible {
@@ -57,6 +68,21 @@ public class HashJoinStream extends TupleStream implements Expressible {
   protected String workingFullHash = null;
   protected int workingHashSetIdx = 0;
 
+  protected Integer maxBufferedTuples;
+
+  // number of partitions the streams are split into when the hashed tuples don't fit in memory
+  private static final int NUM_PARTITIONS = 32;
+
+  // number of times a partition may be split again when its hashed tuples still don't fit
+  private static final int MAX_PARTITION_DEPTH = 4;
+
+  private TupleSpillFile[] hashPartitions;
+  private TupleSpillFile[] fullPartitions;
+  private TupleSpillFile[] joinedPartitions;
+  private TupleSpillFile.Reader fullPartitionReader;
+  private PriorityQueue<TupleSpillFile.Reader> joinedReaders;
+  private Tuple fullEofTuple;
+
   public HashJoinStream(TupleStream fullStream, TupleStream hashStream, List<String> hashOn)
       throws IOException {
     init(fullStream, hashStream, hashOn);
@@ -70,9 +96,11 @@ public class HashJoinStream extends TupleStream implements Expressible {
     StreamExpressionNamedParameter hashStreamExpression =
         factory.getNamedOperand(expression, "hashed");
     StreamExpressionNamedParameter onExpression = factory.getNamedOperand(expression, "on");
+    Integer maxBufferedTuples = TupleSpillFile.getMaxBufferedTuples(expression, factory);
 
     // validate expression contains only what we want.
-    if (expression.getParameters().size() != streamExpressions.size() + 2) {
+    if (expression.getParameters().size()
+        != streamExpressions.size() + 2 + (maxBufferedTuples == null ? 0 : 1)) {
       throw new IOException(
           String.format(Locale.ROOT, "Invalid expression %s - unknown operands found", expression));
     }
@@ -114,6 +142,8 @@ public class HashJoinStream extends TupleStream implements Expressible {
         factory.constructStream(streamExpressions.get(0)),
         factory.constructStream((StreamExpression) hashStreamExpression.getParameter()),
         hashOn);
+
+    setMaxBufferedTuples(maxBufferedTuples);
   }
 
   private void init(TupleStream fullStream, TupleStream hashStream, List<String> hashOn)
@@ -143,6 +173,16 @@ public class HashJoinStream extends TupleStream implements Expressible {
     }
   }
 
+  /**
+   * Sets the number of hashed tuples that may be buffered in memory. Above it, the streams are
+   * partitioned to local disk and joined partition by partition.
+   *
+   * @see TupleSpillFile
+   */
+  public void setMaxBufferedTuples(Integer maxBufferedTuples) {
+    this.maxBufferedTuples = maxBufferedTuples;
+  }
+
   @Override
   public StreamExpression toExpression(StreamFactory factory) throws IOException {
     return toExpression(factory, true);
@@ -190,6 +230,7 @@ public class HashJoinStream extends TupleStream implements Expressible {
     }
 
     expression.addParameter(new StreamExpressionNamedParameter("on", sb.toString()));
+    TupleSpillFile.addMaxBufferedTuples(expression, maxBufferedTuples);
     return expression;
   }
 
@@ -226,20 +267,201 @@ public class HashJoinStream extends TupleStream implements Expressible {
     hashStream.open();
     fullStream.open();
 
+    int maxBuffered = TupleSpillFile.getMaxBufferedTuples(maxBufferedTuples);
+    int numBuffered = 0;
     Tuple tuple = hashStream.read();
     while (!tuple.EOF) {
       String hash = computeHash(tuple, rightHashOn);
       if (null != hash) {
-        if (hashedTuples.containsKey(hash)) {
-          hashedTuples.get(hash).add(tuple);
+        if (null != hashPartitions) {
+          hashPartitions[partition(hash, 0)].write(tuple);
         } else {
-          ArrayList<Tuple> set = new ArrayList<>();
-          set.add(tuple);
-          hashedTuples.put(hash, set);
+          if (hashedTuples.containsKey(hash)) {
+            hashedTuples.get(hash).add(tuple);
+          } else {
+            ArrayList<Tuple> set = new ArrayList<>();
+            set.add(tuple);
+            hashedTuples.put(hash, set);
+          }
+          if (++numBuffered >= maxBuffered) {
+            spillHashedTuples();
+          }
         }
       }
       tuple = hashStream.read();
     }
+
+    if (null != hashPartitions) {
+      joinPartitions();
+    }
+  }
+
+  /** Returns the partition of a hash, the tuples without one going to the first partition */
+  private static int partition(String hash, int depth) {
+    return null == hash ? 0 : TupleSpillFile.partition(hash.hashCode(), depth, NUM_PARTITIONS);
+  }
+
+  private static TupleSpillFile[] createPartitions() throws IOException {
+    TupleSpillFile[] partitions = new TupleSpillFile[NUM_PARTITIONS];
+    try {
+      for (int i = 0; i < NUM_PARTITIONS; i++) {
+        partitions[i] = new TupleSpillFile();
+      }
+    } catch (IOException e) {
+      closePartitions(partitions);
+      throw e;
+    }
+    return partitions;
+  }
+
+  /** Moves the hashed tuples to partitions on disk, the following ones going there too */
+  private void spillHashedTuples() throws IOException {
+    hashPartitions = createPartitions();
+    for (Map.Entry<String, List<Tuple>> entry : hashedTuples.entrySet()) {
+      TupleSpillFile partition = hashPartitions[partition(entry.getKey(), 0)];
+      for (Tuple hashedTuple : entry.getValue()) {
+        partition.write(hashedTuple);
+      }
+    }
+    hashedTuples.clear();
+  }
+
+  /**
+   * @return true if the tuples of the fullStream are returned even when they have no match
+   */
+  protected boolean returnsUnmatchedFullTuples() {
+    return false;
+  }
+
+  /**
+   * Partitions the fullStream like the hashed tuples, tagging each tuple with its position in the
+   * stream, then joins each partition. The joined tuples of a partition are written in the order of
+   * the fullStream, so they can be merged back in that order by {@link #read()}.
+   */
+  private void joinPartitions() throws IOException {
+    fullPartitions = createPartitions();
+    long position = 0;
+    Tuple fullTuple = fullStream.read();
+    while (!fullTuple.EOF) {
+      String hash = computeHash(fullTuple, leftHashOn);
+      if (null != hash || returnsUnmatchedFullTuples()) {
+        fullPartitions[partition(hash, 0)].write(position, fullTuple);
+      }
+      position++;
+      fullTuple = fullStream.read();
+    }
+    fullEofTuple = fullTuple;
+
+    joinedPartitions = new TupleSpillFile[NUM_PARTITIONS];
+    joinedReaders =
+        new PriorityQueue<>(
+            NUM_PARTITIONS, Comparator.comparingLong(TupleSpillFile.Reader::getTag));
+    for (int i = 0; i < NUM_PARTITIONS; i++) {
+      joinedPartitions[i] = joinPartition(hashPartitions[i], fullPartitions[i], 1);
+      TupleSpillFile.Reader joinedReader = joinedPartitions[i].openReader();
+      if (null != joinedReader.read()) {
+        joinedReaders.add(joinedReader);
+      }
+    }
+  }
+
+  /**
+   * Joins the tuples of a partition of the fullStream with the hashed tuples of the same partition,
+   * in memory if they fit in the budget and by partitioning them again otherwise. Both partitions
+   * are deleted.
+   *
+   * @param depth the number of times the tuples were partitioned, which salts their partition
+   * @return the joined tuples, tagged with their position in the fullStream and in that order
+   */
+  private TupleSpillFile joinPartition(
+      TupleSpillFile hashPartition, TupleSpillFile fullPartition, int depth) throws IOException {
+    try (hashPartition;
+        fullPartition) {
+      if (hashPartition.size() > TupleSpillFile.getMaxBufferedTuples(maxBufferedTuples)
+          && depth < MAX_PARTITION_DEPTH) {
+        return repartition(hashPartition, fullPartition, depth);
+      }
+
+      hashedTuples.clear();
+      TupleSpillFile.Reader reader = hashPartition.openReader();
+      for (Tuple hashedTuple = reader.read(); hashedTuple != null; hashedTuple = reader.read()) {
+        hashedTuples
+            .computeIfAbsent(computeHash(hashedTuple, rightHashOn), k -> new ArrayList<>())
+            .add(hashedTuple);
+      }
+
+      TupleSpillFile joined = new TupleSpillFile();
+      try {
+        fullPartitionReader = fullPartition.openReader();
+        for (Tuple tuple = readJoined(); !tuple.EOF; tuple = readJoined()) {
+          joined.write(fullPartitionReader.getTag(), tuple);
+        }
+      } catch (IOException | RuntimeException e) {
+        IOUtils.closeQuietly(joined);
+        throw e;
+      } finally {
+        fullPartitionReader = null;
+        hashedTuples.clear();
+      }
+      return joined;
+    }
+  }
+
+  /** Splits both partitions in smaller ones, joins them and merges the joined tuples back */
+  private TupleSpillFile repartition(
+      TupleSpillFile hashPartition, TupleSpillFile fullPartition, int depth) throws IOException {
+    TupleSpillFile[] hashSubPartitions = null;
+    TupleSpillFile[] fullSubPartitions = null;
+    TupleSpillFile[] joinedSubPartitions = new TupleSpillFile[NUM_PARTITIONS];
+    try {
+      hashSubPartitions = createPartitions();
+      fullSubPartitions = createPartitions();
+      split(hashPartition, hashSubPartitions, rightHashOn, depth);
+      split(fullPartition, fullSubPartitions, leftHashOn, depth);
+      for (int i = 0; i < NUM_PARTITIONS; i++) {
+        joinedSubPartitions[i] =
+            joinPartition(hashSubPartitions[i], fullSubPartitions[i], depth + 1);
+      }
+
+      PriorityQueue<TupleSpillFile.Reader> readers =
+          new PriorityQueue<>(
+              NUM_PARTITIONS, Comparator.comparingLong(TupleSpillFile.Reader::getTag));
+      for (TupleSpillFile joinedSubPartition : joinedSubPartitions) {
+        TupleSpillFile.Reader reader = joinedSubPartition.openReader();
+        if (null != reader.read()) {
+          readers.add(reader);
+        }
+      }
+      TupleSpillFile joined = new TupleSpillFile();
+      try {
+        for (TupleSpillFile.Reader reader = readers.poll();
+            null != reader;
+            reader = readers.poll()) {
+          joined.write(reader.getTag(), reader.current());
+          if (null != reader.read()) {
+            readers.add(reader);
+          }
+        }
+      } catch (IOException | RuntimeException e) {
+        IOUtils.closeQuietly(joined);
+        throw e;
+      }
+      return joined;
+    } finally {
+      closePartitions(hashSubPartitions);
+      closePartitions(fullSubPartitions);
+      closePartitions(joinedSubPartitions);
+    }
+  }
+
+  /** Writes the tuples of a partition to the sub-partitions of their hash, keeping their tags */
+  private void split(
+      TupleSpillFile partition, TupleSpillFile[] subPartitions, List<String> hashOn, int depth)
+      throws IOException {
+    TupleSpillFile.Reader reader = partition.openReader();
+    for (Tuple tuple = reader.read(); tuple != null; tuple = reader.read()) {
+      subPartitions[partition(computeHash(tuple, hashOn), depth)].write(reader.getTag(), tuple);
+    }
   }
 
   protected String computeHash(Tuple tuple, List<String> hashOn) {
@@ -258,16 +480,61 @@ public class HashJoinStream extends TupleStream implements Expressible {
 
   @Override
   public void close() throws IOException {
-    hashStream.close();
-    fullStream.close();
+    try {
+      hashStream.close();
+      fullStream.close();
+    } finally {
+      closePartitions(hashPartitions);
+      closePartitions(fullPartitions);
+      closePartitions(joinedPartitions);
+      hashPartitions = fullPartitions = joinedPartitions = null;
+      joinedReaders = null;
+      hashedTuples.clear();
+    }
+  }
+
+  private static void closePartitions(TupleSpillFile[] partitions) {
+    if (null != partitions) {
+      IOUtils.closeQuietly(Arrays.asList(partitions));
+    }
   }
 
   @Override
   public Tuple read() throws IOException {
+    if (null == joinedReaders) {
+      return readJoined();
+    }
+
+    // merge the joined partitions back in the order of the fullStream
+    TupleSpillFile.Reader reader = joinedReaders.poll();
+    if (null == reader) {
+      return fullEofTuple;
+    }
+    Tuple returnTuple = reader.current();
+    if (null != reader.read()) {
+      joinedReaders.add(reader);
+    }
+    return returnTuple;
+  }
+
+  /**
+   * Reads the next tuple of the fullStream, or of the partition of the fullStream being joined if
+   * the streams were partitioned.
+   */
+  protected Tuple readFullTuple() throws IOException {
+    if (null == fullPartitionReader) {
+      return fullStream.read();
+    }
+    Tuple fullTuple = fullPartitionReader.read();
+    return null == fullTuple ? Tuple.EOF() : fullTuple;
+  }
+
+  /** Returns the next joined tuple, reading the fullStream with {@link #readFullTuple()}. */
+  protected Tuple readJoined() throws IOException {
 
     findNextWorkingFullTuple:
     while (null == workingFullTuple) {
-      Tuple fullTuple = fullStream.read();
+      Tuple fullTuple = readFullTuple();
 
       // We're at the end of the line
       if (fullTuple.EOF) {
@@ -17,7 +17,9 @@
 package org.apache.solr.client.solrj.io.stream;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -39,6 +41,7 @@ import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionValue;
 import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
 import org.apache.solr.client.solrj.io.stream.metrics.Bucket;
 import org.apache.solr.client.solrj.io.stream.metrics.Metric;
+import org.apache.solr.common.util.IOUtils;
 
 public class HashRollupStream extends TupleStream implements Expressible {
 
@@ -48,7 +51,14 @@ public class HashRollupStream extends TupleStream implements Expressible {
   private Bucket[] buckets;
   private Metric[] metrics;
 
+  private Integer maxBufferedTuples;
+
+  // number of partitions the tuples of the buckets that don't fit in memory are split into
+  private static final int NUM_PARTITIONS = 16;
+
   private Iterator<Tuple> tupleIterator;
+  private Tuple eofTuple;
+  private final Deque<SpilledPartition> spilledPartitions = new ArrayDeque<>();
 
   public HashRollupStream(TupleStream tupleStream, Bucket[] buckets, Metric[] metrics) {
     init(tupleStream, buckets, metrics);
@@ -62,10 +72,14 @@ public class HashRollupStream extends TupleStream implements Expressible {
     List<StreamExpression> metricExpressions =
         factory.getExpressionOperandsRepresentingTypes(expression, Expressible.class, Metric.class);
     StreamExpressionNamedParameter overExpression = factory.getNamedOperand(expression, "over");
+    Integer maxBufferedTuples = TupleSpillFile.getMaxBufferedTuples(expression, factory);
 
     // validate expression contains only what we want.
     if (expression.getParameters().size()
-        != streamExpressions.size() + metricExpressions.size() + 1) {
+        != streamExpressions.size()
+            + metricExpressions.size()
+            + 1
+            + (maxBufferedTuples == null ? 0 : 1)) {
       throw new IOException(
           String.format(Locale.ROOT, "Invalid expression %s - unknown operands found", expression));
     }
@@ -110,6 +124,7 @@ public class HashRollupStream extends TupleStream implements Expressible {
     }
 
     init(factory.constructStream(streamExpressions.get(0)), buckets, metrics);
+    setMaxBufferedTuples(maxBufferedTuples);
   }
 
   private List<FieldEqualitor> flattenEqualitor(StreamEqualitor equalitor) {
@@ -132,6 +147,16 @@ public class HashRollupStream extends TupleStream implements Expressible {
     this.metrics = metrics;
   }
 
+  /**
+   * Sets the number of buckets that may be aggregated in memory. Above it, the tuples of the other
+   * buckets are partitioned to local disk and aggregated partition by partition.
+   *
+   * @see TupleSpillFile
+   */
+  public void setMaxBufferedTuples(Integer maxBufferedTuples) {
+    this.maxBufferedTuples = maxBufferedTuples;
+  }
+
   @Override
   public StreamExpression toExpression(StreamFactory factory) throws IOException {
     return toExpression(factory, true);
@@ -164,6 +189,8 @@ public class HashRollupStream extends TupleStream implements Expressible {
       expression.addParameter(metric.toExpression(factory));
     }
 
+    TupleSpillFile.addMaxBufferedTuples(expression, maxBufferedTuples);
+
     return expression;
   }
 
@@ -204,62 +231,125 @@ public class HashRollupStream extends TupleStream implements Expressible {
 
   @Override
   public void close() throws IOException {
-    tupleStream.close();
-    tupleIterator = null;
+    try {
+      tupleStream.close();
+    } finally {
+      tupleIterator = null;
+      for (SpilledPartition partition : spilledPartitions) {
+        IOUtils.closeQuietly(partition.file);
+      }
+      spilledPartitions.clear();
+    }
   }
 
   @Override
   public Tuple read() throws IOException {
     // On the first call to read build the tupleIterator.
     if (tupleIterator == null) {
-      Map<HashKey, Metric[]> metricMap = new HashMap<>();
-      while (true) {
-        Tuple tuple = tupleStream.read();
-        if (tuple.EOF) {
-          List<Tuple> tuples = new ArrayList<>();
-          for (Map.Entry<HashKey, Metric[]> entry : metricMap.entrySet()) {
-            Tuple t = new Tuple();
-            Metric[] finishedMetrics = entry.getValue();
-            for (Metric metric : finishedMetrics) {
-              t.put(metric.getIdentifier(), metric.getValue());
-            }
-
-            HashKey hashKey = entry.getKey();
-            for (int i = 0; i < buckets.length; i++) {
-              t.put(buckets[i].toString(), hashKey.getParts()[i]);
-            }
-            tuples.add(t);
-          }
-          tuples.add(tuple);
-          this.tupleIterator = tuples.iterator();
-          break;
-        }
+      tupleIterator =
+          aggregate(
+              () -> {
+                Tuple tuple = tupleStream.read();
+                if (tuple.EOF) {
+                  eofTuple = tuple;
+                  return null;
+                }
+                return tuple;
+              },
+              0);
+    }
 
-        Object[] bucketValues = new Object[buckets.length];
-        for (int i = 0; i < buckets.length; i++) {
-          bucketValues[i] = buckets[i].getBucketValue(tuple);
-        }
+    // Then aggregate the partitions spilled to disk, if any, one after the other
+    while (!tupleIterator.hasNext()) {
+      SpilledPartition partition = spilledPartitions.poll();
+      if (partition == null) {
+        return eofTuple;
+      }
+      try (TupleSpillFile file = partition.file) {
+        TupleSpillFile.Reader reader = file.openReader();
+        tupleIterator = aggregate(reader::read, partition.depth);
+      }
+    }
 
-        HashKey hashKey = new HashKey(bucketValues);
-        Metric[] currentMetrics = metricMap.get(hashKey);
-
-        if (currentMetrics != null) {
-          for (Metric bucketMetric : currentMetrics) {
-            bucketMetric.update(tuple);
-          }
-        } else {
-          currentMetrics = new Metric[metrics.length];
-          for (int i = 0; i < metrics.length; i++) {
-            Metric bucketMetric = metrics[i].newInstance();
-            bucketMetric.update(tuple);
-            currentMetrics[i] = bucketMetric;
-          }
-          metricMap.put(hashKey, currentMetrics);
+    return tupleIterator.next();
+  }
+
+  /**
+   * Aggregates the tuples of the source, as long as the number of buckets fits in memory. The
+   * tuples of the buckets that don't fit are partitioned to local disk, to be aggregated later.
+   *
+   * @param depth the number of times the tuples were partitioned, which salts their partition
+   * @return the aggregated buckets
+   */
+  private Iterator<Tuple> aggregate(TupleSource source, int depth) throws IOException {
+    int maxBuckets = TupleSpillFile.getMaxBufferedTuples(maxBufferedTuples);
+    TupleSpillFile[] partitions = null;
+    Map<HashKey, Metric[]> metricMap = new HashMap<>();
+    for (Tuple tuple = source.next(); tuple != null; tuple = source.next()) {
+      Object[] bucketValues = new Object[buckets.length];
+      for (int i = 0; i < buckets.length; i++) {
+        bucketValues[i] = buckets[i].getBucketValue(tuple);
+      }
+
+      HashKey hashKey = new HashKey(bucketValues);
+      Metric[] currentMetrics = metricMap.get(hashKey);
+
+      if (currentMetrics != null) {
+        for (Metric bucketMetric : currentMetrics) {
+          bucketMetric.update(tuple);
+        }
+      } else if (metricMap.size() < maxBuckets) {
+        currentMetrics = new Metric[metrics.length];
+        for (int i = 0; i < metrics.length; i++) {
+          Metric bucketMetric = metrics[i].newInstance();
+          bucketMetric.update(tuple);
+          currentMetrics[i] = bucketMetric;
+        }
+        metricMap.put(hashKey, currentMetrics);
+      } else {
+        // the bucket doesn't fit in memory, all its tuples go to the same partition
+        if (partitions == null) {
+          partitions = new TupleSpillFile[NUM_PARTITIONS];
         }
+        int partition = TupleSpillFile.partition(hashKey.hashCode(), depth, NUM_PARTITIONS);
+        if (partitions[partition] == null) {
+          partitions[partition] = new TupleSpillFile();
+          spilledPartitions.add(new SpilledPartition(partitions[partition], depth + 1));
+        }
+        partitions[partition].write(tuple);
       }
     }
 
-    return tupleIterator.next();
+    List<Tuple> tuples = new ArrayList<>(metricMap.size());
+    for (Map.Entry<HashKey, Metric[]> entry : metricMap.entrySet()) {
+      Tuple t = new Tuple();
+      Metric[] finishedMetrics = entry.getValue();
+      for (Metric metric : finishedMetrics) {
+        t.put(metric.getIdentifier(), metric.getValue());
+      }
+
+      HashKey hashKey = entry.getKey();
+      for (int i = 0; i < buckets.length; i++) {
+        t.put(buckets[i].toString(), hashKey.getParts()[i]);
+      }
+      tuples.add(t);
+    }
+    return tuples.iterator();
+  }
+
+  private interface TupleSource {
+    /** Returns the next tuple, or null at the end */
+    Tuple next() throws IOException;
+  }
+
+  private static class SpilledPartition {
+    final TupleSpillFile file;
+    final int depth;
+
+    SpilledPartition(TupleSpillFile file, int depth) {
+      this.file = file;
+      this.depth = depth;
+    }
   }
 
   @Override
@@ -25,6 +25,9 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
+import org.apache.solr.common.params.StreamParams;
 import org.apache.solr.common.util.DataInputInputStream;
 import org.apache.solr.common.util.FastInputStream;
 import org.apache.solr.common.util.JavaBinCodec;
@@ -176,24 +179,116 @@ public class JavabinTupleStreamParser extends JavaBinCodec implements TupleStrea
     } else return super.readObject(dis);
   }
 
-  @Override
-  @SuppressWarnings({"unchecked"})
-  public Map<String, Object> next() throws IOException {
+  private boolean atDocs() throws IOException {
     if (!atDocs) {
       atDocs = true;
       if (!readTillDocs()) {
         arraySize = 0;
-        return null;
       }
     }
+    return arraySize != 0;
+  }
 
-    if (arraySize == 0) return null;
+  @Override
+  @SuppressWarnings({"unchecked"})
+  public Map<String, Object> next() throws IOException {
+    if (!atDocs()) return null;
     Object o = readVal(fis);
     arraySize--;
     if (o == END_OBJ) return null;
     return (Map<String, Object>) o;
   }
 
+  /**
+   * Decodes the documents written as map entry iterators, which is how the /export and /stream
+   * handlers write them, straight into the columns of the batch, without creating a map or boxing
+   * numbers. Other documents are decoded as maps. The document with an EOF field that ends the
+   * /stream response becomes the EOF tuple of the batch rather than one of its rows.
+   */
+  @Override
+  @SuppressWarnings({"unchecked"})
+  public boolean nextBatch(TupleBatch batch) throws IOException {
+    while (!batch.isFull()) {
+      if (!atDocs()) return false;
+      tagByte = fis.readByte();
+      arraySize--;
+      if (tagByte == END) {
+        arraySize = 0;
+        return false;
+      }
+      if (tagByte == MAP_ENTRY_ITER) {
+        int numFields = batch.getFields().size();
+        readDocument(batch);
+        int eofField = batch.getFieldIndex(StreamParams.EOF);
+        if (eofField != -1 && !batch.isNull(eofField, batch.size() - 1)) {
+          // only the EOF document has the EOF field and the fields added after it
+          batch.setEOF(batch.removeLastRow(numFields));
+          return false;
+        }
+      } else {
+        Map<String, Object> fields = (Map<String, Object>) readObject(fis);
+        if (fields.containsKey(StreamParams.EOF)) {
+          batch.setEOF(new Tuple(fields));
+          return false;
+        }
+        batch.add(fields);
+      }
+    }
+    return true;
+  }
+
+  private void readDocument(TupleBatch batch) throws IOException {
+    int row = batch.addRow();
+    for (int expectedField = 0; ; ) {
+      Object key = readVal(fis);
+      if (key == END_OBJ) break;
+      int field = batch.addField(key.toString(), expectedField);
+      readValue(batch, field, row);
+      expectedField = field + 1;
+    }
+  }
+
+  private void readValue(TupleBatch batch, int field, int row) throws IOException {
+    tagByte = fis.readByte();
+    switch (tagByte >>> 5) {
+      case SINT >>> 5:
+        if (onlyJsonTypes) {
+          batch.setLong(field, row, readSmallInt(fis));
+        } else {
+          batch.setInt(field, row, readSmallInt(fis));
+        }
+        return;
+      case SLONG >>> 5:
+        batch.setLong(field, row, readSmallLong(fis));
+        return;
+    }
+
+    switch (tagByte) {
+      case INT:
+        if (onlyJsonTypes) {
+          batch.setLong(field, row, fis.readInt());
+        } else {
+          batch.setInt(field, row, fis.readInt());
+        }
+        return;
+      case LONG:
+        batch.setLong(field, row, fis.readLong());
+        return;
+      case FLOAT:
+        if (onlyJsonTypes) {
+          batch.setDouble(field, row, fis.readFloat());
+        } else {
+          batch.setFloat(field, row, fis.readFloat());
+        }
+        return;
+      case DOUBLE:
+        batch.setDouble(field, row, fis.readDouble());
+        return;
+      default:
+        batch.set(field, row, readObject(fis));
+    }
+  }
+
   @Override
   public void close() throws IOException {
     is.close();
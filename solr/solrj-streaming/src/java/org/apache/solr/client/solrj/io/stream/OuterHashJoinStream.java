@@ -88,15 +88,21 @@ public class OuterHashJoinStream extends HashJoinStream implements Expressible {
       }
     }
     expression.addParameter(new StreamExpressionNamedParameter("on", sb.toString()));
+    TupleSpillFile.addMaxBufferedTuples(expression, maxBufferedTuples);
 
     return expression;
   }
 
   @Override
-  public Tuple read() throws IOException {
+  protected boolean returnsUnmatchedFullTuples() {
+    return true;
+  }
+
+  @Override
+  protected Tuple readJoined() throws IOException {
 
     if (null == workingFullTuple) {
-      Tuple fullTuple = fullStream.read();
+      Tuple fullTuple = readFullTuple();
 
       // We're at the end of the line
       if (fullTuple.EOF) {
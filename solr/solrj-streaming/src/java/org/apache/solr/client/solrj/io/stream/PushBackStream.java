@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
 import org.apache.solr.client.solrj.io.stream.expr.Explanation;
 import org.apache.solr.client.solrj.io.stream.expr.Expressible;
@@ -96,6 +97,19 @@ public class PushBackStream extends TupleStream implements Expressible {
     }
   }
 
+  @Override
+  public boolean supportsBatches() {
+    return tuple == null && stream.supportsBatches();
+  }
+
+  @Override
+  public TupleBatch readBatch(int maxRows) throws IOException {
+    if (tuple != null) {
+      return super.readBatch(maxRows);
+    }
+    return stream.readBatch(maxRows);
+  }
+
   /**
    * Return the stream sort - ie, the order in which records are returned This returns the
    * streamSort of the substream
@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.HashKey;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
 import org.apache.solr.client.solrj.io.eq.FieldEqualitor;
@@ -52,6 +53,12 @@ public class RollupStream extends TupleStream implements Expressible {
   private Metric[] currentMetrics;
   private boolean finished = false;
 
+  // set when the incoming stream produces batches, which are then rolled up column by column
+  private boolean batched;
+  private TupleBatch batch;
+  private int batchRow;
+  private int[] bucketFields;
+
   public RollupStream(TupleStream tupleStream, Bucket[] buckets, Metric[] metrics) {
     init(tupleStream, buckets, metrics);
   }
@@ -202,6 +209,7 @@ public class RollupStream extends TupleStream implements Expressible {
   @Override
   public void open() throws IOException {
     tupleStream.open();
+    batched = metrics != null && tupleStream.supportsBatches();
   }
 
   @Override
@@ -210,10 +218,14 @@ public class RollupStream extends TupleStream implements Expressible {
     this.currentMetrics = null;
     this.currentKey = new HashKey("-");
     this.finished = false;
+    this.batch = null;
   }
 
   @Override
   public Tuple read() throws IOException {
+    if (batched) {
+      return readBatched();
+    }
 
     while (true) {
       Tuple tuple = tupleStream.read();
@@ -281,6 +293,85 @@ public class RollupStream extends TupleStream implements Expressible {
     }
   }
 
+  /**
+   * Rolls up the batches of the incoming stream. The bucket values of consecutive rows are compared
+   * column by column, and the metrics are updated with the whole range of rows of a bucket, so a
+   * row only becomes a tuple for metrics that don't read batches.
+   */
+  private Tuple readBatched() throws IOException {
+    while (true) {
+      if (batch == null || batchRow == batch.size()) {
+        if (batch != null && batch.getEOF() != null) {
+          if (finished || currentMetrics == null) {
+            return batch.getEOF();
+          }
+          finished = true;
+          return currentBucket();
+        }
+
+        batch = tupleStream.readBatch(TupleBatch.DEFAULT_SIZE);
+        batchRow = 0;
+        bucketFields = new int[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+          bucketFields[i] = batch.getFieldIndex(buckets[i].toString());
+        }
+        continue;
+      }
+
+      if (currentMetrics == null || !bucketKey(batchRow).equals(currentKey)) {
+        Tuple t = currentMetrics != null ? currentBucket() : null;
+        currentKey = bucketKey(batchRow);
+        currentMetrics = new Metric[metrics.length];
+        for (int i = 0; i < metrics.length; i++) {
+          currentMetrics[i] = metrics[i].newInstance();
+        }
+        if (t != null) {
+          return t;
+        }
+      }
+
+      // the rows of the current bucket in this batch
+      int fromRow = batchRow;
+      int toRow = fromRow + 1;
+      while (toRow < batch.size() && sameBucket(fromRow, toRow)) {
+        toRow++;
+      }
+      for (Metric bucketMetric : currentMetrics) {
+        bucketMetric.update(batch, fromRow, toRow);
+      }
+      batchRow = toRow;
+    }
+  }
+
+  private HashKey bucketKey(int row) {
+    Object[] bucketValues = new Object[buckets.length];
+    for (int i = 0; i < buckets.length; i++) {
+      bucketValues[i] = buckets[i].getBucketValue(batch, row);
+    }
+    return new HashKey(bucketValues);
+  }
+
+  private boolean sameBucket(int row, int otherRow) {
+    for (int field : bucketFields) {
+      if (field != -1 && !batch.equals(field, row, otherRow)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private Tuple currentBucket() {
+    Tuple t = new Tuple();
+    for (Metric metric : currentMetrics) {
+      t.put(metric.getIdentifier(), metric.getValue());
+    }
+
+    for (int i = 0; i < buckets.length; i++) {
+      t.put(buckets[i].toString(), currentKey.getParts()[i]);
+    }
+    return t;
+  }
+
   @Override
   public int getCost() {
     return 0;
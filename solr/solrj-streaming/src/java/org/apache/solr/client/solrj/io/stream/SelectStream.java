@@ -25,6 +25,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
 import org.apache.solr.client.solrj.io.eval.EvaluatorException;
 import org.apache.solr.client.solrj.io.eval.StreamEvaluator;
@@ -355,6 +356,34 @@ public class SelectStream extends TupleStream implements Expressible {
     return workingToReturn;
   }
 
+  /** Only a select without evaluators or operations, which just picks fields, reads batches */
+  @Override
+  public boolean supportsBatches() {
+    return selectedEvaluators.isEmpty() && operations.isEmpty() && stream.supportsBatches();
+  }
+
+  @Override
+  public TupleBatch readBatch(int maxRows) throws IOException {
+    if (!selectedEvaluators.isEmpty() || !operations.isEmpty()) {
+      return super.readBatch(maxRows);
+    }
+
+    // the selected columns are shared with the incoming batch, not copied
+    return stream.readBatch(maxRows).select(this::selectedName);
+  }
+
+  private String selectedName(String fieldName) {
+    String selectedName = selectedFields.get(fieldName);
+    if (selectedName == null) {
+      for (String globPattern : selectedFieldGlobPatterns) {
+        if (GlobPatternUtil.matches(globPattern, fieldName)) {
+          return fieldName;
+        }
+      }
+    }
+    return selectedName;
+  }
+
   /** Return the stream sort - ie, the order in which records are returned */
   @Override
   public StreamComparator getStreamSort() {
@@ -28,6 +28,7 @@ import org.apache.solr.client.solrj.SolrRequest;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.io.SolrClientCache;
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
 import org.apache.solr.client.solrj.io.stream.expr.Explanation;
 import org.apache.solr.client.solrj.io.stream.expr.Explanation.ExpressionType;
@@ -233,6 +234,79 @@ public class SolrStream extends TupleStream {
     }
   }
 
+  @Override
+  public boolean supportsBatches() {
+    return true;
+  }
+
+  /**
+   * Reads the documents of the response straight into the batch. The EOF document of the response
+   * is the EOF tuple of the last batch.
+   */
+  @Override
+  public TupleBatch readBatch(int maxRows) throws IOException {
+    try {
+      TupleBatch batch = new TupleBatch(maxRows);
+      boolean more = tupleStreamParser.nextBatch(batch);
+
+      if (batch.getEOF() != null) {
+        String msg = batch.getEOF().getException();
+        if (msg != null) {
+          throw new HandledException(msg);
+        }
+      }
+
+      int exceptionField = batch.getFieldIndex(StreamParams.EXCEPTION);
+      if (exceptionField != -1) {
+        for (int row = 0; row < batch.size(); row++) {
+          Object msg = batch.get(exceptionField, row);
+          if (msg != null) {
+            throw new HandledException((String) msg);
+          }
+        }
+      }
+
+      if (trace) {
+        int coreField = batch.addField("_CORE_");
+        int sliceField = slice != null ? batch.addField("_SLICE_") : -1;
+        for (int row = 0; row < batch.size(); row++) {
+          batch.set(coreField, row, this.baseUrl);
+          if (sliceField != -1) {
+            batch.set(sliceField, row, slice);
+          }
+        }
+      }
+
+      if (fieldMappings != null) {
+        // as in mapFields, a mapped field replaces a field with the same name
+        batch =
+            batch.select(
+                field -> {
+                  String mapTo = fieldMappings.get(field);
+                  if (mapTo != null) {
+                    return mapTo;
+                  }
+                  return fieldMappings.containsValue(field) ? null : field;
+                });
+      }
+
+      if (!more && batch.getEOF() == null) {
+        batch.setEOF(Tuple.EOF());
+      }
+      return batch;
+    } catch (HandledException e) {
+      throw new IOException("--> " + this.baseUrl + ":" + e.getMessage());
+    } catch (Exception e) {
+      // The Stream source did not provide an exception in a format that the SolrStream could
+      // propagate.
+      throw new IOException(
+          "--> "
+              + this.baseUrl
+              + ": An exception has occurred on the server, refer to server log for details.",
+          e);
+    }
+  }
+
   public void setDistrib(boolean distrib) {
     this.distrib = distrib;
   }
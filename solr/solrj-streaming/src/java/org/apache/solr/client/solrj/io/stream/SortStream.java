@@ -16,11 +16,12 @@
  */
 package org.apache.solr.client.solrj.io.stream;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.PriorityQueue;
 import org.apache.solr.client.solrj.io.Tuple;
 import org.apache.solr.client.solrj.io.comp.FieldComparator;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
@@ -32,6 +33,7 @@ import org.apache.solr.client.solrj.io.stream.expr.StreamExpression;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionNamedParameter;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionValue;
 import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
+import org.apache.solr.common.util.IOUtils;
 
 /**
  * The SortStream emits a stream of Tuples sorted by a Comparator.
@@ -44,6 +46,7 @@ public class SortStream extends TupleStream implements Expressible {
 
   private TupleStream stream;
   private StreamComparator comparator;
+  private Integer maxBufferedTuples;
   private Worker worker;
 
   public SortStream(TupleStream stream, StreamComparator comp) throws IOException {
@@ -56,9 +59,11 @@ public class SortStream extends TupleStream implements Expressible {
         factory.getExpressionOperandsRepresentingTypes(
             expression, Expressible.class, TupleStream.class);
     StreamExpressionNamedParameter byExpression = factory.getNamedOperand(expression, "by");
+    Integer maxBufferedTuples = TupleSpillFile.getMaxBufferedTuples(expression, factory);
 
     // validate expression contains only what we want.
-    if (expression.getParameters().size() != streamExpressions.size() + 1) {
+    if (expression.getParameters().size()
+        != streamExpressions.size() + 1 + (maxBufferedTuples == null ? 0 : 1)) {
       throw new IOException(
           String.format(Locale.ROOT, "Invalid expression %s - unknown operands found", expression));
     }
@@ -85,44 +90,23 @@ public class SortStream extends TupleStream implements Expressible {
         factory.constructComparator(
             ((StreamExpressionValue) byExpression.getParameter()).getValue(),
             FieldComparator.class));
+    setMaxBufferedTuples(maxBufferedTuples);
   }
 
   private void init(TupleStream stream, StreamComparator comp) throws IOException {
     this.stream = stream;
     this.comparator = comp;
+    this.worker = new Worker();
+  }
 
-    // standard java modified merge sort
-    worker =
-        new Worker() {
-
-          @SuppressWarnings("JdkObsolete")
-          private final LinkedList<Tuple> tuples = new LinkedList<>();
-
-          private Tuple eofTuple;
-
-          @Override
-          public void readStream(TupleStream stream) throws IOException {
-            Tuple tuple = stream.read();
-            while (!tuple.EOF) {
-              tuples.add(tuple);
-              tuple = stream.read();
-            }
-            eofTuple = tuple;
-          }
-
-          @Override
-          public void sort() {
-            tuples.sort(comparator);
-          }
-
-          @Override
-          public Tuple read() {
-            if (tuples.isEmpty()) {
-              return eofTuple;
-            }
-            return tuples.removeFirst();
-          }
-        };
+  /**
+   * Sets the number of tuples that may be buffered in memory. Above it, sorted runs of tuples are
+   * spilled to local disk and merged back when read.
+   *
+   * @see TupleSpillFile
+   */
+  public void setMaxBufferedTuples(Integer maxBufferedTuples) {
+    this.maxBufferedTuples = maxBufferedTuples;
   }
 
   @Override
@@ -156,6 +140,8 @@ public class SortStream extends TupleStream implements Expressible {
           "This SortStream contains a non-expressible equalitor - it cannot be converted to an expression");
     }
 
+    TupleSpillFile.addMaxBufferedTuples(expression, maxBufferedTuples);
+
     return expression;
   }
 
@@ -193,7 +179,11 @@ public class SortStream extends TupleStream implements Expressible {
 
   @Override
   public void close() throws IOException {
-    stream.close();
+    try {
+      stream.close();
+    } finally {
+      worker.close();
+    }
   }
 
   @Override
@@ -213,11 +203,119 @@ public class SortStream extends TupleStream implements Expressible {
     return 0;
   }
 
-  private interface Worker {
-    public void readStream(TupleStream stream) throws IOException;
+  /**
+   * Sorts the tuples in memory as long as they fit in the buffer, otherwise spills sorted runs of
+   * tuples to local disk and merges them back with the tuples left in memory.
+   */
+  private class Worker implements Closeable {
+
+    private final ArrayList<Tuple> tuples = new ArrayList<>();
+    private final List<TupleSpillFile> runs = new ArrayList<>();
+    private int position;
+    private PriorityQueue<RunCursor> merge;
+    private Tuple eofTuple;
+
+    public void readStream(TupleStream stream) throws IOException {
+      close();
+      int maxBuffered = TupleSpillFile.getMaxBufferedTuples(maxBufferedTuples);
+      Tuple tuple = stream.read();
+      while (!tuple.EOF) {
+        tuples.add(tuple);
+        if (tuples.size() >= maxBuffered) {
+          spillRun();
+        }
+        tuple = stream.read();
+      }
+      eofTuple = tuple;
+    }
+
+    private void spillRun() throws IOException {
+      tuples.sort(comparator);
+      TupleSpillFile run = new TupleSpillFile();
+      runs.add(run);
+      for (Tuple tuple : tuples) {
+        run.write(tuple);
+      }
+      tuples.clear();
+    }
 
-    public void sort();
+    public void sort() throws IOException {
+      tuples.sort(comparator);
+      if (runs.isEmpty()) {
+        return;
+      }
+      // ties are broken by run, runs being in input order, to keep the sort stable
+      merge =
+          new PriorityQueue<>(
+              runs.size() + 1,
+              (a, b) -> {
+                int c = comparator.compare(a.current, b.current);
+                return c != 0 ? c : Integer.compare(a.run, b.run);
+              });
+      for (int i = 0; i < runs.size(); i++) {
+        RunCursor cursor = new RunCursor(i, runs.get(i).openReader());
+        if (cursor.next()) {
+          merge.add(cursor);
+        }
+      }
+      RunCursor inMemory = new RunCursor(runs.size(), null);
+      if (inMemory.next()) {
+        merge.add(inMemory);
+      }
+    }
 
-    public Tuple read();
+    public Tuple read() throws IOException {
+      if (merge == null) {
+        Tuple tuple = nextInMemory();
+        return tuple != null ? tuple : eofTuple;
+      }
+      RunCursor cursor = merge.poll();
+      if (cursor == null) {
+        return eofTuple;
+      }
+      Tuple tuple = cursor.current;
+      if (cursor.next()) {
+        merge.add(cursor);
+      }
+      return tuple;
+    }
+
+    /** Returns the next sorted in-memory tuple, releasing it from the buffer */
+    private Tuple nextInMemory() {
+      if (position == tuples.size()) {
+        return null;
+      }
+      return tuples.set(position++, null);
+    }
+
+    @Override
+    public void close() throws IOException {
+      tuples.clear();
+      position = 0;
+      merge = null;
+      IOUtils.closeQuietly(runs);
+      runs.clear();
+    }
+
+    /** The current tuple of a sorted run, the in-memory tuples being the last run */
+    private class RunCursor {
+      final int run;
+      final TupleSpillFile.Reader reader;
+      Tuple current;
+
+      RunCursor(int run, TupleSpillFile.Reader reader) {
+        this.run = run;
+        this.reader = reader;
+      }
+
+      boolean next() throws IOException {
+        if (reader != null) {
+          current = reader.read();
+        } else {
+          current = nextInMemory();
+        }
+        return current != null;
+      }
+    }
   }
 }
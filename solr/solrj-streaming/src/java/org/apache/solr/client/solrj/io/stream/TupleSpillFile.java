@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.io.stream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.stream.expr.StreamExpression;
+import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionNamedParameter;
+import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionValue;
+import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
+import org.apache.solr.common.util.EnvUtils;
+import org.apache.solr.common.util.FastInputStream;
+import org.apache.solr.common.util.FastOutputStream;
+import org.apache.solr.common.util.IOUtils;
+import org.apache.solr.common.util.JavaBinCodec;
+
+/**
+ * A temporary file of tuples, used by the streams that spill to local disk when their input
+ * doesn't fit in their memory budget ({@link SortStream}, {@link HashJoinStream}, {@link
+ * OuterHashJoinStream} and {@link HashRollupStream}).
+ *
+ * <p>The tuples are written in javabin, field names being written only once per file, each one
+ * preceded by a numeric tag the caller is free to use, and are read back in the order they were
+ * written. The file is deleted when closed.
+ *
+ * <p>The memory budget of these streams is the number of tuples they may buffer, given by their
+ * {@value #MAX_BUFFERED_TUPLES_PARAM} parameter or else by the {@value #MAX_BUFFERED_TUPLES_PROP}
+ * system property. They don't spill by default. The files are created in the directory given by
+ * the {@value #SPILL_DIR_PROP} system property, the temporary directory by default.
+ */
+public class TupleSpillFile implements Closeable {
+
+  public static final String MAX_BUFFERED_TUPLES_PARAM = "maxBufferedTuples";
+
+  public static final String MAX_BUFFERED_TUPLES_PROP =
+      "solr.streamingexpressions.spill.maxBufferedTuples";
+
+  public static final String SPILL_DIR_PROP = "solr.streamingexpressions.spill.dir";
+
+  private final Path path;
+  private FastOutputStream out;
+  private JavaBinCodec codec;
+  private long numTuples;
+  private Reader reader;
+
+  public TupleSpillFile() throws IOException {
+    Path dir = Path.of(EnvUtils.getProperty(SPILL_DIR_PROP, System.getProperty("java.io.tmpdir")));
+    Files.createDirectories(dir);
+    this.path = Files.createTempFile(dir, "tuples", ".spill");
+    this.out = new FastOutputStream(Files.newOutputStream(path));
+    this.codec = new JavaBinCodec();
+    this.codec.init(out);
+  }
+
+  /** Appends a tuple to the file, it can't be called once the file is being read. */
+  public void write(long tag, Tuple tuple) throws IOException {
+    if (out == null) {
+      throw new IllegalStateException("The spill file " + path + " is being read");
+    }
+    JavaBinCodec.writeVLong(tag, out);
+    codec.writeVal(tuple.getFields());
+    codec.writeVal(tuple.getFieldNames());
+    codec.writeVal(tuple.getFieldLabels());
+    numTuples++;
+  }
+
+  public void write(Tuple tuple) throws IOException {
+    write(0, tuple);
+  }
+
+  /** The number of tuples written to the file */
+  public long size() {
+    return numTuples;
+  }
+
+  /**
+   * Finishes writing the file and returns a reader over its tuples. The file can only be read
+   * once.
+   */
+  public Reader openReader() throws IOException {
+    if (reader != null) {
+      throw new IllegalStateException("The spill file " + path + " can only be read once");
+    }
+    out.close();
+    out = null;
+    codec = null;
+    reader = new Reader();
+    return reader;
+  }
+
+  @Override
+  public void close() throws IOException {
+    IOUtils.closeQuietly(out);
+    IOUtils.closeQuietly(reader);
+    out = null;
+    Files.deleteIfExists(path);
+  }
+
+  /** Reads the tuples of the file back, in the order they were written. */
+  public class Reader implements Closeable {
+
+    private final FastInputStream in;
+    private final JavaBinCodec codec = new JavaBinCodec();
+    private long remaining = numTuples;
+    private long tag;
+    private Tuple current;
+
+    private Reader() throws IOException {
+      this.in = new FastInputStream(Files.newInputStream(path));
+    }
+
+    /**
+     * @return the next tuple of the file, or null once all the tuples have been read
+     */
+    @SuppressWarnings("unchecked")
+    public Tuple read() throws IOException {
+      if (remaining == 0) {
+        current = null;
+        return null;
+      }
+      remaining--;
+      tag = JavaBinCodec.readVLong(in);
+      Tuple tuple = new Tuple((Map<String, Object>) codec.readVal(in));
+      List<String> fieldNames = (List<String>) codec.readVal(in);
+      if (fieldNames != null) {
+        tuple.setFieldNames(fieldNames);
+      }
+      Map<String, String> fieldLabels = (Map<String, String>) codec.readVal(in);
+      if (fieldLabels != null) {
+        tuple.setFieldLabels(fieldLabels);
+      }
+      current = tuple;
+      return tuple;
+    }
+
+    /** The last tuple returned by {@link #read()} */
+    public Tuple current() {
+      return current;
+    }
+
+    /** The tag the last tuple returned by {@link #read()} was written with */
+    public long getTag() {
+      return tag;
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+
+  /**
+   * @return the {@value #MAX_BUFFERED_TUPLES_PARAM} parameter of the expression, or null if absent
+   */
+  static Integer getMaxBufferedTuples(StreamExpression expression, StreamFactory factory)
+      throws IOException {
+    StreamExpressionNamedParameter param =
+        factory.getNamedOperand(expression, MAX_BUFFERED_TUPLES_PARAM);
+    if (null == param) {
+      return null;
+    }
+    if (!(param.getParameter() instanceof StreamExpressionValue)) {
+      throw new IOException(
+          String.format(
+              Locale.ROOT,
+              "Invalid expression %s - expecting a number for the '%s' parameter",
+              expression,
+              MAX_BUFFERED_TUPLES_PARAM));
+    }
+    String value = ((StreamExpressionValue) param.getParameter()).getValue();
+    try {
+      int maxBufferedTuples = Integer.parseInt(value);
+      if (maxBufferedTuples <= 0) {
+        throw new NumberFormatException();
+      }
+      return maxBufferedTuples;
+    } catch (NumberFormatException e) {
+      throw new IOException(
+          String.format(
+              Locale.ROOT,
+              "Invalid expression %s - the '%s' parameter must be a positive integer but found '%s'",
+              expression,
+              MAX_BUFFERED_TUPLES_PARAM,
+              value));
+    }
+  }
+
+  /**
+   * @return the given number of tuples a stream may buffer, or the default one if it is null
+   */
+  static int getMaxBufferedTuples(Integer maxBufferedTuples) {
+    if (maxBufferedTuples != null) {
+      return maxBufferedTuples;
+    }
+    return EnvUtils.getPropertyAsInteger(MAX_BUFFERED_TUPLES_PROP, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns the partition of a hash among {@code numPartitions}. The hash is mixed with the number
+   * of times the tuples were already partitioned, so that a partition is split again when it is
+   * partitioned.
+   */
+  static int partition(int hash, int depth, int numPartitions) {
+    int h = hash ^ (depth * 0x9E3779B9);
+    h ^= h >>> 16;
+    h *= 0x85EBCA6B;
+    h ^= h >>> 13;
+    return Math.floorMod(h, numPartitions);
+  }
+
+  /** Adds the {@value #MAX_BUFFERED_TUPLES_PARAM} parameter to the expression if it is set */
+  static void addMaxBufferedTuples(StreamExpression expression, Integer maxBufferedTuples) {
+    if (maxBufferedTuples != null) {
+      expression.addParameter(
+          new StreamExpressionNamedParameter(
+              MAX_BUFFERED_TUPLES_PARAM, maxBufferedTuples.toString()));
+    }
+  }
+}
@@ -30,6 +30,7 @@ import java.util.stream.Collectors;
 import org.apache.solr.client.solrj.impl.CloudSolrClient;
 import org.apache.solr.client.solrj.io.SolrClientCache;
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
 import org.apache.solr.client.solrj.io.stream.expr.Explanation;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionNamedParameter;
@@ -69,6 +70,37 @@ public abstract class TupleStream implements Closeable, Serializable, MapWriter
 
   public abstract StreamComparator getStreamSort();
 
+  /**
+   * Returns true if, once open, this stream produces {@link TupleBatch}es natively rather than by
+   * reading its tuples one by one. Operators that can work on batches only read batches from
+   * streams that produce them natively, and read tuples from the others.
+   */
+  public boolean supportsBatches() {
+    return false;
+  }
+
+  /**
+   * Reads the next rows of the stream as a batch of at most {@code maxRows} rows. The last batch of
+   * the stream has its EOF tuple set, and may still have rows. A stream is either read with {@link
+   * #read()} or with this method, not both.
+   *
+   * <p>This implementation reads the tuples of the stream one by one.
+   *
+   * @see #supportsBatches()
+   */
+  public TupleBatch readBatch(int maxRows) throws IOException {
+    TupleBatch batch = new TupleBatch(maxRows);
+    while (!batch.isFull()) {
+      Tuple tuple = read();
+      if (tuple.EOF) {
+        batch.setEOF(tuple);
+        break;
+      }
+      batch.add(tuple);
+    }
+    return batch;
+  }
+
   public abstract Explanation toExplanation(StreamFactory factory) throws IOException;
 
   public int getCost() {
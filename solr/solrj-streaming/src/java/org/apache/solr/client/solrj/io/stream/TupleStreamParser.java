@@ -20,7 +20,32 @@ package org.apache.solr.client.solrj.io.stream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.Map;
+import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
+import org.apache.solr.common.params.StreamParams;
 
 public interface TupleStreamParser extends Closeable {
   Map<String, Object> next() throws IOException;
+
+  /**
+   * Reads the next documents into the batch, until it is full or there are no more documents. A
+   * document with an EOF field ends the stream: it becomes the EOF tuple of the batch rather than
+   * one of its rows.
+   *
+   * @return false if there are no more documents
+   */
+  default boolean nextBatch(TupleBatch batch) throws IOException {
+    while (!batch.isFull()) {
+      Map<String, Object> fields = next();
+      if (fields == null) {
+        return false;
+      }
+      if (fields.containsKey(StreamParams.EOF)) {
+        batch.setEOF(new Tuple(fields));
+        return false;
+      }
+      batch.add(fields);
+    }
+    return true;
+  }
 }
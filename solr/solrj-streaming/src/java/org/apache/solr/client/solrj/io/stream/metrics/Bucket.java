@@ -17,6 +17,7 @@
 package org.apache.solr.client.solrj.io.stream.metrics;
 
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 
 public class Bucket {
 
@@ -37,6 +38,16 @@ public class Bucket {
     }
   }
 
+  public Object getBucketValue(TupleBatch batch, int row) {
+    int field = batch.getFieldIndex(bucketKey);
+    Object o = field == -1 ? null : batch.get(field, row);
+    if (o == null) {
+      return NULL_VALUE;
+    } else {
+      return o;
+    }
+  }
+
   @Override
   public String toString() {
     return bucketKey;
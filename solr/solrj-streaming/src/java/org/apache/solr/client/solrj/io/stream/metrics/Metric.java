@@ -19,6 +19,7 @@ package org.apache.solr.client.solrj.io.stream.metrics;
 import java.io.IOException;
 import java.util.UUID;
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.stream.expr.Explanation;
 import org.apache.solr.client.solrj.io.stream.expr.Explanation.ExpressionType;
 import org.apache.solr.client.solrj.io.stream.expr.Expressible;
@@ -72,6 +73,16 @@ public abstract class Metric implements Expressible {
 
   public abstract void update(Tuple tuple);
 
+  /**
+   * Updates the metric with the rows {@code [fromRow, toRow)} of the batch. Metrics over numeric
+   * columns override it to read the columns without building the tuples of the rows.
+   */
+  public void update(TupleBatch batch, int fromRow, int toRow) {
+    for (int row = fromRow; row < toRow; row++) {
+      update(batch.getTuple(row));
+    }
+  }
+
   public abstract Metric newInstance();
 
   public abstract String[] getColumns();
@@ -19,6 +19,7 @@ package org.apache.solr.client.solrj.io.stream.metrics;
 import java.io.IOException;
 import java.util.Locale;
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpression;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionParameter;
 import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
@@ -77,7 +78,46 @@ public class MinMetric extends Metric {
 
   @Override
   public void update(Tuple tuple) {
-    Object o = tuple.get(columnName);
+    updateValue(tuple.get(columnName));
+  }
+
+  @Override
+  public void update(TupleBatch batch, int fromRow, int toRow) {
+    int field = batch.getFieldIndex(columnName);
+    if (field == -1) {
+      return;
+    }
+    switch (batch.getColumnType(field)) {
+      case LONG:
+      case INT:
+        for (int row = fromRow; row < toRow; row++) {
+          if (!batch.isNull(field, row)) {
+            long l = batch.getLong(field, row);
+            if (l < longMin) {
+              longMin = l;
+            }
+          }
+        }
+        break;
+      case DOUBLE:
+      case FLOAT:
+        for (int row = fromRow; row < toRow; row++) {
+          if (!batch.isNull(field, row)) {
+            double d = batch.getDouble(field, row);
+            if (d < doubleMin) {
+              doubleMin = d;
+            }
+          }
+        }
+        break;
+      default:
+        for (int row = fromRow; row < toRow; row++) {
+          updateValue(batch.get(field, row));
+        }
+    }
+  }
+
+  private void updateValue(Object o) {
     if (o instanceof Double) {
       double d = (double) o;
       if (d < doubleMin) {
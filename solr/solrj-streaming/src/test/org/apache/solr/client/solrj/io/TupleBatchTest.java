@@ -0,0 +1,247 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.client.solrj.io.comp.StreamComparator;
+import org.apache.solr.client.solrj.io.stream.RollupStream;
+import org.apache.solr.client.solrj.io.stream.SelectStream;
+import org.apache.solr.client.solrj.io.stream.StreamContext;
+import org.apache.solr.client.solrj.io.stream.TupleStream;
+import org.apache.solr.client.solrj.io.stream.expr.Explanation;
+import org.apache.solr.client.solrj.io.stream.expr.StreamExplanation;
+import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
+import org.apache.solr.client.solrj.io.stream.metrics.Bucket;
+import org.apache.solr.client.solrj.io.stream.metrics.CountMetric;
+import org.apache.solr.client.solrj.io.stream.metrics.MaxMetric;
+import org.apache.solr.client.solrj.io.stream.metrics.MeanMetric;
+import org.apache.solr.client.solrj.io.stream.metrics.Metric;
+import org.apache.solr.client.solrj.io.stream.metrics.MinMetric;
+import org.apache.solr.client.solrj.io.stream.metrics.SumMetric;
+import org.junit.Test;
+
+public class TupleBatchTest extends SolrTestCase {
+
+  @Test
+  public void testColumnTypes() {
+    TupleBatch batch = new TupleBatch(4);
+    batch.add(Map.of("l", 1L, "i", 2, "d", 3.5d, "f", 4.5f, "s", "a"));
+    batch.add(Map.of("l", 5L, "i", 6, "d", 7.5d, "f", 8.5f));
+    batch.add(Map.of("l", 9L, "i", 10L, "s", "b"));
+    assertEquals(3, batch.size());
+    assertFalse(batch.isFull());
+
+    assertEquals(TupleBatch.ColumnType.LONG, batch.getColumnType(batch.getFieldIndex("l")));
+    assertEquals(TupleBatch.ColumnType.DOUBLE, batch.getColumnType(batch.getFieldIndex("d")));
+    assertEquals(TupleBatch.ColumnType.FLOAT, batch.getColumnType(batch.getFieldIndex("f")));
+    assertEquals(TupleBatch.ColumnType.OBJECT, batch.getColumnType(batch.getFieldIndex("s")));
+    // an int column falls back to objects once it gets a long
+    int i = batch.getFieldIndex("i");
+    assertEquals(TupleBatch.ColumnType.OBJECT, batch.getColumnType(i));
+    assertEquals(2, batch.get(i, 0));
+    assertEquals(10L, batch.get(i, 2));
+    assertEquals(6L, batch.getLong(i, 1));
+
+    int d = batch.getFieldIndex("d");
+    assertTrue(batch.isNull(d, 2));
+    assertNull(batch.get(d, 2));
+    assertEquals(7.5d, batch.getDouble(d, 1), 0d);
+    assertEquals(-1, batch.getFieldIndex("missing"));
+
+    // the tuples are the ones the rows were built from
+    assertEquals(Map.of("l", 1L, "i", 2, "d", 3.5d, "f", 4.5f, "s", "a"), fields(batch, 0));
+    assertEquals(Map.of("l", 9L, "i", 10L, "s", "b"), fields(batch, 2));
+
+    batch.addRow();
+    assertTrue(batch.isFull());
+    expectThrows(IllegalStateException.class, batch::addRow);
+  }
+
+  @Test
+  public void testEquals() {
+    TupleBatch batch = new TupleBatch(4);
+    batch.add(Map.of("l", 1L, "s", "a"));
+    batch.add(Map.of("l", 1L, "s", "a"));
+    batch.add(Map.of("l", 2L));
+    batch.add(Map.of("s", "b"));
+    int l = batch.getFieldIndex("l");
+    int s = batch.getFieldIndex("s");
+    assertTrue(batch.equals(l, 0, 1));
+    assertTrue(batch.equals(s, 0, 1));
+    assertFalse(batch.equals(l, 1, 2));
+    assertFalse(batch.equals(s, 1, 2));
+    assertFalse(batch.equals(l, 2, 3));
+    assertFalse(batch.equals(s, 2, 3));
+    assertFalse(batch.equals(l, 0, 3));
+  }
+
+  @Test
+  public void testSelect() {
+    TupleBatch batch = new TupleBatch(2);
+    batch.add(Map.of("a", 1L, "b", "x", "c", 2.0d));
+    batch.add(Map.of("a", 3L, "c", 4.0d));
+    batch.setEOF(Tuple.EOF());
+
+    TupleBatch selected = batch.select(field -> field.equals("b") ? null : field.toUpperCase());
+    assertEquals(List.of("A", "C"), selected.getFields().stream().sorted().toList());
+    assertEquals(2, selected.size());
+    assertSame(batch.getEOF(), selected.getEOF());
+    assertEquals(Map.of("A", 1L, "C", 2.0d), fields(selected, 0));
+    assertEquals(Map.of("A", 3L, "C", 4.0d), fields(selected, 1));
+  }
+
+  @Test
+  public void testRemoveLastRow() {
+    TupleBatch batch = new TupleBatch(4);
+    batch.add(Map.of("a", 1L, "s", "x"));
+    int numFields = batch.getFields().size();
+    batch.add(Map.of("a", 2L, "EOF", true, "RESPONSE_TIME", 5L));
+
+    Tuple removed = batch.removeLastRow(numFields);
+    assertTrue(removed.EOF);
+    assertEquals(Map.of("a", 2L, "EOF", true, "RESPONSE_TIME", 5L), removed.getFields());
+    assertEquals(1, batch.size());
+    assertEquals(List.of("a", "s"), batch.getFields().stream().sorted().toList());
+    assertEquals(-1, batch.getFieldIndex("EOF"));
+    assertTrue(batch.isNull(batch.getFieldIndex("a"), 1));
+    assertEquals(Map.of("a", 1L, "s", "x"), fields(batch, 0));
+  }
+
+  @Test
+  public void testRollupBatches() throws IOException {
+    List<Tuple> tuples = new ArrayList<>();
+    int numTuples = atLeast(2000);
+    long key = 0;
+    for (int i = 0; i < numTuples; i++) {
+      // sorted keys, with runs of random length crossing the batches
+      if (random().nextInt(50) == 0) {
+        key++;
+      }
+      Tuple tuple = new Tuple();
+      if (key % 7 != 3) {
+        tuple.put("key", key);
+      }
+      tuple.put("str", "s" + (key % 3));
+      if (random().nextBoolean()) {
+        tuple.put("l", (long) random().nextInt(100));
+      }
+      tuple.put("d", random().nextDouble());
+      tuples.add(tuple);
+    }
+
+    Bucket[] buckets = {new Bucket("k"), new Bucket("str")};
+    Map<String, String> select = Map.of("key", "k", "str", "str", "l", "l", "d", "d");
+    List<Tuple> expected =
+        readAll(
+            new RollupStream(
+                new SelectStream(new ListTupleStream(tuples, false), select),
+                buckets,
+                newMetrics()));
+    List<Tuple> actual =
+        readAll(
+            new RollupStream(
+                new SelectStream(new ListTupleStream(tuples, true), select),
+                buckets,
+                newMetrics()));
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i).getFields(), actual.get(i).getFields());
+    }
+  }
+
+  private static Metric[] newMetrics() {
+    return new Metric[] {
+      new CountMetric(),
+      new CountMetric("l"),
+      new SumMetric("l"),
+      new SumMetric("d"),
+      new MinMetric("l"),
+      new MaxMetric("d"),
+      new MeanMetric("l")
+    };
+  }
+
+  private static Map<String, Object> fields(TupleBatch batch, int row) {
+    return batch.getTuple(row).getFields();
+  }
+
+  private static List<Tuple> readAll(TupleStream stream) throws IOException {
+    List<Tuple> tuples = new ArrayList<>();
+    stream.setStreamContext(new StreamContext());
+    try {
+      stream.open();
+      for (Tuple tuple = stream.read(); !tuple.EOF; tuple = stream.read()) {
+        tuples.add(tuple);
+      }
+    } finally {
+      stream.close();
+    }
+    return tuples;
+  }
+
+  /** Streams a list of tuples, as rows or as batches */
+  private static class ListTupleStream extends TupleStream {
+    private final List<Tuple> tuples;
+    private final boolean batches;
+    private int index;
+
+    ListTupleStream(List<Tuple> tuples, boolean batches) {
+      this.tuples = tuples;
+      this.batches = batches;
+    }
+
+    @Override
+    public void setStreamContext(StreamContext context) {}
+
+    @Override
+    public List<TupleStream> children() {
+      return List.of();
+    }
+
+    @Override
+    public void open() {
+      index = 0;
+    }
+
+    @Override
+    public void close() {}
+
+    @Override
+    public Tuple read() {
+      return index < tuples.size() ? tuples.get(index++).clone() : Tuple.EOF();
+    }
+
+    @Override
+    public boolean supportsBatches() {
+      return batches;
+    }
+
+    @Override
+    public StreamComparator getStreamSort() {
+      return null;
+    }
+
+    @Override
+    public Explanation toExplanation(StreamFactory factory) {
+      return new StreamExplanation(getStreamNodeId().toString());
+    }
+  }
+}
@@ -0,0 +1,367 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.io.stream;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.comp.ComparatorOrder;
+import org.apache.solr.client.solrj.io.comp.FieldComparator;
+import org.apache.solr.client.solrj.io.comp.StreamComparator;
+import org.apache.solr.client.solrj.io.stream.expr.Explanation;
+import org.apache.solr.client.solrj.io.stream.expr.Expressible;
+import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
+import org.apache.solr.client.solrj.io.stream.metrics.Bucket;
+import org.apache.solr.client.solrj.io.stream.metrics.CountMetric;
+import org.apache.solr.client.solrj.io.stream.metrics.Metric;
+import org.apache.solr.client.solrj.io.stream.metrics.SumMetric;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Checks that the streams spilling to {@link TupleSpillFile}s return what they do in memory */
+public class TupleSpillTest extends SolrTestCase {
+
+  private Path spillDir;
+
+  @Before
+  public void setSpillDir() {
+    spillDir = createTempDir("spill");
+    System.setProperty(TupleSpillFile.SPILL_DIR_PROP, spillDir.toString());
+  }
+
+  @After
+  public void checkSpillFilesDeleted() throws IOException {
+    System.clearProperty(TupleSpillFile.SPILL_DIR_PROP);
+    try (Stream<Path> files = Files.list(spillDir)) {
+      assertEquals("spill files left", List.of(), files.toList());
+    }
+  }
+
+  @Test
+  public void testSpillFileRoundTrip() throws IOException {
+    List<Tuple> tuples = randomTuples(100, 10);
+    try (TupleSpillFile file = new TupleSpillFile()) {
+      for (int i = 0; i < tuples.size(); i++) {
+        file.write(i * 3L, tuples.get(i));
+      }
+      assertEquals(tuples.size(), file.size());
+
+      TupleSpillFile.Reader reader = file.openReader();
+      for (int i = 0; i < tuples.size(); i++) {
+        Tuple tuple = reader.read();
+        assertNotNull(tuple);
+        assertEquals(i * 3L, reader.getTag());
+        assertEquals(tuples.get(i).getFields(), tuple.getFields());
+      }
+      assertNull(reader.read());
+    }
+  }
+
+  @Test
+  public void testSortStream() throws IOException {
+    List<Tuple> tuples = randomTuples(atLeast(200), 20);
+    StreamComparator comp = new FieldComparator("key", ComparatorOrder.ASCENDING);
+
+    SortStream inMemory = new SortStream(new TuplesStream(tuples), comp);
+    SortStream spilled = new SortStream(new TuplesStream(tuples), comp);
+    spilled.setMaxBufferedTuples(random().nextInt(10) + 1);
+
+    List<Tuple> expected = readAll(inMemory);
+    assertEquals(tuples.size(), expected.size());
+    // the sort is stable, the ties are in their original order
+    List<Tuple> stable = new ArrayList<>(tuples);
+    stable.sort(Comparator.comparing(t -> t.getLong("key")));
+    assertEquals(ids(stable), ids(expected));
+    assertEquals(ids(expected), ids(readAll(spilled)));
+  }
+
+  @Test
+  public void testHashJoinStream() throws IOException {
+    List<Tuple> full = randomTuples(atLeast(200), 30, true);
+    List<Tuple> hashed = randomTuples(atLeast(50), 40, true);
+    List<String> hashOn = List.of("key");
+
+    HashJoinStream inMemory =
+        new HashJoinStream(new TuplesStream(full), new TuplesStream(hashed), hashOn);
+    HashJoinStream spilled =
+        new HashJoinStream(new TuplesStream(full), new TuplesStream(hashed), hashOn);
+    spilled.setMaxBufferedTuples(random().nextInt(10) + 1);
+
+    List<Tuple> expected = readAll(inMemory);
+    assertFalse(expected.isEmpty());
+    assertEquals(fields(expected), fields(readAll(spilled)));
+  }
+
+  @Test
+  public void testHashJoinStreamRepartitions() throws IOException {
+    List<Tuple> full = randomTuples(atLeast(500), 400, true);
+    List<Tuple> hashed = randomTuples(atLeast(500), 400, true);
+    // the tuples of a single key can't be split by partitioning them again
+    for (int i = 0; i < 50; i++) {
+      Tuple tuple = new Tuple();
+      tuple.put("id", "same" + i);
+      tuple.put("key", -1L);
+      tuple.put("value", (long) i);
+      hashed.add(tuple);
+      full.add(random().nextInt(full.size()), tuple.clone());
+    }
+    List<String> hashOn = List.of("key");
+
+    for (boolean outer : new boolean[] {false, true}) {
+      HashJoinStream inMemory =
+          outer
+              ? new OuterHashJoinStream(new TuplesStream(full), new TuplesStream(hashed), hashOn)
+              : new HashJoinStream(new TuplesStream(full), new TuplesStream(hashed), hashOn);
+      HashJoinStream spilled =
+          outer
+              ? new OuterHashJoinStream(new TuplesStream(full), new TuplesStream(hashed), hashOn)
+              : new HashJoinStream(new TuplesStream(full), new TuplesStream(hashed), hashOn);
+      // far fewer than the hashed tuples of a partition
+      spilled.setMaxBufferedTuples(random().nextInt(3) + 1);
+
+      assertEquals(fields(readAll(inMemory)), fields(readAll(spilled)));
+    }
+  }
+
+  @Test
+  public void testSpillFilesDeletedOnError() throws IOException {
+    List<Tuple> tuples = randomTuples(200, 50);
+    List<String> hashOn = List.of("key");
+
+    // the hashed stream spilled, the full stream fails while being partitioned
+    HashJoinStream join =
+        new HashJoinStream(new FailingStream(tuples, 100), new TuplesStream(tuples), hashOn);
+    join.setMaxBufferedTuples(5);
+    expectThrows(IOException.class, () -> readAll(join));
+
+    // the rollup fails after spilling some buckets
+    HashRollupStream rollup =
+        new HashRollupStream(
+            new FailingStream(tuples, 100), new Bucket[] {new Bucket("key")}, newMetrics());
+    rollup.setMaxBufferedTuples(5);
+    expectThrows(IOException.class, () -> readAll(rollup));
+
+    SortStream sort =
+        new SortStream(
+            new FailingStream(tuples, 100),
+            new FieldComparator("key", ComparatorOrder.ASCENDING));
+    sort.setMaxBufferedTuples(5);
+    expectThrows(IOException.class, () -> readAll(sort));
+
+    // closing the streams is enough to delete the spill files, which checkSpillFilesDeleted checks
+  }
+
+  @Test
+  public void testMaxBufferedTuplesExpressions() throws IOException {
+    StreamFactory factory =
+        new StreamFactory()
+            .withFunctionName("list", ListStream.class)
+            .withFunctionName("tuple", TupStream.class)
+            .withFunctionName("sort", SortStream.class)
+            .withFunctionName("hashJoin", HashJoinStream.class)
+            .withFunctionName("outerHashJoin", OuterHashJoinStream.class)
+            .withFunctionName("hashRollup", HashRollupStream.class)
+            .withFunctionName("sum", SumMetric.class)
+            .withFunctionName("count", CountMetric.class);
+    String tuples = "list(tuple(key=1,value=2),tuple(key=2,value=3))";
+    String[] expressions = {
+      "sort(" + tuples + ",by=\"key asc\",%s)",
+      "hashJoin(" + tuples + ",hashed=" + tuples + ",on=key,%s)",
+      "outerHashJoin(" + tuples + ",hashed=" + tuples + ",on=key,%s)",
+      "hashRollup(" + tuples + ",over=key,sum(value),count(*),%s)"
+    };
+
+    for (String expression : expressions) {
+      String withBudget = expression.replace("%s", "maxBufferedTuples=5");
+      String actual = toExpression(factory, withBudget);
+      assertTrue(actual, actual.contains("maxBufferedTuples=5"));
+      assertEquals(actual, toExpression(factory, actual));
+
+      String withoutBudget = expression.replace(",%s", "");
+      actual = toExpression(factory, withoutBudget);
+      assertFalse(actual, actual.contains(TupleSpillFile.MAX_BUFFERED_TUPLES_PARAM));
+      assertEquals(actual, toExpression(factory, actual));
+
+      for (String invalid : new String[] {"0", "-1", "abc"}) {
+        String withInvalidBudget = expression.replace("%s", "maxBufferedTuples=" + invalid);
+        IOException e =
+            expectThrows(IOException.class, () -> factory.constructStream(withInvalidBudget));
+        assertTrue(e.getMessage(), e.getMessage().contains("maxBufferedTuples"));
+      }
+    }
+  }
+
+  private static String toExpression(StreamFactory factory, String expression)
+      throws IOException {
+    return ((Expressible) factory.constructStream(expression)).toExpression(factory).toString();
+  }
+
+  @Test
+  public void testOuterHashJoinStream() throws IOException {
+    List<Tuple> full = randomTuples(atLeast(200), 30, true);
+    List<Tuple> hashed = randomTuples(atLeast(20), 40, true);
+    List<String> hashOn = List.of("key");
+
+    OuterHashJoinStream inMemory =
+        new OuterHashJoinStream(new TuplesStream(full), new TuplesStream(hashed), hashOn);
+    OuterHashJoinStream spilled =
+        new OuterHashJoinStream(new TuplesStream(full), new TuplesStream(hashed), hashOn);
+    spilled.setMaxBufferedTuples(random().nextInt(10) + 1);
+
+    List<Tuple> expected = readAll(inMemory);
+    assertTrue(expected.size() >= full.size());
+    assertEquals(fields(expected), fields(readAll(spilled)));
+  }
+
+  @Test
+  public void testHashRollupStream() throws IOException {
+    List<Tuple> tuples = randomTuples(atLeast(300), 50);
+    Bucket[] buckets = {new Bucket("key")};
+
+    HashRollupStream inMemory =
+        new HashRollupStream(new TuplesStream(tuples), buckets, newMetrics());
+    HashRollupStream spilled =
+        new HashRollupStream(new TuplesStream(tuples), buckets, newMetrics());
+    spilled.setMaxBufferedTuples(random().nextInt(5) + 1);
+
+    List<Tuple> expected = readAll(inMemory);
+    List<Tuple> actual = readAll(spilled);
+    Comparator<Tuple> byKey = Comparator.comparing(t -> t.getLong("key"));
+    expected.sort(byKey);
+    actual.sort(byKey);
+    assertEquals(fields(expected), fields(actual));
+  }
+
+  private static Metric[] newMetrics() {
+    return new Metric[] {new SumMetric("value"), new CountMetric()};
+  }
+
+  private static List<Tuple> randomTuples(int count, int numKeys) {
+    return randomTuples(count, numKeys, false);
+  }
+
+  private static List<Tuple> randomTuples(int count, int numKeys, boolean missingKeys) {
+    List<Tuple> tuples = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Tuple tuple = new Tuple();
+      tuple.put("id", "doc" + i);
+      // leave a few tuples without a key, they are never joined
+      if (!missingKeys || random().nextInt(20) != 0) {
+        tuple.put("key", (long) random().nextInt(numKeys));
+      }
+      tuple.put("value", (long) random().nextInt(1000));
+      tuples.add(tuple);
+    }
+    return tuples;
+  }
+
+  private static List<Tuple> readAll(TupleStream stream) throws IOException {
+    List<Tuple> tuples = new ArrayList<>();
+    stream.setStreamContext(new StreamContext());
+    try {
+      stream.open();
+      for (Tuple tuple = stream.read(); !tuple.EOF; tuple = stream.read()) {
+        tuples.add(tuple);
+      }
+    } finally {
+      stream.close();
+    }
+    return tuples;
+  }
+
+  private static List<String> ids(List<Tuple> tuples) {
+    List<String> ids = new ArrayList<>(tuples.size());
+    for (Tuple tuple : tuples) {
+      ids.add(tuple.getString("id"));
+    }
+    return ids;
+  }
+
+  private static List<Object> fields(List<Tuple> tuples) {
+    List<Object> fields = new ArrayList<>(tuples.size());
+    for (Tuple tuple : tuples) {
+      fields.add(tuple.getFields());
+    }
+    return fields;
+  }
+
+  /** Streams a copy of a list of tuples */
+  private static class TuplesStream extends TupleStream {
+    private final List<Tuple> tuples;
+    protected int index;
+
+    TuplesStream(List<Tuple> tuples) {
+      this.tuples = tuples;
+    }
+
+    @Override
+    public void setStreamContext(StreamContext context) {}
+
+    @Override
+    public List<TupleStream> children() {
+      return List.of();
+    }
+
+    @Override
+    public void open() {
+      index = 0;
+    }
+
+    @Override
+    public void close() {}
+
+    @Override
+    public Tuple read() {
+      return index < tuples.size() ? tuples.get(index++).clone() : Tuple.EOF();
+    }
+
+    @Override
+    public StreamComparator getStreamSort() {
+      return null;
+    }
+
+    @Override
+    public Explanation toExplanation(StreamFactory factory) {
+      return new StreamExplanation(getStreamNodeId().toString());
+    }
+  }
+
+  /** Streams a copy of a list of tuples, failing after a number of them */
+  private static class FailingStream extends TuplesStream {
+    private final int failAfter;
+
+    FailingStream(List<Tuple> tuples, int failAfter) {
+      super(tuples);
+      this.failAfter = failAfter;
+    }
+
+    @Override
+    public Tuple read() throws IOException {
+      if (index >= failAfter) {
+        throw new IOException("failing after " + failAfter + " tuples");
+      }
+      return super.read();
+    }
+  }
+}
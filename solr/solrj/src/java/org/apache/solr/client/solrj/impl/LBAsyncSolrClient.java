@@ -140,15 +140,22 @@ public abstract class LBAsyncSolrClient extends LBSolrClient {
       RetryListener listener) {
     String baseUrl = endpoint.toString();
     rsp.server = baseUrl;
+    long startNanos = System.nanoTime();
+    loadTracker.requestStarted(baseUrl);
     try {
       CompletableFuture<NamedList<Object>> future =
           requestAsyncWithUrl(getClient(endpoint), baseUrl, req.getRequest());
       future.whenComplete(
           (result, throwable) -> {
+            long elapsedNanos = System.nanoTime() - startNanos;
             if (!future.isCompletedExceptionally()) {
+              loadTracker.requestFinished(baseUrl, elapsedNanos);
               onSuccessfulRequest(result, endpoint, rsp, isZombie, listener);
             } else if (!future.isCancelled()) {
+              loadTracker.requestFailed(baseUrl, elapsedNanos, throwable);
               onFailedRequest(throwable, endpoint, isNonRetryable, isZombie, listener);
+            } else {
+              loadTracker.requestCanceled(baseUrl, elapsedNanos);
             }
           });
       return future;
@@ -34,6 +34,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
@@ -52,6 +53,7 @@ import org.apache.solr.client.solrj.request.RequestWriter;
 import org.apache.solr.client.solrj.request.SolrQuery;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.client.solrj.response.ResponseParser;
+import org.apache.solr.client.solrj.routing.ReplicaLoadTracker;
 import org.apache.solr.client.solrj.util.ClientUtils;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.params.CommonParams;
@@ -150,6 +152,11 @@ public abstract class LBSolrClient extends SolrClient {
       TimeUnit.MILLISECONDS.convert(60, TimeUnit.SECONDS); // 1 minute between checks
   private final AtomicInteger counter = new AtomicInteger(-1);
 
+  // response times and outstanding requests per endpoint, to rank them by load
+  protected final ReplicaLoadTracker loadTracker = new ReplicaLoadTracker();
+  protected boolean latencyAwareRouting = false;
+  private final Random random = new Random();
+
   private static final SolrQuery solrQuery = new SolrQuery("*:*");
   protected volatile ResponseParser parser;
   protected volatile RequestWriter requestWriter;
@@ -175,6 +182,7 @@ public abstract class LBSolrClient extends SolrClient {
     private long aliveCheckIntervalMillis =
         TimeUnit.MILLISECONDS.convert(60, TimeUnit.SECONDS); // 1 minute between checks
     protected String defaultCollection;
+    protected boolean latencyAwareRouting = false;
 
     public Builder(C solrClient, Endpoint... endpoints) {
       this.solrClient = solrClient;
@@ -202,6 +210,16 @@ public abstract class LBSolrClient extends SolrClient {
       return this;
     }
 
+    /**
+     * If true, requests not specifying endpoints are sent to the less loaded of two random alive
+     * servers, judged by their recent response times and outstanding requests, instead of to the
+     * servers in round-robin order.
+     */
+    public Builder<C> withLatencyAwareRouting(boolean latencyAwareRouting) {
+      this.latencyAwareRouting = latencyAwareRouting;
+      return this;
+    }
+
     public C getSolrClient() {
       return solrClient;
     }
@@ -512,6 +530,7 @@ public abstract class LBSolrClient extends SolrClient {
     this(Arrays.asList(builder.solrEndpoints));
     this.aliveCheckIntervalMillis = builder.aliveCheckIntervalMillis;
     this.defaultCollection = builder.defaultCollection;
+    this.latencyAwareRouting = builder.latencyAwareRouting;
     this.requestWriter = builder.solrClient.getRequestWriter();
     this.parser = builder.solrClient.getParser();
   }
@@ -610,7 +629,24 @@ public abstract class LBSolrClient extends SolrClient {
   private NamedList<Object> doRequest(Endpoint endpoint, SolrRequest<?> solrRequest)
       throws SolrServerException, IOException {
     final var solrClient = getClient(endpoint);
-    return doRequest(solrClient, endpoint.getBaseUrl(), endpoint.getCore(), solrRequest);
+    return doRequest(solrClient, endpoint, endpoint.getCore(), solrRequest);
+  }
+
+  /** Sends the request to {@code endpoint} and records its response time in the load tracker. */
+  private NamedList<Object> doRequest(
+      SolrClient solrClient, Endpoint endpoint, String collection, SolrRequest<?> solrRequest)
+      throws SolrServerException, IOException {
+    final String url = endpoint.getUrl();
+    final long startNanos = System.nanoTime();
+    loadTracker.requestStarted(url);
+    try {
+      NamedList<Object> rsp = doRequest(solrClient, endpoint.getBaseUrl(), collection, solrRequest);
+      loadTracker.requestFinished(url, System.nanoTime() - startNanos);
+      return rsp;
+    } catch (Throwable t) {
+      loadTracker.requestFailed(url, System.nanoTime() - startNanos, t);
+      throw t;
+    }
   }
 
   // TODO SOLR-17541 should remove the need for the special-casing below; remove as a part of that
@@ -853,7 +889,7 @@ public abstract class LBSolrClient extends SolrClient {
         // Choose the endpoint's core/collection over any specified by the user
         final var effectiveCollection =
             endpoint.getCore() == null ? collection : endpoint.getCore();
-        return doRequest(getClient(endpoint), endpoint.getBaseUrl(), effectiveCollection, request);
+        return doRequest(getClient(endpoint), endpoint, effectiveCollection, request);
       } catch (SolrException e) {
         // Server is alive but the request was malformed or invalid
         throw e;
@@ -898,7 +934,7 @@ public abstract class LBSolrClient extends SolrClient {
         final String effectiveCollection =
             endpoint.getCore() == null ? collection : endpoint.getCore();
         NamedList<Object> rsp =
-            doRequest(getClient(endpoint), endpoint.getBaseUrl(), effectiveCollection, request);
+            doRequest(getClient(endpoint), endpoint, effectiveCollection, request);
         reviveZombieServer(wrapper.getEndpoint());
         return rsp;
       } catch (SolrException e) {
@@ -939,15 +975,34 @@ public abstract class LBSolrClient extends SolrClient {
     }
   }
 
+  /**
+   * Returns the response times and outstanding requests of the endpoints this client sent requests
+   * to, keyed by {@link Endpoint#getUrl()}.
+   */
+  public ReplicaLoadTracker getLoadTracker() {
+    return loadTracker;
+  }
+
   /**
    * Pick a server from list to execute request. By default, servers are picked in round-robin
-   * manner, custom classes can override this method for more advance logic
+   * manner, or the less loaded of two random servers with latency aware routing. Custom classes can
+   * override this method for more advance logic
    *
    * @param aliveServerList list of currently alive servers
    * @param request the request will be sent to the picked server
    * @return the picked server
    */
   protected EndpointWrapper pickServer(EndpointWrapper[] aliveServerList, SolrRequest<?> request) {
+    if (latencyAwareRouting && aliveServerList.length > 1) {
+      int n = aliveServerList.length;
+      int first = random.nextInt(n);
+      int second = (first + 1 + random.nextInt(n - 1)) % n;
+      EndpointWrapper a = aliveServerList[first];
+      EndpointWrapper b = aliveServerList[second];
+      double scoreA = loadTracker.score(a.getEndpoint().getUrl());
+      double scoreB = loadTracker.score(b.getEndpoint().getUrl());
+      return scoreB < scoreA ? b : a;
+    }
     int count = counter.incrementAndGet() & Integer.MAX_VALUE;
     return aliveServerList[count % aliveServerList.length];
   }
@@ -30,12 +30,23 @@ public class JavaBinResponseParser extends ResponseParser {
   public static final String JAVABIN_CONTENT_TYPE = "application/octet-stream";
 
   protected JavaBinCodec.StringCache stringCache;
+  protected boolean readDocumentsLazily;
 
   public JavaBinResponseParser setStringCache(JavaBinCodec.StringCache cache) {
     this.stringCache = cache;
     return this;
   }
 
+  /**
+   * Decode the fields of returned documents on first access only.
+   *
+   * @see JavaBinCodec#setReadDocumentsLazily(boolean)
+   */
+  public JavaBinResponseParser setReadDocumentsLazily(boolean readDocumentsLazily) {
+    this.readDocumentsLazily = readDocumentsLazily;
+    return this;
+  }
+
   @Override
   public String getWriterType() {
     return "javabin";
@@ -48,7 +59,7 @@ public class JavaBinResponseParser extends ResponseParser {
   }
 
   protected JavaBinCodec createCodec() {
-    return new JavaBinCodec(null, stringCache);
+    return new JavaBinCodec(null, stringCache).setReadDocumentsLazily(readDocumentsLazily);
   }
 
   private static final Set<String> CONTENT_TYPES =
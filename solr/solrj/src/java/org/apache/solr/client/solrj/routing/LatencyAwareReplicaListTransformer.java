@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.routing;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.apache.solr.common.cloud.Replica;
+
+/**
+ * Routes requests to lightly loaded, fast replicas using the "power of two choices": two random
+ * replicas are compared by their {@link ReplicaLoadTracker#score(String) score} and the better one
+ * goes first. Always picking the replica with the best score would make all clients pile onto the
+ * same replica until its score catches up; comparing two random replicas spreads the load while
+ * still steering clear of slow ones. The remaining replicas, which are only tried if the first one
+ * fails, stay in random order.
+ */
+public class LatencyAwareReplicaListTransformer implements ReplicaListTransformer {
+
+  private final ReplicaLoadTracker loadTracker;
+  private final Random r;
+
+  public LatencyAwareReplicaListTransformer(ReplicaLoadTracker loadTracker, Random r) {
+    this.loadTracker = loadTracker;
+    this.r = r;
+  }
+
+  @Override
+  public <T> void transform(List<T> choices) {
+    if (choices.size() > 1) {
+      Collections.shuffle(choices, r);
+      if (score(choices.get(1)) < score(choices.get(0))) {
+        Collections.swap(choices, 0, 1);
+      }
+    }
+  }
+
+  private double score(Object choice) {
+    if (choice instanceof Replica replica) {
+      return loadTracker.score(replica.getCoreUrl());
+    } else if (choice instanceof String url) {
+      return loadTracker.score(url);
+    } else {
+      throw new IllegalArgumentException("can't handle type " + choice.getClass());
+    }
+  }
+}
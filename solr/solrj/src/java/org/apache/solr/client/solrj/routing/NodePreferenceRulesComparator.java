@@ -34,7 +34,7 @@ import org.apache.solr.common.params.SolrParams;
  *
  * <p>Optional final preferenceRule is *not* used for pairwise sorting, but instead defines how
  * "equivalent" replicas will be ordered (the base ordering). Defaults to "random"; may specify
- * "stable".
+ * "stable" or "latency".
  */
 public class NodePreferenceRulesComparator {
 
@@ -71,6 +71,28 @@ public class NodePreferenceRulesComparator {
       final NodesSysProps sysProps,
       final ReplicaListTransformerFactory defaultRltFactory,
       final ReplicaListTransformerFactory stableRltFactory) {
+    this(
+        preferenceRules,
+        requestParams,
+        nodeName,
+        baseUrl,
+        hostName,
+        sysProps,
+        defaultRltFactory,
+        stableRltFactory,
+        null);
+  }
+
+  public NodePreferenceRulesComparator(
+      final List<PreferenceRule> preferenceRules,
+      final SolrParams requestParams,
+      final String nodeName,
+      final String baseUrl,
+      final String hostName,
+      final NodesSysProps sysProps,
+      final ReplicaListTransformerFactory defaultRltFactory,
+      final ReplicaListTransformerFactory stableRltFactory,
+      final ReplicaListTransformerFactory latencyRltFactory) {
     this.sysProps = sysProps;
     this.preferenceRules = preferenceRules;
     this.nodeName = nodeName;
@@ -103,6 +125,17 @@ public class NodePreferenceRulesComparator {
                   requestParams,
                   RequestReplicaListTransformerGenerator.RANDOM_RLTF);
           break;
+        case ShardParams.REPLICA_LATENCY:
+          // clients that don't track the load of replicas fall back to random order
+          this.baseReplicaListTransformer =
+              (latencyRltFactory != null
+                      ? latencyRltFactory
+                      : RequestReplicaListTransformerGenerator.RANDOM_RLTF)
+                  .getInstance(
+                      parts.length == 1 ? null : parts[1],
+                      requestParams,
+                      RequestReplicaListTransformerGenerator.RANDOM_RLTF);
+          break;
         default:
           throw new IllegalArgumentException("Invalid base replica order spec");
       }
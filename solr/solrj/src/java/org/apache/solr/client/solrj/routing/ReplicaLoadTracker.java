@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.routing;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.solr.common.SolrException;
+
+/**
+ * Tracks the load of replicas as seen by one client: an exponentially weighted moving average
+ * (EWMA) of their response times and the number of requests currently outstanding to each of them.
+ * Replicas are identified by their core URL, with or without the trailing slash of {@link
+ * org.apache.solr.common.cloud.Replica#getCoreUrl()}: requests are recorded by the URL of the
+ * endpoint they were sent to, which has none.
+ *
+ * <p>The {@link #score(String) score} of a replica follows C3 ("Cutting Tail Latency in Cloud Data
+ * Stores via Adaptive Replica Selection"): the response time is penalized by the cube of the
+ * outstanding requests, so that a replica that is fast but already busy is not flooded by every
+ * client at once.
+ *
+ * <p>A small window of the latest response times of each replica is kept as well, for the {@link
+ * #percentile(String, double) percentiles} that decide when to hedge a slow request. Replicas that
+ * no request was sent to for {@value #IDLE_EVICTION_MINUTES} minutes are forgotten.
+ */
+public class ReplicaLoadTracker {
+
+  /** Weight of a new response time sample in the moving average */
+  static final double ALPHA = 0.2;
+
+  /** Failed requests are recorded as taking this many times longer than the average */
+  static final double FAILURE_PENALTY = 2.0;
+
+  /** Number of latest response times kept per replica for the percentiles */
+  static final int WINDOW_SIZE = 128;
+
+  /** Percentiles are only reported for replicas with at least this many response times */
+  public static final int MIN_SAMPLES = 16;
+
+  /** Replicas are forgotten after this many minutes without requests */
+  static final long IDLE_EVICTION_MINUTES = 10;
+
+  private static final long IDLE_EVICTION_NANOS = TimeUnit.MINUTES.toNanos(IDLE_EVICTION_MINUTES);
+
+  // re-sorting the window for every percentile would be wasteful, do it every few samples only
+  private static final int RESORT_INTERVAL = 8;
+
+  private final ConcurrentHashMap<String, Load> loads = new ConcurrentHashMap<>();
+  private final AtomicLong nextEvictionNanos = new AtomicLong(System.nanoTime());
+
+  /** Must be called before a request is sent to {@code replicaUrl} */
+  public void requestStarted(String replicaUrl) {
+    long now = System.nanoTime();
+    evictIdle(now);
+    Load load = load(replicaUrl);
+    load.lastStartedNanos = now;
+    load.outstanding.incrementAndGet();
+  }
+
+  /** Records a response of {@code replicaUrl} which took {@code elapsedNanos} */
+  public void requestFinished(String replicaUrl, long elapsedNanos) {
+    Load load = load(replicaUrl);
+    load.outstanding.decrementAndGet();
+    load.update(elapsedNanos);
+    load.addSample(elapsedNanos);
+  }
+
+  /**
+   * Records a failed request to {@code replicaUrl}. Failures can be very quick, so they count as a
+   * slow response to keep an erroring replica from looking like the fastest one.
+   */
+  public void requestFailed(String replicaUrl, long elapsedNanos) {
+    Load load = load(replicaUrl);
+    load.outstanding.decrementAndGet();
+    load.update((long) (Math.max(elapsedNanos, load.ewma) * FAILURE_PENALTY));
+  }
+
+  /**
+   * Records a request to {@code replicaUrl} that threw {@code error}. Only transport errors and
+   * server errors are failures of the replica: an error response to a bad request (4xx) comes from
+   * a healthy replica, and is recorded as a response.
+   */
+  public void requestFailed(String replicaUrl, long elapsedNanos, Throwable error) {
+    if (isClientError(error)) {
+      requestFinished(replicaUrl, elapsedNanos);
+    } else {
+      requestFailed(replicaUrl, elapsedNanos);
+    }
+  }
+
+  private static boolean isClientError(Throwable error) {
+    if (error instanceof CompletionException && error.getCause() != null) {
+      error = error.getCause();
+    }
+    return error instanceof SolrException e && e.code() >= 400 && e.code() < 500;
+  }
+
+  /**
+   * Records a request to {@code replicaUrl} which was canceled after {@code elapsedNanos}, e.g.
+   * because another replica answered first. That time is only a lower bound of the response time,
+   * so it is only recorded if it is above the average.
+   */
+  public void requestCanceled(String replicaUrl, long elapsedNanos) {
+    Load load = load(replicaUrl);
+    load.outstanding.decrementAndGet();
+    if (elapsedNanos > load.ewma) {
+      load.update(elapsedNanos);
+      load.addSample(elapsedNanos);
+    }
+  }
+
+  /**
+   * Returns the score of {@code replicaUrl}, lower is better. Replicas no response was recorded for
+   * yet score 0, so that they are tried and get a score.
+   */
+  public double score(String replicaUrl) {
+    Load load = loads.get(normalize(replicaUrl));
+    if (load == null) {
+      return 0;
+    }
+    double queue = 1 + Math.max(0, load.outstanding.get());
+    return load.ewma * queue * queue * queue;
+  }
+
+  /** Returns the moving average of the response times of {@code replicaUrl} in nanoseconds */
+  public double averageResponseTime(String replicaUrl) {
+    Load load = loads.get(normalize(replicaUrl));
+    return load == null ? 0 : load.ewma;
+  }
+
+  /**
+   * Returns the given percentile of the recent response times of {@code replicaUrl}.
+   *
+   * @param percentile between 0 and 100
+   * @return the response time in nanoseconds, or -1 if too few responses were recorded
+   */
+  public long percentile(String replicaUrl, double percentile) {
+    Load load = loads.get(normalize(replicaUrl));
+    return load == null ? -1 : load.percentile(percentile);
+  }
+
+  /** Returns the number of requests currently outstanding to {@code replicaUrl} */
+  public int outstandingRequests(String replicaUrl) {
+    Load load = loads.get(normalize(replicaUrl));
+    return load == null ? 0 : load.outstanding.get();
+  }
+
+  private Load load(String replicaUrl) {
+    return loads.computeIfAbsent(normalize(replicaUrl), k -> new Load());
+  }
+
+  /** Forgets the replicas without outstanding requests that got none for a while, once a minute */
+  void evictIdle(long now) {
+    long next = nextEvictionNanos.get();
+    if (now - next < 0 || !nextEvictionNanos.compareAndSet(next, now + IDLE_EVICTION_NANOS / 10)) {
+      return;
+    }
+    loads
+        .values()
+        .removeIf(
+            load ->
+                load.outstanding.get() <= 0 && now - load.lastStartedNanos > IDLE_EVICTION_NANOS);
+  }
+
+  /** Returns the number of replicas currently tracked */
+  int size() {
+    return loads.size();
+  }
+
+  private static String normalize(String replicaUrl) {
+    return replicaUrl.endsWith("/") ? replicaUrl.substring(0, replicaUrl.length() - 1) : replicaUrl;
+  }
+
+  private static class Load {
+    final AtomicInteger outstanding = new AtomicInteger();
+    volatile double ewma;
+    volatile long lastStartedNanos = System.nanoTime();
+    private final long[] samples = new long[WINDOW_SIZE];
+    private long count;
+    private long[] sorted;
+    private long sortedAt;
+
+    synchronized void update(long elapsedNanos) {
+      ewma = ewma == 0 ? elapsedNanos : ALPHA * elapsedNanos + (1 - ALPHA) * ewma;
+    }
+
+    synchronized void addSample(long elapsedNanos) {
+      samples[(int) (count++ % WINDOW_SIZE)] = elapsedNanos;
+    }
+
+    synchronized long percentile(double percentile) {
+      int n = (int) Math.min(count, WINDOW_SIZE);
+      if (n < MIN_SAMPLES) {
+        return -1;
+      }
+      if (sorted == null || sorted.length != n || count - sortedAt >= RESORT_INTERVAL) {
+        sorted = Arrays.copyOf(samples, n);
+        Arrays.sort(sorted);
+        sortedAt = count;
+      }
+      int idx = (int) Math.ceil(percentile / 100 * n) - 1;
+      return sorted[Math.max(0, Math.min(n - 1, idx))];
+    }
+  }
+}
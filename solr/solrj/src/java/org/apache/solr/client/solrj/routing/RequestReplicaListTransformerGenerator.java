@@ -43,6 +43,7 @@ public class RequestReplicaListTransformerGenerator {
           shufflingReplicaListTransformer;
   private final ReplicaListTransformerFactory stableRltFactory;
   private final ReplicaListTransformerFactory defaultRltFactory;
+  private final ReplicaListTransformerFactory latencyRltFactory;
   private final String defaultShardPreferences;
   private final String nodeName;
   private final String baseUrl;
@@ -60,7 +61,14 @@ public class RequestReplicaListTransformerGenerator {
   public RequestReplicaListTransformerGenerator(
       ReplicaListTransformerFactory defaultRltFactory,
       ReplicaListTransformerFactory stableRltFactory) {
-    this(defaultRltFactory, stableRltFactory, null, null, null, null, null);
+    this(defaultRltFactory, stableRltFactory, null);
+  }
+
+  public RequestReplicaListTransformerGenerator(
+      ReplicaListTransformerFactory defaultRltFactory,
+      ReplicaListTransformerFactory stableRltFactory,
+      ReplicaListTransformerFactory latencyRltFactory) {
+    this(defaultRltFactory, stableRltFactory, latencyRltFactory, null, null, null, null, null);
   }
 
   public RequestReplicaListTransformerGenerator(
@@ -80,6 +88,27 @@ public class RequestReplicaListTransformerGenerator {
       String baseUrl,
       String hostName,
       NodesSysProps sysProps) {
+    this(
+        defaultRltFactory,
+        stableRltFactory,
+        null,
+        defaultShardPreferences,
+        nodeName,
+        baseUrl,
+        hostName,
+        sysProps);
+  }
+
+  public RequestReplicaListTransformerGenerator(
+      ReplicaListTransformerFactory defaultRltFactory,
+      ReplicaListTransformerFactory stableRltFactory,
+      ReplicaListTransformerFactory latencyRltFactory,
+      String defaultShardPreferences,
+      String nodeName,
+      String baseUrl,
+      String hostName,
+      NodesSysProps sysProps) {
+    this.latencyRltFactory = latencyRltFactory;
     this.defaultRltFactory = Objects.requireNonNullElse(defaultRltFactory, RANDOM_RLTF);
     this.stableRltFactory =
         Objects.requireNonNullElseGet(stableRltFactory, AffinityReplicaListTransformerFactory::new);
@@ -123,7 +152,8 @@ public class RequestReplicaListTransformerGenerator {
               hostName != null ? hostName : this.hostName, // could still be null
               sysProps != null ? sysProps : this.sysProps, // could still be null
               defaultRltFactory,
-              stableRltFactory);
+              stableRltFactory,
+              latencyRltFactory);
       ReplicaListTransformer baseReplicaListTransformer =
           replicaComp.getBaseReplicaListTransformer();
       if (replicaComp.getPreferenceRules() == null || replicaComp.getPreferenceRules().isEmpty()) {
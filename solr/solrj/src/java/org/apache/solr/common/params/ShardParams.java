@@ -93,6 +93,9 @@ public interface ShardParams {
   /** Value denoting stable replica sort */
   String REPLICA_STABLE = "stable";
 
+  /** Value denoting replica sort by observed response times and outstanding requests */
+  String REPLICA_LATENCY = "latency";
+
   /** configure dividend param for stable replica sort */
   String ROUTING_DIVIDEND = "dividend";
 
@@ -18,6 +18,7 @@ package org.apache.solr.common.util;
 
 import static org.apache.solr.common.util.ByteArrayUtf8CharSequence.convertCharSeq;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -123,6 +124,7 @@ public class JavaBinCodec implements PushWriter {
   private boolean alreadyMarshalled;
   private boolean alreadyUnmarshalled;
   protected boolean readStringAsCharSeq = false;
+  protected boolean readDocumentsLazily = false;
 
   private boolean readMapAsNamedList =
       EnvUtils.getPropertyAsBool("solr.solrj.javabin.readMapAsNamedList", false);
@@ -137,6 +139,18 @@ public class JavaBinCodec implements PushWriter {
     return this;
   }
 
+  /**
+   * If set, the field values of each {@link SolrDocument} are not decoded while reading. They are
+   * copied as raw javabin into a buffer owned by the document and decoded on first access, which
+   * saves most of the decoding cost for fields that the reader never looks at. Strings are
+   * returned as {@link ByteArrayUtf8CharSequence} views of that buffer if {@link
+   * #setReadStringAsCharSeq(boolean)} is also set.
+   */
+  public JavaBinCodec setReadDocumentsLazily(boolean flag) {
+    readDocumentsLazily = flag;
+    return this;
+  }
+
   /**
    * Use this to use this as a PushWriter. ensure that close() is called explicitly after use
    *
@@ -720,6 +734,9 @@ public class JavaBinCodec implements PushWriter {
   public SolrDocument readSolrDocument(DataInputInputStream dis) throws IOException {
     tagByte = dis.readByte();
     int size = readSize(dis);
+    if (readDocumentsLazily) {
+      return readLazySolrDocument(dis, size);
+    }
     SolrDocument doc = new SolrDocument(CollectionUtil.newLinkedHashMap(size));
     for (int i = 0; i < size; i++) {
       String fieldName;
@@ -736,6 +753,233 @@ public class JavaBinCodec implements PushWriter {
     return doc;
   }
 
+  // lazily read documents copy their field values here before they get their own buffer
+  private LazyBuffer lazyBuffer;
+  private FastOutputStream lazyOut;
+
+  private static class LazyBuffer extends ByteArrayOutputStream {
+    byte[] copyOfRange(int from, int to) {
+      return Arrays.copyOfRange(buf, from, to);
+    }
+  }
+
+  private SolrDocument readLazySolrDocument(DataInputInputStream dis, int size)
+      throws IOException {
+    if (lazyBuffer == null) {
+      lazyBuffer = new LazyBuffer();
+      lazyOut = new FastOutputStream(lazyBuffer);
+    }
+    // the values are copied with the regular write methods, so point them at the lazy buffer.
+    // Child documents nest into this call and append after the bytes of their parent.
+    FastOutputStream out = daos;
+    daos = lazyOut;
+    int start = (int) lazyOut.size();
+    try {
+      String[] names = new String[size];
+      int[] starts = new int[size];
+      int[] ends = new int[size];
+      int fieldCount = 0;
+      List<SolrDocument> children = null;
+      for (int i = 0; i < size; i++) {
+        Object obj = readVal(dis); // could be a field name, or a child document
+        if (obj instanceof SolrDocument) {
+          if (children == null) children = new ArrayList<>();
+          children.add((SolrDocument) obj);
+          continue;
+        }
+        names[fieldCount] = (String) obj;
+        starts[fieldCount] = (int) lazyOut.size();
+        copyVal(dis);
+        ends[fieldCount++] = (int) lazyOut.size();
+      }
+      // child documents have their own copy of their bytes, the value ranges below skip them
+      lazyOut.flushBuffer();
+      byte[] buf = lazyBuffer.copyOfRange(start, lazyBuffer.size());
+      LazyDocumentFields fields =
+          new LazyDocumentFields(fieldCount, buf, stringCache, readStringAsCharSeq);
+      for (int i = 0; i < fieldCount; i++) {
+        fields.putEncoded(names[i], starts[i] - start, ends[i] - starts[i]);
+      }
+      SolrDocument doc = new SolrDocument(fields);
+      if (children != null) {
+        for (SolrDocument child : children) {
+          doc.addChildDocument(child);
+        }
+      }
+      return doc;
+    } finally {
+      daos = out;
+      if (start == 0) {
+        // outermost document: nothing refers to the shared buffer anymore
+        lazyOut.flushBuffer();
+        lazyOut.setWritten(0);
+        lazyBuffer.reset();
+      }
+    }
+  }
+
+  /**
+   * Copies the next value from {@code dis} to {@link #daos} without materializing it. Extern
+   * strings are written out in full so that the copy can be decoded on its own.
+   *
+   * @return true if the value was the {@link #END} marker
+   */
+  private boolean copyVal(DataInputInputStream dis) throws IOException {
+    tagByte = dis.readByte();
+    return copyTaggedVal(dis);
+  }
+
+  /** Like {@link #copyVal}, for a value whose tag was already read into {@link #tagByte}. */
+  private boolean copyTaggedVal(DataInputInputStream dis) throws IOException {
+    switch (tagByte >>> 5) {
+      case STR >>> 5:
+        {
+          int sz = readSize(dis);
+          writeTag(STR, sz);
+          copyBytes(dis, sz);
+          return false;
+        }
+      case SINT >>> 5:
+      case SLONG >>> 5:
+        daos.writeByte(tagByte);
+        if ((tagByte & 0x10) != 0) {
+          byte b;
+          do {
+            b = dis.readByte();
+            daos.writeByte(b);
+          } while ((b & 0x80) != 0);
+        }
+        return false;
+      case ARR >>> 5:
+        {
+          int sz = readSize(dis);
+          writeTag(ARR, sz);
+          for (int i = 0; i < sz; i++) copyVal(dis);
+          return false;
+        }
+      case ORDERED_MAP >>> 5:
+      case NAMED_LST >>> 5:
+        {
+          byte tag = (byte) (tagByte & 0xe0);
+          int sz = readSize(dis);
+          writeTag(tag, sz);
+          for (int i = 0; i < sz * 2; i++) copyVal(dis);
+          return false;
+        }
+      case EXTERN_STRING >>> 5:
+        writeStr(readExternString(dis));
+        return false;
+    }
+
+    switch (tagByte) {
+      case NULL:
+      case BOOL_TRUE:
+      case BOOL_FALSE:
+        daos.writeByte(tagByte);
+        return false;
+      case END:
+        daos.writeByte(tagByte);
+        return true;
+      case BYTE:
+        daos.writeByte(tagByte);
+        copyBytes(dis, 1);
+        return false;
+      case SHORT:
+        daos.writeByte(tagByte);
+        copyBytes(dis, 2);
+        return false;
+      case INT:
+      case FLOAT:
+        daos.writeByte(tagByte);
+        copyBytes(dis, 4);
+        return false;
+      case LONG:
+      case DOUBLE:
+      case DATE:
+        daos.writeByte(tagByte);
+        copyBytes(dis, 8);
+        return false;
+      case BYTEARR:
+        {
+          int sz = readVInt(dis);
+          writeTag(BYTEARR, sz);
+          copyBytes(dis, sz);
+          return false;
+        }
+      case MAP:
+        {
+          int sz = readVInt(dis);
+          writeTag(MAP, sz);
+          for (int i = 0; i < sz * 2; i++) copyVal(dis);
+          return false;
+        }
+      case ITERATOR:
+      case MAP_ENTRY_ITER:
+        daos.writeByte(tagByte);
+        while (!copyVal(dis))
+          ;
+        return false;
+      case MAP_ENTRY:
+        daos.writeByte(tagByte);
+        copyVal(dis);
+        copyVal(dis);
+        return false;
+      case SOLRDOC:
+        daos.writeByte(tagByte);
+        copySolrDocument(dis);
+        return false;
+      case SOLRDOCLST:
+        // the list of numFound, start, maxScore... then the list of documents
+        daos.writeByte(tagByte);
+        copyVal(dis);
+        copyVal(dis);
+        return false;
+    }
+
+    // rare types: round trip them through the regular read and write methods. A document in them
+    // must not be read lazily, which would write to the lazy buffer ahead of the enclosing value.
+    boolean lazy = readDocumentsLazily;
+    readDocumentsLazily = false;
+    try {
+      writeVal(readObject(dis));
+    } finally {
+      readDocumentsLazily = lazy;
+    }
+    return false;
+  }
+
+  /**
+   * Copies the ORDERED_MAP that follows a {@link #SOLRDOC} tag, where an entry is either a field
+   * name and its value, or a child document on its own.
+   */
+  private void copySolrDocument(DataInputInputStream dis) throws IOException {
+    tagByte = dis.readByte();
+    int sz = readSize(dis);
+    writeTag(ORDERED_MAP, sz);
+    for (int i = 0; i < sz; i++) {
+      tagByte = dis.readByte();
+      if (tagByte == SOLRDOC) {
+        daos.writeByte(tagByte);
+        copySolrDocument(dis);
+      } else {
+        copyTaggedVal(dis); // the field name
+        copyVal(dis);
+      }
+    }
+  }
+
+  private void copyBytes(DataInputInputStream dis, int sz) throws IOException {
+    if (bytes == null || bytes.length < Math.min(sz, MAX_UTF8_SZ)) {
+      bytes = new byte[getBufferSize(Math.min(sz, MAX_UTF8_SZ))];
+    }
+    while (sz > 0) {
+      int n = Math.min(sz, bytes.length);
+      dis.readFully(bytes, 0, n);
+      daos.write(bytes, 0, n);
+      sz -= n;
+    }
+  }
+
   public SolrDocumentList readSolrDocumentList(DataInputInputStream dis) throws IOException {
     SolrDocumentList solrDocs = new SolrDocumentList();
     @SuppressWarnings("unchecked")
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.common.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The field map of a {@link org.apache.solr.common.SolrDocument} read by {@link JavaBinCodec} with
+ * {@link JavaBinCodec#setReadDocumentsLazily(boolean)}. The javabin bytes of every field value are
+ * kept in one buffer per document and a value is only decoded the first time it is accessed, so
+ * fields that are never looked at are never materialized.
+ *
+ * <p>Iterating over the entries or values decodes every field; iterating over the keys does not.
+ */
+class LazyDocumentFields extends AbstractMap<String, Object> {
+
+  /** Placeholder for a value that has not been decoded yet */
+  private static final class Encoded {
+    final int offset;
+    final int length;
+
+    Encoded(int offset, int length) {
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+  private final LinkedHashMap<String, Object> fields;
+  private final byte[] buf;
+  private final JavaBinCodec.StringCache stringCache;
+  private final boolean readStringAsCharSeq;
+  private JavaBinCodec decoder;
+
+  LazyDocumentFields(
+      int size, byte[] buf, JavaBinCodec.StringCache stringCache, boolean readStringAsCharSeq) {
+    this.fields = CollectionUtil.newLinkedHashMap(size);
+    this.buf = buf;
+    this.stringCache = stringCache;
+    this.readStringAsCharSeq = readStringAsCharSeq;
+  }
+
+  /** Registers the value of {@code name} stored at {@code buf[offset, offset + length)} */
+  void putEncoded(String name, int offset, int length) {
+    fields.put(name, new Encoded(offset, length));
+  }
+
+  private synchronized Object decode(Encoded encoded) {
+    if (decoder == null) {
+      decoder = new JavaBinCodec(null, stringCache).setReadStringAsCharSeq(readStringAsCharSeq);
+    }
+    try {
+      return decoder.readVal(
+          new FastInputStream(null, buf, encoded.offset, encoded.offset + encoded.length));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Object resolve(Map.Entry<String, Object> entry) {
+    Object val = entry.getValue();
+    if (val instanceof Encoded encoded) {
+      val = decode(encoded);
+      entry.setValue(val);
+    }
+    return val;
+  }
+
+  private Object decoded(Object val) {
+    return val instanceof Encoded encoded ? decode(encoded) : val;
+  }
+
+  @Override
+  public Object get(Object key) {
+    Object val = fields.get(key);
+    if (val instanceof Encoded encoded) {
+      val = decode(encoded);
+      fields.put((String) key, val);
+    }
+    return val;
+  }
+
+  @Override
+  public Object put(String key, Object value) {
+    return decoded(fields.put(key, value));
+  }
+
+  @Override
+  public Object remove(Object key) {
+    return decoded(fields.remove(key));
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return fields.containsKey(key);
+  }
+
+  @Override
+  public int size() {
+    return fields.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return fields.isEmpty();
+  }
+
+  @Override
+  public void clear() {
+    fields.clear();
+  }
+
+  @Override
+  public Set<String> keySet() {
+    return fields.keySet();
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Entry<String, Object>> iterator() {
+        Iterator<Entry<String, Object>> it = fields.entrySet().iterator();
+        return new Iterator<>() {
+          @Override
+          public boolean hasNext() {
+            return it.hasNext();
+          }
+
+          @Override
+          public Entry<String, Object> next() {
+            Entry<String, Object> entry = it.next();
+            resolve(entry);
+            return entry;
+          }
+
+          @Override
+          public void remove() {
+            it.remove();
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return fields.size();
+      }
+    };
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.routing;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.cloud.ZkStateReader;
+import org.apache.solr.common.util.Utils;
+import org.junit.Test;
+
+@SolrTestCaseJ4.SuppressSSL // not useful / needed for this test
+public class LatencyAwareReplicaListTransformerTest extends SolrTestCase {
+
+  private static final String FAST = "http://fast:8983/solr/c1_s1_r1";
+  private static final String SLOW = "http://slow:8983/solr/c1_s1_r2";
+
+  @Test
+  public void testScore() {
+    ReplicaLoadTracker tracker = new ReplicaLoadTracker();
+    assertEquals(0, tracker.score(FAST), 0);
+
+    tracker.requestStarted(FAST);
+    assertEquals(1, tracker.outstandingRequests(FAST));
+    tracker.requestFinished(FAST, TimeUnit.MILLISECONDS.toNanos(10));
+    assertEquals(0, tracker.outstandingRequests(FAST));
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(10), tracker.averageResponseTime(FAST), 0);
+    double idle = tracker.score(FAST);
+
+    tracker.requestStarted(FAST);
+    assertEquals(8 * idle, tracker.score(FAST), 0);
+
+    // a slow sample moves the average, but doesn't replace it
+    tracker.requestFinished(FAST, TimeUnit.MILLISECONDS.toNanos(110));
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(30), tracker.averageResponseTime(FAST), 1);
+
+    // a canceled request below the average tells nothing
+    tracker.requestStarted(FAST);
+    tracker.requestCanceled(FAST, TimeUnit.MILLISECONDS.toNanos(1));
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(30), tracker.averageResponseTime(FAST), 1);
+
+    // a quick failure must not make the replica look faster
+    tracker.requestStarted(FAST);
+    tracker.requestFailed(FAST, TimeUnit.MILLISECONDS.toNanos(1));
+    assertTrue(tracker.averageResponseTime(FAST) > TimeUnit.MILLISECONDS.toNanos(30));
+    assertEquals(0, tracker.outstandingRequests(FAST));
+  }
+
+  @Test
+  public void testClientErrorsAreNotFailures() {
+    ReplicaLoadTracker tracker = new ReplicaLoadTracker();
+    long tenMillis = TimeUnit.MILLISECONDS.toNanos(10);
+    tracker.requestStarted(FAST);
+    tracker.requestFinished(FAST, tenMillis);
+
+    // a bad request was answered by a healthy replica
+    tracker.requestStarted(FAST);
+    tracker.requestFailed(
+        FAST, tenMillis, new SolrException(SolrException.ErrorCode.BAD_REQUEST, "bad request"));
+    tracker.requestStarted(FAST);
+    tracker.requestFailed(
+        FAST,
+        tenMillis,
+        new CompletionException(
+            new SolrException(SolrException.ErrorCode.BAD_REQUEST, "bad request")));
+    assertEquals(tenMillis, tracker.averageResponseTime(FAST), 0);
+
+    tracker.requestStarted(FAST);
+    tracker.requestFailed(
+        FAST, tenMillis, new SolrException(SolrException.ErrorCode.SERVER_ERROR, "server error"));
+    double afterServerError = tracker.averageResponseTime(FAST);
+    assertTrue(afterServerError > tenMillis);
+
+    tracker.requestStarted(FAST);
+    tracker.requestFailed(FAST, tenMillis, new IOException("connection refused"));
+    assertTrue(tracker.averageResponseTime(FAST) > afterServerError);
+    assertEquals(0, tracker.outstandingRequests(FAST));
+  }
+
+  @Test
+  public void testPercentiles() {
+    ReplicaLoadTracker tracker = new ReplicaLoadTracker();
+    assertEquals(-1, tracker.percentile(FAST, 95));
+    for (int i = 1; i < ReplicaLoadTracker.MIN_SAMPLES; i++) {
+      tracker.requestStarted(FAST);
+      tracker.requestFinished(FAST, i);
+    }
+    assertEquals(-1, tracker.percentile(FAST, 95));
+    for (int i = ReplicaLoadTracker.MIN_SAMPLES; i <= 100; i++) {
+      tracker.requestStarted(FAST);
+      tracker.requestFinished(FAST, i);
+    }
+    assertEquals(50, tracker.percentile(FAST, 50));
+    assertEquals(95, tracker.percentile(FAST + "/", 95));
+    assertEquals(100, tracker.percentile(FAST, 100));
+    assertEquals(1, tracker.percentile(FAST, 0));
+    assertEquals(-1, tracker.percentile(SLOW, 95));
+
+    // only the latest response times count
+    for (int i = 0; i < ReplicaLoadTracker.WINDOW_SIZE; i++) {
+      tracker.requestStarted(FAST);
+      tracker.requestFinished(FAST, 10);
+    }
+    assertEquals(10, tracker.percentile(FAST, 100));
+
+    // a canceled request is a lower bound of the response time, it only counts if it is slow
+    tracker.requestStarted(FAST);
+    tracker.requestCanceled(FAST, 1);
+    assertEquals(10, tracker.percentile(FAST, 0));
+  }
+
+  @Test
+  public void testEvictsIdleReplicas() {
+    ReplicaLoadTracker tracker = new ReplicaLoadTracker();
+    tracker.requestStarted(FAST);
+    tracker.requestFinished(FAST, TimeUnit.MILLISECONDS.toNanos(5));
+    tracker.requestStarted(SLOW);
+    assertEquals(2, tracker.size());
+
+    long later =
+        System.nanoTime() + TimeUnit.MINUTES.toNanos(ReplicaLoadTracker.IDLE_EVICTION_MINUTES + 1);
+    tracker.evictIdle(later);
+    // the replica with an outstanding request is kept
+    assertEquals(1, tracker.size());
+    assertEquals(0, tracker.score(FAST), 0);
+    assertEquals(1, tracker.outstandingRequests(SLOW));
+  }
+
+  @Test
+  public void testPrefersLessLoadedReplica() {
+    ReplicaLoadTracker tracker = new ReplicaLoadTracker();
+    tracker.requestStarted(FAST);
+    tracker.requestFinished(FAST, TimeUnit.MILLISECONDS.toNanos(5));
+    tracker.requestStarted(SLOW);
+    tracker.requestFinished(SLOW, TimeUnit.MILLISECONDS.toNanos(500));
+
+    ReplicaListTransformer transformer =
+        new LatencyAwareReplicaListTransformerFactory(tracker).getInstance(null, null, null);
+    for (int i = 0; i < 20; i++) {
+      List<String> urls = new ArrayList<>(List.of(SLOW, FAST));
+      transformer.transform(urls);
+      assertEquals(FAST, urls.get(0));
+    }
+
+    // the fast replica is so busy that the slow one is the better choice now
+    for (int i = 0; i < 10; i++) {
+      tracker.requestStarted(FAST);
+    }
+    List<String> urls = new ArrayList<>(List.of(FAST, SLOW));
+    transformer.transform(urls);
+    assertEquals(SLOW, urls.get(0));
+  }
+
+  @Test
+  public void testPrefersLessLoadedReplicaObject() {
+    Replica fast = replica("fast:8983_solr", "c1_s1_r1");
+    Replica slow = replica("slow:8983_solr", "c1_s1_r2");
+    assertEquals(FAST + "/", fast.getCoreUrl());
+
+    // requests are recorded by the endpoint URL, without the trailing slash of the core URL
+    ReplicaLoadTracker tracker = new ReplicaLoadTracker();
+    tracker.requestStarted(FAST);
+    tracker.requestFinished(FAST, TimeUnit.MILLISECONDS.toNanos(5));
+    tracker.requestStarted(SLOW);
+    tracker.requestFinished(SLOW, TimeUnit.MILLISECONDS.toNanos(500));
+    assertEquals(tracker.score(FAST), tracker.score(fast.getCoreUrl()), 0);
+
+    ReplicaListTransformer transformer = new LatencyAwareReplicaListTransformer(tracker, random());
+    for (int i = 0; i < 20; i++) {
+      List<Replica> replicas = new ArrayList<>(List.of(slow, fast));
+      transformer.transform(replicas);
+      assertEquals(fast, replicas.get(0));
+    }
+  }
+
+  private static Replica replica(String nodeName, String coreName) {
+    return new Replica(
+        coreName,
+        Map.of(
+            ZkStateReader.NODE_NAME_PROP, nodeName,
+            ZkStateReader.BASE_URL_PROP, Utils.getBaseUrlForNodeName(nodeName, "http"),
+            ZkStateReader.CORE_NAME_PROP, coreName,
+            ZkStateReader.REPLICA_TYPE, "NRT"),
+        "c1",
+        "s1");
+  }
+
+  @Test
+  public void testKeepsAllReplicas() {
+    ReplicaLoadTracker tracker = new ReplicaLoadTracker();
+    List<String> urls = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      String url = "http://node" + i + ":8983/solr/c1_s1_r" + i;
+      urls.add(url);
+      tracker.requestStarted(url);
+      tracker.requestFinished(url, random().nextInt(1000));
+    }
+    List<String> transformed = new ArrayList<>(urls);
+    new LatencyAwareReplicaListTransformer(tracker, random()).transform(transformed);
+    assertEquals(new HashSet<>(urls), new HashSet<>(transformed));
+  }
+}
@@ -464,6 +464,119 @@ public class TestJavaBinCodec extends SolrTestCaseJ4 {
     assertNull(grandChildDocuments.get(0).getChildDocuments());
   }
 
+  @Test
+  public void testReadDocumentsLazily() throws IOException {
+    SolrDocumentList docs = new SolrDocumentList();
+    docs.setNumFound(3);
+    for (int i = 0; i < 3; i++) {
+      SolrDocument doc = new SolrDocument();
+      doc.addField("id", String.valueOf(i));
+      doc.addField("long_l", Long.MAX_VALUE - i);
+      doc.addField("int_i", i * 1000);
+      doc.addField("float_f", i + 0.5f);
+      doc.addField("double_d", i - 0.25d);
+      doc.addField("date_dt", new Date(1_000_000L * i));
+      doc.addField("bool_b", i % 2 == 0);
+      doc.addField("cat_ss", List.of("a" + i, TestUtil.randomUnicodeString(random(), 200)));
+      doc.addField("bytes", new byte[] {1, 2, (byte) i});
+      doc.addField("map", Map.of("k", "v" + i));
+      doc.addField("null_s", null);
+      if (i == 1) {
+        SolrDocument child = new SolrDocument();
+        child.addField("id", "1-1");
+        child.addField("cat_ss", List.of("child"));
+        doc.addChildDocument(child);
+        doc.addField("after_child_s", "tail");
+      }
+      docs.add(doc);
+    }
+    byte[] bytes = getBytes(docs);
+
+    SolrDocumentList lazy;
+    try (JavaBinCodec jbc = new JavaBinCodec().setReadDocumentsLazily(true)) {
+      lazy = (SolrDocumentList) jbc.unmarshal(new ByteArrayInputStream(bytes));
+    }
+    assertEquals(3, lazy.size());
+    assertEquals("0", lazy.get(0).getFieldValue("id"));
+    assertTrue(lazy.get(0).containsKey("cat_ss"));
+    assertEquals("tail", lazy.get(1).getFieldValue("after_child_s"));
+    assertEquals("1-1", lazy.get(1).getChildDocuments().get(0).getFieldValue("id"));
+
+    SolrDocumentList eager = (SolrDocumentList) getObject(bytes);
+    for (int i = 0; i < eager.size(); i++) {
+      SolrDocument expected = eager.get(i);
+      SolrDocument actual = lazy.get(i);
+      assertEquals(expected.getFieldNames(), actual.getFieldNames());
+      for (String name : expected.getFieldNames()) {
+        Object expectedVal = expected.getFieldValue(name);
+        if (expectedVal instanceof byte[]) {
+          assertArrayEquals((byte[]) expectedVal, (byte[]) actual.getFieldValue(name));
+        } else {
+          assertEquals(expectedVal, actual.getFieldValue(name));
+        }
+      }
+    }
+    // re-serializing decodes the remaining fields and writes the same bytes
+    assertArrayEquals(bytes, getBytes(lazy));
+  }
+
+  @Test
+  public void testReadNestedDocumentsLazily() throws IOException {
+    SolrDocument grandChild = new SolrDocument();
+    grandChild.addField("id", "1-1-1");
+    SolrDocument child = new SolrDocument();
+    child.addField("id", "1-1");
+    child.addChildDocument(grandChild);
+    child.addField("after_grand_child_s", "child tail");
+    SolrDocument named = new SolrDocument();
+    named.addField("id", "1-2");
+    named.addField("cat_ss", List.of("named"));
+    SolrDocumentList namedList = new SolrDocumentList();
+    namedList.setNumFound(2);
+    namedList.setMaxScore(1.5f);
+    for (int i = 3; i < 5; i++) {
+      SolrDocument listed = new SolrDocument();
+      listed.addField("id", "1-" + i);
+      namedList.add(listed);
+    }
+    SolrDocument doc = new SolrDocument();
+    doc.addField("id", "1");
+    doc.addChildDocument(child);
+    doc.addField("named_child", named);
+    doc.addField("named_children", namedList);
+    doc.addField("after_children_s", "tail");
+    SolrDocumentList docs = new SolrDocumentList();
+    docs.setNumFound(1);
+    docs.add(doc);
+    byte[] bytes = getBytes(docs);
+
+    SolrDocumentList lazy;
+    try (JavaBinCodec jbc = new JavaBinCodec().setReadDocumentsLazily(true)) {
+      lazy = (SolrDocumentList) jbc.unmarshal(new ByteArrayInputStream(bytes));
+    }
+    SolrDocument lazyDoc = lazy.get(0);
+    assertEquals("1", lazyDoc.getFieldValue("id"));
+    assertEquals("tail", lazyDoc.getFieldValue("after_children_s"));
+
+    SolrDocument lazyChild = lazyDoc.getChildDocuments().get(0);
+    assertEquals("1-1", lazyChild.getFieldValue("id"));
+    assertEquals("child tail", lazyChild.getFieldValue("after_grand_child_s"));
+    assertEquals("1-1-1", lazyChild.getChildDocuments().get(0).getFieldValue("id"));
+
+    SolrDocument lazyNamed = (SolrDocument) lazyDoc.getFieldValue("named_child");
+    assertEquals("1-2", lazyNamed.getFieldValue("id"));
+    assertEquals(List.of("named"), lazyNamed.getFieldValue("cat_ss"));
+
+    SolrDocumentList lazyNamedList = (SolrDocumentList) lazyDoc.getFieldValue("named_children");
+    assertEquals(2, lazyNamedList.getNumFound());
+    assertEquals(1.5f, lazyNamedList.getMaxScore(), 0f);
+    assertEquals(2, lazyNamedList.size());
+    assertEquals("1-3", lazyNamedList.get(0).getFieldValue("id"));
+    assertEquals("1-4", lazyNamedList.get(1).getFieldValue("id"));
+
+    assertArrayEquals(bytes, getBytes(lazy));
+  }
+
   @Test
   public void testStringCaching() throws Exception {
     Map<String, Object> m = Map.of("key1", "val1", "key2", "val2");
@@ -92,6 +92,11 @@ public class SolrIgnoredThreadsFilter implements ThreadFilter {
       return true;
     }
 
+    // frees the off-heap filterCache bitsets once they are garbage collected, for the JVM lifetime
+    if (threadName.startsWith("offHeapDocSetCleaner")) {
+      return true;
+    }
+
     // TestContainers
     if (threadName.startsWith("testcontainers-ryuk")
         || threadName.startsWith("testcontainers-wait-")